@@ -0,0 +1,235 @@
+package org.vstu.meaningtree;
+
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.MeaningTreeCache;
+import org.vstu.meaningtree.languages.TranslatorPool;
+import org.vstu.meaningtree.languages.configs.Config;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Translates many files in one JVM. Inputs are processed by a bounded worker pool,
+ * and every worker leases its own source and target translators, so tree-sitter
+ * languages are loaded once per worker instead of once per file.
+ */
+public class BatchTranslation {
+    public record Result(Path input, Path output, String error, long millis) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final SupportedLanguage fromLanguage;
+    private final SupportedLanguage toLanguage;
+    private final String serializeFormat;
+    private final AugletsRefactorProblemsType task;
+    private final int threads;
+    private final TranslatorPool<LanguageTranslator> fromPool;
+    private final TranslatorPool<LanguageTranslator> toPool;
+
+    /**
+     * @param toLanguage target language, may be null when {@code serializeFormat} is set
+     * @param serializeFormat serialization format, may be null when {@code toLanguage} is set
+     * @param task optional Auglet refactor problem generated before translation
+     * @param threads number of worker threads
+     */
+    public BatchTranslation(SupportedLanguage fromLanguage, SupportedLanguage toLanguage,
+                            String serializeFormat, AugletsRefactorProblemsType task, int threads) {
+        this.fromLanguage = fromLanguage;
+        this.toLanguage = toLanguage;
+        this.serializeFormat = serializeFormat;
+        this.task = task;
+        this.threads = threads;
+        this.fromPool = fromLanguage.createPool(new Config(), threads);
+        this.toPool = serializeFormat == null ? toLanguage.createPool(new Config(), threads) : null;
+    }
+
+    /**
+     * Enables the parse cache for source files, so unchanged files are not parsed again
+     */
+    public void setCache(MeaningTreeCache cache) {
+        fromPool.setCache(cache);
+    }
+
+    /**
+     * Expands command line inputs into a list of files. Every input is either a file, a directory
+     * (searched recursively for files of the source language) or a glob pattern such as {@code src/**.java}.
+     * Lines of the manifest file are treated the same way, relative to the manifest location;
+     * blank lines and lines starting with '#' are skipped.
+     */
+    public List<Path> collectInputs(List<String> inputs, String manifest) throws IOException {
+        Set<Path> result = new LinkedHashSet<>();
+        for (String input : inputs) {
+            collectInput(input, null, result);
+        }
+        if (manifest != null) {
+            Path manifestPath = Path.of(manifest);
+            Path base = manifestPath.toAbsolutePath().getParent();
+            for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    collectInput(line, base, result);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void collectInput(String input, Path base, Set<Path> result) throws IOException {
+        if (isGlob(input)) {
+            collectGlob(input, base, result);
+            return;
+        }
+        Path path = base == null ? Path.of(input) : base.resolve(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(Files::isRegularFile)
+                        .filter(this::hasSourceExtension)
+                        .sorted()
+                        .forEach(result::add);
+            }
+        } else {
+            result.add(path);
+        }
+    }
+
+    private void collectGlob(String pattern, Path base, Set<Path> result) throws IOException {
+        // Directory walk starts from the longest prefix of the pattern without glob characters
+        boolean absolute = pattern.startsWith("/");
+        StringBuilder root = new StringBuilder(absolute ? "/" : "");
+        for (String part : pattern.split("/")) {
+            if (isGlob(part)) {
+                break;
+            }
+            if (!part.isEmpty()) {
+                root.append(part).append('/');
+            }
+        }
+        Path relativeTo = base == null || absolute ? Path.of("") : base;
+        Path walkRoot = relativeTo.resolve(root.toString());
+        if (!Files.isDirectory(walkRoot)) {
+            return;
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        try (Stream<Path> files = Files.walk(walkRoot)) {
+            files.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(absolute ? path : relativeTo.relativize(path)))
+                    .sorted()
+                    .forEach(result::add);
+        }
+    }
+
+    private static boolean isGlob(String s) {
+        return s.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    private boolean hasSourceExtension(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fromLanguage.getFileExtensions().stream().anyMatch(name::endsWith);
+    }
+
+    /**
+     * Output file placed next to the input: the input extension is replaced with the target
+     * language extension, or the serialization format is appended to the input file name.
+     */
+    public Path getOutputPath(Path input) {
+        String name = input.getFileName().toString();
+        String outputName;
+        if (serializeFormat != null) {
+            outputName = name + "." + serializeFormat.toLowerCase(Locale.ROOT);
+        } else {
+            int dot = name.lastIndexOf('.');
+            String stem = dot > 0 ? name.substring(0, dot) : name;
+            String extension = toLanguage.getFileExtensions().getFirst();
+            outputName = stem + extension;
+            if (outputName.equals(name)) {
+                outputName = stem + ".out" + extension;
+            }
+        }
+        return input.resolveSibling(outputName);
+    }
+
+    /**
+     * Translates all inputs and returns results in the order of inputs
+     */
+    public List<Result> run(List<Path> inputs) throws InterruptedException {
+        List<Result> results = new ArrayList<>(inputs.size());
+        try (ExecutorService workers = Executors.newFixedThreadPool(threads)) {
+            List<Future<Result>> futures = new ArrayList<>(inputs.size());
+            for (Path input : inputs) {
+                futures.add(workers.submit(() -> translateFile(input)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(inputs.get(i), null, describe(e.getCause()), 0));
+                }
+            }
+        }
+        return results;
+    }
+
+    private Result translateFile(Path input) {
+        long start = System.nanoTime();
+        Path output = getOutputPath(input);
+        try {
+            String code = Files.readString(input, StandardCharsets.UTF_8);
+            MeaningTree meaningTree = fromPool.execute(translator -> translator.getMeaningTree(code));
+            if (task != null) {
+                meaningTree = AugletsRefactorProblemsGenerator.generate(meaningTree, task, true, Collections.emptyMap())
+                        .problemMeaningTree();
+            }
+
+            String result;
+            if (serializeFormat != null) {
+                var rootNode = meaningTree.getRootNode();
+                result = Main.serialize(serializeFormat, rootNode).orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown serialization format: " + serializeFormat));
+            } else {
+                MeaningTree target = meaningTree;
+                result = toPool.execute(translator -> translator.getCode(target));
+            }
+            Files.writeString(output, result, StandardCharsets.UTF_8);
+            return new Result(input, output, null, elapsedMillis(start));
+        } catch (Exception | StackOverflowError e) {
+            return new Result(input, null, describe(e), elapsedMillis(start));
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage() : e.toString();
+    }
+
+    /**
+     * Prints one line per file followed by totals
+     * @return number of failed files
+     */
+    public static int printSummary(List<Result> results, long totalMillis, PrintStream out) {
+        int failed = 0;
+        for (Result result : results) {
+            if (result.isSuccess()) {
+                out.printf("OK    %s -> %s (%d ms)%n", result.input(), result.output(), result.millis());
+            } else {
+                failed++;
+                out.printf("FAIL  %s: %s%n", result.input(), result.error());
+            }
+        }
+        out.printf("Translated %d of %d files, %d failed, %d ms total%n",
+                results.size() - failed, results.size(), failed, totalMillis);
+        return failed;
+    }
+}
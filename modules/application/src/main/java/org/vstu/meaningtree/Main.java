@@ -3,23 +3,24 @@ package org.vstu.meaningtree;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
 import org.apache.jena.rdf.model.Model;
 import org.vstu.meaningtree.languages.*;
 
 import org.vstu.meaningtree.nodes.Node;
-import org.vstu.meaningtree.serializers.json.JsonSerializer;
+import org.vstu.meaningtree.serializers.json.JsonStreamSerializer;
 import org.vstu.meaningtree.serializers.model.IOAlias;
 import org.vstu.meaningtree.serializers.model.IOAliases;
 import org.vstu.meaningtree.serializers.rdf.RDFSerializer;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 public class Main {
@@ -70,16 +71,126 @@ public class Main {
         }
     }
 
+    @Parameters(commandDescription = "Translate many files in parallel within one process")
+    public static class TranslateBatchCommand {
+        @Parameter(names = "--from", description = "Source language", required = true)
+        private String fromLanguage;
+
+        @Parameter(names = "--to", description = "Target language")
+        private String toLanguage;
+
+        @Parameter(names = "--task", description = "Optional Auglet refactor problem to generate before translation (see translate --help)")
+        private String task;
+
+        @Parameter(names = "--serialize", description = "Serialization format: json or rdf")
+        private String serializeFormat;
+
+        @Parameter(names = "--manifest", description = "File with one input (file, directory or glob) per line")
+        private String manifest;
+
+        @Parameter(names = "--threads", description = "Number of worker threads")
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = "--cache-dir", description = "Directory of the persistent parse cache, reused between runs")
+        private String cacheDir;
+
+        @Parameter(names = "--cache-size", description = "Maximum total number of nodes of parsed trees kept in memory")
+        private long cacheSize = 10_000_000;
+
+        @Parameter(description = "<input_file | directory | glob>...")
+        private List<String> inputs = new ArrayList<>();
+
+        public String getFromLanguage() {
+            return fromLanguage;
+        }
+
+        public String getToLanguage() {
+            return toLanguage;
+        }
+
+        public String getTask() {
+            return task;
+        }
+
+        public String getSerializeFormat() {
+            return serializeFormat;
+        }
+
+        public String getManifest() {
+            return manifest;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public String getCacheDir() {
+            return cacheDir;
+        }
+
+        public long getCacheSize() {
+            return cacheSize;
+        }
+
+        public List<String> getInputs() {
+            return inputs;
+        }
+    }
+
+    @Parameters(commandDescription = "Serve translation requests as JSON lines over stdin/stdout or a local socket")
+    public static class ServeCommand {
+        @Parameter(names = "--port", description = "Listen on this port of the loopback interface instead of stdin/stdout")
+        private Integer port;
+
+        @Parameter(names = "--workers", description = "Maximum number of concurrently used translators per language")
+        private int workers = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = "--max-in-flight", description = "Maximum number of requests processed at the same time per connection")
+        private int maxInFlight = 64;
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+    }
+
     @Parameters(commandDescription = "List all supported languages")
     public static class ListLangsCommand {}
 
     public static Map<String, Class<? extends LanguageTranslator>> translators =
             SupportedLanguage.getStringMap();
 
+    /**
+     * Exit status of translate-batch when some files could not be translated
+     */
+    private static final int BATCH_FILES_FAILED = 1;
+
+    /**
+     * Exit status of translate-batch when the arguments or inputs are invalid and nothing was translated
+     */
+    private static final int BATCH_INVALID_INPUT = 2;
+
+    /**
+     * Exit status of serve when the options are invalid and the server was not started
+     */
+    private static final int SERVE_INVALID_INPUT = 2;
+
     private static final IOAliases<Function<Node, String>> serializers = new IOAliases<>(List.of(
             new IOAlias<>("json", node -> {
-                JsonObject json = new JsonSerializer().serialize(node);
-                return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+                StringWriter writer = new StringWriter();
+                try {
+                    new JsonStreamSerializer(true).serialize(node, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return writer.toString();
             }),
             new IOAlias<>("rdf", node -> {
                 Model model = new RDFSerializer().serialize(node);
@@ -91,10 +202,14 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
         TranslateCommand translateCommand = new TranslateCommand();
+        TranslateBatchCommand translateBatchCommand = new TranslateBatchCommand();
+        ServeCommand serveCommand = new ServeCommand();
         ListLangsCommand listLangsCommand = new ListLangsCommand();
 
         JCommander jc = JCommander.newBuilder()
                 .addCommand("translate", translateCommand)
+                .addCommand("translate-batch", translateBatchCommand)
+                .addCommand("serve", serveCommand)
                 .addCommand("list-langs", listLangsCommand)
                 .build();
 
@@ -105,6 +220,16 @@ public class Main {
             listSupportedLanguages();
         } else if ("translate".equals(parsed)) {
             runTranslation(translateCommand);
+        } else if ("translate-batch".equals(parsed)) {
+            int status = runBatchTranslation(translateBatchCommand);
+            if (status != 0) {
+                System.exit(status);
+            }
+        } else if ("serve".equals(parsed)) {
+            int status = runServer(serveCommand);
+            if (status != 0) {
+                System.exit(status);
+            }
         } else {
             jc.usage();
         }
@@ -162,8 +287,13 @@ public class Main {
         final var rootNode = meaningTree.getRootNode();
 
         // Handle serialization if requested
+        if (serializeFormat != null && serializeFormat.equalsIgnoreCase("json")) {
+            // JSON is written while visiting the tree, without building the whole document in memory
+            writeJsonOutput(rootNode, outputFilePath);
+            return;
+        }
         if (serializeFormat != null) {
-            serializers.apply(serializeFormat, function -> function.apply(rootNode))
+            serialize(serializeFormat, rootNode)
                     .ifPresentOrElse(
                             result -> writeOutput(result, outputFilePath),
                             () -> System.err.println("Unknown serialization format: " + serializeFormat + ". " + serializers.getSupportedFormatsMessage())
@@ -182,6 +312,93 @@ public class Main {
         }
     }
 
+    /**
+     * @return process exit status: 0 on success, {@link #BATCH_FILES_FAILED} or {@link #BATCH_INVALID_INPUT}
+     */
+    private static int runBatchTranslation(TranslateBatchCommand cmd) throws Exception {
+        SupportedLanguage fromLanguage = SupportedLanguage.fromString(cmd.getFromLanguage());
+        SupportedLanguage toLanguage = cmd.getToLanguage() != null ? SupportedLanguage.fromString(cmd.getToLanguage()) : null;
+        String serializeFormat = cmd.getSerializeFormat();
+
+        if (cmd.getToLanguage() == null && serializeFormat == null) {
+            System.err.println("Either --to (target language) or --serialize (format) must be specified");
+            return BATCH_INVALID_INPUT;
+        }
+
+        if (fromLanguage == null) {
+            System.err.println("Unsupported source language: " + cmd.getFromLanguage() + ". Supported languages: " + translators.keySet());
+            return BATCH_INVALID_INPUT;
+        }
+
+        if (cmd.getToLanguage() != null && toLanguage == null) {
+            System.err.println("Unsupported target language: " + cmd.getToLanguage() + ". Supported languages: " + translators.keySet());
+            return BATCH_INVALID_INPUT;
+        }
+
+        if (serializeFormat != null && serializers.apply(serializeFormat, function -> function).isEmpty()) {
+            System.err.println("Unknown serialization format: " + serializeFormat + ". " + serializers.getSupportedFormatsMessage());
+            return BATCH_INVALID_INPUT;
+        }
+
+        if (cmd.getThreads() <= 0) {
+            System.err.println("Number of threads must be positive");
+            return BATCH_INVALID_INPUT;
+        }
+
+        AugletsRefactorProblemsType task = null;
+        if (cmd.getTask() != null) {
+            task = parseTask(cmd.getTask());
+            if (task == null) {
+                return BATCH_INVALID_INPUT;
+            }
+        }
+
+        BatchTranslation batch = new BatchTranslation(fromLanguage, toLanguage, serializeFormat, task, cmd.getThreads());
+        MeaningTreeCache cache = null;
+        if (cmd.getCacheDir() != null) {
+            cache = new MeaningTreeCache(cmd.getCacheSize(), Path.of(cmd.getCacheDir()));
+            batch.setCache(cache);
+        }
+        List<Path> inputs = batch.collectInputs(cmd.getInputs(), cmd.getManifest());
+        if (inputs.isEmpty()) {
+            System.err.println("No input files found");
+            return BATCH_INVALID_INPUT;
+        }
+
+        long start = System.nanoTime();
+        var results = batch.run(inputs);
+        int failed = BatchTranslation.printSummary(results, (System.nanoTime() - start) / 1_000_000, System.out);
+        if (cache != null) {
+            var stats = cache.getStats();
+            System.out.printf("Parse cache: %d memory hits, %d disk hits, %d misses, %d evictions, %d disk errors%n",
+                    stats.hits(), stats.diskHits(), stats.misses(), stats.evictions(), stats.diskErrors());
+        }
+        return failed > 0 ? BATCH_FILES_FAILED : 0;
+    }
+
+    /**
+     * @return process exit status: 0 after the server stops, {@link #SERVE_INVALID_INPUT} if it was not started
+     */
+    private static int runServer(ServeCommand cmd) throws Exception {
+        if (cmd.getWorkers() <= 0 || cmd.getMaxInFlight() <= 0) {
+            System.err.println("Number of workers and max in-flight requests must be positive");
+            return SERVE_INVALID_INPUT;
+        }
+
+        TranslationServer server = new TranslationServer(cmd.getWorkers(), cmd.getMaxInFlight());
+        server.warmUp();
+        if (cmd.getPort() != null) {
+            server.listen(cmd.getPort());
+        } else {
+            server.serve(System.in, System.out);
+        }
+        return 0;
+    }
+
+    static Optional<String> serialize(String format, Node node) {
+        return serializers.apply(format, function -> function.apply(node));
+    }
+
     /**
      * Convert a lowercase-underscore task string into the corresponding enum constant.
      * For example, "add_dangling_else" -> AugletsRefactorProblemsType.ADD_DANGLING_ELSE.
@@ -204,6 +421,22 @@ public class Main {
         }
     }
 
+    private static void writeJsonOutput(Node node, String outputFilePath) {
+        JsonStreamSerializer serializer = new JsonStreamSerializer(true);
+        try {
+            if ("-".equals(outputFilePath)) {
+                serializer.serialize(node, System.out);
+                System.out.println();
+            } else {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFilePath))) {
+                    serializer.serialize(node, out);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing output: " + e.getMessage());
+        }
+    }
+
     private static void writeOutput(String content, String outputFilePath) {
         try {
             if ("-".equals(outputFilePath)) {
@@ -1,22 +1,27 @@
 package org.vstu.meaningtree;
 
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
 import org.vstu.meaningtree.languages.*;
+import org.vstu.meaningtree.languages.configs.Config;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public enum SupportedLanguage {
-    JAVA("java", JavaTranslator.ID),
-    PYTHON("python", PythonTranslator.ID),
-    CPP("c++", CppTranslator.ID);
+    JAVA("java", JavaTranslator.ID, ".java"),
+    PYTHON("python", PythonTranslator.ID, ".py"),
+    CPP("c++", CppTranslator.ID, ".cpp", ".cc", ".cxx", ".c", ".hpp", ".h");
 
     private final String stringValue;
     private final int id;
+    private final List<String> fileExtensions;
 
-    SupportedLanguage(String value, int id) {
+    SupportedLanguage(String value, int id, String... fileExtensions) {
         this.stringValue = value;
         this.id = id;
+        this.fileExtensions = List.of(fileExtensions);
     }
 
     public int getId() {
@@ -74,6 +79,31 @@ public enum SupportedLanguage {
         return translators.get(this).getConstructor(Map.class).newInstance(config);
     }
 
+    public LanguageTranslator createTranslator(Config config) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return translators.get(this).getConstructor(Config.class).newInstance(config);
+    }
+
+    /**
+     * Creates a pool of translators for this language that all share the given configuration.
+     * @param size maximum number of translators leased at the same time
+     */
+    public TranslatorPool<LanguageTranslator> createPool(Config config, int size) {
+        return new TranslatorPool<>(cfg -> {
+            try {
+                return createTranslator(cfg);
+            } catch (ReflectiveOperationException e) {
+                throw new MeaningTreeException(e);
+            }
+        }, config, size);
+    }
+
+    /**
+     * Source file extensions of this language. The first one is used for generated files.
+     */
+    public List<String> getFileExtensions() {
+        return fileExtensions;
+    }
+
     public Class<? extends LanguageTranslator> getTranslatorClass() {
         return translators.get(this);
     }
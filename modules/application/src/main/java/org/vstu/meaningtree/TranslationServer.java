@@ -0,0 +1,288 @@
+package org.vstu.meaningtree;
+
+import com.google.gson.*;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.TranslatorPool;
+import org.vstu.meaningtree.languages.configs.Config;
+import org.vstu.meaningtree.languages.configs.ConfigParameter;
+import org.vstu.meaningtree.languages.configs.ConfigParser;
+import org.vstu.meaningtree.serializers.json.JsonSerializer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Long-running translation server speaking newline-delimited JSON.
+ * <p>
+ * Each request is one JSON object per line:
+ * <pre>
+ * {"id": 1, "from": "java", "to": "python", "code": "...", "config": {"expressionMode": true}, "task": "add_dangling_else"}
+ * {"id": 2, "from": "python", "serialize": "json", "code": "..."}
+ * </pre>
+ * Each response is one JSON object per line carrying the request id, {@code ok}, and either
+ * {@code result} or {@code error}, plus a {@code timing} object with durations in milliseconds.
+ * Requests are processed concurrently, so responses may come back in a different order than requests.
+ * At most {@code maxInFlight} requests of one connection are processed at a time; after that the
+ * server stops reading input until some request completes.
+ * <p>
+ * Translators are kept warm in pools, one pool per language and set of config overrides.
+ * Default-configuration pools live as long as the server; pools for config overrides are kept
+ * in an LRU of at most {@value #MAX_CONFIGURED_POOLS} entries, so clients sending many distinct
+ * configurations can't grow the server without bound. An evicted pool is dropped once the requests
+ * using it complete.
+ * <p>
+ * Trees requested with {@code "serialize": "json"} are written by {@link JsonSerializer}, which shares
+ * the node writer with the {@code json} output of the command line, so node ids and layout are the same.
+ */
+public class TranslationServer {
+    private record PoolKey(SupportedLanguage language, Map<String, String> config) {}
+
+    private static final int MAX_CONFIGURED_POOLS = 16;
+
+    private final int poolSize;
+    private final int maxInFlight;
+    private final Map<SupportedLanguage, TranslatorPool<LanguageTranslator>> defaultPools = new ConcurrentHashMap<>();
+    private final Map<PoolKey, TranslatorPool<LanguageTranslator>> configuredPools =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PoolKey, TranslatorPool<LanguageTranslator>> eldest) {
+                    return size() > MAX_CONFIGURED_POOLS;
+                }
+            };
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Gson gson = new Gson();
+
+    private static final Map<SupportedLanguage, String> WARM_UP_CODE = Map.of(
+            SupportedLanguage.JAVA, "class Main {}",
+            SupportedLanguage.CPP, "int main() {}",
+            SupportedLanguage.PYTHON, "x = 1"
+    );
+
+    /**
+     * @param poolSize maximum number of translators of one language and config used at the same time
+     * @param maxInFlight maximum number of requests of one connection processed at the same time
+     */
+    public TranslationServer(int poolSize, int maxInFlight) {
+        this.poolSize = poolSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Fills the default-configuration pool of every supported language and translates a trivial program
+     * with each translator. Tree-sitter backends and viewers are initialised on first use, so the first
+     * requests don't pay for that.
+     */
+    public void warmUp() {
+        for (SupportedLanguage language : SupportedLanguage.values()) {
+            String code = WARM_UP_CODE.get(language);
+            getPool(language, Map.of()).warmUp(translator -> translator.getCode(translator.getMeaningTree(code)));
+        }
+    }
+
+    /**
+     * Serves requests read from {@code in} until end of input, then waits for all pending responses
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            inFlight.acquire();
+            String request = line;
+            executor.submit(() -> {
+                try {
+                    writeResponse(writer, handle(request));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    /**
+     * Accepts connections on the loopback interface, every connection is an independent request stream
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Listening on " + server.getLocalSocketAddress());
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                executor.submit(() -> {
+                    try (socket) {
+                        serve(socket.getInputStream(), socket.getOutputStream());
+                    } catch (IOException e) {
+                        System.err.println("Connection error: " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void writeResponse(Writer writer, JsonObject response) {
+        String line = gson.toJson(response);
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing response: " + e.getMessage());
+            }
+        }
+    }
+
+    JsonObject handle(String line) {
+        long start = System.nanoTime();
+        JsonObject response = new JsonObject();
+        try {
+            JsonObject request = JsonParser.parseString(line).getAsJsonObject();
+            if (request.has("id")) {
+                response.add("id", request.get("id"));
+            }
+            JsonObject timing = new JsonObject();
+            JsonElement result = process(request, timing);
+            response.addProperty("ok", true);
+            response.add("result", result);
+            timing.addProperty("totalMs", elapsedMillis(start));
+            response.add("timing", timing);
+        } catch (Exception | StackOverflowError e) {
+            response.addProperty("ok", false);
+            response.addProperty("error", e.getMessage() != null
+                    ? e.getClass().getSimpleName() + ": " + e.getMessage() : e.toString());
+            JsonObject timing = new JsonObject();
+            timing.addProperty("totalMs", elapsedMillis(start));
+            response.add("timing", timing);
+        }
+        return response;
+    }
+
+    private JsonElement process(JsonObject request, JsonObject timing) {
+        SupportedLanguage from = getLanguage(request, "from");
+        if (from == null) {
+            throw new IllegalArgumentException("Field 'from' is required");
+        }
+        SupportedLanguage to = getLanguage(request, "to");
+        String serializeFormat = getString(request, "serialize");
+        if (to == null && serializeFormat == null) {
+            throw new IllegalArgumentException("Either 'to' or 'serialize' must be specified");
+        }
+        String code = getString(request, "code");
+        if (code == null) {
+            throw new IllegalArgumentException("Field 'code' is required");
+        }
+        Map<String, String> config = getConfigOverrides(request);
+        String taskName = getString(request, "task");
+
+        long start = System.nanoTime();
+        MeaningTree meaningTree = getPool(from, config).execute(translator -> translator.getMeaningTree(code));
+        timing.addProperty("parseMs", elapsedMillis(start));
+
+        if (taskName != null) {
+            AugletsRefactorProblemsType task;
+            try {
+                task = AugletsRefactorProblemsType.valueOf(taskName.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid task: " + taskName);
+            }
+            start = System.nanoTime();
+            meaningTree = AugletsRefactorProblemsGenerator.generate(meaningTree, task, true, Collections.emptyMap())
+                    .problemMeaningTree();
+            timing.addProperty("taskMs", elapsedMillis(start));
+        }
+
+        start = System.nanoTime();
+        JsonElement result;
+        if (serializeFormat != null) {
+            if (serializeFormat.equalsIgnoreCase("json")) {
+                result = new JsonSerializer().serialize(meaningTree.getRootNode());
+            } else {
+                String format = serializeFormat;
+                result = new JsonPrimitive(Main.serialize(format, meaningTree.getRootNode()).orElseThrow(
+                        () -> new IllegalArgumentException("Unknown serialization format: " + format)));
+            }
+            timing.addProperty("serializeMs", elapsedMillis(start));
+        } else {
+            MeaningTree target = meaningTree;
+            String translated = getPool(to, config).execute(translator -> translator.getCode(target));
+            result = new JsonPrimitive(translated);
+            timing.addProperty("generateMs", elapsedMillis(start));
+        }
+        return result;
+    }
+
+    private TranslatorPool<LanguageTranslator> getPool(SupportedLanguage language, Map<String, String> config) {
+        if (config.isEmpty()) {
+            return defaultPools.computeIfAbsent(language, key -> language.createPool(new Config(), poolSize));
+        }
+        // Config is parsed before taking the lock: invalid overrides fail without touching the LRU
+        Config parsed = parseConfig(config);
+        synchronized (configuredPools) {
+            return configuredPools.computeIfAbsent(new PoolKey(language, config),
+                    key -> language.createPool(parsed, poolSize));
+        }
+    }
+
+    /**
+     * Config overrides are normalised through the config parser, so equal configurations share one pool
+     */
+    private static Map<String, String> getConfigOverrides(JsonObject request) {
+        if (!request.has("config") || request.get("config").isJsonNull()) {
+            return Map.of();
+        }
+        var parser = new ConfigParser();
+        Map<String, String> result = new TreeMap<>();
+        for (var entry : request.getAsJsonObject("config").entrySet()) {
+            ConfigParameter<?> parameter = parser.parse(entry.getKey(), entry.getValue().getAsString());
+            result.put(entry.getKey(), String.valueOf(parameter.getValue()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static Config parseConfig(Map<String, String> overrides) {
+        var parser = new ConfigParser();
+        Config config = new Config();
+        for (var entry : overrides.entrySet()) {
+            config.put(parser.parse(entry.getKey(), entry.getValue()));
+        }
+        return config;
+    }
+
+    private static SupportedLanguage getLanguage(JsonObject request, String field) {
+        String name = getString(request, field);
+        if (name == null) {
+            return null;
+        }
+        SupportedLanguage language = SupportedLanguage.fromString(name);
+        if (language == null) {
+            throw new IllegalArgumentException("Unsupported language: " + name);
+        }
+        return language;
+    }
+
+    private static String getString(JsonObject request, String field) {
+        JsonElement element = request.get(field);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static double elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
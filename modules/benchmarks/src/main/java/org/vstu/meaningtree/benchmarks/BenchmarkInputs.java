@@ -0,0 +1,179 @@
+package org.vstu.meaningtree.benchmarks;
+
+import org.vstu.meaningtree.CodeFormatter;
+import org.vstu.meaningtree.SingleTestCode;
+import org.vstu.meaningtree.TestCase;
+import org.vstu.meaningtree.TestCodeGroup;
+import org.vstu.meaningtree.TestGroup;
+import org.vstu.meaningtree.TestsParser;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Входные данные бенчмарков: синтетические программы заданного размера
+ * и фрагменты кода из тестовых файлов модуля test
+ */
+public final class BenchmarkInputs {
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+    public static final String TESTS = "tests";
+
+    private static final String[] TEST_RESOURCES = {"common.test", "python.test", "с++.test"};
+
+    private BenchmarkInputs() {}
+
+    /**
+     * Создает транслятор языка. Для фрагментов из тестовых файлов используется та же конфигурация, что и в тестах
+     */
+    public static LanguageTranslator createTranslator(String language, String input) {
+        Map<String, String> config = new HashMap<>();
+        if (TESTS.equals(input)) {
+            config.put("translationUnitMode", "false");
+            config.put("skipErrors", "true");
+        }
+        return switch (language) {
+            case "java" -> new JavaTranslator(config);
+            case "python" -> new PythonTranslator(config);
+            case "c++" -> new CppTranslator(config);
+            default -> throw new IllegalArgumentException("Unknown language: " + language);
+        };
+    }
+
+    /**
+     * @return список программ: одна синтетическая программа или все фрагменты тестов на языке
+     */
+    public static List<String> load(String language, String input) {
+        return switch (input) {
+            case SMALL -> List.of(generate(language, 5));
+            case MEDIUM -> List.of(generate(language, 50));
+            case LARGE -> List.of(generate(language, 500));
+            case TESTS -> loadTestSnippets(language);
+            default -> throw new IllegalArgumentException("Unknown input: " + input);
+        };
+    }
+
+    /**
+     * Генерирует программу из заданного количества функций с циклами, ветвлениями и арифметикой
+     */
+    public static String generate(String language, int functions) {
+        StringBuilder builder = new StringBuilder();
+        switch (language) {
+            case "java" -> {
+                builder.append("public class Main {\n");
+                for (int i = 0; i < functions; i++) {
+                    builder.append(String.format("""
+                                public static int f%1$d(int a, int b) {
+                                    int s = 0;
+                                    for (int i = 0; i < a; i++) {
+                                        if (i %% 3 == 0 && b > %1$d) {
+                                            s += i * b - (a + %1$d) / 2;
+                                        } else {
+                                            s -= b;
+                                        }
+                                    }
+                                    while (s > 100) {
+                                        s = s / 2;
+                                    }
+                                    return s + f%2$d(a - 1, b);
+                                }
+                            """, i, Math.max(i - 1, 0)));
+                }
+                builder.append("    public static void main(String[] args) {\n");
+                for (int i = 0; i < functions; i++) {
+                    builder.append(String.format("        int r%1$d = f%1$d(%1$d, %1$d + 1);\n", i));
+                }
+                builder.append("    }\n}\n");
+            }
+            case "python" -> {
+                // Функции пока не поддерживаются выводом типов Python, поэтому программа состоит из блоков верхнего уровня
+                for (int i = 0; i < functions; i++) {
+                    builder.append(String.format("""
+                            a%1$d = %1$d
+                            b%1$d = a%1$d + 1
+                            s%1$d = 0
+                            for i in range(a%1$d):
+                                if i %% 3 == 0 and b%1$d > %1$d:
+                                    s%1$d += i * b%1$d - (a%1$d + %1$d) // 2
+                                else:
+                                    s%1$d -= b%1$d
+                            while s%1$d > 100:
+                                s%1$d = s%1$d // 2
+                            print(s%1$d)
+
+                            """, i));
+                }
+            }
+            case "c++" -> {
+                for (int i = 0; i < functions; i++) {
+                    builder.append(String.format("""
+                            int f%1$d(int a, int b) {
+                                int s = 0;
+                                for (int i = 0; i < a; i++) {
+                                    if (i %% 3 == 0 && b > %1$d) {
+                                        s += i * b - (a + %1$d) / 2;
+                                    } else {
+                                        s -= b;
+                                    }
+                                }
+                                while (s > 100) {
+                                    s = s / 2;
+                                }
+                                return s + f%2$d(a - 1, b);
+                            }
+
+                            """, i, Math.max(i - 1, 0)));
+                }
+                builder.append("int main() {\n");
+                for (int i = 0; i < functions; i++) {
+                    builder.append(String.format("    int r%1$d = f%1$d(%1$d, %1$d + 1);\n", i));
+                }
+                builder.append("    return 0;\n}\n");
+            }
+            default -> throw new IllegalArgumentException("Unknown language: " + language);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Фрагменты кода на языке из всех тестовых файлов (*.test) модуля test
+     */
+    public static List<String> loadTestSnippets(String language) {
+        List<String> snippets = new ArrayList<>();
+        CodeFormatter formatter = new CodeFormatter(language.equals("python"));
+        for (String resource : TEST_RESOURCES) {
+            try (InputStream stream = BenchmarkInputs.class.getClassLoader().getResourceAsStream(resource)) {
+                if (stream == null) {
+                    continue;
+                }
+                String content = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                for (TestGroup group : TestsParser.parse(content)) {
+                    for (TestCase testCase : group.getCases()) {
+                        for (TestCodeGroup codeGroup : testCase.getCodeGroups()) {
+                            if (!codeGroup.getLanguage().equals(language)) {
+                                continue;
+                            }
+                            for (SingleTestCode code : codeGroup) {
+                                snippets.add(code.getFormattedCode(formatter));
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return snippets;
+    }
+}
@@ -0,0 +1,23 @@
+package org.vstu.meaningtree.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа jar'а с бенчмарками. Принимает стандартные аргументы JMH
+ * (например, {@code -p language=java -p input=large TranslatorBenchmark.getCode})
+ * и всегда подключает GC профилировщик, чтобы вместе со временем выводилась интенсивность выделения памяти
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,54 @@
+package org.vstu.meaningtree.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.serializers.json.JsonSerializer;
+import org.vstu.meaningtree.serializers.model.AbstractSerializedNode;
+import org.vstu.meaningtree.serializers.model.UniversalDeserializer;
+import org.vstu.meaningtree.serializers.model.UniversalSerializer;
+import org.vstu.meaningtree.serializers.rdf.RDFSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация и десериализация готовых деревьев
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+    @Benchmark
+    public void json(TranslatorState state, Blackhole bh) {
+        JsonSerializer serializer = new JsonSerializer();
+        for (MeaningTree mt : state.jsonTrees) {
+            bh.consume(serializer.serialize(mt));
+        }
+    }
+
+    @Benchmark
+    public void universalSerialize(TranslatorState state, Blackhole bh) {
+        UniversalSerializer serializer = new UniversalSerializer();
+        for (MeaningTree mt : state.serializableTrees) {
+            bh.consume(serializer.serialize(mt));
+        }
+    }
+
+    @Benchmark
+    public void universalDeserialize(TranslatorState state, Blackhole bh) {
+        UniversalDeserializer deserializer = new UniversalDeserializer();
+        for (AbstractSerializedNode serialized : state.deserializableTrees) {
+            bh.consume(deserializer.deserializeTree(serialized));
+        }
+    }
+
+    @Benchmark
+    public void rdf(TranslatorState state, Blackhole bh) {
+        RDFSerializer serializer = new RDFSerializer();
+        for (MeaningTree mt : state.rdfTrees) {
+            bh.consume(serializer.serialize(mt));
+        }
+    }
+}
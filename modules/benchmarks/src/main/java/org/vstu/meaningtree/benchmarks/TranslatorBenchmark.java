@@ -0,0 +1,45 @@
+package org.vstu.meaningtree.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vstu.meaningtree.MeaningTree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор кода в MeaningTree, генерация кода и токенизация
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslatorBenchmark {
+    @Benchmark
+    public void getMeaningTree(TranslatorState state, Blackhole bh) {
+        for (String code : state.codes) {
+            bh.consume(state.translator.getMeaningTree(code));
+        }
+    }
+
+    @Benchmark
+    public void getCode(TranslatorState state, Blackhole bh) {
+        for (MeaningTree mt : state.viewableTrees) {
+            bh.consume(state.translator.getCode(mt));
+        }
+    }
+
+    @Benchmark
+    public void tokenize(TranslatorState state, Blackhole bh) {
+        for (String code : state.tokenizableCodes) {
+            bh.consume(state.translator.getTokenizer().tokenize(code));
+        }
+    }
+
+    @Benchmark
+    public void tokenizeExtended(TranslatorState state, Blackhole bh) {
+        for (MeaningTree mt : state.tokenizableTrees) {
+            bh.consume(state.translator.getTokenizer().tokenizeExtended(mt));
+        }
+    }
+}
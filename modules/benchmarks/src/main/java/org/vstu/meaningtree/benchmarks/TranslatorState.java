@@ -0,0 +1,95 @@
+package org.vstu.meaningtree.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.serializers.json.JsonSerializer;
+import org.vstu.meaningtree.serializers.model.AbstractSerializedNode;
+import org.vstu.meaningtree.serializers.model.UniversalDeserializer;
+import org.vstu.meaningtree.serializers.model.UniversalSerializer;
+import org.vstu.meaningtree.serializers.rdf.RDFSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Транслятор и заранее подготовленные входные данные для одного языка и набора программ.
+ * <p>
+ * Для каждой операции отбираются только те входные данные, которые она обрабатывает без исключений,
+ * чтобы исключения не искажали измерения. Количество отброшенных входных данных выводится при подготовке
+ */
+@State(Scope.Thread)
+public class TranslatorState {
+    @Param({"java", "python", "c++"})
+    public String language;
+
+    @Param({BenchmarkInputs.SMALL, BenchmarkInputs.MEDIUM, BenchmarkInputs.LARGE, BenchmarkInputs.TESTS})
+    public String input;
+
+    public LanguageTranslator translator;
+
+    /** Код, который удается разобрать в MeaningTree */
+    public List<String> codes;
+    public List<MeaningTree> trees;
+
+    public List<MeaningTree> viewableTrees;
+    public List<String> tokenizableCodes;
+    public List<MeaningTree> tokenizableTrees;
+    public List<MeaningTree> jsonTrees;
+    public List<MeaningTree> serializableTrees;
+    public List<AbstractSerializedNode> deserializableTrees;
+    public List<MeaningTree> rdfTrees;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        translator = BenchmarkInputs.createTranslator(language, input);
+        codes = new ArrayList<>();
+        trees = new ArrayList<>();
+        for (String code : BenchmarkInputs.load(language, input)) {
+            try {
+                trees.add(translator.getMeaningTree(code));
+                codes.add(code);
+            } catch (RuntimeException | StackOverflowError e) {
+                if (!BenchmarkInputs.TESTS.equals(input)) {
+                    throw new IllegalStateException("Synthetic program is not supported by " + language, e);
+                }
+            }
+        }
+        if (codes.isEmpty()) {
+            throw new IllegalStateException("No usable inputs for " + language + "/" + input);
+        }
+
+        viewableTrees = supported("getCode", trees, mt -> translator.getCode(mt));
+        tokenizableCodes = supported("tokenize", codes, code -> translator.getTokenizer().tokenize(code));
+        tokenizableTrees = supported("tokenizeExtended", trees, mt -> translator.getTokenizer().tokenizeExtended(mt));
+        jsonTrees = supported("json", trees, mt -> new JsonSerializer().serialize(mt));
+        serializableTrees = supported("universalSerialize", trees, mt -> new UniversalSerializer().serialize(mt));
+
+        List<AbstractSerializedNode> serialized = new ArrayList<>();
+        UniversalSerializer serializer = new UniversalSerializer();
+        for (MeaningTree mt : serializableTrees) {
+            serialized.add(serializer.serialize(mt));
+        }
+        deserializableTrees = supported("universalDeserialize", serialized,
+                node -> new UniversalDeserializer().deserializeTree(node));
+        rdfTrees = supported("rdf", trees, mt -> new RDFSerializer().serialize(mt));
+    }
+
+    private <T> List<T> supported(String operation, List<T> items, Consumer<T> action) {
+        List<T> result = new ArrayList<>();
+        for (T item : items) {
+            try {
+                action.accept(item);
+                result.add(item);
+            } catch (RuntimeException | StackOverflowError e) {
+                // Операция не поддерживает эти входные данные
+            }
+        }
+        if (result.size() < items.size()) {
+            System.err.printf("%s/%s: %s skips %d of %d inputs%n",
+                    language, input, operation, items.size() - result.size(), items.size());
+        }
+        return result;
+    }
+}
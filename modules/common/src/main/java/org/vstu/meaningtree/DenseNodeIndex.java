@@ -0,0 +1,466 @@
+package org.vstu.meaningtree;
+
+import org.vstu.meaningtree.iterators.utils.*;
+import org.vstu.meaningtree.nodes.Node;
+
+import java.util.*;
+
+/**
+ * Компактная нумерация узлов дерева: узлы получают номера от 0 до n-1 в порядке прямого обхода (корень - 0),
+ * а сведения о них хранятся в примитивных массивах, индексируемых этими номерами.
+ * <p>
+ * Поддерево узла занимает непрерывный диапазон номеров [id, {@link #getSubtreeEnd(int)}),
+ * поэтому проверка "предок - потомок" выполняется за O(1). Собственные данные анализа удобно хранить
+ * в массивах длины {@link #size()}, например {@code new int[index.size()]}.
+ * <p>
+ * Индекс - снимок дерева: замены поддеревьев через {@link MeaningTree#substitute(long, Node)} вносятся в него
+ * на месте ({@link #replace(int, Node)}), после других изменений дерева его нужно построить заново
+ * (см. {@link MeaningTree#getDenseIndex()}).
+ * Глобальные id узлов ({@link Node#getId()}) при нумерации не меняются
+ */
+public class DenseNodeIndex {
+    private static final int NO_PARENT = -1;
+
+    /**
+     * Типы, по которым индексируется узел данного класса: сам класс, его суперклассы и интерфейсы,
+     * кроме общих для всех узлов (Node, Serializable и т.п.)
+     */
+    private static final ClassValue<List<Class<?>>> indexedTypes = new ClassValue<>() {
+        @Override
+        protected List<Class<?>> computeValue(Class<?> type) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            Deque<Class<?>> queue = new ArrayDeque<>();
+            queue.add(type);
+            while (!queue.isEmpty()) {
+                Class<?> current = queue.poll();
+                if (current.isAssignableFrom(Node.class) || !types.add(current)) {
+                    continue;
+                }
+                if (current.getSuperclass() != null) {
+                    queue.add(current.getSuperclass());
+                }
+                queue.addAll(Arrays.asList(current.getInterfaces()));
+            }
+            return List.copyOf(types);
+        }
+    };
+
+    private Node[] nodes;
+    private int[] parents;
+    private int[] depths;
+    private int[] subtreeEnds;
+    private int size = 0;
+    private final boolean assignDenseIds;
+
+    private long[] sortedGlobalIds;
+    private int[] denseByGlobalId;
+
+    /**
+     * Номера узлов каждого типа в порядке обхода (см. {@link #getByType(Class)}), строится при первом запросе
+     */
+    private volatile Map<Class<?>, int[]> byType = null;
+
+    DenseNodeIndex(Node root) {
+        this(root, true);
+    }
+
+    /**
+     * @param assignDenseIds - записывать ли номера в узлы (см. {@link #snapshot(Node)})
+     */
+    private DenseNodeIndex(Node root, boolean assignDenseIds) {
+        this.assignDenseIds = assignDenseIds;
+        nodes = new Node[64];
+        parents = new int[64];
+        depths = new int[64];
+        if (root != null) {
+            number(root);
+        }
+        nodes = Arrays.copyOf(nodes, size);
+        parents = Arrays.copyOf(parents, size);
+        depths = Arrays.copyOf(depths, size);
+
+        // Размеры поддеревьев: потомки всегда имеют больший номер, чем предки
+        int[] subtreeSizes = new int[size];
+        Arrays.fill(subtreeSizes, 1);
+        for (int i = size - 1; i > 0; i--) {
+            subtreeSizes[parents[i]] += subtreeSizes[i];
+        }
+        subtreeEnds = new int[size];
+        for (int i = 0; i < size; i++) {
+            subtreeEnds[i] = i + subtreeSizes[i];
+        }
+
+        long[] globalIds = new long[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            globalIds[i] = nodes[i].getId();
+            order[i] = i;
+        }
+        sortByKey(order, globalIds);
+        sortedGlobalIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedGlobalIds[i] = globalIds[order[i]];
+        }
+        denseByGlobalId = order;
+    }
+
+    /**
+     * Нумерует поддерево произвольного узла, не записывая номера в узлы, поэтому нумерация дерева,
+     * в которое входит узел, не затирается. Поиск по узлу ({@link #getDenseId(Node)}) в таком индексе
+     * может не найти узел; остальные методы работают как обычно
+     */
+    public static DenseNodeIndex snapshot(Node root) {
+        return new DenseNodeIndex(root, false);
+    }
+
+    private void number(Node root) {
+        // Стек хранит пары (узел, номер родителя); дети кладутся в обратном порядке, чтобы сохранить порядок полей
+        Node[] stack = new Node[16];
+        int[] parentStack = new int[16];
+        int top = 0;
+        ArrayList<Node> children = new ArrayList<>();
+        stack[top] = root;
+        parentStack[top++] = NO_PARENT;
+        while (top > 0) {
+            Node node = stack[--top];
+            stack[top] = null;
+            int id = append(node, parentStack[top]);
+
+            children.clear();
+            collectChildren(node, children);
+            if (top + children.size() > stack.length) {
+                int capacity = Math.max(stack.length * 2, top + children.size());
+                stack = Arrays.copyOf(stack, capacity);
+                parentStack = Arrays.copyOf(parentStack, capacity);
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack[top] = children.get(i);
+                parentStack[top++] = id;
+            }
+        }
+    }
+
+    private int append(Node node, int parent) {
+        if (size == nodes.length) {
+            int capacity = size * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        int id = size++;
+        nodes[id] = node;
+        parents[id] = parent;
+        depths[id] = parent == NO_PARENT ? 0 : depths[parent] + 1;
+        if (assignDenseIds) {
+            node.assignDenseId(id);
+        }
+        return id;
+    }
+
+    private static void collectChildren(Node node, List<Node> children) {
+        for (NodeFieldAccessor accessor : NodeMetadata.of(node.getClass()).getFields()) {
+            switch (accessor.get(node)) {
+                case Node child -> children.add(child);
+                case Optional<?> opt when opt.isPresent() && opt.get() instanceof Node child -> children.add(child);
+                case Node[] array -> {
+                    for (Node child : array) {
+                        if (child != null) children.add(child);
+                    }
+                }
+                case Collection<?> collection -> {
+                    for (Object child : collection) {
+                        if (child instanceof Node n) children.add(n);
+                    }
+                }
+                case null, default -> {}
+            }
+        }
+    }
+
+    /**
+     * Сортирует номера по значениям ключей слиянием, без упаковки в объекты. Сортировка устойчива
+     */
+    private static void sortByKey(int[] order, long[] keys) {
+        int[] buffer = new int[order.length];
+        for (int width = 1; width < order.length; width *= 2) {
+            for (int left = 0; left < order.length - width; left += width * 2) {
+                int mid = left + width;
+                int right = Math.min(left + width * 2, order.length);
+                int i = left, j = mid, k = left;
+                while (i < mid && j < right) {
+                    buffer[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+                }
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < right) buffer[k++] = order[j++];
+                System.arraycopy(buffer, left, order, left, right - left);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Node getNode(int denseId) {
+        return nodes[denseId];
+    }
+
+    /**
+     * @return номер узла в этом индексе или -1, если узел в него не входит
+     */
+    public int getDenseId(Node node) {
+        int id = node.getDenseId();
+        return id >= 0 && id < size && nodes[id] == node ? id : -1;
+    }
+
+    /**
+     * Поиск по глобальному id узла. Копии узлов имеют тот же глобальный id, в этом случае возвращается первый по обходу
+     * @return номер узла или -1, если узла с таким id в дереве нет
+     */
+    public int getDenseIdByGlobalId(long globalId) {
+        int pos = Arrays.binarySearch(sortedGlobalIds, globalId);
+        if (pos < 0) {
+            return -1;
+        }
+        while (pos > 0 && sortedGlobalIds[pos - 1] == globalId) {
+            pos--;
+        }
+        return denseByGlobalId[pos];
+    }
+
+    /**
+     * @return номер родителя или -1 для корня
+     */
+    public int getParent(int denseId) {
+        return parents[denseId];
+    }
+
+    public int getDepth(int denseId) {
+        return depths[denseId];
+    }
+
+    /**
+     * @return номер, следующий за последним узлом поддерева
+     */
+    public int getSubtreeEnd(int denseId) {
+        return subtreeEnds[denseId];
+    }
+
+    public int getSubtreeSize(int denseId) {
+        return subtreeEnds[denseId] - denseId;
+    }
+
+    public boolean isAncestor(int ancestor, int descendant) {
+        return ancestor <= descendant && descendant < subtreeEnds[ancestor];
+    }
+
+    /**
+     * Заменяет поддерево узла denseId поддеревом node. Обходится только новое поддерево: номера остальных узлов
+     * сдвигаются на разницу размеров поддеревьев, а таблица типов, если она уже построена, дополняется типами
+     * новых узлов. Узлы-копии остаются отдельными записями
+     */
+    void replace(int denseId, Node node) {
+        int end = subtreeEnds[denseId];
+        DenseNodeIndex subtree = new DenseNodeIndex(node, false);
+        int delta = subtree.size - (end - denseId);
+        int newSize = size + delta;
+
+        Node[] newNodes = new Node[newSize];
+        int[] newParents = new int[newSize];
+        int[] newDepths = new int[newSize];
+        int[] newSubtreeEnds = new int[newSize];
+        for (int i = 0; i < denseId; i++) {
+            newNodes[i] = nodes[i];
+            newParents[i] = parents[i];
+            newDepths[i] = depths[i];
+            // Поддеревья предков содержат замененное поддерево, остальные заканчиваются до него
+            newSubtreeEnds[i] = subtreeEnds[i] >= end ? subtreeEnds[i] + delta : subtreeEnds[i];
+        }
+        for (int i = 0; i < subtree.size; i++) {
+            int id = denseId + i;
+            newNodes[id] = subtree.nodes[i];
+            newParents[id] = i == 0 ? parents[denseId] : subtree.parents[i] + denseId;
+            newDepths[id] = subtree.depths[i] + depths[denseId];
+            newSubtreeEnds[id] = subtree.subtreeEnds[i] + denseId;
+        }
+        for (int i = end; i < size; i++) {
+            int id = i + delta;
+            newNodes[id] = nodes[i];
+            newParents[id] = parents[i] >= end ? parents[i] + delta : parents[i];
+            newDepths[id] = depths[i];
+            newSubtreeEnds[id] = subtreeEnds[i] + delta;
+        }
+        if (assignDenseIds) {
+            for (int id = denseId; id < (delta == 0 ? denseId + subtree.size : newSize); id++) {
+                newNodes[id].assignDenseId(id);
+            }
+        }
+
+        // Записи поиска по глобальному id: старые без замененного поддерева сливаются с записями нового поддерева.
+        // При равных id первым идет узел с меньшим номером, как после устойчивой сортировки
+        long[] newSortedGlobalIds = new long[newSize];
+        int[] newDenseByGlobalId = new int[newSize];
+        int i = 0, j = 0, k = 0;
+        while (k < newSize) {
+            while (i < size && denseByGlobalId[i] >= denseId && denseByGlobalId[i] < end) {
+                i++;
+            }
+            int old = i < size ? (denseByGlobalId[i] >= end ? denseByGlobalId[i] + delta : denseByGlobalId[i]) : -1;
+            int added = j < subtree.size ? subtree.denseByGlobalId[j] + denseId : -1;
+            boolean takeOld = j >= subtree.size || old >= 0 && (sortedGlobalIds[i] < subtree.sortedGlobalIds[j]
+                    || sortedGlobalIds[i] == subtree.sortedGlobalIds[j] && old < added);
+            if (takeOld) {
+                newSortedGlobalIds[k] = sortedGlobalIds[i++];
+                newDenseByGlobalId[k++] = old;
+            } else {
+                newSortedGlobalIds[k] = subtree.sortedGlobalIds[j++];
+                newDenseByGlobalId[k++] = added;
+            }
+        }
+
+        Map<Class<?>, int[]> table = byType;
+        if (table != null) {
+            table = replaceByType(table, subtree.buildByType(), denseId, end, delta);
+        }
+
+        nodes = newNodes;
+        parents = newParents;
+        depths = newDepths;
+        subtreeEnds = newSubtreeEnds;
+        sortedGlobalIds = newSortedGlobalIds;
+        denseByGlobalId = newDenseByGlobalId;
+        size = newSize;
+        byType = table;
+    }
+
+    /**
+     * Таблица типов после замены диапазона номеров [start, end) узлами поддерева с таблицей типов subtree
+     */
+    private static Map<Class<?>, int[]> replaceByType(Map<Class<?>, int[]> table, Map<Class<?>, int[]> subtree,
+                                                      int start, int end, int delta) {
+        Set<Class<?>> types = new HashSet<>(table.keySet());
+        types.addAll(subtree.keySet());
+        Map<Class<?>, int[]> result = new HashMap<>(types.size() * 2);
+        for (Class<?> type : types) {
+            int[] old = table.getOrDefault(type, new int[0]);
+            int[] added = subtree.getOrDefault(type, new int[0]);
+            // Номера в массивах возрастают, поэтому границы диапазона находятся двоичным поиском
+            int before = lowerBound(old, start);
+            int after = lowerBound(old, end);
+            int[] matched = new int[before + added.length + old.length - after];
+            System.arraycopy(old, 0, matched, 0, before);
+            for (int i = 0; i < added.length; i++) {
+                matched[before + i] = added[i] + start;
+            }
+            for (int i = after; i < old.length; i++) {
+                matched[before + added.length + i - after] = old[i] + delta;
+            }
+            if (matched.length > 0) {
+                result.put(type, matched);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return позиция первого элемента возрастающего массива, не меньшего value
+     */
+    private static int lowerBound(int[] sorted, int value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    /**
+     * Узлы заданного типа, включая наследников: например, для {@code Loop.class} - все циклы дерева.
+     * Копии узлов с одинаковым глобальным id учитываются по отдельности. При первом запросе строится
+     * таблица типов, после этого запрос выполняется за время, пропорциональное ответу
+     * @return номера узлов в порядке прямого обхода
+     */
+    public int[] getByType(Class<?> type) {
+        if (type.isAssignableFrom(Node.class)) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        Map<Class<?>, int[]> table = byType;
+        if (table == null) {
+            table = buildByType();
+            byType = table;
+        }
+        int[] matched = table.get(type);
+        return matched == null ? new int[0] : matched.clone();
+    }
+
+    private Map<Class<?>, int[]> buildByType() {
+        // Сначала считаются размеры, затем номера раскладываются по массивам точного размера
+        Map<Class<?>, int[]> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            for (Class<?> type : indexedTypes.get(nodes[i].getClass())) {
+                counts.computeIfAbsent(type, t -> new int[1])[0]++;
+            }
+        }
+        Map<Class<?>, int[]> table = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Class<?>, int[]> entry : counts.entrySet()) {
+            table.put(entry.getKey(), new int[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (Class<?> type : indexedTypes.get(nodes[i].getClass())) {
+                table.get(type)[counts.get(type)[0]++] = i;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Информация об узле с родителем, полем-владельцем и глубиной. Поле находится среди полей родителя
+     */
+    public NodeInfo getNodeInfo(int denseId) {
+        Node node = nodes[denseId];
+        int parent = parents[denseId];
+        if (parent == NO_PARENT) {
+            return new NodeInfo(node, null, null, 0);
+        }
+        return new NodeInfo(node, nodes[parent], findField(nodes[parent], node), depths[denseId]);
+    }
+
+    private static FieldDescriptor findField(Node parent, Node child) {
+        Iterator<FieldDescriptor> fields = NodeMetadata.of(parent.getClass()).describe(parent);
+        while (fields.hasNext()) {
+            FieldDescriptor field = fields.next();
+            try {
+                if (field instanceof NodeFieldDescriptor nfd && nfd.get() == child) {
+                    return field;
+                }
+                Iterator<Node> children = switch (field) {
+                    case ArrayFieldDescriptor afd -> afd.iterator();
+                    case CollectionFieldDescriptor cfd -> cfd.iterator();
+                    default -> null;
+                };
+                for (int i = 0; children != null && children.hasNext(); i++) {
+                    if (children.next() == child) {
+                        return field.withIndex(i);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                // пропускаем поле, как и обходчики дерева
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Путь от корня до узла
+     * @return номера узлов, начиная с корня и заканчивая самим узлом
+     */
+    public int[] getPath(int denseId) {
+        int[] path = new int[depths[denseId] + 1];
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = denseId;
+            denseId = parents[denseId];
+        }
+        return path;
+    }
+}
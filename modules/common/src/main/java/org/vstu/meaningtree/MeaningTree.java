@@ -2,12 +2,16 @@ package org.vstu.meaningtree;
 
 import org.jetbrains.annotations.NotNull;
 import org.vstu.meaningtree.iterators.DFSNodeIterator;
+import org.vstu.meaningtree.iterators.NodeSpliterator;
+import org.vstu.meaningtree.iterators.TreeCursor;
 import org.vstu.meaningtree.iterators.utils.NodeInfo;
 import org.vstu.meaningtree.iterators.utils.NodeIterable;
 import org.vstu.meaningtree.iterators.utils.TreeNode;
 import org.vstu.meaningtree.nodes.Node;
 import org.vstu.meaningtree.utils.Label;
 import org.vstu.meaningtree.utils.LabelAttachable;
+import org.vstu.meaningtree.utils.LabelStore;
+import org.vstu.meaningtree.utils.SourceSpans;
 
 import java.io.Serializable;
 import java.util.*;
@@ -15,8 +19,10 @@ import java.util.*;
 public class MeaningTree implements Serializable, LabelAttachable, Cloneable, NodeIterable {
     @TreeNode
     private Node rootNode;
-    private TreeMap<Long, NodeInfo> _index = null;
-    private Set<Label> _labels = new HashSet<>();
+    private transient MeaningTreeIndex _index = null;
+    private transient DenseNodeIndex _denseIndex = null;
+    private LabelStore _labels = null;
+    private SourceSpans _sourceSpans = null;
 
     public MeaningTree(Node rootNode) {
         this.rootNode = rootNode;
@@ -27,23 +33,123 @@ public class MeaningTree implements Serializable, LabelAttachable, Cloneable, No
     }
 
     public void changeRoot(Node node) {
-        rootNode = node;}
+        rootNode = node;
+        if (_denseIndex != null && _denseIndex.size() > 0) {
+            _denseIndex.replace(0, node);
+        } else {
+            _denseIndex = null;
+        }
+        if (_index != null) {
+            // Смена корня меняет глубину всех узлов, поэтому индекс строится заново
+            makeIndex();
+        }
+    }
 
+    /**
+     * Строит индекс узлов заново. Нужен только после изменения узлов в обход {@link #substitute(long, Node)}
+     * и {@link #changeRoot(Node)}, иначе индекс обновляется сам
+     */
     public void makeIndex() {
-        TreeMap<Long, NodeInfo> treeMap = new TreeMap<>();
-        for (NodeInfo node : this) {
-            if (node != null) {
-                treeMap.put(node.node().getId(), node);
-            }
-        }
-        _index = treeMap;
+        _index = new MeaningTreeIndex(rootNode);
     }
 
-    public NodeInfo getNodeById(long id) {
-        if (_index == null || _index.isEmpty()) {
+    /**
+     * Индекс узлов дерева, при первом обращении строится
+     */
+    public MeaningTreeIndex getIndex() {
+        if (_index == null) {
             makeIndex();
         }
-        return _index.getOrDefault(id, null);
+        return _index;
+    }
+
+    /**
+     * Узлы дерева заданного типа, включая наследников типа (например, все циклы для {@code Loop.class}), в порядке обхода.
+     * Использует таблицу типов нумерации {@link #getDenseIndex()}, которая строится один раз и дополняется
+     * при изменении дерева через {@link #substitute(long, Node)} и {@link #changeRoot(Node)}
+     */
+    public <T> List<T> nodesOfType(Class<T> type) {
+        DenseNodeIndex index = getDenseIndex();
+        int[] matched = index.getByType(type);
+        List<T> result = new ArrayList<>(matched.length);
+        for (int denseId : matched) {
+            result.add(type.cast(index.getNode(denseId)));
+        }
+        return result;
+    }
+
+    /**
+     * То же, что {@link #nodesOfType(Class)}, но с родителем, полем и глубиной каждого узла
+     */
+    public List<NodeInfo> nodeInfosOfType(Class<?> type) {
+        DenseNodeIndex index = getDenseIndex();
+        int[] matched = index.getByType(type);
+        List<NodeInfo> result = new ArrayList<>(matched.length);
+        for (int denseId : matched) {
+            result.add(index.getNodeInfo(denseId));
+        }
+        return result;
+    }
+
+    /**
+     * Компактная нумерация узлов дерева с таблицами родителей и глубин в примитивных массивах.
+     * Нумерация строится при первом обращении и обновляется при изменении дерева через {@link #substitute(long, Node)}
+     * и {@link #changeRoot(Node)}; после изменений узлов в обход дерева ее нужно перестроить через {@link #makeDenseIndex()}
+     */
+    public DenseNodeIndex getDenseIndex() {
+        if (_denseIndex == null) {
+            makeDenseIndex();
+        }
+        return _denseIndex;
+    }
+
+    public DenseNodeIndex makeDenseIndex() {
+        _denseIndex = new DenseNodeIndex(rootNode);
+        return _denseIndex;
+    }
+
+    /**
+     * Диапазоны исходного кода узлов. Сохраняются парсером, если включен параметр
+     * {@link org.vstu.meaningtree.languages.configs.params.RetainSourceSpans}
+     * @return диапазоны или null, если они не сохранялись
+     */
+    public SourceSpans getSourceSpans() {
+        return _sourceSpans;
+    }
+
+    public void setSourceSpans(SourceSpans spans) {
+        _sourceSpans = spans;
+    }
+
+    /**
+     * Самый вложенный узел, построенный из кода, содержащего заданное смещение
+     * @param byteOffset - смещение в байтах UTF-8 от начала кода
+     * @return узел или null, если диапазоны не сохранялись или смещение не покрыто узлами дерева
+     */
+    public Node getNodeAt(int byteOffset) {
+        if (_sourceSpans == null) {
+            return null;
+        }
+        long id = _sourceSpans.findInnermost(byteOffset);
+        NodeInfo info = id < 0 ? null : getNodeById(id);
+        return info == null ? null : info.node();
+    }
+
+    /**
+     * Самый вложенный узел в заданной позиции кода
+     * @param line - строка, начиная с нуля
+     * @param column - столбец в байтах, начиная с нуля
+     */
+    public Node getNodeAt(int line, int column) {
+        if (_sourceSpans == null) {
+            return null;
+        }
+        int offset = _sourceSpans.toByteOffset(line, column);
+        return offset < 0 ? null : getNodeAt(offset);
+    }
+
+    public NodeInfo getNodeById(long id) {
+        return getIndex().get(id);
     }
 
     @Override
@@ -52,11 +158,22 @@ public class MeaningTree implements Serializable, LabelAttachable, Cloneable, No
         if (_index == null) {
             return new DFSNodeIterator(rootNode, true);
         } else {
-            return _index.sequencedValues().iterator();
+            return _index.values().iterator();
         }
     }
 
+    /**
+     * Родитель узла. Уже построенный индекс узлов используется, если в нем есть именно этот объект узла,
+     * иначе дерево обходится с поиском равного узла. Сам метод индекс не строит, поэтому не меняет порядок обхода
+     * дерева (см. {@link #iterator()})
+     */
     public Node findParentOfNode(Node node) {
+        if (_index != null) {
+            NodeInfo indexed = _index.get(node.getId());
+            if (indexed != null && indexed.node() == node) {
+                return indexed.parent();
+            }
+        }
         for (NodeInfo inf : this) {
             if (inf.node().equals(node)) {
                 return inf.parent();
@@ -98,42 +215,46 @@ public class MeaningTree implements Serializable, LabelAttachable, Cloneable, No
 
     @Override
     public int hashCode() {
-        List<Object> toHash = new ArrayList<>();
-        toHash.add(rootNode);
-        toHash.addAll(_labels);
-        return Objects.hash(toHash.toArray(new Object[0]));
+        // Метки сравниваются без учета порядка, поэтому и хэшируются без него.
+        // Для дерева без меток значение совпадает с прежним Objects.hash(rootNode)
+        return 31 + Objects.hashCode(rootNode) + 31 * LabelStore.contentHashCode(_labels);
     }
 
     @Override
     public MeaningTree clone() {
         MeaningTree mt = new MeaningTree(rootNode.clone());
-        mt._labels = new HashSet<>(this._labels);
+        mt._labels = _labels == null ? null : _labels.copy();
+        // Копии узлов сохраняют id, поэтому диапазоны остаются верными
+        mt._sourceSpans = _sourceSpans;
         return mt;
     }
 
     @Override
     public void setLabel(Label label) {
-        _labels.add(label);
+        if (_labels == null) {
+            _labels = new LabelStore();
+        }
+        _labels.set(label);
     }
 
     @Override
     public Label getLabel(short id) {
-        return _labels.stream().filter((Label l) -> l.getId() == id).findFirst().orElse(null);
+        return _labels == null ? null : _labels.get(id);
     }
 
     @Override
     public boolean hasLabel(short id) {
-        return _labels.stream().anyMatch((Label l) -> l.getId() == id);
+        return _labels != null && _labels.has(id);
     }
 
     @Override
     public boolean removeLabel(Label label) {
-        return _labels.remove(label);
+        return _labels != null && _labels.remove(label);
     }
 
     @Override
     public Set<Label> getAllLabels() {
-        return Set.copyOf(_labels);
+        return _labels == null ? Set.of() : _labels.toSet();
     }
 
     public List<Node> allChildren() {
@@ -143,6 +264,19 @@ public class MeaningTree implements Serializable, LabelAttachable, Cloneable, No
         return children;
     }
 
+    /**
+     * Все узлы дерева, включая корень. Использует нумерацию {@link #getDenseIndex()}
+     */
+    @Override
+    public NodeSpliterator nodeSpliterator() {
+        DenseNodeIndex index = getDenseIndex();
+        return new NodeSpliterator(index, 0, index.size());
+    }
+
+    public TreeCursor cursor() {
+        return new TreeCursor(rootNode);
+    }
+
     public List<NodeInfo> iterate() {
         ArrayList<NodeInfo> children = new ArrayList<>();
         children.addAll(rootNode.iterate(true));
@@ -156,7 +290,18 @@ public class MeaningTree implements Serializable, LabelAttachable, Cloneable, No
                 changeRoot(node);
                 return true;
             }
-            return nodeInfo.field().substitute(node);
+            if (nodeInfo.field().substitute(node)) {
+                _index.replace(nodeInfo, node);
+                if (_denseIndex != null) {
+                    int denseId = _denseIndex.getDenseId(nodeInfo.node());
+                    if (denseId >= 0) {
+                        _denseIndex.replace(denseId, node);
+                    } else {
+                        _denseIndex = null;
+                    }
+                }
+                return true;
+            }
         }
         return false;
     }
@@ -0,0 +1,114 @@
+package org.vstu.meaningtree;
+
+import org.vstu.meaningtree.iterators.DFSNodeIterator;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.nodes.Node;
+
+import java.util.*;
+
+/**
+ * Индекс узлов дерева: id узла, его родитель, поле-владелец и глубина.
+ * <p>
+ * Индекс поддерживается в актуальном состоянии при изменении дерева через {@link MeaningTree#substitute(long, Node)}
+ * и {@link MeaningTree#changeRoot(Node)}: при замене узла переиндексируются только старое и новое поддеревья.
+ * Изменения узлов в обход {@link MeaningTree} индекс не отслеживает, после них его нужно перестроить
+ * через {@link MeaningTree#makeIndex()}
+ */
+public class MeaningTreeIndex {
+    private final TreeMap<Long, NodeInfo> nodes = new TreeMap<>();
+
+    MeaningTreeIndex(Node root) {
+        add(root, null, null, 0);
+    }
+
+    /**
+     * @return информация об узле или null, если узла с таким id в дереве нет
+     */
+    public NodeInfo get(long id) {
+        return nodes.get(id);
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    /**
+     * @return родитель узла или null для корня и узлов, которых нет в дереве
+     */
+    public Node getParent(long id) {
+        NodeInfo info = nodes.get(id);
+        return info == null ? null : info.parent();
+    }
+
+    /**
+     * @return глубина узла (у корня - 0) или -1, если узла нет в дереве
+     */
+    public int getDepth(long id) {
+        NodeInfo info = nodes.get(id);
+        return info == null ? -1 : info.depth();
+    }
+
+    /**
+     * Путь от корня дерева до узла
+     * @return список узлов, начинающийся с корня и заканчивающийся самим узлом, или пустой список, если узла нет в дереве
+     */
+    public List<NodeInfo> getPath(long id) {
+        NodeInfo info = nodes.get(id);
+        if (info == null) {
+            return List.of();
+        }
+        NodeInfo[] path = new NodeInfo[info.depth() + 1];
+        for (int i = info.depth(); i >= 0 && info != null; i--) {
+            path[i] = info;
+            info = info.parent() == null ? null : nodes.get(info.parent().getId());
+        }
+        return Arrays.asList(path);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return информация об узлах в порядке возрастания их id
+     */
+    public SequencedCollection<NodeInfo> values() {
+        return nodes.sequencedValues();
+    }
+
+    /**
+     * Обновляет индекс после замены узла в поле родителя
+     * @param replaced - информация о замененном узле до замены
+     * @param node - новый узел
+     */
+    void replace(NodeInfo replaced, Node node) {
+        remove(replaced.node());
+        add(node, replaced.parent(), replaced, replaced.depth());
+    }
+
+    private void remove(Node subtreeRoot) {
+        subtreeRoot.cursor().forEachPreOrder(node -> {
+            NodeInfo indexed = nodes.get(node.getId());
+            // Узлы-копии имеют тот же id, поэтому удаляется только запись, относящаяся именно к этому узлу
+            if (indexed != null && indexed.node() == node) {
+                nodes.remove(node.getId());
+            }
+        });
+    }
+
+    private void add(Node subtreeRoot, Node parent, NodeInfo place, int depth) {
+        if (subtreeRoot == null) {
+            return;
+        }
+        DFSNodeIterator iterator = new DFSNodeIterator(subtreeRoot, true);
+        while (iterator.hasNext()) {
+            NodeInfo info = iterator.next();
+            if (info.node() == subtreeRoot) {
+                info = new NodeInfo(subtreeRoot, parent, place == null ? null : place.field(), depth);
+            } else if (depth != 0) {
+                info = new NodeInfo(info.node(), info.parent(), info.field(), info.depth() + depth);
+            }
+            nodes.put(info.id(), info);
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class DFSNodeIterator extends AbstractNodeIterator {
         Frame(Node node, FieldDescriptor parentField) {
             this.node = node;
             this.parentField = parentField;
-            this.fieldIterator = node.getFieldDescriptors().values().iterator();
+            this.fieldIterator = NodeMetadata.of(node.getClass()).describe(node);
         }
     }
 
@@ -36,7 +36,7 @@ public class NodeIterator extends AbstractNodeIterator {
     NodeIterator(Node node, boolean includeThis, int depth, FieldDescriptor parent) {
         this.root = node;
         this.depth = depth;
-        this.fieldIterator = node.getFieldDescriptors().values().iterator();
+        this.fieldIterator = NodeMetadata.of(node.getClass()).describe(node);
         giveRoot = includeThis;
         this.parent = parent;
     }
@@ -0,0 +1,127 @@
+package org.vstu.meaningtree.iterators;
+
+import org.vstu.meaningtree.DenseNodeIndex;
+import org.vstu.meaningtree.nodes.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Разделяемый перебор узлов в порядке прямого обхода. Работает по диапазону номеров {@link DenseNodeIndex}:
+ * поддерево занимает непрерывный диапазон, поэтому размер известен заранее, а разделение выполняется
+ * по границе поддеревьев (между детьми одного узла), ближайшей к середине диапазона.
+ * <p>
+ * Перебирает снимок дерева на момент построения индекса
+ */
+public final class NodeSpliterator implements Spliterator<Node> {
+    /**
+     * Размер части обхода (в узлах), которую {@link #visitInParallel(NodeSpliterator, Consumer, int)}
+     * по умолчанию обрабатывает в одном потоке
+     */
+    public static final int DEFAULT_GRANULARITY = 1024;
+
+    private final DenseNodeIndex index;
+    private int position;
+    private final int end;
+
+    /**
+     * @param from - номер первого узла
+     * @param to - номер, следующий за последним узлом; диапазон должен заканчиваться на границе поддерева
+     */
+    public NodeSpliterator(DenseNodeIndex index, int from, int to) {
+        this.index = index;
+        this.position = from;
+        this.end = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Node> action) {
+        if (position >= end) {
+            return false;
+        }
+        action.accept(index.getNode(position++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Node> action) {
+        int to = end;
+        for (int i = position; i < to; i++) {
+            action.accept(index.getNode(i));
+        }
+        position = to;
+    }
+
+    @Override
+    public NodeSpliterator trySplit() {
+        if (end - position < 2) {
+            return null;
+        }
+        int mid = (position + end) >>> 1;
+        // Поднимаемся от середины до поддерева, родитель которого уже перебран или стоит первым в диапазоне:
+        // начало и конец такого поддерева - границы между детьми одного узла
+        int split = mid;
+        while (index.getParent(split) > position) {
+            split = index.getParent(split);
+        }
+        int after = index.getSubtreeEnd(split);
+        if (after < end && after - mid < mid - split) {
+            split = after;
+        }
+        NodeSpliterator prefix = new NodeSpliterator(index, position, split);
+        position = split;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Обрабатывает узлы в общем пуле fork/join. Порядок вызовов не определен, обработчик должен быть потокобезопасным
+     * @param granularity - размер части обхода, которая не делится дальше и обрабатывается в одном потоке
+     */
+    public static void visitInParallel(NodeSpliterator nodes, Consumer<? super Node> action, int granularity) {
+        if (granularity < 1) {
+            throw new IllegalArgumentException("Granularity must be positive");
+        }
+        ForkJoinPool.commonPool().invoke(new VisitTask(nodes, action, granularity));
+    }
+
+    private static final class VisitTask extends RecursiveAction {
+        private final NodeSpliterator nodes;
+        private final Consumer<? super Node> action;
+        private final int granularity;
+
+        VisitTask(NodeSpliterator nodes, Consumer<? super Node> action, int granularity) {
+            this.nodes = nodes;
+            this.action = action;
+            this.granularity = granularity;
+        }
+
+        @Override
+        protected void compute() {
+            List<VisitTask> forked = new ArrayList<>();
+            NodeSpliterator prefix;
+            while (nodes.estimateSize() > granularity && (prefix = nodes.trySplit()) != null) {
+                VisitTask task = new VisitTask(prefix, action, granularity);
+                task.fork();
+                forked.add(task);
+            }
+            nodes.forEachRemaining(action);
+            for (VisitTask task : forked) {
+                task.join();
+            }
+        }
+    }
+}
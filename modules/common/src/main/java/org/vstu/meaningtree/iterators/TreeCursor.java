@@ -0,0 +1,277 @@
+package org.vstu.meaningtree.iterators;
+
+import org.vstu.meaningtree.iterators.utils.NodeFieldAccessor;
+import org.vstu.meaningtree.iterators.utils.NodeMetadata;
+import org.vstu.meaningtree.nodes.Node;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Курсор по дереву узлов, аналог курсора tree sitter. Хранит путь от корня до текущего узла
+ * в переиспользуемых массивах, поэтому перемещение по дереву не создает объектов на каждый узел
+ * (кроме итераторов коллекций без произвольного доступа, например множеств).
+ * <p>
+ * Дети узла перебираются в порядке полей {@link NodeMetadata}, элементы массивов и коллекций - по порядку.
+ * Пустые значения и элементы, не являющиеся узлами, пропускаются.
+ * Курсор не потокобезопасен и не должен использоваться при изменении дерева
+ */
+public final class TreeCursor {
+    private Node[] nodes = new Node[16];
+    /**
+     * Номер поля родителя (в {@link NodeMetadata#getFields()}), в котором находится узел пути
+     */
+    private int[] fields = new int[16];
+    /**
+     * Индекс узла в массиве или коллекции, -1 для одиночного поля
+     */
+    private int[] elements = new int[16];
+    private Iterator<?>[] iterators = new Iterator<?>[16];
+    private int depth;
+
+    public enum VisitResult {
+        CONTINUE,
+        /**
+         * Не заходить в детей текущего узла. При выходе из узла равносильно {@link #CONTINUE}
+         */
+        SKIP_CHILDREN,
+        STOP
+    }
+
+    /**
+     * Обработчик обхода: {@link #enter(TreeCursor)} вызывается в прямом порядке, {@link #leave(TreeCursor)} - в обратном.
+     * Текущий узел, его поле и глубина читаются из переданного курсора
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        VisitResult enter(TreeCursor cursor);
+
+        default VisitResult leave(TreeCursor cursor) {
+            return VisitResult.CONTINUE;
+        }
+    }
+
+    public TreeCursor(Node root) {
+        reset(root);
+    }
+
+    /**
+     * Переставляет курсор на новый корень, сохраняя выделенную память
+     */
+    public void reset(Node root) {
+        Objects.requireNonNull(root);
+        Arrays.fill(nodes, 0, depth + 1, null);
+        Arrays.fill(iterators, 0, depth + 1, null);
+        depth = 0;
+        nodes[0] = root;
+        fields[0] = -1;
+        elements[0] = -1;
+    }
+
+    public Node currentNode() {
+        return nodes[depth];
+    }
+
+    /**
+     * @return родитель текущего узла или null, если курсор стоит на корне
+     */
+    public Node parentNode() {
+        return depth == 0 ? null : nodes[depth - 1];
+    }
+
+    /**
+     * @return имя поля родителя, в котором находится текущий узел, или null для корня
+     */
+    public String currentFieldName() {
+        return depth == 0 ? null : NodeMetadata.of(nodes[depth - 1].getClass()).getFields().get(fields[depth]).getName();
+    }
+
+    /**
+     * @return индекс текущего узла в массиве или коллекции родителя или -1, если узел хранится в поле непосредственно
+     */
+    public int currentIndex() {
+        return elements[depth];
+    }
+
+    /**
+     * @return глубина текущего узла относительно корня курсора
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean gotoFirstChild() {
+        if (depth + 1 == nodes.length) {
+            grow();
+        }
+        if (seek(depth + 1, 0, 0)) {
+            depth++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean gotoNextSibling() {
+        if (depth == 0) {
+            return false;
+        }
+        int element = elements[depth];
+        return element < 0 ? seek(depth, fields[depth] + 1, 0) : seek(depth, fields[depth], element + 1);
+    }
+
+    public boolean gotoParent() {
+        if (depth == 0) {
+            return false;
+        }
+        nodes[depth] = null;
+        iterators[depth] = null;
+        depth--;
+        return true;
+    }
+
+    /**
+     * Обходит поддерево текущего узла. После обхода курсор возвращается на узел, с которого начат обход
+     * @return false, если обход остановлен обработчиком
+     */
+    public boolean walk(Visitor visitor) {
+        int base = depth;
+        while (true) {
+            VisitResult result = visitor.enter(this);
+            if (result == VisitResult.STOP) {
+                rewind(base);
+                return false;
+            }
+            if (result == VisitResult.CONTINUE && gotoFirstChild()) {
+                continue;
+            }
+            // Выходим из узлов, пока не найдется следующий брат
+            while (true) {
+                if (visitor.leave(this) == VisitResult.STOP) {
+                    rewind(base);
+                    return false;
+                }
+                if (depth == base) {
+                    return true;
+                }
+                if (gotoNextSibling()) {
+                    break;
+                }
+                gotoParent();
+            }
+        }
+    }
+
+    public void forEachPreOrder(Consumer<Node> action) {
+        walk(cursor -> {
+            action.accept(cursor.currentNode());
+            return VisitResult.CONTINUE;
+        });
+    }
+
+    public void forEachPostOrder(Consumer<Node> action) {
+        walk(new Visitor() {
+            @Override
+            public VisitResult enter(TreeCursor cursor) {
+                return VisitResult.CONTINUE;
+            }
+
+            @Override
+            public VisitResult leave(TreeCursor cursor) {
+                action.accept(cursor.currentNode());
+                return VisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @return количество узлов в поддереве текущего узла, включая его самого
+     */
+    public int countNodes() {
+        int base = depth;
+        int count = 1;
+        while (true) {
+            if (gotoFirstChild()) {
+                count++;
+                continue;
+            }
+            while (depth != base && !gotoNextSibling()) {
+                gotoParent();
+            }
+            if (depth == base) {
+                return count;
+            }
+            count++;
+        }
+    }
+
+    private void rewind(int base) {
+        while (depth > base) {
+            gotoParent();
+        }
+    }
+
+    /**
+     * Ищет первого ребенка родителя уровня level, начиная с позиции (field, element), и ставит его на этот уровень.
+     * При неудаче путь не меняется
+     */
+    private boolean seek(int level, int field, int element) {
+        Node parent = nodes[level - 1];
+        List<NodeFieldAccessor> accessors = NodeMetadata.of(parent.getClass()).getFields();
+        for (int f = field; f < accessors.size(); f++, element = 0) {
+            Object value = accessors.get(f).get(parent);
+            switch (value) {
+                case Node node -> {
+                    if (element == 0) {
+                        return place(level, node, f, -1, null);
+                    }
+                }
+                case Optional<?> optional -> {
+                    if (element == 0 && optional.orElse(null) instanceof Node node) {
+                        return place(level, node, f, -1, null);
+                    }
+                }
+                case Node[] array -> {
+                    for (int i = element; i < array.length; i++) {
+                        if (array[i] != null) {
+                            return place(level, array[i], f, i, null);
+                        }
+                    }
+                }
+                case List<?> list when list instanceof RandomAccess -> {
+                    for (int i = element; i < list.size(); i++) {
+                        if (list.get(i) instanceof Node node) {
+                            return place(level, node, f, i, null);
+                        }
+                    }
+                }
+                case Collection<?> collection -> {
+                    // Продолжаем перебор коллекции тем же итератором, которым нашли предыдущего брата
+                    Iterator<?> iterator = element == 0 ? collection.iterator() : iterators[level];
+                    for (int i = element; iterator.hasNext(); i++) {
+                        if (iterator.next() instanceof Node node) {
+                            return place(level, node, f, i, iterator);
+                        }
+                    }
+                }
+                case null, default -> {}
+            }
+        }
+        return false;
+    }
+
+    private boolean place(int level, Node node, int field, int element, Iterator<?> iterator) {
+        nodes[level] = node;
+        fields[level] = field;
+        elements[level] = element;
+        iterators[level] = iterator;
+        return true;
+    }
+
+    private void grow() {
+        int capacity = nodes.length * 2;
+        nodes = Arrays.copyOf(nodes, capacity);
+        fields = Arrays.copyOf(fields, capacity);
+        elements = Arrays.copyOf(elements, capacity);
+        iterators = Arrays.copyOf(iterators, capacity);
+    }
+}
@@ -14,9 +14,13 @@ public class ArrayFieldDescriptor extends FieldDescriptor implements Iterable<No
         super(owner, fieldName, field, readOnly);
     }
 
+    public ArrayFieldDescriptor(Node owner, NodeFieldAccessor accessor) {
+        super(owner, accessor);
+    }
+
     @Override
     public FieldDescriptor clone() {
-        return new ArrayFieldDescriptor(owner, name, field, readOnly);
+        return new ArrayFieldDescriptor(owner, accessor);
     }
 
     public int length() throws IllegalAccessException {
@@ -24,7 +28,7 @@ public class ArrayFieldDescriptor extends FieldDescriptor implements Iterable<No
     }
 
     public Node[] getArray() throws IllegalAccessException {
-        return (Node[]) field.get(owner);
+        return (Node[]) accessor.get(owner);
     }
 
     @Override
@@ -32,6 +36,7 @@ public class ArrayFieldDescriptor extends FieldDescriptor implements Iterable<No
         if (getIndex() != -1) {
             try {
                 getArray()[getIndex()] = value;
+                owner.invalidateStructuralHash();
                 return true;
             } catch (IllegalAccessException e) {}
         }
@@ -11,16 +11,20 @@ public class CollectionFieldDescriptor extends FieldDescriptor implements Iterab
         super(owner, fieldName, field, readOnly);
     }
 
+    public CollectionFieldDescriptor(Node owner, NodeFieldAccessor accessor) {
+        super(owner, accessor);
+    }
+
     @Override
     public boolean ensureWritable() {
         super.ensureWritable();
         try {
-            Object val = field.get(owner);
+            Object val = accessor.get(owner);
             if (val instanceof SequencedSet) {
-                field.set(owner, new LinkedHashSet<>(get()));
+                accessor.set(owner, new LinkedHashSet<>(get()));
                 return true;
             } else if (val instanceof List) {
-                field.set(owner, new ArrayList<>(get()));
+                accessor.set(owner, new ArrayList<>(get()));
                 return true;
             }
         } catch (IllegalAccessException e) {}
@@ -29,49 +33,41 @@ public class CollectionFieldDescriptor extends FieldDescriptor implements Iterab
 
     @Override
     public FieldDescriptor clone() {
-        return new CollectionFieldDescriptor(owner, name, field, readOnly);
+        return new CollectionFieldDescriptor(owner, accessor);
     }
 
     @Override
     public boolean substitute(Node value) {
         ensureWritable();
-        Object val = null;
-        try {
-            val = field.get(owner);
-        } catch (IllegalAccessException e) {
-            return false;
-        }
+        Object val = accessor.get(owner);
         if (val instanceof List<?> && getIndex() != -1) {
             var list = (List) val;
             list.set(getIndex(), value);
+            owner.invalidateStructuralHash();
             return true;
         }
         return false;
     }
 
     public boolean substituteCollection(Collection<?> values) {
-        try {
-            field.set(owner, values);
-            return true;
-        } catch (IllegalAccessException e) {
-            return false;
-        }
+        accessor.set(owner, values);
+        return true;
     }
 
     public boolean canModifyCollection() throws IllegalAccessException {
-        return field.get(owner).getClass().getSimpleName().toLowerCase().startsWith("unmodifiable");
+        return accessor.get(owner).getClass().getSimpleName().toLowerCase().startsWith("unmodifiable");
     }
 
     public boolean isList() throws IllegalAccessException {
-        return List.class.isInstance(field.get(owner));
+        return List.class.isInstance(accessor.get(owner));
     }
 
     public List<? extends Node> asList() throws IllegalAccessException {
-        return (List<? extends Node>) field.get(owner);
+        return (List<? extends Node>) accessor.get(owner);
     }
 
     public Collection<? extends Node> get() throws IllegalAccessException {
-        return (Collection<? extends Node>) field.get(owner);
+        return (Collection<? extends Node>) accessor.get(owner);
     }
 
     @Override
@@ -11,14 +11,20 @@ public abstract class FieldDescriptor implements Cloneable {
     protected boolean readOnly;
 
     protected final Field field;
+    protected final NodeFieldAccessor accessor;
 
     private int indexTag = -1;
 
     public FieldDescriptor(Node owner, String fieldName, Field field, boolean readOnly) {
+        this(owner, NodeFieldAccessor.of(field, fieldName, readOnly));
+    }
+
+    public FieldDescriptor(Node owner, NodeFieldAccessor accessor) {
         this.owner = owner;
-        this.name = fieldName;
-        this.field = field;
-        this.readOnly = readOnly;
+        this.accessor = accessor;
+        this.name = accessor.getName();
+        this.field = accessor.getField();
+        this.readOnly = accessor.isReadOnly();
     }
 
     public String getName() {
@@ -49,13 +55,9 @@ public abstract class FieldDescriptor implements Cloneable {
     public abstract FieldDescriptor clone();
 
     public boolean substitute(Node value) {
-        try {
-            ensureWritable();
-            field.set(owner, value);
-            return true;
-        } catch (IllegalAccessException e) {
-            return false;
-        }
+        ensureWritable();
+        accessor.set(owner, value);
+        return true;
     }
 
     public boolean canWrite() {
@@ -63,7 +65,6 @@ public abstract class FieldDescriptor implements Cloneable {
     }
 
     public boolean ensureWritable() {
-        field.setAccessible(true);
         return true;
     }
 
@@ -0,0 +1,120 @@
+package org.vstu.meaningtree.iterators.utils;
+
+import org.vstu.meaningtree.nodes.Node;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Заранее подготовленный доступ к полю узла, помеченному {@link TreeNode}.
+ * Создается один раз на класс (см. {@link NodeMetadata}) и не зависит от конкретного экземпляра узла
+ */
+public final class NodeFieldAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final String name;
+    private final Field field;
+    private final boolean readOnly;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private NodeFieldAccessor(String name, Field field, boolean readOnly) {
+        this.name = name;
+        this.field = field;
+        this.readOnly = readOnly;
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format("Field %s is not accessible", field), e);
+        }
+    }
+
+    /**
+     * Создает доступ к произвольному полю. Предпочтительно получать готовые объекты через {@link NodeMetadata}
+     */
+    public static NodeFieldAccessor of(Field field, String name, boolean readOnly) {
+        return new NodeFieldAccessor(name, field, readOnly);
+    }
+
+    static NodeFieldAccessor of(Field field, TreeNode treeNode) {
+        String name = treeNode.alias() != null && !treeNode.alias().isEmpty() ? treeNode.alias() : field.getName();
+        return new NodeFieldAccessor(name, field, treeNode.readOnly());
+    }
+
+    /**
+     * Может ли поле с таким объявленным типом вообще содержать узлы дерева
+     */
+    static boolean canHoldNodes(Class<?> type) {
+        if (type.isPrimitive()) {
+            return false;
+        }
+        return type.isInterface() || type.isArray()
+                || type.isAssignableFrom(Node.class) || Node.class.isAssignableFrom(type)
+                || Collection.class.isAssignableFrom(type) || type == Optional.class;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public Object get(Object owner) {
+        try {
+            return (Object) getter.invokeExact(owner);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Записывает значение поля. Отпечаток узла-владельца (см. {@link Node#structuralHash()}) сбрасывается
+     */
+    public void set(Object owner, Object value) {
+        try {
+            setter.invokeExact(owner, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        if (owner instanceof Node node) {
+            node.invalidateStructuralHash();
+        }
+    }
+
+    /**
+     * Создает дескриптор поля для конкретного узла в зависимости от текущего значения поля
+     * @param owner - узел-владелец поля
+     * @return дескриптор или null, если в поле сейчас не хранится узел или коллекция узлов
+     */
+    public FieldDescriptor describe(Node owner) {
+        Object value = get(owner);
+        if (value instanceof Collection<?>) {
+            return new CollectionFieldDescriptor(owner, this);
+        } else if (value instanceof Node[]) {
+            return new ArrayFieldDescriptor(owner, this);
+        } else if (value instanceof Node) {
+            return new NodeFieldDescriptor(owner, this);
+        } else if (value instanceof Optional<?> opt && (opt.isPresent() ? opt.get() instanceof Node : true)) {
+            return new NodeFieldDescriptor(owner, this);
+        }
+        return null;
+    }
+}
@@ -13,9 +13,13 @@ public class NodeFieldDescriptor extends FieldDescriptor implements Iterable<Fie
         super(owner, fieldName, field, readOnly);
     }
 
+    public NodeFieldDescriptor(Node owner, NodeFieldAccessor accessor) {
+        super(owner, accessor);
+    }
+
     @Override
     public FieldDescriptor clone() {
-        return new NodeFieldDescriptor(owner, name, field, readOnly);
+        return new NodeFieldDescriptor(owner, accessor);
     }
 
     @Override
@@ -25,20 +29,21 @@ public class NodeFieldDescriptor extends FieldDescriptor implements Iterable<Fie
 
     public Node get() throws IllegalAccessException {
         if (field.getType() == Optional.class) {
-            var opt = (Optional) field.get(owner);
+            var opt = (Optional) accessor.get(owner);
             if (opt.isPresent()) {
                 return (Node) opt.get();
             } else {
                 return null;
             }
         }
-        return (Node) field.get(owner);
+        return (Node) accessor.get(owner);
     }
 
     @Override
     public @NotNull Iterator<FieldDescriptor> iterator() {
         try {
-            return get().getFieldDescriptors().values().iterator();
+            Node node = get();
+            return NodeMetadata.of(node.getClass()).describe(node);
         } catch (IllegalAccessException e) {
             return new ArrayList<FieldDescriptor>().iterator();
         }
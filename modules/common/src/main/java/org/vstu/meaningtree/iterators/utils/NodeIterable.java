@@ -1,4 +1,36 @@
 package org.vstu.meaningtree.iterators.utils;
 
+import org.vstu.meaningtree.iterators.NodeSpliterator;
+import org.vstu.meaningtree.nodes.Node;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 public interface NodeIterable extends Iterable<NodeInfo> {
+    /**
+     * Узлы в порядке прямого обхода с разделением по границам поддеревьев (см. {@link NodeSpliterator})
+     */
+    NodeSpliterator nodeSpliterator();
+
+    /**
+     * Поток узлов в порядке прямого обхода. Параллельный поток ({@link Stream#parallel()}) делит обход по поддеревьям
+     */
+    default Stream<Node> stream() {
+        return StreamSupport.stream(nodeSpliterator(), false);
+    }
+
+    /**
+     * Обрабатывает узлы параллельно в общем пуле fork/join. Обработчик должен быть потокобезопасным
+     */
+    default void parallelVisit(Consumer<? super Node> action) {
+        parallelVisit(action, NodeSpliterator.DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * @param granularity - количество узлов, меньше которого часть обхода не делится между потоками
+     */
+    default void parallelVisit(Consumer<? super Node> action, int granularity) {
+        NodeSpliterator.visitInParallel(nodeSpliterator(), action, granularity);
+    }
 }
@@ -0,0 +1,125 @@
+package org.vstu.meaningtree.iterators.utils;
+
+import org.vstu.meaningtree.nodes.Node;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Метаданные класса узла: упорядоченный список полей, помеченных {@link TreeNode}.
+ * Строятся один раз на класс и разделяются между всеми потоками
+ */
+public final class NodeMetadata {
+    private static final ClassValue<NodeMetadata> registry = new ClassValue<>() {
+        @Override
+        protected NodeMetadata computeValue(Class<?> type) {
+            return new NodeMetadata(type);
+        }
+    };
+
+    private final List<NodeFieldAccessor> fields;
+    private final Map<String, NodeFieldAccessor> fieldsByName;
+    private final boolean comparesChildren;
+
+    private NodeMetadata(Class<?> type) {
+        // Поля суперклассов идут раньше полей наследников, внутри класса - в порядке объявления
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+
+        List<NodeFieldAccessor> fields = new ArrayList<>();
+        Map<String, NodeFieldAccessor> byName = new HashMap<>();
+        boolean comparesChildren = true;
+        for (Class<?> c : hierarchy) {
+            int declaredCount = fields.size();
+            for (Field field : c.getDeclaredFields()) {
+                TreeNode treeNode = field.getAnnotation(TreeNode.class);
+                if (treeNode == null || Modifier.isStatic(field.getModifiers())
+                        || !NodeFieldAccessor.canHoldNodes(field.getType())) {
+                    continue;
+                }
+                NodeFieldAccessor accessor = NodeFieldAccessor.of(field, treeNode);
+                if (byName.putIfAbsent(accessor.getName(), accessor) == null) {
+                    fields.add(accessor);
+                }
+            }
+            if (fields.size() > declaredCount && !declaresEquals(c)) {
+                comparesChildren = false;
+            }
+        }
+        this.fields = List.copyOf(fields);
+        this.fieldsByName = Map.copyOf(byName);
+        this.comparesChildren = comparesChildren;
+    }
+
+    private static boolean declaresEquals(Class<?> type) {
+        try {
+            type.getDeclaredMethod("equals", Object.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static NodeMetadata of(Class<?> type) {
+        return registry.get(type);
+    }
+
+    /**
+     * @return поля узла в порядке обхода
+     */
+    public List<NodeFieldAccessor> getFields() {
+        return fields;
+    }
+
+    /**
+     * Сравнивает ли {@link Node#equals(Object)} узлов этого класса содержимое полей-детей.
+     * Считается, что да, если каждый класс иерархии, объявляющий такие поля, переопределяет equals.
+     * Многие узлы (например, операторы ветвления и циклы) наследуют сравнение только по типу и меткам
+     */
+    public boolean comparesChildren() {
+        return comparesChildren;
+    }
+
+    public NodeFieldAccessor getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Лениво создает дескрипторы полей конкретного узла, пропуская поля, в которых сейчас нет узлов
+     * @param owner - узел, класс которого описывают эти метаданные
+     */
+    public Iterator<FieldDescriptor> describe(Node owner) {
+        return new Iterator<>() {
+            private int index = 0;
+            private FieldDescriptor next = advance();
+
+            private FieldDescriptor advance() {
+                while (index < fields.size()) {
+                    FieldDescriptor descriptor = fields.get(index++).describe(owner);
+                    if (descriptor != null) {
+                        return descriptor;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public FieldDescriptor next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                FieldDescriptor result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+}
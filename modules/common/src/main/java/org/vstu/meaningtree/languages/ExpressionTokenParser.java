@@ -0,0 +1,159 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.nodes.Expression;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.ParenthesizedExpression;
+import org.vstu.meaningtree.utils.tokens.OperatorArity;
+import org.vstu.meaningtree.utils.tokens.OperatorAssociativity;
+import org.vstu.meaningtree.utils.tokens.OperatorToken;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+import org.vstu.meaningtree.utils.tokens.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разбор выражения из списка токенов методом подъема по приоритетам (Пратта), без сборки кода и tree sitter.
+ * Приоритеты и ассоциативность операторов берутся из таблицы токенайзера языка
+ * ({@link LanguageTokenizer#getOperatorByTokenName(String)}), а узлы строит язык - теми же методами, что и при
+ * разборе через tree sitter.
+ * <p>
+ * Поддерживаются операнды, группирующие скобки, префиксные унарные и бинарные операторы. На любой другой
+ * конструкции разбор возвращает null, и транслятор разбирает выражение через tree sitter
+ */
+public abstract class ExpressionTokenParser {
+    protected final LanguageTokenizer tokenizer;
+    private final Map<String, Optional<OperatorToken>> operators = new ConcurrentHashMap<>();
+
+    protected ExpressionTokenParser(LanguageTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * @return узел операнда (идентификатора, литерала) или null, если токен не поддерживается
+     */
+    protected abstract Expression operand(String value);
+
+    /**
+     * @return имя префиксного унарного оператора в таблице токенайзера или null, если такого оператора нет
+     */
+    protected abstract String prefixOperatorName(String value);
+
+    /**
+     * @return узел унарной операции или null, если оператор не поддерживается
+     */
+    protected abstract Expression prefix(String operator, Expression argument);
+
+    /**
+     * @return узел бинарной операции или null, если оператор не поддерживается
+     */
+    protected abstract Expression binary(String operator, Expression left, Expression right);
+
+    protected Expression parenthesized(Expression expression) {
+        return new ParenthesizedExpression(expression);
+    }
+
+    /**
+     * @return выражение или null, если в нем есть неподдерживаемые конструкции
+     */
+    public Expression parse(TokenList tokens) {
+        return parse(tokens, null);
+    }
+
+    /**
+     * Разбирает выражение и, если разбор удался, присваивает узлам теги значений так же, как разбор через tree sitter:
+     * тег достается самому вложенному узлу, токены которого включают группу тега
+     */
+    Expression parse(TokenList tokens, ValueTags tags) {
+        Run run = new Run(tokens, tags != null);
+        Expression result = run.expression(Integer.MAX_VALUE);
+        if (result == null || run.position != tokens.size()) {
+            return null;
+        }
+        if (tags != null) {
+            for (int i = 0; i < run.created.size(); i++) {
+                tags.assignToTokens(run.created.get(i), run.spans.get(2 * i), run.spans.get(2 * i + 1));
+            }
+        }
+        return result;
+    }
+
+    private OperatorToken operator(String name) {
+        return operators.computeIfAbsent(name, n -> Optional.ofNullable(tokenizer.getOperatorByTokenName(n))).orElse(null);
+    }
+
+    /**
+     * Состояние одного разбора. Узлы запоминаются вместе с диапазонами токенов в порядке создания
+     * (вложенные раньше внешних), чтобы назначить теги только после успешного разбора
+     */
+    private final class Run {
+        private final TokenList tokens;
+        private final List<Node> created;
+        private final List<Integer> spans;
+        private int position = 0;
+
+        Run(TokenList tokens, boolean trackSpans) {
+            this.tokens = tokens;
+            this.created = trackSpans ? new ArrayList<>() : null;
+            this.spans = trackSpans ? new ArrayList<>() : null;
+        }
+
+        /**
+         * Разбирает выражение из операторов с приоритетом не слабее maxPrecedence (меньшее число - более сильная связь)
+         */
+        Expression expression(int maxPrecedence) {
+            int start = position;
+            Expression left = unary();
+            while (left != null && position < tokens.size()) {
+                String value = tokens.get(position).value;
+                OperatorToken op = operator(value);
+                if (op == null || op.arity != OperatorArity.BINARY || op.precedence > maxPrecedence) {
+                    break;
+                }
+                position++;
+                Expression right = expression(op.assoc == OperatorAssociativity.LEFT ? op.precedence - 1 : op.precedence);
+                left = right == null ? null : created(binary(value, left, right), start);
+            }
+            return left;
+        }
+
+        private Expression unary() {
+            if (position == tokens.size()) {
+                return null;
+            }
+            int start = position;
+            String value = tokens.get(position).value;
+            TokenType type = tokens.get(position).type;
+            if (value.equals("(") && type.isOnlyGroupingBrace()) {
+                position++;
+                Expression inner = expression(Integer.MAX_VALUE);
+                if (inner == null || position == tokens.size() || !tokens.get(position).value.equals(")")) {
+                    return null;
+                }
+                position++;
+                return created(parenthesized(inner), start);
+            }
+            String prefixName = prefixOperatorName(value);
+            OperatorToken op = prefixName == null ? null : operator(prefixName);
+            if (op != null && op.arity == OperatorArity.UNARY) {
+                position++;
+                Expression argument = expression(op.precedence);
+                return argument == null ? null : created(prefix(value, argument), start);
+            }
+            position++;
+            return created(operand(value), start);
+        }
+
+        private Expression created(Expression node, int start) {
+            if (node != null && created != null) {
+                created.add(node);
+                spans.add(start);
+                spans.add(position);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.utils.tokens.Token;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+import org.vstu.meaningtree.utils.tokens.TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Заглушка, в которую транслятор оборачивает код в режиме выражений, чтобы tree sitter разобрал его как программу.
+ * Смещение кода пользователя и токены заглушки вычисляются один раз, а не при каждом вызове
+ * {@link LanguageTranslator#prepareCode(String)} и {@link LanguageTranslator#prepareCode(TokenList)}.
+ * Заглушка не зависит от конфигурации транслятора, поэтому один объект можно разделять между всеми трансляторами языка
+ * (в том числе из разных потоков): каждый вызов {@link #wrap(TokenList)} получает собственные копии токенов
+ */
+public final class ExpressionWrapper {
+    private final String prefix;
+    private final String suffix;
+    private final int prefixByteLength;
+    private final Supplier<LanguageTokenizer> tokenizer;
+
+    private volatile List<Token> prefixTokens;
+    private List<Token> suffixTokens;
+
+    /**
+     * @param prefix - код перед выражением
+     * @param suffix - код после выражения
+     * @param tokenizer - токенайзер транслятора без режима выражений: в режиме выражений токенайзер
+     *                  возвращает только токены самого выражения, а на пустой заглушке сообщает об ошибке.
+     *                  Запрашивается один раз, при первой обертке списка токенов
+     */
+    public ExpressionWrapper(String prefix, String suffix, Supplier<LanguageTokenizer> tokenizer) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.prefixByteLength = prefix.getBytes(StandardCharsets.UTF_8).length;
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Длина заглушки перед кодом пользователя в байтах
+     */
+    public int getPrefixByteLength() {
+        return prefixByteLength;
+    }
+
+    public String wrap(String code) {
+        if (!code.endsWith(";")) {
+            code += ";";
+        }
+        return prefix + code + suffix;
+    }
+
+    /**
+     * Оборачивает токены выражения копиями токенов заглушки. Исходный список не изменяется
+     */
+    public TokenList wrap(TokenList list) {
+        if (prefixTokens == null) {
+            tokenizeWrapper();
+        }
+        TokenList result = new TokenList();
+        for (Token token : prefixTokens) {
+            result.add(token.clone());
+        }
+        result.addAll(list);
+        if (list.isEmpty() || !list.getLast().type.equals(TokenType.SEPARATOR)) {
+            result.add(new Token(";", TokenType.SEPARATOR));
+        }
+        for (Token token : suffixTokens) {
+            result.add(token.clone());
+        }
+        return result;
+    }
+
+    /**
+     * Токенизирует заглушку без выражения и делит токены на стоящие до и после него
+     */
+    private synchronized void tokenizeWrapper() {
+        if (prefixTokens != null) {
+            return;
+        }
+        TokenList tokens = tokenizer.get().tokenize(prefix + suffix, true);
+        // Токены не содержат пробелов, поэтому граница находится по количеству непробельных символов заглушки
+        int remaining = prefix.replaceAll("\\s", "").length();
+        int boundary = 0;
+        while (boundary < tokens.size() && remaining > 0) {
+            remaining -= tokens.get(boundary).value.length();
+            boundary++;
+        }
+        suffixTokens = List.copyOf(tokens.subList(boundary, tokens.size()));
+        prefixTokens = List.copyOf(tokens.subList(0, boundary));
+    }
+}
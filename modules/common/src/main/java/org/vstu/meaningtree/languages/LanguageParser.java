@@ -1,49 +1,300 @@
 package org.vstu.meaningtree.languages;
 
+import org.treesitter.TSInputEdit;
 import org.treesitter.TSNode;
 import org.treesitter.TSTree;
 import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
 import org.vstu.meaningtree.languages.configs.Config;
 import org.vstu.meaningtree.languages.configs.ConfigParameter;
+import org.vstu.meaningtree.languages.configs.params.RetainSourceSpans;
 import org.vstu.meaningtree.nodes.Node;
-import org.vstu.meaningtree.utils.TreeSitterUtils;
+import org.vstu.meaningtree.utils.SourceBuffer;
+import org.vstu.meaningtree.utils.SourceSpans;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 abstract public class LanguageParser {
     protected String _code = "";
+    protected SourceBuffer _source = new SourceBuffer("");
     protected LanguageTranslator translator;
     protected Config _config;
-    protected Map<int[], Object> _byteValueTags = new HashMap<>();
+    private ValueTags _valueTags;
+    protected ParseSession _session;
+    /**
+     * Инкрементальные сессии принадлежат вызывающему коду: парсер не закрывает их при смене кода
+     */
+    private boolean _sessionOwnedByCaller = false;
+    private SourceSpans.Builder _spans;
 
+    /*
+     * Состояние инкрементального разбора: узлы, построенные в текущей сессии, узлы предыдущего разбора
+     * и стек узлов tree sitter, построение которых еще не завершено
+     */
+    private ReusableNodes _converted;
+    private ReusableNodes _reusable;
+    private TSNode[] _frameNodes = new TSNode[32];
+    private boolean[] _framePure = new boolean[32];
+    private int[] _frameSpans = new int[32];
+    private int _frameTop = 0;
+
+    /**
+     * Разбирает текущий код tree sitter'ом. Каждый вызов выполняет новый разбор,
+     * поэтому для получения дерева текущего кода используйте {@link #getSession()}
+     */
     public abstract TSTree getTSTree();
 
+    /**
+     * Разбирает текущий код tree sitter'ом, используя дерево разбора кода до правок.
+     * Tree sitter повторно использует поддеревья, которых правки не коснулись
+     * @param editedTree - дерево предыдущего разбора, к которому уже применены правки ({@link TSTree#edit(TSInputEdit)})
+     */
+    public abstract TSTree getTSTree(TSTree editedTree);
+
     public TSNode getRootNode() {
-        return getTSTree().getRootNode();
+        return getSession().getRootNode();
+    }
+
+    /**
+     * Разбирает код и делает полученную сессию текущей для парсера.
+     * Сессию нужно закрыть, когда дерево разбора больше не нужно
+     * @param code - подготовленный код
+     */
+    public ParseSession openSession(String code) {
+        setCode(code);
+        return getSession();
+    }
+
+    /**
+     * Сессия разбора текущего кода. Если код еще не разбирался, он будет разобран один раз
+     */
+    public ParseSession getSession() {
+        if (_session == null || _session.isClosed() || _session.getSource() != _source) {
+            _session = new ParseSession(_source, getTSTree());
+            _sessionOwnedByCaller = false;
+        }
+        return _session;
+    }
+
+    /**
+     * Разбирает код и делает полученную сессию текущей для парсера. В отличие от {@link #openSession(String)},
+     * построение дерева по такой сессии запоминает узлы для последующего {@link #reparse(ParseSession, List)}
+     * @param code - подготовленный код
+     */
+    public ParseSession openIncrementalSession(String code) {
+        setCode(code);
+        _session = new ParseSession(_source, getTSTree(), new ReusableNodes(), null);
+        _sessionOwnedByCaller = true;
+        return _session;
+    }
+
+    /**
+     * Инкрементальный разбор: применяет правки к коду предыдущей сессии, передает tree sitter'у отредактированное
+     * дерево разбора и делает новую сессию текущей. Дерево, построенное по новой сессии, повторно использует
+     * узлы MeaningTree (вместе с их id), построенные по предыдущей сессии для не затронутых правками фрагментов кода.
+     * <p>
+     * Повторно используются только поддеревья, построение которых зависит лишь от их текста (см. {@link #canReuse(TSNode)}),
+     * поэтому результат совпадает с полным разбором нового кода. Так как узлы переходят в новое дерево,
+     * дерево, построенное по предыдущей сессии, после построения нового дерева изменять нельзя.
+     * Конфигурация парсера между разборами меняться не должна
+     * @param previous - открытая сессия, созданная {@link #openIncrementalSession(String)} или этим методом,
+     *                 по которой уже построено дерево
+     * @param edits - правки в порядке применения
+     */
+    public synchronized ParseSession reparse(ParseSession previous, List<TextEdit> edits) {
+        if (!previous.isIncremental()) {
+            throw new IllegalUsageException("Parse session was not opened for incremental parsing");
+        }
+        TSTree tree = previous.getTree().copy();
+        SourceBuffer source = previous.getSource();
+        List<TSInputEdit> inputEdits = new ArrayList<>(edits.size());
+        for (TextEdit edit : edits) {
+            if (edit.oldEndByte() > source.byteLength()) {
+                throw new IllegalUsageException(String.format("Edit range [%d, %d) is out of code bounds",
+                        edit.startByte(), edit.oldEndByte()));
+            }
+            SourceBuffer edited = new SourceBuffer(source.substring(0, edit.startByte()) + edit.newText()
+                    + source.substring(edit.oldEndByte(), source.byteLength()));
+            int newEndByte = edit.startByte() + edit.newText().getBytes(StandardCharsets.UTF_8).length;
+            TSInputEdit inputEdit = new TSInputEdit(edit.startByte(), edit.oldEndByte(), newEndByte,
+                    source.getPoint(edit.startByte()), source.getPoint(edit.oldEndByte()), edited.getPoint(newEndByte));
+            tree.edit(inputEdit);
+            inputEdits.add(inputEdit);
+            source = edited;
+        }
+
+        ReusableNodes previousNodes = previous.getConvertedNodes();
+        releaseSession();
+        _source = source;
+        _code = source.getSource();
+        TSTree reparsed = getTSTree(tree);
+        ReusableNodes reusable = previousNodes.afterEdits(inputEdits, TSTree.getChangedRanges(tree, reparsed));
+        _session = new ParseSession(_source, reparsed, new ReusableNodes(), reusable);
+        _sessionOwnedByCaller = true;
+        return _session;
+    }
+
+    protected void useSession(ParseSession session) {
+        if (session != _session) {
+            releaseSession();
+            _sessionOwnedByCaller = true;
+        }
+        _session = session;
+        _source = session.getSource();
+        _code = _source.getSource();
+        _spans = getConfigParameter(RetainSourceSpans.class).orElse(false) ? new SourceSpans.Builder() : null;
+        _converted = session.getConvertedNodes();
+        _reusable = session.getReusableNodes();
+        if (_converted != null) {
+            _converted.setSpans(_spans);
+        }
+        Arrays.fill(_frameNodes, 0, _frameTop, null);
+        _frameTop = 0;
+    }
+
+    /**
+     * Строит дерево по коду. Если включен параметр {@link RetainSourceSpans}, к дереву прикладываются
+     * диапазоны кода, из которых построены узлы
+     */
+    public synchronized MeaningTree getMeaningTree(String code) {
+        try (ParseSession session = openSession(code)) {
+            return buildMeaningTree(session);
+        }
+    }
+
+    /**
+     * Строит дерево по сессии так же, как {@link #getMeaningTree(String)}, в том числе с диапазонами кода.
+     * Сессия остается открытой: она нужна для инкрементального разбора
+     */
+    public synchronized MeaningTree buildMeaningTree(ParseSession session) {
+        MeaningTree mt = getMeaningTree(session);
+        if (_spans != null) {
+            mt.setSourceSpans(_spans.build(_source));
+            _spans = null;
+        }
+        return mt;
     }
 
-    public abstract MeaningTree getMeaningTree(String code);
+    /**
+     * Строит MeaningTree по уже разобранному коду, не запуская tree sitter повторно
+     * @param session - открытая сессия разбора
+     */
+    public abstract MeaningTree getMeaningTree(ParseSession session);
 
     public abstract MeaningTree getMeaningTree(TSNode node, String code);
 
-    protected synchronized MeaningTree getMeaningTree(String code, Map<int[], Object> values) {
-        _byteValueTags = values;
-        return getMeaningTree(code);
+    /**
+     * Строит дерево по коду, присваивая узлам теги значений из {@code values}
+     */
+    synchronized MeaningTree getMeaningTree(String code, ValueTags values) {
+        _valueTags = values;
+        try {
+            return getMeaningTree(code);
+        } finally {
+            _valueTags = null;
+        }
+    }
+
+    /**
+     * Вызывается в начале построения узла по узлу tree sitter. При инкрементальном разборе возвращает
+     * узел предыдущего разбора с тем же текстом, если его можно использовать повторно. Иначе начинает
+     * отслеживать, можно ли будет повторно использовать строящийся узел; отслеживание завершает {@link #assignValue(TSNode, Node)}
+     * @return готовый узел или null, если узел нужно построить
+     */
+    protected Node reuseConverted(TSNode node) {
+        if (_converted == null) {
+            return null;
+        }
+        if (_reusable != null && (_spans == null || _reusable.getSpans() != null)) {
+            ReusableNodes.Entry entry = _reusable.take(node);
+            if (entry != null) {
+                int spanFrom = _spans == null ? 0 : _spans.size();
+                if (_spans != null) {
+                    SourceSpans.Builder recorded = _reusable.getSpans();
+                    int delta = entry.start() - entry.recordedStart();
+                    for (int i = entry.spanFrom(); i < entry.spanTo(); i++) {
+                        _spans.add(recorded.getNodeId(i), recorded.getStartByte(i) + delta, recorded.getEndByte(i) + delta);
+                    }
+                }
+                _converted.put(node, entry.node(), spanFrom, _spans == null ? 0 : _spans.size());
+                return entry.node();
+            }
+        }
+        if (_frameTop == _frameNodes.length) {
+            _frameNodes = Arrays.copyOf(_frameNodes, _frameTop * 2);
+            _framePure = Arrays.copyOf(_framePure, _frameTop * 2);
+            _frameSpans = Arrays.copyOf(_frameSpans, _frameTop * 2);
+        }
+        _frameNodes[_frameTop] = node;
+        _framePure[_frameTop] = true;
+        _frameSpans[_frameTop] = _spans == null ? 0 : _spans.size();
+        _frameTop++;
+        return null;
+    }
+
+    /**
+     * Можно ли повторно использовать узел, построенный по узлу tree sitter этого типа, при условии, что
+     * все его потомки тоже можно использовать повторно. Допустимо только для узлов, построение которых
+     * не зависит от контекста разбора (окружения, объявленных типов, родительских узлов)
+     */
+    protected boolean canReuse(TSNode node) {
+        return false;
+    }
+
+    private void completeReuseFrame(TSNode originNode, Node createdNode) {
+        int frame = _frameTop - 1;
+        while (frame >= 0 && _frameNodes[frame] != originNode) {
+            frame--;
+        }
+        if (frame < 0) {
+            return;
+        }
+        // Незавершенные вложенные узлы остаются от построений, прерванных исключением
+        boolean reusable = _framePure[frame] && frame == _frameTop - 1 && createdNode != null && canReuse(originNode);
+        int spanFrom = _frameSpans[frame];
+        Arrays.fill(_frameNodes, frame, _frameTop, null);
+        _frameTop = frame;
+        if (reusable) {
+            _converted.put(originNode, createdNode, spanFrom, _spans == null ? 0 : _spans.size());
+        } else if (frame > 0) {
+            _framePure[frame - 1] = false;
+        }
     }
 
     protected void assignValue(TSNode originNode, Node createdNode) {
         int start = originNode.getStartByte();
         int end = originNode.getEndByte();
-        List<int[]> toDelete = new ArrayList<>();
-        for (int[] indexes : _byteValueTags.keySet()) {
-            if (indexes[0] >= start && indexes[1] <= end) {
-                createdNode.setAssignedValueTag(_byteValueTags.get(indexes));
-                toDelete.add(indexes);
-            }
+        if (_spans != null && createdNode != null) {
+            _spans.add(createdNode.getId(), start, end);
+        }
+        if (_converted != null) {
+            completeReuseFrame(originNode, createdNode);
+        }
+        if (_valueTags != null && createdNode != null) {
+            _valueTags.assignTo(createdNode, start, end);
         }
-        for (int[] indexes : toDelete) {
-            _byteValueTags.remove(indexes);
+    }
+
+    /**
+     * Устанавливает код для текущего разбора. Код кодируется в UTF-8 один раз
+     */
+    protected void setCode(String code) {
+        releaseSession();
+        _code = code;
+        _source = new SourceBuffer(code);
+    }
+
+    private void releaseSession() {
+        if (_session != null && !_sessionOwnedByCaller) {
+            _session.close();
         }
+        _session = null;
+        _sessionOwnedByCaller = false;
+    }
+
+    public SourceBuffer getSourceBuffer() {
+        return _source;
     }
 
     public void setConfig(Config config) {
@@ -61,7 +312,7 @@ abstract public class LanguageParser {
     }
 
     public String getCodePiece(TSNode node) {
-        return TreeSitterUtils.getCodePiece(_code, node);
+        return _source.getCodePiece(node);
     }
 
     private void _lookupErrors(TSNode node, List<String> list) {
@@ -7,7 +7,7 @@ import org.treesitter.TSNode;
 import org.vstu.meaningtree.MeaningTree;
 import org.vstu.meaningtree.exceptions.MeaningTreeException;
 import org.vstu.meaningtree.nodes.Node;
-import org.vstu.meaningtree.utils.TreeSitterUtils;
+import org.vstu.meaningtree.utils.SourceBuffer;
 import org.vstu.meaningtree.utils.tokens.*;
 
 import java.util.HashMap;
@@ -16,6 +16,7 @@ import java.util.Map;
 
 public abstract class LanguageTokenizer {
     protected String code;
+    protected SourceBuffer source;
     protected LanguageTranslator translator;
     protected LanguageParser parser;
     protected LanguageViewer viewer;
@@ -25,10 +26,14 @@ public abstract class LanguageTokenizer {
 
     public TokenList tokenize(String code, boolean noPrepare) {
         this.code = noPrepare ? code : translator.prepareCode(code);
-        parser.getMeaningTree(this.code);
-        TokenList list = new TokenList();
-        collectTokens(parser.getRootNode(), list, true, null);
-        return list;
+        // Одно и то же дерево разбора используется и для проверки кода, и для сбора токенов
+        try (ParseSession session = parser.openSession(this.code)) {
+            parser.getMeaningTree(session);
+            this.source = session.getSource();
+            TokenList list = new TokenList();
+            collectTokens(parser.getRootNode(), list, true, null);
+            return list;
+        }
     }
 
     public Pair<Boolean, TokenList> tryTokenize(String code, boolean noPrepare) {
@@ -113,8 +118,8 @@ public abstract class LanguageTokenizer {
         int start = tokens.size();
         boolean skipChildren = false;
         if (node.getChildCount() == 0 || getStopNodes().contains(node.getType())) {
-            String value = TreeSitterUtils.getCodePiece(code, node);
-            if (value.trim().isEmpty()) {
+            CharSequence value = source.slice(node);
+            if (value.chars().allMatch(c -> c <= ' ')) {
                 return new TokenGroup(0, 0, tokens);
             }
             tokens.add(recognizeToken(node));
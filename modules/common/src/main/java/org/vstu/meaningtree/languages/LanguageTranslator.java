@@ -6,24 +6,28 @@ import org.apache.jena.riot.protobuf.wire.PB_RDF;
 import org.treesitter.TSException;
 import org.treesitter.TSNode;
 import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
 import org.vstu.meaningtree.exceptions.UnsupportedParsingException;
 import org.vstu.meaningtree.exceptions.UnsupportedViewingException;
 import org.vstu.meaningtree.languages.configs.*;
 import org.vstu.meaningtree.languages.configs.params.EnforseEntryPoint;
 import org.vstu.meaningtree.languages.configs.params.ExpressionMode;
+import org.vstu.meaningtree.languages.configs.params.RetainSourceSpans;
 import org.vstu.meaningtree.languages.configs.params.SkipErrors;
 import org.vstu.meaningtree.languages.configs.params.TranslationUnitMode;
 import org.vstu.meaningtree.exceptions.MeaningTreeException;
 import org.vstu.meaningtree.languages.configs.ConfigParameter;
+import org.vstu.meaningtree.nodes.Expression;
 import org.vstu.meaningtree.nodes.Node;
 import org.vstu.meaningtree.utils.Experimental;
 import org.vstu.meaningtree.utils.Label;
+import org.vstu.meaningtree.utils.SourceBuffer;
 import org.vstu.meaningtree.utils.tokens.Token;
 import org.vstu.meaningtree.utils.tokens.TokenGroup;
 import org.vstu.meaningtree.utils.tokens.TokenList;
 
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.io.Writer;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -31,6 +35,7 @@ public abstract class LanguageTranslator {
     protected LanguageParser _language;
     protected LanguageViewer _viewer;
     protected Config _config = new Config();
+    private MeaningTreeCache _cache;
 
     public static Config getPredefinedCommonConfig() {
         return new Config(
@@ -52,43 +57,95 @@ public abstract class LanguageTranslator {
      * @param rawConfig - конфигурация в формате "название - значение" в виде строки (тип будет выведен автоматически из строки)
      */
     protected LanguageTranslator(LanguageParser language, LanguageViewer viewer, Map<String, String> rawConfig) {
-        _language = language;
-        _viewer = viewer;
+        this(language, viewer, parseRawConfig(rawConfig));
+    }
 
-        _config.merge(getPredefinedCommonConfig(), getDeclaredConfig());
-        var configParser = new ConfigParser();
+    /**
+     * Создает транслятор языка
+     * @param language - parser языка
+     * @param viewer - viewer языка (может быть установлен позже через {@link #setViewer(LanguageViewer)})
+     * @param config - пользовательская конфигурация, переопределяющая значения по умолчанию. Не изменяется транслятором
+     */
+    protected LanguageTranslator(LanguageParser language, LanguageViewer viewer, Config config) {
+        _config.merge(getPredefinedCommonConfig(), getDeclaredConfig(), config);
+        setParser(language);
+        setViewer(viewer);
+    }
 
-        // Загрузка конфигов, специфических для конкретного языка
+    private static Config parseRawConfig(Map<String, String> rawConfig) {
+        var configParser = new ConfigParser();
+        Config config = new Config();
         for (var entry : rawConfig.entrySet()) {
-            var param = configParser.parse(entry.getKey(), entry.getValue());
-            _config.putNew(param);
+            config.put(configParser.parse(entry.getKey(), entry.getValue()));
         }
+        return config;
+    }
 
-        _language.setConfig(
-                _config.subset(
-                        cfg -> cfg.inAnyScope(ConfigScope.PARSER, ConfigScope.TRANSLATOR)
-                )
-        );
+    public MeaningTree getMeaningTree(String code) {
+        String preparedCode = prepareCode(code);
+        MeaningTree mt = _cache == null
+                ? parse(code, preparedCode)
+                : _cache.get(getLanguageId(), _config, preparedCode, () -> parse(code, preparedCode));
+        mt.setLabel(new Label(Label.ORIGIN, getLanguageId()));
+        return mt;
+    }
 
-        _viewer.setConfig(
-                _config.subset(
-                        cfg -> cfg.inAnyScope(ConfigScope.VIEWER, ConfigScope.TRANSLATOR)
-                )
-        );
+    private MeaningTree parse(String code, String preparedCode) {
+        MeaningTree mt = _language.getMeaningTree(preparedCode);
+        int byteOffset = getPreparedCodeOffset();
+        if (mt.getSourceSpans() != null && byteOffset > 0) {
+            // Диапазоны должны указывать на код пользователя, а не на обертку, добавленную prepareCode
+            mt.setSourceSpans(mt.getSourceSpans().rebase(byteOffset, new SourceBuffer(code)));
+        }
+        return mt;
     }
 
-    public MeaningTree getMeaningTree(String code) {
-        MeaningTree mt = _language.getMeaningTree(prepareCode(code));
+    /**
+     * Начинает серию инкрементальных разборов кода (см. {@link LanguageParser#reparse(ParseSession, List)}).
+     * Кэш при этом не используется. Код, который транслятор оборачивает перед разбором (например, в режиме выражений),
+     * инкрементально не разбирается, так как правки адресуют код пользователя
+     */
+    public ParseSession openIncrementalSession(String code) {
+        if (!prepareCode(code).equals(code)) {
+            throw new IllegalUsageException("Incremental parsing is not supported for code wrapped by translator");
+        }
+        return _language.openIncrementalSession(code);
+    }
+
+    /**
+     * Применяет правки к коду предыдущей сессии и разбирает его заново, используя предыдущий разбор
+     */
+    public ParseSession reparse(ParseSession previous, List<TextEdit> edits) {
+        return _language.reparse(previous, edits);
+    }
+
+    /**
+     * Строит дерево по сессии, открытой {@link #openIncrementalSession(String)} или {@link #reparse(ParseSession, List)}
+     */
+    public MeaningTree getMeaningTree(ParseSession session) {
+        MeaningTree mt = _language.buildMeaningTree(session);
         mt.setLabel(new Label(Label.ORIGIN, getLanguageId()));
         return mt;
     }
 
+    /**
+     * Подключает кэш результатов разбора к {@link #getMeaningTree(String)}
+     * @param cache - кэш (может быть общим для нескольких трансляторов) или null, чтобы отключить кэширование
+     */
+    public void setCache(MeaningTreeCache cache) {
+        _cache = cache;
+    }
+
+    public MeaningTreeCache getCache() {
+        return _cache;
+    }
+
     protected void setViewer(LanguageViewer viewer) {
         _viewer = viewer;
 
         if (_viewer != null) {
             _viewer.setConfig(
-                    getDeclaredConfig().subset(
+                    _config.subset(
                             cfg -> cfg.inAnyScope(ConfigScope.VIEWER, ConfigScope.TRANSLATOR)
                     )
             );
@@ -99,7 +156,7 @@ public abstract class LanguageTranslator {
         _language = parser;
         if (_language != null) {
             _language.setConfig(
-                    getDeclaredConfig().subset(
+                    _config.subset(
                             cfg -> cfg.inAnyScope(ConfigScope.PARSER, ConfigScope.TRANSLATOR)
                     )
             );
@@ -130,16 +187,35 @@ public abstract class LanguageTranslator {
         }
     }
 
-    protected MeaningTree getMeaningTree(String code, HashMap<int[], Object> values) {
-        MeaningTree mt = _language.getMeaningTree(prepareCode(code), values);
+    /**
+     * Строит дерево по токенам. В режиме выражений простые выражения разбираются прямо из токенов
+     * (см. {@link #getExpressionParser()}), остальные - через код, собранный из токенов
+     */
+    public MeaningTree getMeaningTree(TokenList tokenList) {
+        MeaningTree mt = parseExpression(tokenList, null);
+        if (mt == null) {
+            mt = getMeaningTree(String.join(" ", tokenList.stream().map((Token t) -> t.value).toList()));
+        }
         mt.setLabel(new Label(Label.ORIGIN, getLanguageId()));
         return mt;
     }
 
-    public MeaningTree getMeaningTree(TokenList tokenList) {
-        MeaningTree mt = getMeaningTree(String.join(" ", tokenList.stream().map((Token t) -> t.value).toList()));
-        mt.setLabel(new Label(Label.ORIGIN, getLanguageId()));
-        return mt;
+    /**
+     * Разборщик выражений из токенов без tree sitter или null, если язык его не поддерживает.
+     * Используется только в режиме выражений
+     */
+    protected ExpressionTokenParser getExpressionParser() {
+        return null;
+    }
+
+    private MeaningTree parseExpression(TokenList tokens, ValueTags tags) {
+        if (!getConfigParameter(ExpressionMode.class).orElse(false)
+                || getConfigParameter(RetainSourceSpans.class).orElse(false)) {
+            return null;
+        }
+        ExpressionTokenParser parser = getExpressionParser();
+        Expression expression = parser == null ? null : parser.parse(tokens, tags);
+        return expression == null ? null : new MeaningTree(expression);
     }
 
     public Pair<Boolean, MeaningTree> tryGetMeaningTree(TokenList tokens) {
@@ -150,25 +226,26 @@ public abstract class LanguageTranslator {
         }
     }
 
+    /**
+     * Строит дерево по токенам, присваивая теги значений групп токенов самым вложенным узлам, которые их содержат
+     */
     public MeaningTree getMeaningTree(TokenList tokenList, Map<TokenGroup, Object> tokenValueTags) {
-        HashMap<int[], Object> codeValueTag = new HashMap<>();
-        for (TokenGroup grp : tokenValueTags.keySet()) {
-            assert grp.source == tokenList;
-            int start = 0;
-            for (int i = 0; i < grp.start; i++) {
-                start += grp.source.get(i).value.getBytes(StandardCharsets.UTF_8).length;
-                start += 1;
-            }
-            int stop = start + 1;
-            for (int i = start; i < grp.stop; i++) {
-                stop += grp.source.get(i).value.getBytes(StandardCharsets.UTF_8).length;
-                if (i != grp.stop - 1) {
-                    stop += 1;
-                }
-            }
-            codeValueTag.put(new int[] {start, stop}, tokenValueTags.get(grp));
+        ValueTags tags = ValueTags.of(tokenList, tokenValueTags);
+        MeaningTree parsed = parseExpression(tokenList, tags);
+        if (parsed != null) {
+            parsed.setLabel(new Label(Label.ORIGIN, getLanguageId()));
+            return parsed;
         }
-        return getMeaningTree(String.join(" ", tokenList.stream().map((Token t) -> t.value).toList()), codeValueTag);
+        String code = tags.getCode();
+        String preparedCode = prepareCode(code);
+        int byteOffset = getPreparedCodeOffset();
+        if (byteOffset > 0) {
+            // Диапазоны тегов указывают на код пользователя, а не на обертку, добавленную prepareCode
+            tags.shift(byteOffset);
+        }
+        MeaningTree mt = _language.getMeaningTree(preparedCode, tags);
+        mt.setLabel(new Label(Label.ORIGIN, getLanguageId()));
+        return mt;
     }
 
     public Pair<Boolean, MeaningTree> tryGetMeaningTree(TokenList tokens, Map<TokenGroup, Object> tokenValueTags) {
@@ -185,6 +262,14 @@ public abstract class LanguageTranslator {
         return _viewer.toString(mt);
     }
 
+    /**
+     * Выводит код дерева в writer по мере генерации. Writer не закрывается и не сбрасывается
+     * @throws java.io.UncheckedIOException при ошибке записи
+     */
+    public void getCode(MeaningTree mt, Writer writer) {
+        _viewer.write(mt, writer);
+    }
+
     public Pair<Boolean, String> tryGetCode(MeaningTree mt) {
         try {
             String result = getCode(mt);
@@ -218,4 +303,12 @@ public abstract class LanguageTranslator {
     public abstract String prepareCode(String code);
 
     public abstract TokenList prepareCode(TokenList list);
+
+    /**
+     * Длина в байтах кода, который {@link #prepareCode(String)} добавляет перед кодом пользователя.
+     * Известна заранее, поэтому диапазоны разбора сдвигаются без поиска кода пользователя в обернутом коде
+     */
+    protected int getPreparedCodeOffset() {
+        return 0;
+    }
 }
@@ -5,6 +5,7 @@ import org.vstu.meaningtree.languages.configs.Config;
 import org.vstu.meaningtree.languages.configs.ConfigParameter;
 import org.vstu.meaningtree.nodes.Expression;
 import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.utils.CodeWriter;
 import org.vstu.meaningtree.utils.ParenthesesFiller;
 import org.vstu.meaningtree.utils.tokens.OperatorToken;
 
@@ -34,6 +35,23 @@ abstract public class LanguageViewer {
         return toString(mt.getRootNode());
     }
 
+    /**
+     * Выводит код узла в приемник. Реализация по умолчанию строит строку через {@link #toString(Node)};
+     * viewer'ы переопределяют метод, чтобы операторы, содержащие другие операторы (блоки, ветвления, циклы, определения),
+     * писали код вложенных узлов сразу в приемник, а не копировали его строками на каждом уровне вложенности
+     */
+    public void write(Node node, CodeWriter out) {
+        out.append(toString(node));
+    }
+
+    /**
+     * Выводит код дерева в приемник, не собирая его в одну строку
+     */
+    public void write(MeaningTree mt, Appendable out) {
+        origin = mt;
+        write(mt.getRootNode(), new CodeWriter(out));
+    }
+
     void setConfig(Config config) {
         _config = config;
     }
@@ -0,0 +1,267 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.languages.configs.Config;
+import org.vstu.meaningtree.languages.configs.ConfigParameter;
+import org.vstu.meaningtree.serializers.binary.BinaryDeserializer;
+import org.vstu.meaningtree.serializers.binary.BinarySerializer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов разбора, адресуемый по содержимому.
+ * <p>
+ * Ключ - SHA-256 от схемы двоичного формата ({@link BinarySerializer#getSchema()}), идентификатора языка,
+ * параметров конфигурации транслятора и подготовленного кода (см. {@link LanguageTranslator#prepareCode(String)}),
+ * поэтому один кэш можно разделять между трансляторами разных языков и конфигураций, а файлы, записанные
+ * при другой модели узлов, не находятся по ключу.
+ * Кэш подключается к транслятору через {@link LanguageTranslator#setCache(MeaningTreeCache)}.
+ * <p>
+ * Два уровня:
+ * <ul>
+ *     <li>в памяти - LRU, ограниченный суммарным весом записей (вес записи - количество узлов дерева);</li>
+ *     <li>на диске (необязательный) - файлы в компактном двоичном формате ({@link BinarySerializer}).
+ *     Файл хранит дерево целиком, с метками и диапазонами исходного кода; прочитанные узлы получают новые id.</li>
+ * </ul>
+ * Кэш владеет сохраненными деревьями и всегда выдает их копии ({@link MeaningTree#clone()}),
+ * поэтому вызывающий код может свободно изменять полученное дерево. Методы кэша потокобезопасны
+ */
+public class MeaningTreeCache {
+    private static final String FILE_EXTENSION = ".mtb";
+
+    private final long maxWeight;
+    private final Path directory;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    private record Entry(MeaningTree tree, long weight) {}
+
+    /**
+     * Статистика обращений к кэшу
+     * @param hits - попадания в память
+     * @param diskHits - попадания на диск (промах в памяти)
+     * @param misses - промахи на обоих уровнях, после которых выполнялся разбор
+     * @param evictions - записи, вытесненные из памяти
+     * @param diskErrors - деревья, которые не удалось записать на диск или прочитать с него
+     * @param size - количество записей в памяти
+     * @param weight - суммарный вес записей в памяти
+     */
+    public record Stats(long hits, long diskHits, long misses, long evictions, long diskErrors,
+                        int size, long weight) {
+        public double hitRate() {
+            long total = hits + diskHits + misses;
+            return total == 0 ? 0 : (double) (hits + diskHits) / total;
+        }
+    }
+
+    /**
+     * Кэш только в памяти
+     * @param maxWeight - максимальное суммарное количество узлов закэшированных деревьев
+     */
+    public MeaningTreeCache(long maxWeight) {
+        this(maxWeight, null);
+    }
+
+    /**
+     * @param maxWeight - максимальное суммарное количество узлов закэшированных в памяти деревьев
+     * @param directory - каталог дискового уровня или null, если он не нужен
+     */
+    public MeaningTreeCache(long maxWeight, Path directory) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Cache weight must not be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.directory = directory;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new MeaningTreeException(e);
+            }
+        }
+    }
+
+    /**
+     * Вычисляет ключ кэша. Параметры конфигурации учитываются независимо от порядка добавления
+     */
+    public static String computeKey(int languageId, Config config, String preparedCode) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MeaningTreeException(e);
+        }
+        digest.update(BinarySerializer.getSchema().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(Integer.toString(languageId).getBytes(StandardCharsets.UTF_8));
+        List<String> parameters = new ArrayList<>();
+        for (ConfigParameter<?> parameter : config.getParameters()) {
+            parameters.add(parameter.getClass().getName() + "=" + parameter.getValue());
+        }
+        Collections.sort(parameters);
+        for (String parameter : parameters) {
+            digest.update((byte) 0);
+            digest.update(parameter.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        digest.update(preparedCode.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Возвращает копию закэшированного дерева или выполняет разбор и сохраняет результат
+     * @param parser - разбор подготовленного кода, вызывается только при промахе
+     */
+    public MeaningTree get(int languageId, Config config, String preparedCode, Supplier<MeaningTree> parser) {
+        String key = computeKey(languageId, config, preparedCode);
+        MeaningTree cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+        MeaningTree parsed = parser.get();
+        put(key, parsed.clone());
+        return parsed;
+    }
+
+    /**
+     * @return копия дерева по ключу или null, если его нет ни в памяти, ни на диске. Промахи не учитываются
+     */
+    public MeaningTree get(String key) {
+        Entry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.tree().clone();
+        }
+        if (directory == null) {
+            return null;
+        }
+        MeaningTree fromDisk = readFromDisk(key);
+        if (fromDisk == null) {
+            return null;
+        }
+        diskHits.incrementAndGet();
+        MeaningTree result = fromDisk.clone();
+        putInMemory(key, fromDisk);
+        return result;
+    }
+
+    /**
+     * Сохраняет дерево в кэш. Дерево переходит во владение кэша и не должно изменяться после вызова
+     */
+    public void put(String key, MeaningTree tree) {
+        putInMemory(key, tree);
+        if (directory != null) {
+            writeToDisk(key, tree);
+        }
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            weight = 0;
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (memory) {
+            return new Stats(hits.get(), diskHits.get(), misses.get(), evictions.get(), diskErrors.get(),
+                    memory.size(), weight);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get() + diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void putInMemory(String key, MeaningTree tree) {
+        long entryWeight = Math.max(tree.cursor().countNodes(), 1);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (memory) {
+            Entry previous = memory.put(key, new Entry(tree, entryWeight));
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += entryWeight;
+            Iterator<Entry> eldest = memory.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + FILE_EXTENSION);
+    }
+
+    private MeaningTree readFromDisk(String key) {
+        Path path = getPath(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return new BinaryDeserializer().deserializeTree(Files.readAllBytes(path));
+        } catch (IOException | RuntimeException e) {
+            // Поврежденный файл или файл несовместимой версии формата: удаляем и разбираем код заново
+            diskErrors.incrementAndGet();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, MeaningTree tree) {
+        byte[] bytes;
+        try {
+            bytes = new BinarySerializer().serialize(tree);
+        } catch (RuntimeException e) {
+            diskErrors.incrementAndGet();
+            return;
+        }
+        Path path = getPath(key);
+        try {
+            Files.createDirectories(path.getParent());
+            // Запись через временный файл, чтобы параллельные читатели не увидели недописанный файл
+            Path temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+}
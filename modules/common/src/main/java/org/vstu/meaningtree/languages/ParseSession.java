@@ -0,0 +1,97 @@
+package org.vstu.meaningtree.languages;
+
+import org.treesitter.TSNode;
+import org.treesitter.TSTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.utils.SourceBuffer;
+
+/**
+ * Результат одного разбора кода tree sitter'ом.
+ * Владеет деревом разбора и отдает один и тот же корень для поиска ошибок, построения MeaningTree и сбора токенов,
+ * так что код разбирается ровно один раз.
+ * <p>
+ * Нативное дерево удаляет (ts_tree_delete) сама привязка tree sitter: конструктор {@link TSTree} регистрирует
+ * удаление в Cleaner'е и не отдает его наружу, а публичного метода удаления у дерева нет. Вызов ts_tree_delete
+ * в обход привязки удалил бы дерево второй раз, когда сработает Cleaner. Поэтому {@link #close()} отпускает
+ * последние ссылки сессии на дерево и его узлы, и Cleaner удаляет дерево при ближайшей сборке мусора.
+ * Повторное закрытие ничего не делает, а обращение к дереву закрытой сессии считается ошибкой
+ */
+public class ParseSession implements AutoCloseable {
+    private final SourceBuffer source;
+    private TSTree tree;
+    private TSNode rootNode;
+    private boolean closed = false;
+
+    /**
+     * Узлы, построенные по этой сессии, для следующего инкрементального разбора. null для обычных сессий
+     */
+    private final ReusableNodes converted;
+    /**
+     * Узлы предыдущего разбора, перенесенные в код этой сессии
+     */
+    private final ReusableNodes reusable;
+
+    public ParseSession(SourceBuffer source, TSTree tree) {
+        this(source, tree, null, null);
+    }
+
+    ParseSession(SourceBuffer source, TSTree tree, ReusableNodes converted, ReusableNodes reusable) {
+        this.source = source;
+        this.tree = tree;
+        this.rootNode = tree.getRootNode();
+        this.converted = converted;
+        this.reusable = reusable;
+    }
+
+    public SourceBuffer getSource() {
+        return source;
+    }
+
+    public TSTree getTree() {
+        ensureOpen();
+        return tree;
+    }
+
+    /**
+     * Корень дерева разбора всего кода (без учета режима выражений)
+     */
+    public TSNode getRootNode() {
+        ensureOpen();
+        return rootNode;
+    }
+
+    /**
+     * @return может ли сессия быть основой для {@link LanguageParser#reparse(ParseSession, java.util.List)}
+     */
+    public boolean isIncremental() {
+        return converted != null;
+    }
+
+    ReusableNodes getConvertedNodes() {
+        return converted;
+    }
+
+    ReusableNodes getReusableNodes() {
+        return reusable;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void ensureOpen() {
+        if (isClosed()) {
+            throw new MeaningTreeException("Parse session is already closed");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        tree = null;
+        rootNode = null;
+    }
+}
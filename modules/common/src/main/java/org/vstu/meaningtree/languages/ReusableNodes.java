@@ -0,0 +1,99 @@
+package org.vstu.meaningtree.languages;
+
+import org.treesitter.TSInputEdit;
+import org.treesitter.TSNode;
+import org.treesitter.TSRange;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.utils.SourceSpans;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Узлы MeaningTree, построенные при разборе кода, которые можно повторно использовать при инкрементальном разборе.
+ * <p>
+ * Узел попадает в таблицу, только если его построение зависит лишь от текста его узла tree sitter
+ * (см. {@link LanguageParser#canReuse(TSNode)}), и адресуется типом и диапазоном этого узла.
+ * Если вне правок текст диапазона не изменился и tree sitter построил на этом месте узел того же типа,
+ * повторное построение дало бы равное поддерево. Для переноса диапазонов кода поддерева
+ * запоминаются номера его записей в {@link SourceSpans.Builder} того же разбора
+ */
+final class ReusableNodes {
+    private final HashMap<Long, Entry> entries = new HashMap<>();
+    private SourceSpans.Builder spans;
+
+    /**
+     * @param recordedStart - начало узла в коде, при разборе которого записаны диапазоны [spanFrom, spanTo)
+     */
+    record Entry(String type, int start, int end, int recordedStart, Node node, int spanFrom, int spanTo) {}
+
+    void setSpans(SourceSpans.Builder spans) {
+        this.spans = spans;
+    }
+
+    SourceSpans.Builder getSpans() {
+        return spans;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void put(TSNode origin, Node node, int spanFrom, int spanTo) {
+        int start = origin.getStartByte();
+        entries.put(key(start, origin.getEndByte()),
+                new Entry(origin.getType(), start, origin.getEndByte(), start, node, spanFrom, spanTo));
+    }
+
+    /**
+     * Извлекает узел из таблицы, чтобы один и тот же объект не попал в дерево дважды
+     * @return запись или null, если узла того же типа с тем же диапазоном нет
+     */
+    Entry take(TSNode origin) {
+        long key = key(origin.getStartByte(), origin.getEndByte());
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.type().equals(origin.getType())) {
+            return null;
+        }
+        entries.remove(key);
+        return entry;
+    }
+
+    /**
+     * Переносит таблицу в код после правок. Узлы, пересекающиеся с правками или с изменившимися
+     * по мнению tree sitter диапазонами, отбрасываются
+     * @param edits - правки в порядке применения
+     * @param changedRanges - диапазоны нового кода, в которых изменилось дерево разбора
+     */
+    ReusableNodes afterEdits(List<TSInputEdit> edits, TSRange[] changedRanges) {
+        ReusableNodes result = new ReusableNodes();
+        result.spans = spans;
+        for (Entry entry : entries.values()) {
+            int start = entry.start();
+            int end = entry.end();
+            boolean valid = true;
+            for (int i = 0; i < edits.size() && valid; i++) {
+                TSInputEdit edit = edits.get(i);
+                if (start >= edit.getOldEndByte()) {
+                    int delta = edit.getNewEndByte() - edit.getOldEndByte();
+                    start += delta;
+                    end += delta;
+                } else if (end > edit.getStartByte()) {
+                    valid = false;
+                }
+            }
+            for (int i = 0; i < changedRanges.length && valid; i++) {
+                valid = end <= changedRanges[i].getStartByte() || start >= changedRanges[i].getEndByte();
+            }
+            if (valid) {
+                result.entries.put(key(start, end), new Entry(entry.type(), start, end, entry.recordedStart(),
+                        entry.node(), entry.spanFrom(), entry.spanTo()));
+            }
+        }
+        return result;
+    }
+
+    private static long key(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,29 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
+
+import java.util.Objects;
+
+/**
+ * Правка кода для инкрементального разбора (см. {@link LanguageParser#reparse(ParseSession, java.util.List)}):
+ * фрагмент [startByte, oldEndByte) заменяется на newText.
+ * <p>
+ * Смещения - в байтах UTF-8 относительно кода, к которому применяется правка. Правки из одного списка
+ * применяются последовательно, поэтому смещения каждой следующей правки отсчитываются в коде после предыдущих
+ */
+public record TextEdit(int startByte, int oldEndByte, String newText) {
+    public TextEdit {
+        Objects.requireNonNull(newText);
+        if (startByte < 0 || oldEndByte < startByte) {
+            throw new IllegalUsageException(String.format("Invalid edit range [%d, %d)", startByte, oldEndByte));
+        }
+    }
+
+    public static TextEdit insert(int byteOffset, String text) {
+        return new TextEdit(byteOffset, byteOffset, text);
+    }
+
+    public static TextEdit delete(int startByte, int endByte) {
+        return new TextEdit(startByte, endByte, "");
+    }
+}
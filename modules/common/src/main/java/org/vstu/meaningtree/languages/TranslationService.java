@@ -0,0 +1,71 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасный фасад над пулами трансляторов разных языков.
+ * Каждый вызов берет трансляторы из пулов ({@link TranslatorPool}) только на время операции,
+ * поэтому методы сервиса можно вызывать из любого количества потоков, в том числе виртуальных.
+ * <p>
+ * Viewer может изменять переданное ему дерево, поэтому одно и то же MeaningTree
+ * не следует одновременно передавать в несколько вызовов {@link #getCode(int, MeaningTree)}
+ */
+public class TranslationService {
+    private final Map<Integer, TranslatorPool<?>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует пул трансляторов для языка
+     * @param languageId - идентификатор языка (см. {@link LanguageTranslator#getLanguageId()})
+     */
+    public TranslationService register(int languageId, TranslatorPool<?> pool) {
+        pools.put(languageId, pool);
+        return this;
+    }
+
+    public Set<Integer> getLanguageIds() {
+        return pools.keySet();
+    }
+
+    public TranslatorPool<?> getPool(int languageId) {
+        TranslatorPool<?> pool = pools.get(languageId);
+        if (pool == null) {
+            throw new IllegalUsageException(String.format("No translator registered for language id %d", languageId));
+        }
+        return pool;
+    }
+
+    public MeaningTree getMeaningTree(int languageId, String code) {
+        return getPool(languageId).execute(translator -> translator.getMeaningTree(code));
+    }
+
+    public String getCode(int languageId, MeaningTree mt) {
+        return getPool(languageId).execute(translator -> translator.getCode(mt));
+    }
+
+    public TokenList getCodeAsTokens(int languageId, MeaningTree mt) {
+        return getPool(languageId).execute(translator -> translator.getCodeAsTokens(mt));
+    }
+
+    public TokenList tokenize(int languageId, String code) {
+        return getPool(languageId).execute(translator -> translator.getTokenizer().tokenize(code));
+    }
+
+    public TokenList tokenizeExtended(int languageId, String code) {
+        return getPool(languageId).execute(translator -> translator.getTokenizer().tokenizeExtended(code));
+    }
+
+    /**
+     * Переводит код с одного языка на другой. Трансляторы исходного и целевого языков
+     * арендуются по очереди, так что вызов никогда не держит два транслятора одновременно
+     */
+    public String translate(int fromLanguageId, int toLanguageId, String code) {
+        MeaningTree mt = getMeaningTree(fromLanguageId, code);
+        return getCode(toLanguageId, mt);
+    }
+}
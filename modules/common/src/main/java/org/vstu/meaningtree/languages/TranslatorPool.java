@@ -0,0 +1,187 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.languages.configs.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Пул трансляторов одного языка для многопоточной работы.
+ * <p>
+ * Транслятор вместе со своими парсером, viewer'ом и токенайзером хранит состояние текущего разбора,
+ * поэтому одновременно им может пользоваться только один поток. Пул выдает транслятор в аренду ({@link Lease}):
+ * пока аренда не закрыта, транслятор принадлежит только арендатору. Аренда не привязана к потоку,
+ * так что пул одинаково работает с обычными и виртуальными потоками.
+ * <p>
+ * Все трансляторы пула создаются из одной неизменяемой конфигурации
+ * @param <T> - тип транслятора
+ */
+public class TranslatorPool<T extends LanguageTranslator> {
+    private final Function<Config, T> factory;
+    private final Config config;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<T> idle = new ConcurrentLinkedDeque<>();
+    private volatile MeaningTreeCache cache;
+
+    /**
+     * @param factory - создает транслятор по конфигурации, например {@code JavaTranslator::new}
+     * @param config - общая конфигурация трансляторов пула (сохраняется неизменяемый снимок)
+     * @param maxSize - максимальное число одновременно выданных трансляторов
+     */
+    public TranslatorPool(Function<Config, T> factory, Config config, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.factory = factory;
+        this.config = config.toImmutable();
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public TranslatorPool(Function<Config, T> factory, Config config) {
+        this(factory, config, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TranslatorPool(Function<Config, T> factory) {
+        this(factory, new Config());
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public MeaningTreeCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Подключает кэш результатов разбора ко всем трансляторам пула, начиная со следующей аренды
+     * @param cache - кэш или null, чтобы отключить кэширование
+     */
+    public void setCache(MeaningTreeCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return количество созданных, но не выданных сейчас трансляторов
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Берет транслятор в аренду, ожидая, если все трансляторы пула заняты
+     */
+    public Lease lease() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MeaningTreeException(e);
+        }
+        T translator = idle.pollFirst();
+        if (translator == null) {
+            try {
+                translator = factory.apply(config);
+            } catch (RuntimeException | Error e) {
+                permits.release();
+                throw e;
+            }
+        }
+        translator.setCache(cache);
+        return new Lease(translator);
+    }
+
+    /**
+     * Выполняет действие с арендованным транслятором и возвращает его в пул.
+     * Если действие завершилось исключением, транслятор не возвращается в пул,
+     * так как его внутреннее состояние могло остаться несогласованным
+     */
+    public <R> R execute(Function<? super T, ? extends R> action) {
+        try (Lease lease = lease()) {
+            try {
+                return action.apply(lease.get());
+            } catch (RuntimeException | Error e) {
+                lease.discard();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Заранее создает все трансляторы пула и выполняет с каждым действие, например разбор короткого кода,
+     * чтобы инициализировать tree sitter до первых запросов. Трансляторы арендуются одновременно,
+     * поэтому действие выполняется с {@link #getMaxSize()} разными экземплярами. Кэш разбора во время прогрева
+     * не используется, иначе разбирал бы только первый транслятор
+     */
+    public void warmUp(Consumer<? super T> action) {
+        List<Lease> leases = new ArrayList<>(maxSize);
+        try {
+            for (int i = 0; i < maxSize; i++) {
+                leases.add(lease());
+            }
+            for (Lease lease : leases) {
+                lease.get().setCache(null);
+                try {
+                    action.accept(lease.get());
+                } catch (RuntimeException | Error e) {
+                    lease.discard();
+                    throw e;
+                }
+            }
+        } finally {
+            for (Lease lease : leases) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * Аренда транслятора. Должна быть закрыта тем же кодом, который ее получил
+     */
+    public final class Lease implements AutoCloseable {
+        private T translator;
+        private boolean discarded = false;
+
+        private Lease(T translator) {
+            this.translator = translator;
+        }
+
+        public T get() {
+            if (translator == null) {
+                throw new IllegalUsageException("Translator lease is already closed");
+            }
+            return translator;
+        }
+
+        /**
+         * Помечает транслятор как непригодный для повторного использования: при закрытии аренды он будет отброшен
+         */
+        public void discard() {
+            discarded = true;
+        }
+
+        @Override
+        public void close() {
+            if (translator == null) {
+                return;
+            }
+            if (!discarded) {
+                idle.offerFirst(translator);
+            }
+            translator = null;
+            permits.release();
+        }
+    }
+}
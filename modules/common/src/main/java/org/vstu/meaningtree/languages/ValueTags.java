@@ -0,0 +1,174 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.utils.tokens.TokenGroup;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Теги значений, привязанные к диапазонам байт кода, собранного из списка токенов.
+ * <p>
+ * Диапазоны упорядочены по началу, а поверх них построено дерево отрезков с минимальным концом еще не выданного
+ * диапазона. Поиск всех диапазонов внутри узла tree sitter заходит только в поддеревья, где есть подходящий
+ * диапазон, поэтому стоит O((k + 1) log n), где k - количество найденных тегов
+ */
+final class ValueTags {
+    private final String code;
+    /**
+     * Начало каждого токена в коде и, последним элементом, длина кода плюс разделитель
+     */
+    private final int[] offsets;
+    private final int[] starts;
+    private final int[] ends;
+    private final Object[] values;
+    /**
+     * Минимальный конец невыданного диапазона в поддереве; выданный диапазон имеет конец {@link Integer#MAX_VALUE}
+     */
+    private final int[] minEnd;
+    private final int leaves;
+
+    private ValueTags(String code, int[] offsets, int[] starts, int[] ends, Object[] values) {
+        this.code = code;
+        this.offsets = offsets;
+        this.starts = starts;
+        this.ends = ends;
+        this.values = values;
+        int size = 1;
+        while (size < starts.length) {
+            size <<= 1;
+        }
+        leaves = size;
+        minEnd = new int[2 * size];
+        Arrays.fill(minEnd, Integer.MAX_VALUE);
+        System.arraycopy(ends, 0, minEnd, size, ends.length);
+        for (int i = size - 1; i > 0; i--) {
+            minEnd[i] = Math.min(minEnd[2 * i], minEnd[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Собирает код из токенов, разделенных пробелом, и переводит группы токенов в диапазоны байт этого кода.
+     * Смещения токенов вычисляются одним проходом префиксных сумм
+     */
+    static ValueTags of(TokenList tokens, Map<TokenGroup, Object> tags) {
+        StringBuilder code = new StringBuilder();
+        // offsets[i] - начало i-го токена, offsets[i + 1] - начало следующего за ним (с учетом пробела)
+        int[] offsets = new int[tokens.size() + 1];
+        for (int i = 0; i < tokens.size(); i++) {
+            String value = tokens.get(i).value;
+            if (i > 0) {
+                code.append(' ');
+            }
+            code.append(value);
+            offsets[i + 1] = offsets[i] + value.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+
+        int n = tags.size();
+        long[] order = new long[n];
+        int[] groupStarts = new int[n];
+        int[] groupEnds = new int[n];
+        Object[] groupValues = new Object[n];
+        int k = 0;
+        for (Map.Entry<TokenGroup, Object> entry : tags.entrySet()) {
+            TokenGroup grp = entry.getKey();
+            assert grp.source == tokens;
+            groupStarts[k] = offsets[grp.start];
+            groupEnds[k] = grp.stop > grp.start ? offsets[grp.stop] - 1 : offsets[grp.start];
+            groupValues[k] = entry.getValue();
+            order[k] = ((long) groupStarts[k] << 32) | k;
+            k++;
+        }
+        Arrays.sort(order);
+
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        Object[] values = new Object[n];
+        for (int i = 0; i < n; i++) {
+            int j = (int) order[i];
+            starts[i] = groupStarts[j];
+            ends[i] = groupEnds[j];
+            values[i] = groupValues[j];
+        }
+        return new ValueTags(code.toString(), offsets, starts, ends, values);
+    }
+
+    /**
+     * Код, к которому относятся диапазоны
+     */
+    String getCode() {
+        return code;
+    }
+
+    /**
+     * Сдвигает все диапазоны, например, если код был обернут перед разбором
+     */
+    void shift(int byteOffset) {
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] += byteOffset;
+            ends[i] += byteOffset;
+        }
+        for (int i = 1; i < minEnd.length; i++) {
+            if (minEnd[i] != Integer.MAX_VALUE) {
+                minEnd[i] += byteOffset;
+            }
+        }
+    }
+
+    /**
+     * Как {@link #assignTo(Node, int, int)}, но по диапазону токенов [from, to) исходного списка.
+     * Не учитывает сдвиг {@link #shift(int)}
+     */
+    void assignToTokens(Node node, int from, int to) {
+        assignTo(node, offsets[from], to > from ? offsets[to] - 1 : offsets[from]);
+    }
+
+    /**
+     * Присваивает узлу теги всех невыданных диапазонов внутри [start, end] и помечает их выданными.
+     * Узлы строятся от вложенных к внешним, поэтому тег достается самому вложенному узлу, содержащему диапазон
+     */
+    void assignTo(Node node, int start, int end) {
+        if (starts.length == 0 || minEnd[1] > end) {
+            return;
+        }
+        int from = lowerBound(start);
+        int to = lowerBound(end + 1);
+        if (from < to) {
+            assignTo(node, 1, 0, leaves, from, to, end);
+        }
+    }
+
+    private void assignTo(Node node, int vertex, int left, int right, int from, int to, int end) {
+        if (right <= from || to <= left || minEnd[vertex] > end) {
+            return;
+        }
+        if (right - left == 1) {
+            node.setAssignedValueTag(values[left]);
+            minEnd[vertex] = Integer.MAX_VALUE;
+            return;
+        }
+        int middle = (left + right) >>> 1;
+        assignTo(node, 2 * vertex, left, middle, from, to, end);
+        assignTo(node, 2 * vertex + 1, middle, right, from, to, end);
+        minEnd[vertex] = Math.min(minEnd[2 * vertex], minEnd[2 * vertex + 1]);
+    }
+
+    /**
+     * @return номер первого диапазона, начинающегося не раньше byteOffset
+     */
+    private int lowerBound(int byteOffset) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < byteOffset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
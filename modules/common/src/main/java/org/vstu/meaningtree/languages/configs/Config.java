@@ -1,5 +1,9 @@
 package org.vstu.meaningtree.languages.configs;
 
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -7,6 +11,7 @@ import java.util.function.Predicate;
 
 public class Config {
     private final Map<Class<?>, ConfigParameter<?>> parameters = new HashMap<>();
+    private boolean immutable = false;
 
     public Config(ConfigParameter<?> ...configParameters) {
         put(configParameters);
@@ -29,6 +34,9 @@ public class Config {
     }
 
     public void put(ConfigParameter<?> parameter) {
+        if (immutable) {
+            throw new IllegalUsageException("Config is immutable");
+        }
         parameters.put(parameter.getClass(), parameter);
     }
 
@@ -55,6 +63,37 @@ public class Config {
         }
     }
 
+    /**
+     * @return изменяемая копия конфигурации
+     */
+    public Config copy() {
+        return new Config(parameters.values());
+    }
+
+    /**
+     * Возвращает неизменяемый снимок конфигурации. Параметры сами по себе неизменяемы,
+     * поэтому снимок можно разделять между потоками без синхронизации
+     */
+    public Config toImmutable() {
+        if (immutable) {
+            return this;
+        }
+        Config result = copy();
+        result.immutable = true;
+        return result;
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    /**
+     * @return все параметры конфигурации (только для чтения)
+     */
+    public Collection<ConfigParameter<?>> getParameters() {
+        return Collections.unmodifiableCollection(parameters.values());
+    }
+
     public Config subset(Predicate<ConfigParameter<?>> predicate) {
         return new Config(
                 parameters.values().stream().filter(predicate).toList()
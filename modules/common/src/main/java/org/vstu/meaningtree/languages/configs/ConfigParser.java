@@ -3,6 +3,7 @@ package org.vstu.meaningtree.languages.configs;
 import org.vstu.meaningtree.exceptions.UnsupportedConfigParameterException;
 import org.vstu.meaningtree.languages.configs.params.DisableCompoundComparisonConversion;
 import org.vstu.meaningtree.languages.configs.params.ExpressionMode;
+import org.vstu.meaningtree.languages.configs.params.RetainSourceSpans;
 import org.vstu.meaningtree.languages.configs.params.SkipErrors;
 import org.vstu.meaningtree.languages.configs.params.TranslationUnitMode;
 
@@ -13,6 +14,7 @@ public class ConfigParser {
             case TranslationUnitMode.name -> new TranslationUnitMode(Boolean.parseBoolean(val));
             case SkipErrors.name -> new SkipErrors(Boolean.parseBoolean(val));
             case DisableCompoundComparisonConversion.name -> new DisableCompoundComparisonConversion(Boolean.parseBoolean(val));
+            case RetainSourceSpans.name -> new RetainSourceSpans(Boolean.parseBoolean(val));
             default -> throw new UnsupportedConfigParameterException(key);
         };
     }
@@ -0,0 +1,25 @@
+package org.vstu.meaningtree.languages.configs.params;
+
+import org.vstu.meaningtree.languages.configs.ConfigParameter;
+import org.vstu.meaningtree.languages.configs.ConfigScope;
+
+/**
+ * Конфигурационный параметр, управляющий сохранением диапазонов исходного кода узлов.
+ * <p>
+ * Если значение {@code true}, то парсер запоминает, из какого фрагмента кода построен каждый узел,
+ * и дерево позволяет искать узел по позиции в коде (см. {@link org.vstu.meaningtree.MeaningTree#getSourceSpans()}).
+ * Если значение {@code false}, то диапазоны не сохраняются.
+ * <p>
+ */
+public class RetainSourceSpans extends ConfigParameter<Boolean> {
+    public static final String name = "retainSourceSpans";
+
+    public RetainSourceSpans(Boolean value, ConfigScope scope) {
+        super(name, value, scope);
+    }
+
+    public RetainSourceSpans(Boolean value) {
+        this(value, ConfigScope.ANY);
+    }
+
+}
@@ -2,20 +2,39 @@ package org.vstu.meaningtree.nodes;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.vstu.meaningtree.DenseNodeIndex;
 import org.vstu.meaningtree.iterators.DFSNodeIterator;
+import org.vstu.meaningtree.iterators.NodeSpliterator;
+import org.vstu.meaningtree.iterators.TreeCursor;
 import org.vstu.meaningtree.iterators.utils.*;
+import org.vstu.meaningtree.utils.IdAllocator;
 import org.vstu.meaningtree.utils.Label;
 import org.vstu.meaningtree.utils.LabelAttachable;
+import org.vstu.meaningtree.utils.LabelStore;
 
 import java.io.Serializable;
-import java.lang.reflect.Field;
+import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.StreamSupport;
 
 abstract public class Node implements Serializable, Cloneable, LabelAttachable, NodeIterable {
-    protected static AtomicLong _id_generator = new AtomicLong();
-    protected long _id = _id_generator.incrementAndGet();
+    private static final IdAllocator _id_allocator = new IdAllocator();
+    protected long _id = _id_allocator.next();
+
+    /**
+     * Компактный номер узла внутри дерева, см. {@link org.vstu.meaningtree.DenseNodeIndex}
+     */
+    private transient int _denseId = -1;
+
+    /**
+     * Закэшированный отпечаток поддерева (см. {@link #structuralHash()}) и узлы, отпечатки которых были
+     * вычислены из него. При изменении узла сбрасываются только его отпечаток и отпечатки этих предков.
+     * Предки хранятся слабыми ссылками, чтобы узел, перенесенный в другое дерево, не удерживал прежних родителей;
+     * список защищен монитором узла
+     */
+    private transient long _structuralHash;
+    private transient volatile boolean _hasStructuralHash = false;
+    private transient List<WeakReference<Node>> _structuralHashDependents = null;
 
     /**
      * Внимание! После вызова этого метода, все новые узлы дерева начнут нумерацию своего id с нуля.
@@ -23,7 +42,7 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
      */
     public static void resetIdCounter() {
         System.err.println("Warning! Node counter was reset. It may cause conflicts");
-        _id_generator = new AtomicLong();
+        _id_allocator.reset();
     }
 
     @Override
@@ -40,7 +59,26 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
         return list.reversed();
     }
 
-    private Set<Label> _labels = new HashSet<>();
+    /**
+     * Потомки узла (без него самого), как и в {@link #iterator()}. Обход идет по снимку поддерева на момент вызова
+     */
+    @Override
+    public NodeSpliterator nodeSpliterator() {
+        DenseNodeIndex index = DenseNodeIndex.snapshot(this);
+        return new NodeSpliterator(index, 1, index.size());
+    }
+
+    /**
+     * Курсор для обхода поддерева узла без создания объектов на каждый узел
+     */
+    public TreeCursor cursor() {
+        return new TreeCursor(this);
+    }
+
+    /**
+     * Метки узла. Создается при установке первой метки: у большинства узлов меток нет
+     */
+    private LabelStore _labels = null;
 
     /**
      * Проверяет значение узлов по значению
@@ -51,7 +89,8 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Node node = (Node) o;
-        return Objects.equals(_labels, node._labels);
+        if (hasDifferentStructuralHash(node)) return false;
+        return LabelStore.contentEquals(_labels, node._labels);
     }
 
     /**
@@ -60,10 +99,166 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
      */
     @Override
     public int hashCode() {
-        List<Object> toHash = new ArrayList<>();
-        toHash.add(getClass().getSimpleName());
-        toHash.addAll(_labels);
-        return Objects.hash(toHash.toArray(new Object[0]));
+        // Метки сравниваются без учета порядка установки, поэтому и хэшируются без него.
+        // Для узла без меток значение совпадает с прежним Objects.hash(имя класса)
+        return 31 + getClass().getSimpleName().hashCode() + 31 * LabelStore.contentHashCode(_labels);
+    }
+
+    /**
+     * 64-битный отпечаток поддерева, согласованный с {@link #equals(Object)}: равные узлы имеют равные отпечатки.
+     * Строится как дерево Меркла: из имени класса, значения самого узла ({@link #ownStructuralHash()})
+     * и закэшированных отпечатков детей ({@link #childrenStructuralHash()}). Метки не учитываются, так как
+     * не все узлы сравнивают их.
+     * <p>
+     * Механизм включается явно: пока отпечатки обоих узлов не вычислены, {@link #equals(Object)} работает как обычно,
+     * а после вычисления сразу отвергает узлы с разными отпечатками, не обходя их поддеревья.
+     * Отпечатки неизменяемого дерева можно вычислять из нескольких потоков; изменение дерева, как и любое другое,
+     * требует внешней синхронизации
+     * @return отпечаток поддерева
+     */
+    public long structuralHash() {
+        if (_hasStructuralHash) {
+            return _structuralHash;
+        }
+        long hash = mixStructuralHash(((long) getClass().getName().hashCode() << 32) ^ ownStructuralHash());
+        hash = mixStructuralHash(hash + childrenStructuralHash());
+        _structuralHash = hash;
+        _hasStructuralHash = true;
+        return hash;
+    }
+
+    /**
+     * Хэш значения самого узла без детей и меток, участвующий в {@link #structuralHash()}.
+     * Переопределяется листьями, которые сравниваются по значению (идентификаторы, литералы);
+     * должен быть согласован с {@link #equals(Object)}
+     */
+    protected long ownStructuralHash() {
+        return 0;
+    }
+
+    /**
+     * Хэш детей, участвующий в {@link #structuralHash()}. По умолчанию учитываются все поля {@link TreeNode},
+     * если сравнение узлов этого класса их проверяет (см. {@link NodeMetadata#comparesChildren()}).
+     * Узел, который сравнивает только часть поддерева, переопределяет метод и учитывает только ее
+     * через {@link #childStructuralHash(Node)}
+     */
+    protected long childrenStructuralHash() {
+        NodeMetadata metadata = NodeMetadata.of(getClass());
+        long hash = 0;
+        if (metadata.comparesChildren()) {
+            for (NodeFieldAccessor accessor : metadata.getFields()) {
+                hash = mixStructuralHash(hash + valueStructuralHash(accessor.get(this)));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Отпечаток потомка, из которого вычисляется отпечаток этого узла. Изменение потомка сбросит отпечаток этого узла
+     */
+    protected final long childStructuralHash(@Nullable Node child) {
+        return valueStructuralHash(child);
+    }
+
+    private long valueStructuralHash(Object value) {
+        return switch (value) {
+            case null -> 0x9e3779b97f4a7c15L;
+            case Node child -> {
+                child.addStructuralHashDependent(this);
+                yield child.structuralHash();
+            }
+            case Node[] array -> {
+                long hash = array.length;
+                for (Node child : array) {
+                    hash = mixStructuralHash(hash + valueStructuralHash(child));
+                }
+                yield hash;
+            }
+            case Set<?> set -> {
+                // Множества равны независимо от порядка элементов
+                long hash = set.size();
+                for (Object item : set) {
+                    hash += mixStructuralHash(valueStructuralHash(item));
+                }
+                yield hash;
+            }
+            case Collection<?> collection -> {
+                long hash = collection.size();
+                for (Object item : collection) {
+                    hash = mixStructuralHash(hash + valueStructuralHash(item));
+                }
+                yield hash;
+            }
+            case Optional<?> optional -> valueStructuralHash(optional.orElse(null));
+            default -> value.hashCode();
+        };
+    }
+
+    private synchronized void addStructuralHashDependent(Node parent) {
+        if (_structuralHashDependents == null) {
+            // Обычно у узла один родитель; несколько бывает у узла, общего для нескольких деревьев
+            _structuralHashDependents = new ArrayList<>(1);
+        }
+        Iterator<WeakReference<Node>> it = _structuralHashDependents.iterator();
+        while (it.hasNext()) {
+            Node dependent = it.next().get();
+            if (dependent == parent) {
+                return;
+            } else if (dependent == null) {
+                it.remove();
+            }
+        }
+        _structuralHashDependents.add(new WeakReference<>(parent));
+    }
+
+    /**
+     * Вычисляет и кэширует отпечатки всех узлов поддерева, включая этот узел.
+     * После этого сравнение любых двух таких поддеревьев на неравенство выполняется за O(1)
+     */
+    public void computeStructuralHashes() {
+        // Обход в обратном порядке: потомки вычисляются раньше предков, поэтому рекурсия неглубокая
+        for (NodeInfo info : iterate(true)) {
+            info.node().structuralHash();
+        }
+    }
+
+    /**
+     * Сбрасывает закэшированный отпечаток узла и всех предков, чьи отпечатки были вычислены из него.
+     * Вызывается автоматически при записи поля {@link TreeNode} через {@link NodeFieldAccessor} и {@link FieldDescriptor}
+     * и методами узлов, изменяющими детей; код, изменяющий поля узла иным способом
+     * (например, через изменяемый список, полученный геттером), должен вызывать его сам
+     */
+    public void invalidateStructuralHash() {
+        List<WeakReference<Node>> dependents;
+        synchronized (this) {
+            if (!_hasStructuralHash) {
+                // Предки, зависящие от отпечатка, были сброшены вместе с ним
+                return;
+            }
+            _hasStructuralHash = false;
+            dependents = _structuralHashDependents;
+            _structuralHashDependents = null;
+        }
+        if (dependents != null) {
+            // Предки сбрасываются вне монитора узла, чтобы не захватывать мониторы в обратном порядке
+            for (WeakReference<Node> ref : dependents) {
+                Node dependent = ref.get();
+                if (dependent != null) {
+                    dependent.invalidateStructuralHash();
+                }
+            }
+        }
+    }
+
+    private boolean hasDifferentStructuralHash(Node other) {
+        return _hasStructuralHash && other._hasStructuralHash && _structuralHash != other._structuralHash;
+    }
+
+    private static long mixStructuralHash(long value) {
+        // Финализатор SplitMix64: равномерно распределяет биты хэш-кода по всему отпечатку
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
     }
 
     @Override
@@ -71,7 +266,10 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
         try {
             Node clone = (Node) super.clone();
             clone._id = getId();
-            clone._labels = new HashSet<>(_labels);
+            clone._denseId = -1;
+            clone._hasStructuralHash = false;
+            clone._structuralHashDependents = null;
+            clone._labels = _labels == null ? null : _labels.copy();
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
@@ -99,16 +297,24 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
         return _id;
     }
 
-    public boolean uniquenessEquals(Node other) {
-        return this.getId() == other.getId();
+    /**
+     * Компактный номер узла (от 0 до n-1), назначенный последней нумерацией дерева, в которое входит узел
+     * (см. {@link org.vstu.meaningtree.MeaningTree#getDenseIndex()}). В отличие от {@link #getId()} уникален только внутри дерева
+     * @return номер или -1, если узел не нумеровался
+     */
+    public int getDenseId() {
+        return _denseId;
     }
 
-    private static Field[] getAllFields(Node instance) {
-        List<Field> fields = new ArrayList<Field>();
-        for (Class<?> c = instance.getClass(); c != null; c = c.getSuperclass()) {
-            fields.addAll(Arrays.asList(c.getDeclaredFields()));
-        }
-        return fields.toArray(new Field[0]);
+    /**
+     * Назначает компактный номер узла. Вызывается при построении {@link org.vstu.meaningtree.DenseNodeIndex}
+     */
+    public void assignDenseId(int denseId) {
+        _denseId = denseId;
+    }
+
+    public boolean uniquenessEquals(Node other) {
+        return this.getId() == other.getId();
     }
 
     /**
@@ -116,8 +322,7 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
      * @param obj - любой объект
      */
     public void setAssignedValueTag(@Nullable Object obj) {
-        removeLabel(Label.VALUE);
-        _labels.add(new Label(Label.VALUE, obj));
+        setLabel(new Label(Label.VALUE, obj));
     }
 
     /**
@@ -140,31 +345,35 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
 
     @Override
     public void setLabel(Label label) {
-        _labels.add(label);
+        if (_labels == null) {
+            _labels = new LabelStore();
+        }
+        _labels.set(label);
     }
 
     @Override
     public Label getLabel(short id) {
-        return _labels.stream().filter((Label l) -> l.getId() == id).findFirst().orElse(null);
+        return _labels == null ? null : _labels.get(id);
     }
 
     @Override
     public boolean hasLabel(short id) {
-        return _labels.stream().anyMatch((Label l) -> l.getId() == id);
+        return _labels != null && _labels.has(id);
     }
 
     @Override
     public boolean removeLabel(Label label) {
-        return _labels.remove(label);
+        return _labels != null && _labels.remove(label);
     }
 
     @Override
     public Set<Label> getAllLabels() {
-        return Set.copyOf(_labels);
+        return _labels == null ? Set.of() : _labels.toSet();
     }
 
     public FieldDescriptor getFieldDescriptor(String fieldName) {
-        return getFieldDescriptors().getOrDefault(fieldName, null);
+        NodeFieldAccessor accessor = NodeMetadata.of(getClass()).getField(fieldName);
+        return accessor == null ? null : accessor.describe(this);
     }
 
     public List<Node> allChildren() {
@@ -174,30 +383,17 @@ abstract public class Node implements Serializable, Cloneable, LabelAttachable,
         ).map(NodeInfo::node).toList();
     }
 
+    /**
+     * Дескрипторы полей узла, помеченных {@link TreeNode}, в порядке их обхода.
+     * Набор полей класса вычисляется один раз и кэшируется в {@link NodeMetadata}
+     * @return отображение "имя поля - дескриптор"
+     */
     public Map<String, FieldDescriptor> getFieldDescriptors() {
-        Map<String, FieldDescriptor> result = new HashMap<>();
-        for (Field field : getAllFields(this)) {
-            TreeNode treeNode = (TreeNode) Arrays.stream(field.getAnnotations())
-                    .filter((ann) -> ann instanceof TreeNode)
-                    .findFirst().orElse(null);
-            if (treeNode != null) {
-                String name = treeNode.alias() != null && !treeNode.alias().isEmpty() ? treeNode.alias() : field.getName();
-                Object value;
-                try {
-                    field.setAccessible(true);
-                    value = field.get(this);
-                } catch (IllegalAccessException e) {
-                    continue;
-                }
-                if (value instanceof Collection<?>) {
-                    result.put(name, new CollectionFieldDescriptor(this, name, field, treeNode.readOnly()));
-                } else if (value instanceof Node[]) {
-                    result.put(name, new ArrayFieldDescriptor(this, name, field, treeNode.readOnly()));
-                } else if (value instanceof Node) {
-                    result.put(name, new NodeFieldDescriptor(this, name, field, treeNode.readOnly()));
-                } else if (value instanceof Optional<?> opt && (opt.isPresent() ? opt.get() instanceof Node : true)) {
-                    result.put(name, new NodeFieldDescriptor(this, name, field, treeNode.readOnly()));
-                }
+        Map<String, FieldDescriptor> result = new LinkedHashMap<>();
+        for (NodeFieldAccessor accessor : NodeMetadata.of(getClass()).getFields()) {
+            FieldDescriptor descriptor = accessor.describe(this);
+            if (descriptor != null) {
+                result.put(accessor.getName(), descriptor);
             }
         }
         return result;
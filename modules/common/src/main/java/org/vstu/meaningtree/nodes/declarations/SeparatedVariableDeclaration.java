@@ -30,6 +30,10 @@ public class SeparatedVariableDeclaration extends Declaration {
         declarations = new ArrayList<>(decl);
     }
 
+    public List<VariableDeclaration> getDeclarations() {
+        return declarations;
+    }
+
     public boolean canBeReduced() {
         Type t = declarations.getFirst().getType();
         for (VariableDeclaration decl : declarations) {
@@ -38,6 +38,7 @@ public class VariableDeclaration extends Declaration implements HasInitializatio
 
     public void setType(Type newType) {
         type = newType;
+        invalidateStructuralHash();
     }
 
     public Type getType() {
@@ -38,6 +38,11 @@ public class SimpleIdentifier extends Identifier {
         return Objects.hash(super.hashCode(), name);
     }
 
+    @Override
+    protected long ownStructuralHash() {
+        return Objects.hashCode(name);
+    }
+
     @Override
     public SimpleIdentifier clone() {
         return (SimpleIdentifier) super.clone();
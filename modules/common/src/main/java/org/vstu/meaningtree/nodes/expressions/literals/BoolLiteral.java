@@ -30,6 +30,11 @@ public class BoolLiteral extends Literal {
         return Objects.hash(super.hashCode(), _state);
     }
 
+    @Override
+    protected long ownStructuralHash() {
+        return _state ? 1 : 0;
+    }
+
     public boolean getValue() {
         return _state;
     }
@@ -21,6 +21,11 @@ public class CharacterLiteral extends Literal {
         return Objects.hash(super.hashCode(), _value);
     }
 
+    @Override
+    protected long ownStructuralHash() {
+        return _value;
+    }
+
     public CharacterLiteral(int codePoint) {
         _value = codePoint;
     }
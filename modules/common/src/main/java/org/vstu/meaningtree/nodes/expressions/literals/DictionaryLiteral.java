@@ -25,6 +25,7 @@ public class DictionaryLiteral extends CollectionLiteral {
 
     public void setKeyTypeHint(@Nullable Type type) {
         this.keyTypeHint = type;
+        invalidateStructuralHash();
     }
 
     @Nullable
@@ -34,6 +35,7 @@ public class DictionaryLiteral extends CollectionLiteral {
 
     public void setValueTypeHint(@Nullable Type type) {
         this.valueTypeHint = type;
+        invalidateStructuralHash();
     }
 
     @Nullable
@@ -64,4 +64,9 @@ public class FloatLiteral extends NumericLiteral {
     public int hashCode() {
         return Objects.hash(super.hashCode(), _value, _isDoublePrecision);
     }
+
+    @Override
+    protected long ownStructuralHash() {
+        return Double.doubleToLongBits(_value);
+    }
 }
@@ -33,6 +33,16 @@ public class IntegerLiteral extends NumericLiteral {
         _isUnsigned = false;
     }
 
+    /**
+     * Создает литерал по уже разобранному значению, например при чтении сохраненного дерева
+     */
+    public IntegerLiteral(long value, Representation representation, boolean isLong, boolean isUnsigned) {
+        _value = value;
+        _repr = representation;
+        _isLongNumber = isLong;
+        _isUnsigned = isUnsigned;
+    }
+
     public long parseValue(String s, boolean parseModifiers) {
         int base = 10;
         s = s.toLowerCase();
@@ -119,6 +129,11 @@ public class IntegerLiteral extends NumericLiteral {
         return Objects.hash(super.hashCode(), _value, _isLongNumber, _isUnsigned, _repr);
     }
 
+    @Override
+    protected long ownStructuralHash() {
+        return _value;
+    }
+
     @Override
     public String toString() {
         return getStringValue(false);
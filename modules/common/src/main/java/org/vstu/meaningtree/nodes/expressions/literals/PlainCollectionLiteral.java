@@ -23,6 +23,7 @@ public abstract class PlainCollectionLiteral extends CollectionLiteral {
 
     public void setTypeHint(Type type) {
         if (type != null) this.typeHint = type;
+        invalidateStructuralHash();
     }
 
     @Nullable
@@ -75,4 +75,9 @@ public class StringLiteral extends Literal {
         return Objects.hash(value, stringType, charSize);
     }
 
+    @Override
+    protected long ownStructuralHash() {
+        return Objects.hashCode(value);
+    }
+
 }
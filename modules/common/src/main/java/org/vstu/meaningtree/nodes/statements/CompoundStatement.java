@@ -43,10 +43,12 @@ public class CompoundStatement extends Statement implements HasSymbolScope {
 
     public void substitute(int index, Node node) {
         nodes.set(index, node);
+        invalidateStructuralHash();
     }
 
     public void insert(int index, Node node) {
         nodes.add(index, node);
+        invalidateStructuralHash();
     }
 
     @Override
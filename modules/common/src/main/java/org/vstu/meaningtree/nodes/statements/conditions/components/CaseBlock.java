@@ -22,6 +22,7 @@ public abstract class CaseBlock extends Statement implements HasBodyStatement {
     public CompoundStatement makeCompoundBody(SymbolEnvironment env) {
         if (!(body instanceof CompoundStatement)) {
             body = new CompoundStatement(new SymbolEnvironment(env), getBody());
+            invalidateStructuralHash();
         }
         return (CompoundStatement) body;
     }
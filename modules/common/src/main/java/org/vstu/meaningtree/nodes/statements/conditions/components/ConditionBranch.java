@@ -28,6 +28,7 @@ public class ConditionBranch extends Statement implements HasBodyStatement {
     public CompoundStatement makeCompoundBody(SymbolEnvironment env) {
         if (!(body instanceof CompoundStatement)) {
             body = new CompoundStatement(new SymbolEnvironment(env), getBody());
+            invalidateStructuralHash();
         }
         return (CompoundStatement) body;
     }
@@ -22,6 +22,7 @@ public class ForEachLoop extends ForLoop {
     public CompoundStatement makeCompoundBody(SymbolEnvironment env) {
         if (!(body instanceof CompoundStatement)) {
             body = new CompoundStatement(new SymbolEnvironment(env), getBody());
+            invalidateStructuralHash();
         }
         return (CompoundStatement) body;
     }
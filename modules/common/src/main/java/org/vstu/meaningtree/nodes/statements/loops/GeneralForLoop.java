@@ -29,6 +29,7 @@ public class GeneralForLoop extends ForLoop {
     public CompoundStatement makeCompoundBody(SymbolEnvironment env) {
         if (!(body instanceof CompoundStatement)) {
             body = new CompoundStatement(new SymbolEnvironment(env), getBody());
+            invalidateStructuralHash();
         }
         return (CompoundStatement) body;
     }
@@ -34,6 +34,15 @@ public class GenericUserType extends UserType implements Generic {
         return Objects.deepEquals(templateParameters, that.templateParameters);
     }
 
+    @Override
+    protected long childrenStructuralHash() {
+        long hash = super.childrenStructuralHash();
+        for (Type parameter : templateParameters) {
+            hash = hash * 31 + childStructuralHash(parameter);
+        }
+        return hash;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode(), Arrays.hashCode(templateParameters));
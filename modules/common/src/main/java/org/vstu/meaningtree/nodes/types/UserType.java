@@ -38,6 +38,12 @@ public abstract class UserType extends Type {
         return getName().equals(other.getName());
     }
 
+    @Override
+    protected long childrenStructuralHash() {
+        // Сравнивается только собственное имя типа, без области видимости
+        return childStructuralHash(getName());
+    }
+
     @Override
     public String generateDot() {
         throw new UnsupportedOperationException();
@@ -45,7 +51,7 @@ public abstract class UserType extends Type {
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), name);
+        return Objects.hash(super.hashCode(), getName());
     }
 
     @Override
@@ -0,0 +1,381 @@
+package org.vstu.meaningtree.serializers.binary;
+
+import org.jetbrains.annotations.Nullable;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.serializers.model.Deserializer;
+import org.vstu.meaningtree.utils.Label;
+import org.vstu.meaningtree.utils.SourceSpans;
+import org.vstu.meaningtree.utils.env.SymbolEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.vstu.meaningtree.serializers.binary.BinaryFormat.*;
+
+/**
+ * Чтение дерева из двоичного формата {@link BinarySerializer}.
+ * Узлы создаются конструкторами своих классов через кодеки {@link NodeCodecs}, поэтому получают новые id.
+ * Данные старых версий модели узлов читаются текущим реестром. Данные другой версии формата или более новой
+ * версии модели, а также теги, которых не было в реестре версии модели данных, отвергаются
+ */
+public class BinaryDeserializer implements Deserializer<byte[]> {
+    @Override
+    public Node deserialize(byte[] serialized) {
+        return asNode(readChecked(serialized));
+    }
+
+    @Override
+    public MeaningTree deserializeTree(byte[] serialized) {
+        return asTree(readChecked(serialized));
+    }
+
+    /**
+     * Читает поток до конца. Поток не закрывается
+     */
+    public Node deserialize(InputStream in) throws IOException {
+        return asNode(read(in.readAllBytes()));
+    }
+
+    public MeaningTree deserializeTree(InputStream in) throws IOException {
+        return asTree(read(in.readAllBytes()));
+    }
+
+    private static Node asNode(Object root) {
+        return switch (root) {
+            case Node node -> node;
+            case MeaningTree mt -> mt.getRootNode();
+            case null, default -> throw new MeaningTreeException("Binary MeaningTree data does not contain a node");
+        };
+    }
+
+    private static MeaningTree asTree(Object root) {
+        return switch (root) {
+            case MeaningTree mt -> mt;
+            case Node node -> new MeaningTree(node);
+            case null, default -> throw new MeaningTreeException("Binary MeaningTree data does not contain a tree");
+        };
+    }
+
+    private static Object readChecked(byte[] serialized) {
+        try {
+            return read(serialized);
+        } catch (IOException e) {
+            throw new MeaningTreeException(e);
+        }
+    }
+
+    private static Object read(byte[] serialized) throws IOException {
+        return read(serialized, NodeCodecs.modelCodecCounts());
+    }
+
+    /**
+     * @param modelCodecCounts количество видов узлов в реестре каждой версии модели, начиная с первой;
+     *                         последняя версия считается текущей
+     */
+    static Object read(byte[] serialized, int[] modelCodecCounts) throws IOException {
+        Input in = new Input(serialized);
+        byte[] magic = in.readBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new MeaningTreeException("Not a binary MeaningTree data");
+        }
+        int formatVersion = in.readLength();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new MeaningTreeException(String.format(
+                    "Binary MeaningTree format version %d is not supported, expected %d", formatVersion, FORMAT_VERSION));
+        }
+        int modelVersion = in.readLength();
+        if (modelVersion < MIN_MODEL_VERSION || modelVersion > modelCodecCounts.length) {
+            throw new MeaningTreeException(String.format(
+                    "Binary MeaningTree node model version %d is not supported, expected %d to %d",
+                    modelVersion, MIN_MODEL_VERSION, modelCodecCounts.length));
+        }
+
+        String[] strings = new String[boundedCount(in, in.readLength())];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(in.readBytes(in.readLength()), StandardCharsets.UTF_8);
+        }
+        Decoder decoder = new Decoder(in, strings, modelCodecCounts[modelVersion - 1]);
+        Object root;
+        int record = in.readLength();
+        if (record == NODE_RECORD) {
+            root = decoder.node(Node.class);
+        } else if (record == TREE_RECORD) {
+            MeaningTree mt = new MeaningTree(decoder.node(Node.class));
+            for (Label label : decoder.labels()) {
+                mt.setLabel(label);
+            }
+            mt.setSourceSpans(decoder.spans());
+            root = mt;
+        } else {
+            throw new IOException("Unknown record type in binary MeaningTree data: " + record);
+        }
+        if (in.position() != serialized.length) {
+            throw new IOException("Unexpected trailing bytes in binary MeaningTree data");
+        }
+        return root;
+    }
+
+    /**
+     * Количество элементов не может превышать количество оставшихся байт: каждый элемент занимает хотя бы байт.
+     * Проверка не дает поврежденным данным заставить читатель выделить огромный массив
+     */
+    private static int boundedCount(Input in, int count) throws IOException {
+        if (count > in.remaining()) {
+            throw new IOException("Invalid element count in binary MeaningTree data: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Читает узлы в порядке записи. Номер узла резервируется до чтения его детей, чтобы номера совпадали
+     * с порядком записи, а сам узел подставляется после создания
+     */
+    static final class Decoder {
+        private final Input in;
+        private final String[] strings;
+        private final int codecCount;
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<Node, Integer> ordinals = new IdentityHashMap<>();
+        private final Deque<SymbolEnvironment> scopes = new ArrayDeque<>();
+
+        private Decoder(Input in, String[] strings, int codecCount) {
+            this.in = in;
+            this.strings = strings;
+            this.codecCount = codecCount;
+        }
+
+        @Nullable
+        <T> T node(Class<T> expected) throws IOException {
+            int tag = in.readLength();
+            if (tag == 0) {
+                return null;
+            }
+            // Тег, которого не было в реестре версии модели данных, не читается, даже если он есть в текущем реестре
+            NodeCodecs.NodeCodec<?> codec = tag <= codecCount ? NodeCodecs.byTag(tag - 1) : null;
+            if (codec == null) {
+                throw new IOException("Unknown node tag in binary MeaningTree data: " + (tag - 1));
+            }
+            int length = in.readLength();
+            if (length > in.remaining()) {
+                throw new IOException("Invalid node length in binary MeaningTree data: " + length);
+            }
+            int end = in.position() + length;
+            int ordinal = nodes.size();
+            nodes.add(null);
+
+            Node node;
+            try {
+                node = codec.reader().read(this);
+            } catch (RuntimeException e) {
+                // Конструктор узла отверг прочитанные значения
+                throw new IOException("Cannot create " + codec.type().getSimpleName() + " from binary MeaningTree data", e);
+            }
+            if (node == null || node.getClass() != codec.type()) {
+                throw new IOException("Codec of " + codec.type().getName() + " produced another node");
+            }
+            nodes.set(ordinal, node);
+            ordinals.put(node, ordinal);
+            for (Label label : node.getAllLabels()) {
+                // Метки, установленные конструктором, заменяются сохраненными
+                node.removeLabel(label);
+            }
+            for (Label label : labels()) {
+                node.setLabel(label);
+            }
+            if (in.position() != end) {
+                throw new IOException("Corrupted body of " + codec.type().getName() + " in binary MeaningTree data");
+            }
+            return cast(node, expected);
+        }
+
+        <T> List<T> nodes(Class<T> expected) throws IOException {
+            int size = boundedCount(in, in.readLength());
+            List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(node(expected));
+            }
+            return result;
+        }
+
+        @Nullable
+        <T> T reference(Class<T> expected) throws IOException {
+            int value = in.readLength();
+            if (value == 0) {
+                return null;
+            }
+            if (value == 1) {
+                return node(expected);
+            }
+            int ordinal = value - 2;
+            Node node = ordinal < nodes.size() ? nodes.get(ordinal) : null;
+            if (node == null) {
+                throw new IOException("Invalid node reference in binary MeaningTree data: " + ordinal);
+            }
+            return cast(node, expected);
+        }
+
+        /**
+         * Подставляет узел, созданный конструктором родителя вместо прочитанного (например, объявление конструктора класса),
+         * переносит на него метки и номер прочитанного узла
+         */
+        void replace(Node decoded, Node actual) {
+            Integer ordinal = ordinals.remove(decoded);
+            if (ordinal != null) {
+                nodes.set(ordinal, actual);
+                ordinals.put(actual, ordinal);
+            }
+            for (Label label : actual.getAllLabels()) {
+                actual.removeLabel(label);
+            }
+            for (Label label : decoded.getAllLabels()) {
+                actual.setLabel(label);
+            }
+        }
+
+        /**
+         * Открывает область видимости, вложенную в текущую. Вызывается кодеком узла до чтения его детей
+         */
+        SymbolEnvironment enterScope() {
+            SymbolEnvironment scope = new SymbolEnvironment(scopes.peek());
+            scopes.push(scope);
+            return scope;
+        }
+
+        void exitScope() {
+            scopes.pop();
+        }
+
+        @Nullable
+        String string() throws IOException {
+            int index = in.readLength();
+            if (index == 0) {
+                return null;
+            }
+            if (index > strings.length) {
+                throw new IOException("Invalid string index in binary MeaningTree data: " + (index - 1));
+            }
+            return strings[index - 1];
+        }
+
+        boolean bool() throws IOException {
+            int value = in.readLength();
+            if (value > 1) {
+                throw new IOException("Invalid boolean in binary MeaningTree data: " + value);
+            }
+            return value == 1;
+        }
+
+        long number() throws IOException {
+            return in.readSignedVarint();
+        }
+
+        int integer() throws IOException {
+            long value = number();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IOException("Integer out of range in binary MeaningTree data: " + value);
+            }
+            return (int) value;
+        }
+
+        double real() throws IOException {
+            return Double.longBitsToDouble(Long.reverseBytes(in.readVarint()));
+        }
+
+        /**
+         * Константа перечисления, тип которого задан кодеком, а не данными
+         */
+        @Nullable
+        <E extends Enum<E>> E constant(Class<E> type) throws IOException {
+            String name = string();
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(type, name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown constant " + name + " of " + type.getSimpleName() + " in binary MeaningTree data");
+            }
+        }
+
+        <E extends Enum<E>> List<E> constants(Class<E> type) throws IOException {
+            int size = boundedCount(in, in.readLength());
+            List<E> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(constant(type));
+            }
+            return result;
+        }
+
+        private List<Label> labels() throws IOException {
+            int size = boundedCount(in, in.readLength());
+            List<Label> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long id = number();
+                if (id < Short.MIN_VALUE || id > Short.MAX_VALUE) {
+                    throw new IOException("Invalid label id in binary MeaningTree data: " + id);
+                }
+                result.add(new Label((short) id, attribute()));
+            }
+            return result;
+        }
+
+        private Object attribute() throws IOException {
+            int type = in.readLength();
+            return switch (type) {
+                case VALUE_NULL -> null;
+                case VALUE_FALSE -> false;
+                case VALUE_TRUE -> true;
+                case VALUE_BYTE -> (byte) number();
+                case VALUE_SHORT -> (short) number();
+                case VALUE_INT -> integer();
+                case VALUE_LONG -> number();
+                case VALUE_FLOAT -> Float.intBitsToFloat((int) in.readVarint());
+                case VALUE_DOUBLE -> real();
+                case VALUE_CHAR -> (char) in.readVarint();
+                case VALUE_STRING -> string();
+                default -> throw new IOException("Unknown label attribute type in binary MeaningTree data: " + type);
+            };
+        }
+
+        /**
+         * Диапазоны переводятся с порядковых номеров узлов на id созданных узлов
+         */
+        @Nullable
+        private SourceSpans spans() throws IOException {
+            if (!bool()) {
+                return null;
+            }
+            SourceSpans.Builder builder = new SourceSpans.Builder();
+            int count = boundedCount(in, in.readLength());
+            for (int i = 0; i < count; i++) {
+                int ordinal = in.readLength();
+                if (ordinal >= nodes.size()) {
+                    throw new IOException("Invalid node reference in binary MeaningTree data: " + ordinal);
+                }
+                builder.add(nodes.get(ordinal).getId(), in.readLength(), in.readLength());
+            }
+            int[] lineStarts = new int[boundedCount(in, in.readLength())];
+            for (int i = 0; i < lineStarts.length; i++) {
+                lineStarts[i] = (i == 0 ? 0 : lineStarts[i - 1]) + in.readLength();
+            }
+            int sourceLength = in.readLength();
+            try {
+                return builder.build(lineStarts, sourceLength);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid source spans in binary MeaningTree data", e);
+            }
+        }
+
+        private static <T> T cast(Node node, Class<T> expected) throws IOException {
+            if (!expected.isInstance(node)) {
+                throw new IOException(node.getClass().getSimpleName() + " cannot be used as "
+                        + expected.getSimpleName() + " in binary MeaningTree data");
+            }
+            return expected.cast(node);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.vstu.meaningtree.serializers.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Константы и примитивы компактного двоичного формата MeaningTree.
+ * <p>
+ * Структура файла:
+ * <pre>
+ * magic "MTB\0" | formatVersion | modelVersion | stringCount string* | record
+ * string = length utf8Bytes
+ * record = NODE_RECORD node | TREE_RECORD node labels spans
+ * node   = 0 (null) | (tag + 1) length fields labels
+ * labels = count (id attribute)*
+ * spans  = 0 | 1 count (nodeOrdinal start end)* lineCount lineStart* sourceLength
+ * </pre>
+ * Все целые числа записываются как varint, знаковые - в zigzag-кодировке. Строки хранятся один раз в таблице строк.
+ * <p>
+ * Тег узла - номер вида узла в фиксированном реестре {@link NodeCodecs}; тег, которого не было в реестре
+ * версии модели из заголовка, отвергается.
+ * Поля узла - только его дети и собственные значения (имя идентификатора, значение литерала, модификаторы)
+ * в порядке, заданном кодеком вида узла. Узел создается при чтении своим конструктором, поэтому получает новый id;
+ * диапазоны исходного кода ссылаются на узлы по порядковому номеру узла в записи.
+ * Таблицы символов не сохраняются: при чтении составные операторы получают пустые области видимости той же вложенности
+ */
+final class BinaryFormat {
+    static final byte[] MAGIC = {'M', 'T', 'B', 0};
+
+    /**
+     * Версия раскладки байтов: заголовка, записи узла, меток и диапазонов. Увеличивается при несовместимом изменении кодека
+     */
+    static final int FORMAT_VERSION = 3;
+
+    /**
+     * Версия модели узлов. Увеличивается, когда меняется реестр {@link NodeCodecs}: добавлен вид узла
+     * или изменился набор и порядок полей в кодеке какого-либо узла. Переименование private полей узлов ее не затрагивает.
+     * Читаются данные версий от {@link #MIN_MODEL_VERSION} до текущей; данные более новой версии отвергаются
+     */
+    static final int MODEL_VERSION = 1;
+
+    /**
+     * Самая старая версия модели, данные которой читаются текущими кодеками. Добавление вида узла ее не меняет:
+     * реестр старой версии - начало текущего. При изменении набора или порядка полей кодека она поднимается до новой
+     * {@link #MODEL_VERSION}
+     */
+    static final int MIN_MODEL_VERSION = 1;
+
+    static final int NODE_RECORD = 0;
+    static final int TREE_RECORD = 1;
+
+    /**
+     * Типы значений атрибутов меток
+     */
+    static final int VALUE_NULL = 0;
+    static final int VALUE_FALSE = 1;
+    static final int VALUE_TRUE = 2;
+    static final int VALUE_BYTE = 3;
+    static final int VALUE_SHORT = 4;
+    static final int VALUE_INT = 5;
+    static final int VALUE_LONG = 6;
+    static final int VALUE_FLOAT = 7;
+    static final int VALUE_DOUBLE = 8;
+    static final int VALUE_STRING = 9;
+    static final int VALUE_CHAR = 10;
+
+    private BinaryFormat() {}
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long raw) {
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Растущий буфер записи. Длина тела объекта заранее неизвестна, поэтому она вставляется перед телом
+     * после его записи ({@link #insertLength(int)}) сдвигом уже записанных байт
+     */
+    static final class Output {
+        private byte[] buffer = new byte[256];
+        private int size = 0;
+
+        int position() {
+            return size;
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint(zigzag(value));
+        }
+
+        /**
+         * Вставляет перед байтами, записанными начиная с позиции start, их количество
+         */
+        void insertLength(int start) {
+            int length = size - start;
+            int width = 1;
+            for (long rest = length >>> 7; rest != 0; rest >>>= 7) {
+                width++;
+            }
+            ensureCapacity(width);
+            System.arraycopy(buffer, start, buffer, start + width, length);
+            int end = size + width;
+            size = start;
+            writeVarint(length);
+            size = end;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Чтение из массива байт с текущей позицией
+     */
+    static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int position() {
+            return position;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int read() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("Unexpected end of binary MeaningTree data");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            if (length > data.length - position) {
+                throw new IOException("Unexpected end of binary MeaningTree data");
+            }
+            byte[] result = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return result;
+        }
+
+        long readVarint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint in binary MeaningTree data");
+        }
+
+        long readSignedVarint() throws IOException {
+            return unzigzag(readVarint());
+        }
+
+        int readLength() throws IOException {
+            long value = readVarint();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length in binary MeaningTree data: " + value);
+            }
+            return (int) value;
+        }
+    }
+}
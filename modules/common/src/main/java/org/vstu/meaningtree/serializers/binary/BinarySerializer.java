@@ -0,0 +1,267 @@
+package org.vstu.meaningtree.serializers.binary;
+
+import org.jetbrains.annotations.Nullable;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.serializers.model.Serializer;
+import org.vstu.meaningtree.utils.Label;
+import org.vstu.meaningtree.utils.SourceSpans;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.vstu.meaningtree.serializers.binary.BinaryFormat.*;
+
+/**
+ * Компактная двоичная сериализация дерева (формат описан в {@link BinaryFormat}).
+ * Каждый узел записывается кодеком своего вида из {@link NodeCodecs}: тег, длина тела, дети и собственные значения узла.
+ * Вместе с узлами сохраняются метки и диапазоны исходного кода
+ */
+public class BinarySerializer implements Serializer<byte[]> {
+    private static final String SCHEMA = FORMAT_VERSION + "." + MODEL_VERSION + ":" + NodeCodecs.describe();
+
+    /**
+     * Схема двоичных данных: версии формата и модели узлов и список видов узлов реестра.
+     * Схема меняется при любом изменении реестра, поэтому ключи хранилищ, учитывающие ее, не смешивают данные разных моделей
+     */
+    public static String getSchema() {
+        return SCHEMA;
+    }
+
+    @Override
+    public byte[] serialize(Node node) {
+        return toBytes(node, null);
+    }
+
+    @Override
+    public byte[] serialize(MeaningTree mt) {
+        return toBytes(null, mt);
+    }
+
+    public void serialize(Node node, OutputStream out) throws IOException {
+        write(node, null, out);
+    }
+
+    public void serialize(MeaningTree mt, OutputStream out) throws IOException {
+        write(null, mt, out);
+    }
+
+    private static byte[] toBytes(Node node, MeaningTree mt) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(node, mt, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Записывает заголовок, таблицу строк и запись узла или дерева. Поток не закрывается
+     */
+    private static void write(Node node, MeaningTree mt, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder();
+        if (mt == null) {
+            encoder.body.writeVarint(NODE_RECORD);
+            encoder.node(node);
+        } else {
+            encoder.body.writeVarint(TREE_RECORD);
+            encoder.node(mt.getRootNode());
+            encoder.labels(mt.getAllLabels());
+            encoder.spans(mt.getSourceSpans());
+        }
+
+        Output header = new Output();
+        header.write(MAGIC);
+        header.writeVarint(FORMAT_VERSION);
+        header.writeVarint(MODEL_VERSION);
+        header.writeVarint(encoder.strings.size());
+        for (String s : encoder.strings.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(bytes.length);
+            header.write(bytes);
+        }
+        header.writeTo(out);
+        encoder.body.writeTo(out);
+    }
+
+    /**
+     * Кодирует узлы в буфер, собирая таблицу строк в порядке первого появления.
+     * Узлы нумеруются в порядке начала их записи; по этим номерам записываются ссылки на уже записанные узлы и диапазоны
+     */
+    static final class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Map<Node, Integer> ordinals = new IdentityHashMap<>();
+        private int written = 0;
+        private final Output body = new Output();
+
+        private Encoder() {}
+
+        void node(@Nullable Node node) {
+            if (node == null) {
+                body.writeVarint(0);
+                return;
+            }
+            NodeCodecs.NodeCodec<Node> codec = NodeCodecs.of(node);
+            // Узел, встречающийся в дереве дважды, записывается дважды; ссылки указывают на первую запись
+            ordinals.putIfAbsent(node, written++);
+            body.writeVarint(codec.tag() + 1);
+            int start = body.position();
+            codec.writer().write(this, node);
+            labels(node.getAllLabels());
+            body.insertLength(start);
+        }
+
+        void nodes(Collection<? extends Node> nodes) {
+            body.writeVarint(nodes.size());
+            for (Node node : nodes) {
+                node(node);
+            }
+        }
+
+        /**
+         * Ссылка на узел, который может быть уже записан в другом месте дерева (например, главный класс программы).
+         * Незаписанный узел записывается на месте ссылки
+         */
+        void reference(@Nullable Node node) {
+            Integer ordinal = node == null ? null : ordinals.get(node);
+            if (node == null) {
+                body.writeVarint(0);
+            } else if (ordinal != null) {
+                body.writeVarint(ordinal + 2L);
+            } else {
+                body.writeVarint(1);
+                node(node);
+            }
+        }
+
+        void string(@Nullable String s) {
+            if (s == null) {
+                body.writeVarint(0);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.put(s, index);
+            }
+            body.writeVarint(index + 1L);
+        }
+
+        void bool(boolean value) {
+            body.writeVarint(value ? 1 : 0);
+        }
+
+        void number(long value) {
+            body.writeSignedVarint(value);
+        }
+
+        void real(double value) {
+            // Старшие и младшие байты переставлены, чтобы у "круглых" чисел varint получался короче
+            body.writeVarint(Long.reverseBytes(Double.doubleToLongBits(value)));
+        }
+
+        void constant(@Nullable Enum<?> value) {
+            string(value == null ? null : value.name());
+        }
+
+        void constants(List<? extends Enum<?>> values) {
+            body.writeVarint(values.size());
+            for (Enum<?> value : values) {
+                constant(value);
+            }
+        }
+
+        private void labels(Collection<Label> labels) {
+            body.writeVarint(labels.size());
+            for (Label label : labels) {
+                number(label.getId());
+                attribute(label.getAttribute());
+            }
+        }
+
+        /**
+         * Атрибут метки. Сохраняются только простые значения: произвольный объект нельзя восстановить без его класса
+         */
+        private void attribute(Object value) {
+            switch (value) {
+                case null -> body.writeVarint(VALUE_NULL);
+                case Boolean b -> body.writeVarint(b ? VALUE_TRUE : VALUE_FALSE);
+                case Byte b -> {
+                    body.writeVarint(VALUE_BYTE);
+                    number(b);
+                }
+                case Short s -> {
+                    body.writeVarint(VALUE_SHORT);
+                    number(s);
+                }
+                case Integer i -> {
+                    body.writeVarint(VALUE_INT);
+                    number(i);
+                }
+                case Long l -> {
+                    body.writeVarint(VALUE_LONG);
+                    number(l);
+                }
+                case Float f -> {
+                    body.writeVarint(VALUE_FLOAT);
+                    body.writeVarint(Float.floatToIntBits(f) & 0xFFFFFFFFL);
+                }
+                case Double d -> {
+                    body.writeVarint(VALUE_DOUBLE);
+                    real(d);
+                }
+                case Character c -> {
+                    body.writeVarint(VALUE_CHAR);
+                    body.writeVarint(c);
+                }
+                case String s -> {
+                    body.writeVarint(VALUE_STRING);
+                    string(s);
+                }
+                default -> throw new MeaningTreeException("Unsupported label attribute of type "
+                        + value.getClass().getName() + " in binary serializer");
+            }
+        }
+
+        /**
+         * Диапазоны записываются в порядке записи при разборе, узлы - порядковыми номерами.
+         * Диапазоны узлов, которых уже нет в дереве, пропускаются
+         */
+        private void spans(@Nullable SourceSpans spans) {
+            if (spans == null) {
+                body.writeVarint(0);
+                return;
+            }
+            body.writeVarint(1);
+            SourceSpans.Builder recorded = spans.toBuilder();
+            Map<Long, Integer> byId = new HashMap<>();
+            ordinals.forEach((node, ordinal) -> byId.putIfAbsent(node.getId(), ordinal));
+            int[] kept = new int[recorded.size()];
+            int count = 0;
+            for (int i = 0; i < recorded.size(); i++) {
+                if (byId.containsKey(recorded.getNodeId(i))) {
+                    kept[count++] = i;
+                }
+            }
+            body.writeVarint(count);
+            for (int k = 0; k < count; k++) {
+                int i = kept[k];
+                body.writeVarint(byId.get(recorded.getNodeId(i)));
+                body.writeVarint(recorded.getStartByte(i));
+                body.writeVarint(recorded.getEndByte(i));
+            }
+            int[] lineStarts = spans.getLineStarts();
+            body.writeVarint(lineStarts.length);
+            for (int i = 0; i < lineStarts.length; i++) {
+                body.writeVarint(i == 0 ? lineStarts[0] : lineStarts[i] - lineStarts[i - 1]);
+            }
+            body.writeVarint(spans.getSourceLength());
+        }
+    }
+}
@@ -0,0 +1,828 @@
+package org.vstu.meaningtree.serializers.binary;
+
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.nodes.*;
+import org.vstu.meaningtree.nodes.declarations.*;
+import org.vstu.meaningtree.nodes.declarations.components.DeclarationArgument;
+import org.vstu.meaningtree.nodes.declarations.components.VariableDeclarator;
+import org.vstu.meaningtree.nodes.definitions.*;
+import org.vstu.meaningtree.nodes.definitions.components.DefinitionArgument;
+import org.vstu.meaningtree.nodes.enums.AugmentedAssignmentOperator;
+import org.vstu.meaningtree.nodes.enums.DeclarationModifier;
+import org.vstu.meaningtree.nodes.expressions.*;
+import org.vstu.meaningtree.nodes.expressions.bitwise.*;
+import org.vstu.meaningtree.nodes.expressions.calls.ConstructorCall;
+import org.vstu.meaningtree.nodes.expressions.calls.FunctionCall;
+import org.vstu.meaningtree.nodes.expressions.calls.MethodCall;
+import org.vstu.meaningtree.nodes.expressions.comparison.*;
+import org.vstu.meaningtree.nodes.expressions.comprehensions.Comprehension;
+import org.vstu.meaningtree.nodes.expressions.comprehensions.ContainerBasedComprehension;
+import org.vstu.meaningtree.nodes.expressions.comprehensions.RangeBasedComprehension;
+import org.vstu.meaningtree.nodes.expressions.identifiers.*;
+import org.vstu.meaningtree.nodes.expressions.literals.*;
+import org.vstu.meaningtree.nodes.expressions.logical.*;
+import org.vstu.meaningtree.nodes.expressions.math.*;
+import org.vstu.meaningtree.nodes.expressions.newexpr.ArrayNewExpression;
+import org.vstu.meaningtree.nodes.expressions.newexpr.ObjectNewExpression;
+import org.vstu.meaningtree.nodes.expressions.newexpr.PlacementNewExpression;
+import org.vstu.meaningtree.nodes.expressions.other.*;
+import org.vstu.meaningtree.nodes.expressions.pointers.PointerMemberAccess;
+import org.vstu.meaningtree.nodes.expressions.pointers.PointerPackOp;
+import org.vstu.meaningtree.nodes.expressions.pointers.PointerUnpackOp;
+import org.vstu.meaningtree.nodes.expressions.unary.*;
+import org.vstu.meaningtree.nodes.interfaces.HasInitialization;
+import org.vstu.meaningtree.nodes.io.*;
+import org.vstu.meaningtree.nodes.memory.MemoryAllocationCall;
+import org.vstu.meaningtree.nodes.memory.MemoryFreeCall;
+import org.vstu.meaningtree.nodes.modules.*;
+import org.vstu.meaningtree.nodes.statements.CompoundStatement;
+import org.vstu.meaningtree.nodes.statements.DeleteStatement;
+import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
+import org.vstu.meaningtree.nodes.statements.ReturnStatement;
+import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
+import org.vstu.meaningtree.nodes.statements.assignments.CompoundAssignmentStatement;
+import org.vstu.meaningtree.nodes.statements.assignments.MultipleAssignmentStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.IfStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.SwitchStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.components.*;
+import org.vstu.meaningtree.nodes.statements.loops.*;
+import org.vstu.meaningtree.nodes.statements.loops.control.BreakStatement;
+import org.vstu.meaningtree.nodes.statements.loops.control.ContinueStatement;
+import org.vstu.meaningtree.nodes.types.*;
+import org.vstu.meaningtree.nodes.types.builtin.*;
+import org.vstu.meaningtree.nodes.types.containers.*;
+import org.vstu.meaningtree.nodes.types.containers.components.Shape;
+import org.vstu.meaningtree.nodes.types.user.GenericClass;
+import org.vstu.meaningtree.nodes.types.user.Interface;
+import org.vstu.meaningtree.nodes.types.user.Structure;
+import org.vstu.meaningtree.utils.env.SymbolEnvironment;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Фиксированный реестр видов узлов двоичного формата. Тег узла - номер его кодека в реестре,
+ * поэтому новые кодеки добавляются только в конец, после отметки последней версии модели, и отмечаются новой версией
+ * ({@link BinaryFormat#MODEL_VERSION}). Виды узлов старой версии модели - начало текущего реестра,
+ * поэтому данные старой версии читаются текущим реестром.
+ * <p>
+ * Кодек записывает детей узла и его собственные значения и создает узел при чтении публичным конструктором
+ * или фабричным методом класса, как {@link org.vstu.meaningtree.serializers.model.UniversalDeserializer}.
+ * Кодек выбирается по точному классу узла: узел класса, которого нет в реестре, не сериализуется
+ */
+final class NodeCodecs {
+    @FunctionalInterface
+    interface Writer<T extends Node> {
+        void write(BinarySerializer.Encoder out, T node);
+    }
+
+    @FunctionalInterface
+    interface Reader<T extends Node> {
+        T read(BinaryDeserializer.Decoder in) throws IOException;
+    }
+
+    record NodeCodec<T extends Node>(int tag, Class<T> type, Writer<T> writer, Reader<T> reader) {}
+
+    private static final List<NodeCodec<?>> CODECS = new ArrayList<>();
+    private static final Map<Class<?>, NodeCodec<?>> BY_TYPE = new HashMap<>();
+
+    /**
+     * Количество видов узлов в реестре каждой версии модели: элемент i относится к версии i + 1
+     */
+    private static final List<Integer> MODEL_CODEC_COUNTS = new ArrayList<>();
+
+    static {
+        registerExpressions();
+        registerLiterals();
+        registerTypes();
+        registerStatements();
+        registerDeclarations();
+        registerModules();
+        endModelVersion(1);
+        if (MODEL_CODEC_COUNTS.size() != BinaryFormat.MODEL_VERSION) {
+            throw new IllegalStateException("Binary codec registry does not end with model version " + BinaryFormat.MODEL_VERSION);
+        }
+    }
+
+    private NodeCodecs() {}
+
+    @SuppressWarnings("unchecked")
+    static NodeCodec<Node> of(Node node) {
+        NodeCodec<?> codec = BY_TYPE.get(node.getClass());
+        if (codec == null) {
+            throw new MeaningTreeException("Node type " + node.getClass().getName() + " is not supported by binary serializer");
+        }
+        return (NodeCodec<Node>) codec;
+    }
+
+    /**
+     * @return кодек или null, если тег неизвестен
+     */
+    static NodeCodec<?> byTag(int tag) {
+        return tag >= 0 && tag < CODECS.size() ? CODECS.get(tag) : null;
+    }
+
+    /**
+     * Количество видов узлов в реестре каждой версии модели, начиная с первой; последний элемент - текущий реестр
+     */
+    static int[] modelCodecCounts() {
+        return MODEL_CODEC_COUNTS.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Описание реестра: классы узлов в порядке тегов. Меняется при добавлении, удалении и переименовании видов узлов
+     */
+    static String describe() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (NodeCodec<?> codec : CODECS) {
+            joiner.add(codec.type().getName());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Отмечает, что кодеки, зарегистрированные до этого вызова, составляют реестр версии модели version
+     */
+    private static void endModelVersion(int version) {
+        if (version != MODEL_CODEC_COUNTS.size() + 1) {
+            throw new IllegalStateException("Binary model version " + version + " is marked out of order");
+        }
+        MODEL_CODEC_COUNTS.add(CODECS.size());
+    }
+
+    private static <T extends Node> void add(Class<T> type, Writer<T> writer, Reader<T> reader) {
+        NodeCodec<T> codec = new NodeCodec<>(CODECS.size(), type, writer, reader);
+        if (BY_TYPE.putIfAbsent(type, codec) != null) {
+            throw new IllegalStateException("Duplicate binary codec for " + type.getName());
+        }
+        CODECS.add(codec);
+    }
+
+    private static <T extends Node> void leaf(Class<T> type, Supplier<T> factory) {
+        add(type, (out, node) -> {}, in -> factory.get());
+    }
+
+    private static <T extends UnaryExpression> void unary(Class<T> type, Function<Expression, T> factory) {
+        add(type, (out, node) -> out.node(node.getArgument()), in -> factory.apply(in.node(Expression.class)));
+    }
+
+    private static <T extends BinaryExpression> void binary(Class<T> type, BiFunction<Expression, Expression, T> factory) {
+        add(type, (out, node) -> {
+            out.node(node.getLeft());
+            out.node(node.getRight());
+        }, in -> factory.apply(in.node(Expression.class), in.node(Expression.class)));
+    }
+
+    /**
+     * Кодек типа, дополнительно сохраняющий признак константности
+     */
+    private static <T extends Type> void type(Class<T> type, Writer<T> writer, Reader<T> reader) {
+        add(type, (out, node) -> {
+            out.bool(node.isConst());
+            writer.write(out, node);
+        }, in -> {
+            boolean isConst = in.bool();
+            T node = reader.read(in);
+            node.setConst(isConst);
+            return node;
+        });
+    }
+
+    private static <T extends Type> void leafType(Class<T> type, Supplier<T> factory) {
+        type(type, (out, node) -> {}, in -> factory.get());
+    }
+
+    private static <T extends UserType> void userType(Class<T> type, Function<Identifier, T> factory) {
+        type(type, (out, node) -> out.node(node.getQualifiedName()), in -> factory.apply(in.node(Identifier.class)));
+    }
+
+    private static <T extends GenericUserType, I extends Identifier> void genericType(
+            Class<T> type, Class<I> nameType, BiFunction<I, Type[], T> factory) {
+        type(type, (out, node) -> {
+            out.node(node.getQualifiedName());
+            out.nodes(Arrays.asList(node.getTypeParameters()));
+        }, in -> factory.apply(in.node(nameType), in.nodes(Type.class).toArray(new Type[0])));
+    }
+
+    private static <T extends PlainCollectionType> void collectionType(Class<T> type, Function<Type, T> factory) {
+        type(type, (out, node) -> out.node(node.getItemType()), in -> factory.apply(in.node(Type.class)));
+    }
+
+    private static <T extends PlainCollectionLiteral> void collection(Class<T> type, Function<List<Expression>, T> factory) {
+        add(type, (out, node) -> {
+            out.nodes(node.getList());
+            out.node(node.getTypeHint());
+        }, in -> {
+            T node = factory.apply(in.nodes(Expression.class));
+            node.setTypeHint(in.node(Type.class));
+            return node;
+        });
+    }
+
+    private static void item(BinarySerializer.Encoder out, Comprehension.ComprehensionItem item) {
+        switch (item) {
+            case KeyValuePair pair -> {
+                out.number(0);
+                out.node(pair);
+            }
+            case Comprehension.ListItem list -> {
+                out.number(1);
+                out.node(list.value());
+            }
+            case Comprehension.SetItem set -> {
+                out.number(2);
+                out.node(set.value());
+            }
+            default -> throw new MeaningTreeException("Comprehension item " + item.getClass().getName()
+                    + " is not supported by binary serializer");
+        }
+    }
+
+    private static Comprehension.ComprehensionItem item(BinaryDeserializer.Decoder in) throws IOException {
+        int kind = in.integer();
+        return switch (kind) {
+            case 0 -> in.node(KeyValuePair.class);
+            case 1 -> new Comprehension.ListItem(in.node(Expression.class));
+            case 2 -> new Comprehension.SetItem(in.node(Expression.class));
+            default -> throw new IOException("Unknown comprehension item kind in binary MeaningTree data: " + kind);
+        };
+    }
+
+    private static void registerExpressions() {
+        add(ParenthesizedExpression.class, (out, node) -> out.node(node.getExpression()),
+                in -> new ParenthesizedExpression(in.node(Expression.class)));
+
+        binary(BitwiseAndOp.class, BitwiseAndOp::new);
+        binary(BitwiseOrOp.class, BitwiseOrOp::new);
+        binary(XorOp.class, XorOp::new);
+        binary(LeftShiftOp.class, LeftShiftOp::new);
+        binary(RightShiftOp.class, RightShiftOp::new);
+        unary(InversionOp.class, InversionOp::new);
+
+        binary(EqOp.class, EqOp::new);
+        binary(NotEqOp.class, NotEqOp::new);
+        binary(GeOp.class, GeOp::new);
+        binary(GtOp.class, GtOp::new);
+        binary(LeOp.class, LeOp::new);
+        binary(LtOp.class, LtOp::new);
+        add(CompoundComparison.class, (out, node) -> out.nodes(node.getComparisons()),
+                in -> new CompoundComparison(in.nodes(BinaryComparison.class)));
+
+        binary(ShortCircuitAndOp.class, ShortCircuitAndOp::new);
+        binary(ShortCircuitOrOp.class, ShortCircuitOrOp::new);
+        binary(LongCircuitAndOp.class, LongCircuitAndOp::new);
+        binary(LongCircuitOrOp.class, LongCircuitOrOp::new);
+        unary(NotOp.class, NotOp::new);
+
+        binary(AddOp.class, AddOp::new);
+        binary(SubOp.class, SubOp::new);
+        binary(MulOp.class, MulOp::new);
+        binary(DivOp.class, DivOp::new);
+        binary(FloorDivOp.class, FloorDivOp::new);
+        binary(ModOp.class, ModOp::new);
+        binary(PowOp.class, PowOp::new);
+        binary(MatMulOp.class, MatMulOp::new);
+        binary(ThreeWayComparisonOp.class, ThreeWayComparisonOp::new);
+
+        unary(UnaryMinusOp.class, UnaryMinusOp::new);
+        unary(UnaryPlusOp.class, UnaryPlusOp::new);
+        unary(PrefixIncrementOp.class, PrefixIncrementOp::new);
+        unary(PrefixDecrementOp.class, PrefixDecrementOp::new);
+        unary(PostfixIncrementOp.class, PostfixIncrementOp::new);
+        unary(PostfixDecrementOp.class, PostfixDecrementOp::new);
+        unary(PointerPackOp.class, PointerPackOp::new);
+        unary(PointerUnpackOp.class, PointerUnpackOp::new);
+
+        add(AssignmentExpression.class, (out, node) -> {
+            out.node(node.getLValue());
+            out.node(node.getRValue());
+            out.constant(node.getAugmentedOperator());
+        }, in -> new AssignmentExpression(in.node(Expression.class), in.node(Expression.class),
+                in.constant(AugmentedAssignmentOperator.class)));
+        add(ContainsOp.class, (out, node) -> {
+            out.node(node.getLeft());
+            out.node(node.getRight());
+            out.bool(node.isNegative());
+        }, in -> new ContainsOp(in.node(Expression.class), in.node(Expression.class), in.bool()));
+        add(ReferenceEqOp.class, (out, node) -> {
+            out.node(node.getLeft());
+            out.node(node.getRight());
+            out.bool(node.isNegative());
+        }, in -> new ReferenceEqOp(in.node(Expression.class), in.node(Expression.class), in.bool()));
+        add(InstanceOfOp.class, (out, node) -> {
+            out.node(node.getLeft());
+            out.node(node.getType());
+        }, in -> new InstanceOfOp(in.node(Expression.class), in.node(Type.class)));
+
+        add(TernaryOperator.class, (out, node) -> {
+            out.node(node.getCondition());
+            out.node(node.getThenExpr());
+            out.node(node.getElseExpr());
+        }, in -> new TernaryOperator(in.node(Expression.class), in.node(Expression.class), in.node(Expression.class)));
+        add(ExpressionSequence.class, (out, node) -> out.nodes(node.getExpressions()),
+                in -> new ExpressionSequence(in.nodes(Expression.class)));
+        add(CommaExpression.class, (out, node) -> out.nodes(node.getExpressions()),
+                in -> new CommaExpression(in.nodes(Expression.class)));
+        add(IndexExpression.class, (out, node) -> {
+            out.node(node.getExpression());
+            out.node(node.getIndex());
+            out.bool(node.isPreferPointerRepresentation());
+        }, in -> new IndexExpression(in.node(Expression.class), in.node(Expression.class), in.bool()));
+        add(MemberAccess.class, (out, node) -> {
+            out.node(node.getExpression());
+            out.node(node.getMember());
+        }, in -> new MemberAccess(in.node(Expression.class), in.node(SimpleIdentifier.class)));
+        add(PointerMemberAccess.class, (out, node) -> {
+            out.node(node.getExpression());
+            out.node(node.getMember());
+        }, in -> new PointerMemberAccess(in.node(Expression.class), in.node(SimpleIdentifier.class)));
+        add(CastTypeExpression.class, (out, node) -> {
+            out.node(node.getCastType());
+            out.node(node.getValue());
+        }, in -> new CastTypeExpression(in.node(Type.class), in.node(Expression.class)));
+        add(SizeofExpression.class, (out, node) -> out.node(node.getExpression()),
+                in -> new SizeofExpression(in.node(Expression.class)));
+        add(DeleteExpression.class, (out, node) -> {
+            out.node(node.getTarget());
+            out.bool(node.isCollectionTarget());
+        }, in -> new DeleteExpression(in.node(Expression.class), in.bool()));
+        add(Range.class, (out, node) -> {
+            out.node(node.getStart());
+            out.node(node.getStop());
+            out.node(node.getStep());
+            out.bool(node.isExcludingStart());
+            out.bool(node.isExcludingEnd());
+            out.constant(node.getType());
+        }, in -> new Range(in.node(Expression.class), in.node(Expression.class), in.node(Expression.class),
+                in.bool(), in.bool(), in.constant(Range.Type.class)));
+        add(KeyValuePair.class, (out, node) -> {
+            out.node(node.key());
+            out.node(node.value());
+        }, in -> new KeyValuePair(in.node(Expression.class), in.node(Expression.class)));
+        add(ArrayInitializer.class, (out, node) -> out.nodes(node.getValues()),
+                in -> new ArrayInitializer(in.nodes(Expression.class)));
+
+        add(SimpleIdentifier.class, (out, node) -> out.string(node.getName()),
+                in -> new SimpleIdentifier(in.string()));
+        add(SelfReference.class, (out, node) -> out.string(node.getName()),
+                in -> new SelfReference(in.string()));
+        leaf(SuperClassReference.class, SuperClassReference::new);
+        add(QualifiedIdentifier.class, (out, node) -> {
+            out.node(node.getScope());
+            out.node(node.getMember());
+        }, in -> new QualifiedIdentifier(in.node(Identifier.class), in.node(SimpleIdentifier.class)));
+        add(ScopedIdentifier.class, (out, node) -> out.nodes(node.getScopeResolution()),
+                in -> new ScopedIdentifier(in.nodes(SimpleIdentifier.class)));
+
+        add(FunctionCall.class, (out, node) -> {
+            out.node(node.getFunction());
+            out.nodes(node.getArguments());
+        }, in -> new FunctionCall(in.node(Expression.class), in.nodes(Expression.class)));
+        add(MethodCall.class, (out, node) -> {
+            out.node(node.getObject());
+            out.node(node.getFunction());
+            out.nodes(node.getArguments());
+        }, in -> new MethodCall(in.node(Expression.class), in.node(SimpleIdentifier.class), in.nodes(Expression.class)));
+        add(ConstructorCall.class, (out, node) -> {
+            out.node(node.getOwner());
+            out.nodes(node.getArguments());
+        }, in -> new ConstructorCall(in.node(Type.class), in.nodes(Expression.class)));
+
+        add(ArrayNewExpression.class, (out, node) -> {
+            out.node(node.getType());
+            out.node(node.getShape());
+            out.node(node.getInitializer());
+        }, in -> new ArrayNewExpression(in.node(Type.class), in.node(Shape.class), in.node(ArrayInitializer.class)));
+        add(ObjectNewExpression.class, (out, node) -> {
+            out.node(node.getType());
+            out.nodes(node.getConstructorArguments());
+        }, in -> new ObjectNewExpression(in.node(Type.class), in.nodes(Expression.class)));
+        add(PlacementNewExpression.class, (out, node) -> {
+            out.node(node.getType());
+            out.nodes(node.getConstructorArguments());
+        }, in -> new PlacementNewExpression(in.node(Type.class), in.nodes(Expression.class)));
+
+        add(ContainerBasedComprehension.class, (out, node) -> {
+            item(out, node.getItem());
+            out.node(node.getContainerItemDeclaration());
+            out.node(node.getContainerExpression());
+            out.node(node.hasCondition() ? node.getCondition() : null);
+        }, in -> new ContainerBasedComprehension(item(in), in.node(VariableDeclaration.class),
+                in.node(Expression.class), in.node(Expression.class)));
+        add(RangeBasedComprehension.class, (out, node) -> {
+            item(out, node.getItem());
+            out.node(node.getRangeVariableIdentifier());
+            out.node(node.getRange());
+            out.node(node.hasCondition() ? node.getCondition() : null);
+        }, in -> new RangeBasedComprehension(item(in), in.node(SimpleIdentifier.class),
+                in.node(Range.class), in.node(Expression.class)));
+
+        add(DefinitionArgument.class, (out, node) -> {
+            out.node(node.getName());
+            out.node(node.getInitialExpression());
+            out.bool(node.isListUnpacking());
+            out.bool(node.isDictUnpacking());
+        }, in -> {
+            SimpleIdentifier name = in.node(SimpleIdentifier.class);
+            Expression initial = in.node(Expression.class);
+            boolean isListUnpacking = in.bool();
+            boolean isDictUnpacking = in.bool();
+            if (isListUnpacking) {
+                return DefinitionArgument.listUnpacking(initial);
+            } else if (isDictUnpacking) {
+                return DefinitionArgument.dictUnpacking(initial);
+            }
+            return new DefinitionArgument(name, initial);
+        });
+
+        add(PrintValues.class, (out, node) -> {
+            out.nodes(node.getArguments());
+            out.node(node.separator);
+            out.node(node.end);
+        }, in -> new PrintValues(in.nodes(Expression.class), in.node(StringLiteral.class), in.node(StringLiteral.class)));
+        add(FormatPrint.class, (out, node) -> {
+            out.node(node.getFormatString());
+            out.nodes(node.getArguments());
+        }, in -> new FormatPrint(in.node(Expression.class), in.nodes(Expression.class)));
+        add(InputCommand.class, (out, node) -> out.nodes(node.getArguments()),
+                in -> new InputCommand(in.nodes(Expression.class)));
+        add(FormatInput.class, (out, node) -> {
+            out.node(node.getFormatString());
+            out.nodes(node.getArguments());
+        }, in -> new FormatInput(in.node(Expression.class), in.nodes(Expression.class)));
+        add(PointerInputCommand.class, (out, node) -> {
+            out.node(node.getTargetString());
+            out.nodes(node.getArguments());
+        }, in -> new PointerInputCommand(in.node(Expression.class), in.nodes(Expression.class)));
+
+        add(MemoryAllocationCall.class, (out, node) -> {
+            out.node(node.getType());
+            out.node(node.getCount());
+            out.bool(node.isClearAllocation());
+        }, in -> new MemoryAllocationCall(in.node(Type.class), in.node(Expression.class), in.bool()));
+        add(MemoryFreeCall.class, (out, node) -> out.node(node.getArguments().getFirst()),
+                in -> new MemoryFreeCall(in.node(Expression.class)));
+    }
+
+    private static void registerLiterals() {
+        add(IntegerLiteral.class, (out, node) -> {
+            out.number(node.getLongValue());
+            out.constant(node.getIntegerRepresentation());
+            out.bool(node.isLong());
+            out.bool(node.isUnsigned());
+        }, in -> new IntegerLiteral(in.number(), in.constant(IntegerLiteral.Representation.class), in.bool(), in.bool()));
+        add(FloatLiteral.class, (out, node) -> {
+            out.real(node.getDoubleValue());
+            out.bool(node.isDoublePrecision());
+        }, in -> new FloatLiteral(Double.toString(in.real()), in.bool()));
+        add(StringLiteral.class, (out, node) -> {
+            out.string(node.getUnescapedValue());
+            out.constant(node.getStringType());
+            out.number(node.getTypeCharSize());
+        }, in -> {
+            StringLiteral node = StringLiteral.fromUnescaped(in.string(), in.constant(StringLiteral.Type.class));
+            int charSize = in.integer();
+            if (charSize != 0) {
+                node.setTypeCharSize(charSize);
+            }
+            return node;
+        });
+        add(CharacterLiteral.class, (out, node) -> out.number(node.getValue()),
+                in -> new CharacterLiteral(in.integer()));
+        add(BoolLiteral.class, (out, node) -> out.bool(node.getValue()),
+                in -> new BoolLiteral(in.bool()));
+        leaf(NullLiteral.class, NullLiteral::new);
+        add(InterpolatedStringLiteral.class, (out, node) -> {
+            out.constant(node.getStringType());
+            out.nodes(node.components());
+        }, in -> new InterpolatedStringLiteral(in.constant(StringLiteral.Type.class), in.nodes(Expression.class)));
+
+        leaf(CollectionLiteral.class, CollectionLiteral::new);
+        collection(ListLiteral.class, ListLiteral::new);
+        collection(ArrayLiteral.class, ArrayLiteral::new);
+        collection(SetLiteral.class, SetLiteral::new);
+        collection(UnmodifiableListLiteral.class, UnmodifiableListLiteral::new);
+        add(DictionaryLiteral.class, (out, node) -> {
+            out.nodes(node.getContent());
+            out.node(node.getKeyTypeHint());
+            out.node(node.getValueTypeHint());
+        }, in -> {
+            List<KeyValuePair> pairs = in.nodes(KeyValuePair.class);
+            SequencedMap<Expression, Expression> content = new LinkedHashMap<>();
+            for (KeyValuePair pair : pairs) {
+                content.put(pair.key(), pair.value());
+            }
+            DictionaryLiteral node = new DictionaryLiteral(content);
+            // Пары создаются конструктором словаря и получают метки и номера прочитанных пар
+            if (node.getContent().size() == pairs.size()) {
+                for (int i = 0; i < pairs.size(); i++) {
+                    in.replace(pairs.get(i), node.getContent().get(i));
+                }
+            }
+            node.setKeyTypeHint(in.node(Type.class));
+            node.setValueTypeHint(in.node(Type.class));
+            return node;
+        });
+    }
+
+    private static void registerTypes() {
+        leafType(NoReturn.class, NoReturn::new);
+        leafType(UnknownType.class, UnknownType::new);
+        leafType(BooleanType.class, BooleanType::new);
+        type(IntType.class, (out, node) -> {
+            out.number(node.size);
+            out.bool(node.isUnsigned);
+        }, in -> new IntType(in.integer(), in.bool()));
+        type(FloatType.class, (out, node) -> out.number(node.size), in -> new FloatType(in.integer()));
+        type(CharacterType.class, (out, node) -> out.number(node.size), in -> new CharacterType(in.integer()));
+        type(StringType.class, (out, node) -> out.number(node.getCharSize()), in -> new StringType(in.integer()));
+        type(PointerType.class, (out, node) -> out.node(node.getTargetType()),
+                in -> new PointerType(in.node(Type.class)));
+        type(ReferenceType.class, (out, node) -> out.node(node.getTargetType()),
+                in -> new ReferenceType(in.node(Type.class)));
+
+        collectionType(PlainCollectionType.class, PlainCollectionType::new);
+        collectionType(ListType.class, ListType::new);
+        collectionType(SetType.class, SetType::new);
+        collectionType(UnmodifiableListType.class, UnmodifiableListType::new);
+        type(ArrayType.class, (out, node) -> {
+            out.node(node.getItemType());
+            out.node(node.getShape());
+        }, in -> {
+            Type itemType = in.node(Type.class);
+            Shape shape = in.node(Shape.class);
+            ArrayType node = new ArrayType(itemType, shape.getDimensionCount(), shape.getDimensions());
+            in.replace(shape, node.getShape());
+            return node;
+        });
+        type(DictionaryType.class, (out, node) -> {
+            out.node(node.getKeyType());
+            out.node(node.getValueType());
+        }, in -> new DictionaryType(in.node(Type.class), in.node(Type.class)));
+        add(Shape.class, (out, node) -> {
+            out.number(node.getDimensionCount());
+            out.nodes(node.getDimensions());
+        }, in -> new Shape(in.integer(), in.nodes(Expression.class)));
+
+        userType(org.vstu.meaningtree.nodes.types.user.Class.class, org.vstu.meaningtree.nodes.types.user.Class::new);
+        userType(org.vstu.meaningtree.nodes.types.user.Enum.class, org.vstu.meaningtree.nodes.types.user.Enum::new);
+        userType(Interface.class, Interface::new);
+        userType(Structure.class, Structure::new);
+        genericType(GenericUserType.class, Identifier.class, GenericUserType::new);
+        genericType(GenericClass.class, Identifier.class, GenericClass::new);
+        genericType(GenericInterface.class, SimpleIdentifier.class, GenericInterface::new);
+    }
+
+    private static void registerStatements() {
+        add(CompoundStatement.class, (out, node) -> out.nodes(Arrays.asList(node.getNodes())), in -> {
+            SymbolEnvironment env = in.enterScope();
+            List<Node> nodes = in.nodes(Node.class);
+            in.exitScope();
+            return new CompoundStatement(env, nodes);
+        });
+        add(ExpressionStatement.class, (out, node) -> out.node(node.getExpression()),
+                in -> new ExpressionStatement(in.node(Expression.class)));
+        add(ReturnStatement.class, (out, node) -> out.node(node.getExpression()),
+                in -> new ReturnStatement(in.node(Expression.class)));
+        add(DeleteStatement.class, (out, node) -> {
+            out.node(node.getTarget());
+            out.bool(node.isCollectionTarget());
+        }, in -> new DeleteStatement(in.node(Expression.class), in.bool()));
+        leaf(BreakStatement.class, BreakStatement::new);
+        leaf(ContinueStatement.class, ContinueStatement::new);
+
+        add(AssignmentStatement.class, (out, node) -> {
+            out.node(node.getLValue());
+            out.node(node.getRValue());
+            out.constant(node.getAugmentedOperator());
+        }, in -> new AssignmentStatement(in.node(Expression.class), in.node(Expression.class),
+                in.constant(AugmentedAssignmentOperator.class)));
+        add(CompoundAssignmentStatement.class, (out, node) -> out.nodes(Arrays.asList(node.getAssignments())),
+                in -> new CompoundAssignmentStatement(in.nodes(AssignmentStatement.class).toArray(new AssignmentStatement[0])));
+        add(MultipleAssignmentStatement.class, (out, node) -> out.nodes(node.getStatements()),
+                in -> new MultipleAssignmentStatement(in.nodes(AssignmentStatement.class)));
+
+        add(IfStatement.class, (out, node) -> {
+            out.nodes(node.getBranches());
+            out.node(node.hasElseBranch() ? node.getElseBranch() : null);
+        }, in -> new IfStatement(in.nodes(ConditionBranch.class), in.node(Statement.class)));
+        add(ConditionBranch.class, (out, node) -> {
+            out.node(node.getCondition());
+            out.node(node.getBody());
+        }, in -> new ConditionBranch(in.node(Expression.class), in.node(Statement.class)));
+        add(SwitchStatement.class, (out, node) -> {
+            out.node(node.getTargetExpression());
+            out.nodes(node.getCases());
+            out.node(node.getDefaultCase());
+        }, in -> {
+            Expression target = in.node(Expression.class);
+            List<CaseBlock> cases = in.nodes(CaseBlock.class);
+            DefaultCaseBlock defaultCase = in.node(DefaultCaseBlock.class);
+            if (defaultCase != null) {
+                cases.add(defaultCase);
+            }
+            return new SwitchStatement(target, cases);
+        });
+        add(BasicCaseBlock.class, (out, node) -> {
+            out.node(node.getMatchValue());
+            out.node(node.getBody());
+        }, in -> new BasicCaseBlock(in.node(Expression.class), in.node(Statement.class)));
+        add(FallthroughCaseBlock.class, (out, node) -> {
+            out.node(node.getMatchValue());
+            out.node(node.getBody());
+        }, in -> new FallthroughCaseBlock(in.node(Expression.class), in.node(Statement.class)));
+        add(DefaultCaseBlock.class, (out, node) -> out.node(node.getBody()),
+                in -> new DefaultCaseBlock(in.node(Statement.class)));
+
+        add(WhileLoop.class, (out, node) -> {
+            out.node(node.getCondition());
+            out.node(node.getBody());
+        }, in -> new WhileLoop(in.node(Expression.class), in.node(Statement.class)));
+        add(DoWhileLoop.class, (out, node) -> {
+            out.node(node.getCondition());
+            out.node(node.getBody());
+        }, in -> new DoWhileLoop(in.node(Expression.class), in.node(Statement.class)));
+        add(GeneralForLoop.class, (out, node) -> {
+            out.node(node.hasInitializer() ? (Node) node.getInitializer() : null);
+            out.node(node.hasCondition() ? node.getCondition() : null);
+            out.node(node.hasUpdate() ? node.getUpdate() : null);
+            out.node(node.getBody());
+        }, in -> new GeneralForLoop(in.node(HasInitialization.class), in.node(Expression.class),
+                in.node(Expression.class), in.node(Statement.class)));
+        add(RangeForLoop.class, (out, node) -> {
+            out.node(node.getRange());
+            out.node(node.getIdentifier());
+            out.node(node.getBody());
+        }, in -> new RangeForLoop(in.node(Range.class), in.node(SimpleIdentifier.class), in.node(Statement.class)));
+        add(ForEachLoop.class, (out, node) -> {
+            out.node(node.getItem());
+            out.node(node.getExpression());
+            out.node(node.getBody());
+        }, in -> new ForEachLoop(in.node(VariableDeclaration.class), in.node(Expression.class), in.node(Statement.class)));
+        add(InfiniteLoop.class, (out, node) -> {
+            out.node(node.getBody());
+            out.constant(node.getLoopType());
+        }, in -> new InfiniteLoop(in.node(Statement.class), in.constant(LoopType.class)));
+    }
+
+    private static void registerDeclarations() {
+        add(VariableDeclaration.class, (out, node) -> {
+            out.node(node.getType());
+            out.nodes(Arrays.asList(node.getDeclarators()));
+        }, in -> new VariableDeclaration(in.node(Type.class), in.nodes(VariableDeclarator.class)));
+        add(FieldDeclaration.class, (out, node) -> {
+            out.node(node.getType());
+            out.constants(node.getModifiers());
+            out.nodes(Arrays.asList(node.getDeclarators()));
+        }, in -> new FieldDeclaration(in.node(Type.class), in.constants(DeclarationModifier.class),
+                in.nodes(VariableDeclarator.class)));
+        add(SeparatedVariableDeclaration.class, (out, node) -> out.nodes(node.getDeclarations()),
+                in -> new SeparatedVariableDeclaration(in.nodes(VariableDeclaration.class)));
+        add(VariableDeclarator.class, (out, node) -> {
+            out.node(node.getIdentifier());
+            out.node(node.getRValue());
+        }, in -> new VariableDeclarator(in.node(SimpleIdentifier.class), in.node(Expression.class)));
+        add(DeclarationArgument.class, (out, node) -> {
+            out.node(node.getElementType());
+            out.node(node.getName());
+            out.node(node.hasInitialExpression() ? node.getInitialExpression() : null);
+            out.bool(node.isListUnpacking());
+            out.bool(node.isDictUnpacking());
+        }, in -> {
+            Type type = in.node(Type.class);
+            SimpleIdentifier name = in.node(SimpleIdentifier.class);
+            Expression initial = in.node(Expression.class);
+            boolean isListUnpacking = in.bool();
+            boolean isDictUnpacking = in.bool();
+            if (isListUnpacking) {
+                return DeclarationArgument.listUnpacking(type, name);
+            } else if (isDictUnpacking) {
+                return DeclarationArgument.dictUnpacking(type, name);
+            }
+            return new DeclarationArgument(type, name, initial);
+        });
+        add(Annotation.class, (out, node) -> {
+            out.node(node.getFunctionExpression());
+            out.nodes(Arrays.asList(node.getArguments()));
+        }, in -> new Annotation(in.node(Expression.class), in.nodes(Expression.class).toArray(new Expression[0])));
+
+        add(ClassDeclaration.class, (out, node) -> {
+            out.constants(node.getModifiers());
+            out.node(node.getName());
+            out.nodes(node.getTypeParameters());
+            out.nodes(node.getParents());
+        }, in -> new ClassDeclaration(in.constants(DeclarationModifier.class), in.node(Identifier.class),
+                in.nodes(Type.class), in.nodes(Type.class).toArray(new Type[0])));
+        add(FunctionDeclaration.class, (out, node) -> {
+            out.node(node.getQualifiedName());
+            out.node(node.getReturnType());
+            out.nodes(node.getAnnotations());
+            out.nodes(node.getArguments());
+        }, in -> new FunctionDeclaration(in.node(Identifier.class), in.node(Type.class),
+                in.nodes(Annotation.class), in.nodes(DeclarationArgument.class)));
+        add(MethodDeclaration.class, (out, node) -> {
+            out.node(node.getOwner());
+            out.node(node.getQualifiedName());
+            out.node(node.getReturnType());
+            out.nodes(node.getAnnotations());
+            out.constants(node.getModifiers());
+            out.nodes(node.getArguments());
+        }, in -> new MethodDeclaration(in.node(UserType.class), in.node(Identifier.class), in.node(Type.class),
+                in.nodes(Annotation.class), in.constants(DeclarationModifier.class), in.nodes(DeclarationArgument.class)));
+        add(ObjectConstructorDeclaration.class, (out, node) -> {
+            out.node(node.getOwner());
+            out.node(node.getQualifiedName());
+            out.nodes(node.getAnnotations());
+            out.constants(node.getModifiers());
+            out.nodes(node.getArguments());
+        }, in -> new ObjectConstructorDeclaration(in.node(UserType.class), in.node(Identifier.class),
+                in.nodes(Annotation.class), in.constants(DeclarationModifier.class), in.nodes(DeclarationArgument.class)));
+        add(ObjectDestructorDeclaration.class, (out, node) -> {
+            out.node(node.getOwner());
+            out.node(node.getQualifiedName());
+            out.nodes(node.getAnnotations());
+            out.constants(node.getModifiers());
+        }, in -> new ObjectDestructorDeclaration(in.node(UserType.class), in.node(Identifier.class),
+                in.nodes(Annotation.class), in.constants(DeclarationModifier.class)));
+
+        add(ClassDefinition.class, (out, node) -> {
+            out.node(node.getDeclaration());
+            out.node(node.getBody());
+        }, in -> new ClassDefinition(in.node(ClassDeclaration.class), in.node(CompoundStatement.class)));
+        add(FunctionDefinition.class, (out, node) -> {
+            out.node(node.getDeclaration());
+            out.node(node.getBody());
+        }, in -> new FunctionDefinition(in.node(FunctionDeclaration.class), in.node(CompoundStatement.class)));
+        add(MethodDefinition.class, (out, node) -> {
+            out.node(node.getDeclaration());
+            out.node(node.getBody());
+        }, in -> new MethodDefinition(in.node(MethodDeclaration.class), in.node(CompoundStatement.class)));
+        // Объявления конструктора и деструктора создаются конструктором определения
+        add(ObjectConstructorDefinition.class, (out, node) -> {
+            out.node(node.getDeclaration());
+            out.node(node.getBody());
+        }, in -> {
+            ObjectConstructorDeclaration decl = in.node(ObjectConstructorDeclaration.class);
+            ObjectConstructorDefinition node = new ObjectConstructorDefinition(decl.getOwner(), decl.getQualifiedName(),
+                    decl.getAnnotations(), decl.getModifiers(), decl.getArguments(), in.node(CompoundStatement.class));
+            in.replace(decl, node.getDeclaration());
+            return node;
+        });
+        add(ObjectDestructorDefinition.class, (out, node) -> {
+            out.node(node.getDeclaration());
+            out.node(node.getBody());
+        }, in -> {
+            ObjectDestructorDeclaration decl = in.node(ObjectDestructorDeclaration.class);
+            ObjectDestructorDefinition node = new ObjectDestructorDefinition(decl.getOwner(), decl.getQualifiedName(),
+                    decl.getAnnotations(), decl.getModifiers(), in.node(CompoundStatement.class));
+            in.replace(decl, node.getDeclaration());
+            return node;
+        });
+
+        add(Comment.class, (out, node) -> out.string(node.getUnescapedContent()),
+                in -> Comment.fromUnescaped(in.string()));
+        add(ProgramEntryPoint.class, (out, node) -> {
+            out.bool(node.getEnv() != null);
+            out.nodes(node.getBody());
+            out.reference(node.hasMainClass() ? node.getMainClass() : null);
+            out.reference(node.hasEntryPoint() ? node.getEntryPoint() : null);
+        }, in -> {
+            SymbolEnvironment env = in.bool() ? in.enterScope() : null;
+            List<Node> body = in.nodes(Node.class);
+            ClassDefinition mainClass = in.reference(ClassDefinition.class);
+            Node entryPoint = in.reference(Node.class);
+            if (env != null) {
+                in.exitScope();
+            }
+            return new ProgramEntryPoint(env, body, mainClass, entryPoint);
+        });
+    }
+
+    private static void registerModules() {
+        add(ImportAll.class, (out, node) -> out.node(node.getScope()),
+                in -> new ImportAll(in.node(Identifier.class)));
+        add(StaticImportAll.class, (out, node) -> out.node(node.getScope()),
+                in -> new StaticImportAll(in.node(Identifier.class)));
+        add(ImportMembers.class, (out, node) -> {
+            out.node(node.getScope());
+            out.nodes(node.getMembers());
+        }, in -> new ImportMembers(in.node(Identifier.class), in.nodes(Identifier.class)));
+        add(StaticImportMembers.class, (out, node) -> {
+            out.node(node.getScope());
+            out.nodes(node.getMembers());
+        }, in -> new StaticImportMembers(in.node(Identifier.class), in.nodes(Identifier.class)));
+        add(Alias.class, (out, node) -> {
+            out.node(node.getRealName());
+            out.node(node.getAlias());
+        }, in -> new Alias(in.node(Identifier.class), in.node(SimpleIdentifier.class)));
+        add(Include.class, (out, node) -> {
+            out.node(node.getFileName());
+            out.constant(node.getIncludeType());
+        }, in -> new Include(in.node(StringLiteral.class), in.constant(Include.IncludeType.class)));
+        add(PackageDeclaration.class, (out, node) -> out.node(node.getPackageName()),
+                in -> new PackageDeclaration(in.node(Identifier.class)));
+    }
+}
@@ -0,0 +1,382 @@
+package org.vstu.meaningtree.serializers.json;
+
+import com.google.gson.stream.JsonReader;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.nodes.*;
+import org.vstu.meaningtree.nodes.declarations.VariableDeclaration;
+import org.vstu.meaningtree.nodes.declarations.components.VariableDeclarator;
+import org.vstu.meaningtree.nodes.enums.AugmentedAssignmentOperator;
+import org.vstu.meaningtree.nodes.expressions.ParenthesizedExpression;
+import org.vstu.meaningtree.nodes.expressions.bitwise.*;
+import org.vstu.meaningtree.nodes.expressions.calls.FunctionCall;
+import org.vstu.meaningtree.nodes.expressions.comparison.*;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.*;
+import org.vstu.meaningtree.nodes.expressions.logical.NotOp;
+import org.vstu.meaningtree.nodes.expressions.logical.ShortCircuitAndOp;
+import org.vstu.meaningtree.nodes.expressions.logical.ShortCircuitOrOp;
+import org.vstu.meaningtree.nodes.expressions.math.*;
+import org.vstu.meaningtree.nodes.expressions.other.*;
+import org.vstu.meaningtree.nodes.expressions.unary.*;
+import org.vstu.meaningtree.nodes.interfaces.HasInitialization;
+import org.vstu.meaningtree.nodes.io.PrintValues;
+import org.vstu.meaningtree.nodes.statements.CompoundStatement;
+import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
+import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.IfStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.SwitchStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.components.*;
+import org.vstu.meaningtree.nodes.statements.loops.DoWhileLoop;
+import org.vstu.meaningtree.nodes.statements.loops.GeneralForLoop;
+import org.vstu.meaningtree.nodes.statements.loops.RangeForLoop;
+import org.vstu.meaningtree.nodes.statements.loops.WhileLoop;
+import org.vstu.meaningtree.nodes.statements.loops.control.BreakStatement;
+import org.vstu.meaningtree.nodes.statements.loops.control.ContinueStatement;
+import org.vstu.meaningtree.nodes.types.UnknownType;
+import org.vstu.meaningtree.serializers.model.Deserializer;
+import org.vstu.meaningtree.utils.env.SymbolEnvironment;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Потоковое чтение JSON в формате {@link JsonSerializer} и {@link JsonStreamSerializer}.
+ * <p>
+ * Документ читается через {@link JsonReader} за один проход без построения DOM:
+ * для каждого объекта хранятся только его поля, значения которых - уже построенные дочерние узлы или примитивы.
+ * Узел создается при выходе из объекта, поэтому порядок полей не важен.
+ * <p>
+ * Формат хранит не всю информацию об узлах: типы переменных в объявлениях не сериализуются
+ * (восстанавливаются как {@link UnknownType}), а поле id игнорируется - идентификаторы узлов назначаются заново
+ */
+public class JsonStreamDeserializer implements Deserializer<JsonReader> {
+    private static final Map<String, BiFunction<Expression, Expression, Expression>> binaryOperators = Map.ofEntries(
+            Map.entry("add_operator", AddOp::new),
+            Map.entry("sub_operator", SubOp::new),
+            Map.entry("mul_operator", MulOp::new),
+            Map.entry("div_operator", DivOp::new),
+            Map.entry("mod_operator", ModOp::new),
+            Map.entry("matrix_mul_operator", MatMulOp::new),
+            Map.entry("floor_div_operator", FloorDivOp::new),
+            Map.entry("pow_operator", PowOp::new),
+            Map.entry("eq_operator", EqOp::new),
+            Map.entry("ge_operator", GeOp::new),
+            Map.entry("gt_operator", GtOp::new),
+            Map.entry("le_operator", LeOp::new),
+            Map.entry("lt_operator", LtOp::new),
+            Map.entry("not_eq_operator", NotEqOp::new),
+            Map.entry("short_circuit_and_operator", ShortCircuitAndOp::new),
+            Map.entry("short_circuit_or_operator", ShortCircuitOrOp::new),
+            Map.entry("bitwise_and_operator", BitwiseAndOp::new),
+            Map.entry("bitwise_or_operator", BitwiseOrOp::new),
+            Map.entry("xor_operator", XorOp::new),
+            Map.entry("left_shift_operator", LeftShiftOp::new),
+            Map.entry("right_shift_operator", RightShiftOp::new)
+    );
+
+    private static final Map<String, Function<Expression, Expression>> unaryOperators = Map.of(
+            "unary_operator", NotOp::new,
+            "unary_minus_operator", UnaryMinusOp::new,
+            "unary_plus_operator", UnaryPlusOp::new,
+            "unary_postfix_inc_operator", PostfixIncrementOp::new,
+            "unary_postfix_dec_operator", PostfixDecrementOp::new,
+            "unary_prefix_inc_operator", PrefixIncrementOp::new,
+            "unary_prefix_dec_operator", PrefixDecrementOp::new,
+            "inversion_operator", InversionOp::new
+    );
+
+    // Операторы внутри compound_comparison записываются простым именем класса
+    private static final Map<String, BiFunction<Expression, Expression, BinaryComparison>> comparisons = Map.of(
+            EqOp.class.getSimpleName(), EqOp::new,
+            NotEqOp.class.getSimpleName(), NotEqOp::new,
+            GeOp.class.getSimpleName(), GeOp::new,
+            GtOp.class.getSimpleName(), GtOp::new,
+            LeOp.class.getSimpleName(), LeOp::new,
+            LtOp.class.getSimpleName(), LtOp::new
+    );
+
+    /**
+     * Читает узел из потока в кодировке UTF-8. Поток не закрывается
+     */
+    public Node deserialize(InputStream in) throws IOException {
+        return deserialize(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Читает узел из символьного потока. Поток не закрывается
+     */
+    public Node deserialize(Reader in) throws IOException {
+        return readNode(new JsonReader(in));
+    }
+
+    /**
+     * Читает очередное значение JSON как узел
+     */
+    @Override
+    public Node deserialize(JsonReader json) {
+        try {
+            return readNode(json);
+        } catch (IOException e) {
+            throw new MeaningTreeException(e);
+        }
+    }
+
+    @Override
+    public MeaningTree deserializeTree(JsonReader json) {
+        return new MeaningTree(deserialize(json));
+    }
+
+    public MeaningTree deserializeTree(InputStream in) throws IOException {
+        return new MeaningTree(deserialize(in));
+    }
+
+    private Node readNode(JsonReader json) throws IOException {
+        Object value = readValue(json);
+        if (value != null && !(value instanceof Node)) {
+            throw new MeaningTreeException("Expected serialized node at " + json.getPath());
+        }
+        return (Node) value;
+    }
+
+    private Object readValue(JsonReader json) throws IOException {
+        return switch (json.peek()) {
+            case BEGIN_OBJECT -> readObject(json);
+            case BEGIN_ARRAY -> readArray(json);
+            // Числа хранятся строкой и разбираются тем узлом, которому принадлежит поле
+            case STRING, NUMBER -> json.nextString();
+            case BOOLEAN -> json.nextBoolean();
+            case NULL -> {
+                json.nextNull();
+                yield null;
+            }
+            default -> throw new MeaningTreeException("Unexpected JSON token " + json.peek() + " at " + json.getPath());
+        };
+    }
+
+    private List<Object> readArray(JsonReader json) throws IOException {
+        List<Object> result = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            result.add(readValue(json));
+        }
+        json.endArray();
+        return result;
+    }
+
+    /**
+     * @return узел, если у объекта есть строковое поле type, иначе поля вспомогательного объекта
+     * (например, элемента declarators или comparisons)
+     */
+    private Object readObject(JsonReader json) throws IOException {
+        String path = json.getPath();
+        Fields fields = new Fields(path);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            fields.values.put(name, readValue(json));
+        }
+        json.endObject();
+
+        if (fields.values.get("type") instanceof String type) {
+            return build(type, fields);
+        }
+        return fields;
+    }
+
+    private Node build(String type, Fields f) {
+        var binary = binaryOperators.get(type);
+        if (binary != null) {
+            return binary.apply(f.node("left_operand", Expression.class), f.node("right_operand", Expression.class));
+        }
+        var unary = unaryOperators.get(type);
+        if (unary != null) {
+            return unary.apply(f.node("operand", Expression.class));
+        }
+
+        return switch (type) {
+            case "reference_eq_operator" -> new ReferenceEqOp(f.node("left_operand", Expression.class),
+                    f.node("right_operand", Expression.class), f.bool("is_negative"));
+            case "instance_of_operator" -> new InstanceOfOp(f.node("expression", Expression.class),
+                    f.node("checked_type", Type.class));
+            case "contains_operator" -> new ContainsOp(f.node("element", Expression.class),
+                    f.node("collection", Expression.class), f.bool("is_negative"));
+            case "ternary_operator" -> new TernaryOperator(f.node("condition", Expression.class),
+                    f.node("true_expression", Expression.class), f.node("false_expression", Expression.class));
+
+            case "float_literal" -> new FloatLiteral(f.string("value"), f.bool("is_double"));
+            case "int_literal" -> buildIntegerLiteral(f);
+            case "string_literal" -> StringLiteral.fromUnescaped(f.string("value"), StringLiteral.Type.NONE);
+            case "null_literal" -> new NullLiteral();
+            case "bool_literal" -> new BoolLiteral(f.bool("value"));
+            case "char_literal" -> new CharacterLiteral(Integer.parseInt(f.string("value")));
+
+            case "parenthesized_expression" -> new ParenthesizedExpression(f.node("expression", Expression.class));
+            case "identifier" -> new SimpleIdentifier(f.string("name"));
+            case "assignment_expression" -> new AssignmentExpression(f.node("target", Expression.class),
+                    f.node("value", Expression.class), augmentedOperator(f));
+            case "compound_comparison" -> buildCompoundComparison(f);
+            case "function_call" -> new FunctionCall(f.node("function", Expression.class),
+                    f.nodes("arguments", Expression.class));
+            case "print_values" -> new PrintValues(f.nodes("arguments", Expression.class),
+                    f.nullableNode("separator", StringLiteral.class), f.nullableNode("end", StringLiteral.class));
+            case "index_expression" -> new IndexExpression(f.node("expr", Expression.class),
+                    f.node("index", Expression.class));
+            case "range" -> new Range(f.nullableNode("start", Expression.class),
+                    f.nullableNode("stop", Expression.class),
+                    f.nullableNode("step", Expression.class),
+                    f.bool("isExcludingStart"), f.bool("isExcludingEnd"),
+                    Range.Type.valueOf(f.string("rangeType").toUpperCase()));
+
+            case "assignment_statement" -> new AssignmentStatement(f.node("target", Expression.class),
+                    f.node("value", Expression.class), augmentedOperator(f));
+            case "variable_declaration" -> buildVariableDeclaration(f);
+            case "compound_statement" -> new CompoundStatement(new SymbolEnvironment(null),
+                    f.nodes("statements", Node.class));
+            case "expression_statement" -> new ExpressionStatement(f.node("expression", Expression.class));
+            case "if_statement" -> new IfStatement(f.nodes("branches", ConditionBranch.class),
+                    f.nullableNode("else_branch", Statement.class));
+            case "condition_branch" -> new ConditionBranch(f.nullableNode("condition", Expression.class),
+                    f.node("body", Statement.class));
+            case "general_for_loop" -> new GeneralForLoop(f.nullableNode("initializer", HasInitialization.class),
+                    f.nullableNode("condition", Expression.class),
+                    f.nullableNode("update", Expression.class),
+                    f.node("body", Statement.class));
+            case "range_for_loop" -> new RangeForLoop(f.node("range", Range.class),
+                    f.node("identifier", SimpleIdentifier.class), f.node("body", Statement.class));
+            case "while_loop" -> new WhileLoop(f.node("condition", Expression.class), f.node("body", Statement.class));
+            case "break_statement" -> new BreakStatement();
+            case "continue_statement" -> new ContinueStatement();
+            case "do_while_loop" -> new DoWhileLoop(f.node("condition", Expression.class), f.node("body", Statement.class));
+
+            case "program_entry_point" -> new ProgramEntryPoint(new SymbolEnvironment(null), f.nodes("body", Node.class));
+            case "comment" -> Comment.fromUnescaped(f.string("content"));
+
+            case "switch_statement" -> buildSwitchStatement(f);
+            case "basic_case_block" -> new BasicCaseBlock(f.node("match_value", Expression.class),
+                    f.node("body", Statement.class));
+            case "fallthrough_case_block" -> new FallthroughCaseBlock(f.node("match_value", Expression.class),
+                    f.node("body", Statement.class));
+            case "default_case_block" -> new DefaultCaseBlock(f.node("body", Statement.class));
+            default -> throw new MeaningTreeException("Unsupported serialized node " + type + " at " + f.path);
+        };
+    }
+
+    private AugmentedAssignmentOperator augmentedOperator(Fields f) {
+        return f.values.containsKey("operator")
+                ? AugmentedAssignmentOperator.valueOf(f.string("operator"))
+                : AugmentedAssignmentOperator.NONE;
+    }
+
+    private Node buildIntegerLiteral(Fields f) {
+        long value = Long.parseLong(f.string("value"));
+        IntegerLiteral.Representation repr = f.values.containsKey("repr")
+                ? IntegerLiteral.Representation.valueOf(f.string("repr"))
+                : IntegerLiteral.Representation.DECIMAL;
+        if (value < 0) {
+            return new IntegerLiteral(Long.toString(value));
+        }
+        return new IntegerLiteral(switch (repr) {
+            case HEX -> "0x" + Long.toHexString(value);
+            case BINARY -> "0b" + Long.toBinaryString(value);
+            case OCTAL -> "0o" + Long.toOctalString(value);
+            case DECIMAL -> Long.toString(value);
+        });
+    }
+
+    private Node buildCompoundComparison(Fields f) {
+        List<BinaryComparison> members = new ArrayList<>();
+        for (Fields comparison : f.objects("comparisons")) {
+            var factory = comparisons.get(comparison.string("operator"));
+            if (factory == null) {
+                throw new MeaningTreeException("Unsupported comparison operator " + comparison.string("operator")
+                        + " at " + comparison.path);
+            }
+            members.add(factory.apply(comparison.node("left", Expression.class),
+                    comparison.node("right", Expression.class)));
+        }
+        return new CompoundComparison(members);
+    }
+
+    private Node buildSwitchStatement(Fields f) {
+        List<CaseBlock> cases = f.nodes("cases", CaseBlock.class);
+        DefaultCaseBlock defaultCase = f.nullableNode("default", DefaultCaseBlock.class);
+        if (defaultCase != null) {
+            cases.add(defaultCase);
+        }
+        return new SwitchStatement(f.node("expression", Expression.class), cases);
+    }
+
+    private Node buildVariableDeclaration(Fields f) {
+        List<VariableDeclarator> declarators = new ArrayList<>();
+        for (Fields declarator : f.objects("declarators")) {
+            declarators.add(new VariableDeclarator(declarator.node("identifier", SimpleIdentifier.class),
+                    declarator.nullableNode("rvalue", Expression.class)));
+        }
+        return new VariableDeclaration(new UnknownType(), declarators);
+    }
+
+    /**
+     * Прочитанные поля одного JSON-объекта
+     */
+    private static class Fields {
+        private final String path;
+        private final Map<String, Object> values = new HashMap<>();
+
+        private Fields(String path) {
+            this.path = path;
+        }
+
+        private Object required(String name) {
+            Object value = values.get(name);
+            if (value == null) {
+                throw new MeaningTreeException("Missing field " + name + " at " + path);
+            }
+            return value;
+        }
+
+        private <T> T node(String name, Class<T> type) {
+            return cast(name, required(name), type);
+        }
+
+        private <T> T nullableNode(String name, Class<T> type) {
+            Object value = values.get(name);
+            return value == null ? null : cast(name, value, type);
+        }
+
+        private <T> List<T> nodes(String name, Class<T> type) {
+            if (!(required(name) instanceof List<?> list)) {
+                throw new MeaningTreeException("Field " + name + " at " + path + " must be an array");
+            }
+            List<T> result = new ArrayList<>(list.size());
+            for (Object element : list) {
+                result.add(cast(name, element, type));
+            }
+            return result;
+        }
+
+        private List<Fields> objects(String name) {
+            return nodes(name, Fields.class);
+        }
+
+        private String string(String name) {
+            return cast(name, required(name), String.class);
+        }
+
+        private boolean bool(String name) {
+            Object value = values.get(name);
+            return value != null && cast(name, value, Boolean.class);
+        }
+
+        private <T> T cast(String name, Object value, Class<T> type) {
+            if (!type.isInstance(value)) {
+                throw new MeaningTreeException(String.format("Field %s at %s must be %s, got %s",
+                        name, path, type.getSimpleName(), value == null ? "null" : value.getClass().getSimpleName()));
+            }
+            return type.cast(value);
+        }
+    }
+}
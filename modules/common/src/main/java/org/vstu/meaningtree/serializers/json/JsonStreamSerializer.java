@@ -0,0 +1,455 @@
+package org.vstu.meaningtree.serializers.json;
+
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vstu.meaningtree.MeaningTree;
+import org.vstu.meaningtree.nodes.Comment;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.ProgramEntryPoint;
+import org.vstu.meaningtree.nodes.declarations.VariableDeclaration;
+import org.vstu.meaningtree.nodes.declarations.components.VariableDeclarator;
+import org.vstu.meaningtree.nodes.enums.AugmentedAssignmentOperator;
+import org.vstu.meaningtree.nodes.expressions.BinaryExpression;
+import org.vstu.meaningtree.nodes.expressions.ParenthesizedExpression;
+import org.vstu.meaningtree.nodes.expressions.UnaryExpression;
+import org.vstu.meaningtree.nodes.expressions.bitwise.*;
+import org.vstu.meaningtree.nodes.expressions.calls.FunctionCall;
+import org.vstu.meaningtree.nodes.expressions.comparison.*;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.*;
+import org.vstu.meaningtree.nodes.expressions.logical.NotOp;
+import org.vstu.meaningtree.nodes.expressions.logical.ShortCircuitAndOp;
+import org.vstu.meaningtree.nodes.expressions.logical.ShortCircuitOrOp;
+import org.vstu.meaningtree.nodes.expressions.math.*;
+import org.vstu.meaningtree.nodes.expressions.other.*;
+import org.vstu.meaningtree.nodes.expressions.unary.*;
+import org.vstu.meaningtree.nodes.io.PrintValues;
+import org.vstu.meaningtree.nodes.statements.CompoundStatement;
+import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
+import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.IfStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.SwitchStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.components.BasicCaseBlock;
+import org.vstu.meaningtree.nodes.statements.conditions.components.ConditionBranch;
+import org.vstu.meaningtree.nodes.statements.conditions.components.DefaultCaseBlock;
+import org.vstu.meaningtree.nodes.statements.conditions.components.FallthroughCaseBlock;
+import org.vstu.meaningtree.nodes.statements.loops.DoWhileLoop;
+import org.vstu.meaningtree.nodes.statements.loops.GeneralForLoop;
+import org.vstu.meaningtree.nodes.statements.loops.RangeForLoop;
+import org.vstu.meaningtree.nodes.statements.loops.WhileLoop;
+import org.vstu.meaningtree.nodes.statements.loops.control.BreakStatement;
+import org.vstu.meaningtree.nodes.statements.loops.control.ContinueStatement;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Запись дерева в JSON: узлы записываются в {@link JsonWriter} по мере обхода дерева,
+ * без построения промежуточного {@link com.google.gson.JsonObject} и итоговой строки.
+ * {@link JsonSerializer} строит DOM этой же записью, поэтому их вывод совпадает и читается {@link JsonStreamDeserializer}.
+ * <p>
+ * Поле "type" всегда записывается первым, поле "id" (идентификатор узла) - последним
+ */
+public class JsonStreamSerializer {
+    private final boolean prettyPrinting;
+
+    public JsonStreamSerializer() {
+        this(false);
+    }
+
+    /**
+     * @param prettyPrinting - форматировать вывод с отступами (как {@code GsonBuilder.setPrettyPrinting()})
+     */
+    public JsonStreamSerializer(boolean prettyPrinting) {
+        this.prettyPrinting = prettyPrinting;
+    }
+
+    public void serialize(MeaningTree mt, OutputStream out) throws IOException {
+        serialize(mt.getRootNode(), out);
+    }
+
+    /**
+     * Записывает узел в поток в кодировке UTF-8. Поток не закрывается
+     */
+    public void serialize(Node node, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        serialize(node, writer);
+        writer.flush();
+    }
+
+    /**
+     * Записывает узел в символьный поток. Поток не закрывается
+     */
+    public void serialize(Node node, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        if (prettyPrinting) {
+            writer.setIndent("  ");
+        }
+        serialize(node, writer);
+        writer.flush();
+    }
+
+    /**
+     * Записывает узел как очередное значение JSON. Позволяет встроить дерево в объемлющий документ
+     */
+    public void serialize(@Nullable Node node, @NotNull JsonWriter json) throws IOException {
+        if (node == null) {
+            json.nullValue();
+            return;
+        }
+
+        json.beginObject();
+        switch (node) {
+            // Operators
+            case BinaryExpression op when binaryOperatorType(op) != null -> {
+                json.name("type").value(binaryOperatorType(op));
+                json.name("left_operand");
+                serialize(op.getLeft(), json);
+                json.name("right_operand");
+                serialize(op.getRight(), json);
+                writeNegation(op, json);
+            }
+            case UnaryExpression op when unaryOperatorType(op) != null -> {
+                json.name("type").value(unaryOperatorType(op));
+                json.name("operand");
+                serialize(op.getArgument(), json);
+            }
+            case InstanceOfOp op -> {
+                json.name("type").value("instance_of_operator");
+                json.name("expression");
+                serialize(op.getLeft(), json);
+                json.name("checked_type");
+                serialize(op.getRight(), json);
+            }
+            case ContainsOp op -> {
+                json.name("type").value("contains_operator");
+                json.name("element");
+                serialize(op.getLeft(), json);
+                json.name("collection");
+                serialize(op.getRight(), json);
+                json.name("is_negative").value(op.isNegative());
+            }
+            case TernaryOperator op -> {
+                json.name("type").value("ternary_operator");
+                json.name("condition");
+                serialize(op.getCondition(), json);
+                json.name("true_expression");
+                serialize(op.getThenExpr(), json);
+                json.name("false_expression");
+                serialize(op.getElseExpr(), json);
+            }
+
+            // Literals
+            case FloatLiteral l -> {
+                json.name("type").value("float_literal");
+                json.name("value").value(l.getValue());
+                json.name("is_double").value(l.isDoublePrecision());
+            }
+            case IntegerLiteral l -> {
+                json.name("type").value("int_literal");
+                json.name("value").value(l.getLongValue());
+                json.name("repr").value(l.getIntegerRepresentation().toString());
+            }
+            case StringLiteral l -> {
+                json.name("type").value("string_literal");
+                json.name("value").value(l.getUnescapedValue());
+            }
+            case NullLiteral l -> json.name("type").value("null_literal");
+            case BoolLiteral l -> {
+                json.name("type").value("bool_literal");
+                json.name("value").value(l.getValue());
+            }
+            case CharacterLiteral l -> {
+                json.name("type").value("char_literal");
+                json.name("value").value(l.getValue());
+            }
+
+            // Expressions
+            case ParenthesizedExpression expr -> {
+                json.name("type").value("parenthesized_expression");
+                json.name("expression");
+                serialize(expr.getExpression(), json);
+            }
+            case SimpleIdentifier expr -> {
+                json.name("type").value("identifier");
+                json.name("name").value(expr.getName());
+            }
+            case AssignmentExpression expr -> {
+                json.name("type").value("assignment_expression");
+                json.name("target");
+                serialize(expr.getLValue(), json);
+                json.name("value");
+                serialize(expr.getRValue(), json);
+                writeAugmentedOperator(expr.getAugmentedOperator(), json);
+            }
+            case CompoundComparison cmp -> {
+                json.name("type").value("compound_comparison");
+                json.name("comparisons").beginArray();
+                for (var comparison : cmp.getComparisons()) {
+                    json.beginObject();
+                    json.name("left");
+                    serialize(comparison.getLeft(), json);
+                    json.name("operator").value(comparison.getClass().getSimpleName());
+                    json.name("right");
+                    serialize(comparison.getRight(), json);
+                    json.endObject();
+                }
+                json.endArray();
+            }
+            case PrintValues print -> {
+                // У команды вывода нет выражения функции: имя функции определяет язык
+                json.name("type").value("print_values");
+                json.name("arguments");
+                serializeList(print.getArguments(), json);
+                if (print.separator != null) {
+                    json.name("separator");
+                    serialize(print.separator, json);
+                }
+                if (print.end != null) {
+                    json.name("end");
+                    serialize(print.end, json);
+                }
+            }
+            case FunctionCall funcCall -> {
+                json.name("type").value("function_call");
+                json.name("function");
+                serialize(funcCall.getFunction(), json);
+                json.name("arguments");
+                serializeList(funcCall.getArguments(), json);
+            }
+            case IndexExpression indexExpression -> {
+                json.name("type").value("index_expression");
+                json.name("expr");
+                serialize(indexExpression.getExpression(), json);
+                json.name("index");
+                serialize(indexExpression.getIndex(), json);
+            }
+            case Range range -> {
+                json.name("type").value("range");
+                json.name("start");
+                serialize(range.getStart(), json);
+                json.name("stop");
+                serialize(range.getStop(), json);
+                json.name("step");
+                serialize(range.getStep(), json);
+                json.name("isExcludingStart").value(range.isExcludingStart());
+                json.name("isExcludingEnd").value(range.isExcludingEnd());
+                json.name("rangeType").value(range.getType().name().toLowerCase());
+            }
+
+            // Statements
+            case AssignmentStatement stmt -> {
+                json.name("type").value("assignment_statement");
+                json.name("target");
+                serialize(stmt.getLValue(), json);
+                json.name("value");
+                serialize(stmt.getRValue(), json);
+                writeAugmentedOperator(stmt.getAugmentedOperator(), json);
+            }
+            case VariableDeclaration stmt -> {
+                json.name("type").value("variable_declaration");
+                json.name("declarators").beginArray();
+                for (VariableDeclarator varDecl : stmt.getDeclarators()) {
+                    json.beginObject();
+                    json.name("identifier");
+                    serialize(varDecl.getIdentifier(), json);
+                    if (varDecl.getRValue() != null) {
+                        json.name("rvalue");
+                        serialize(varDecl.getRValue(), json);
+                    }
+                    json.endObject();
+                }
+                json.endArray();
+            }
+            case CompoundStatement stmt -> {
+                json.name("type").value("compound_statement");
+                json.name("statements");
+                serializeList(List.of(stmt.getNodes()), json);
+            }
+            case ExpressionStatement stmt -> {
+                json.name("type").value("expression_statement");
+                json.name("expression");
+                serialize(stmt.getExpression(), json);
+            }
+            case IfStatement stmt -> {
+                json.name("type").value("if_statement");
+                json.name("branches");
+                serializeList(stmt.getBranches(), json);
+                if (stmt.hasElseBranch()) {
+                    json.name("else_branch");
+                    serialize(stmt.getElseBranch(), json);
+                }
+            }
+            case ConditionBranch branch -> {
+                json.name("type").value("condition_branch");
+                if (branch.getCondition() != null) {
+                    json.name("condition");
+                    serialize(branch.getCondition(), json);
+                }
+                json.name("body");
+                serialize(branch.getBody(), json);
+            }
+            case GeneralForLoop stmt -> {
+                json.name("type").value("general_for_loop");
+                if (stmt.hasInitializer()) {
+                    json.name("initializer");
+                    serialize((Node) stmt.getInitializer(), json);
+                }
+                if (stmt.hasCondition()) {
+                    json.name("condition");
+                    serialize(stmt.getCondition(), json);
+                }
+                if (stmt.hasUpdate()) {
+                    json.name("update");
+                    serialize(stmt.getUpdate(), json);
+                }
+                json.name("body");
+                serialize(stmt.getBody(), json);
+            }
+            case RangeForLoop stmt -> {
+                json.name("type").value("range_for_loop");
+                json.name("identifier");
+                serialize(stmt.getIdentifier(), json);
+                json.name("range");
+                serialize(stmt.getRange(), json);
+                json.name("body");
+                serialize(stmt.getBody(), json);
+            }
+            case WhileLoop stmt -> {
+                json.name("type").value("while_loop");
+                json.name("condition");
+                serialize(stmt.getCondition(), json);
+                json.name("body");
+                serialize(stmt.getBody(), json);
+            }
+            case BreakStatement stmt -> json.name("type").value("break_statement");
+            case ContinueStatement stmt -> json.name("type").value("continue_statement");
+            case SwitchStatement stmt -> {
+                json.name("type").value("switch_statement");
+                json.name("expression");
+                serialize(stmt.getTargetExpression(), json);
+                if (stmt.hasDefaultCase()) {
+                    json.name("default");
+                    serialize(stmt.getDefaultCase(), json);
+                }
+                json.name("cases");
+                serializeList(stmt.getCases(), json);
+            }
+            case BasicCaseBlock block -> {
+                json.name("type").value("basic_case_block");
+                json.name("match_value");
+                serialize(block.getMatchValue(), json);
+                json.name("body");
+                serialize(block.getBody(), json);
+            }
+            case FallthroughCaseBlock block -> {
+                json.name("type").value("fallthrough_case_block");
+                json.name("match_value");
+                serialize(block.getMatchValue(), json);
+                json.name("body");
+                serialize(block.getBody(), json);
+            }
+            case DefaultCaseBlock block -> {
+                json.name("type").value("default_case_block");
+                json.name("body");
+                serialize(block.getBody(), json);
+            }
+            case DoWhileLoop stmt -> {
+                json.name("type").value("do_while_loop");
+                json.name("body");
+                serialize(stmt.getBody(), json);
+                json.name("condition");
+                serialize(stmt.getCondition(), json);
+            }
+
+            // Other
+            case ProgramEntryPoint entryPoint -> {
+                json.name("type").value("program_entry_point");
+                json.name("body");
+                serializeList(entryPoint.getBody(), json);
+            }
+            case Comment comment -> {
+                json.name("type").value("comment");
+                json.name("content").value(comment.getUnescapedContent());
+                json.name("is_multiline").value(comment.isMultiline());
+            }
+
+            default -> throw new IllegalStateException("Unexpected value: " + node);
+        }
+        json.name("id").value(node.getId());
+        json.endObject();
+    }
+
+    private void serializeList(List<? extends Node> nodes, JsonWriter json) throws IOException {
+        json.beginArray();
+        for (Node node : nodes) {
+            serialize(node, json);
+        }
+        json.endArray();
+    }
+
+    private static void writeAugmentedOperator(AugmentedAssignmentOperator op, JsonWriter json) throws IOException {
+        if (op != AugmentedAssignmentOperator.NONE) {
+            json.name("operator").value(op.name());
+        }
+    }
+
+    private static void writeNegation(BinaryExpression op, JsonWriter json) throws IOException {
+        if (op instanceof ReferenceEqOp refEq) {
+            json.name("is_negative").value(refEq.isNegative());
+        }
+    }
+
+    /**
+     * @return имя типа бинарного оператора с полями left_operand и right_operand,
+     * либо null, если оператор записывается отдельно
+     */
+    @Nullable
+    static String binaryOperatorType(BinaryExpression op) {
+        return switch (op) {
+            case AddOp o -> "add_operator";
+            case SubOp o -> "sub_operator";
+            case MulOp o -> "mul_operator";
+            case DivOp o -> "div_operator";
+            case ModOp o -> "mod_operator";
+            case MatMulOp o -> "matrix_mul_operator";
+            case FloorDivOp o -> "floor_div_operator";
+            case PowOp o -> "pow_operator";
+            case EqOp o -> "eq_operator";
+            case GeOp o -> "ge_operator";
+            case GtOp o -> "gt_operator";
+            case LeOp o -> "le_operator";
+            case LtOp o -> "lt_operator";
+            case NotEqOp o -> "not_eq_operator";
+            case ReferenceEqOp o -> "reference_eq_operator";
+            case ShortCircuitAndOp o -> "short_circuit_and_operator";
+            case ShortCircuitOrOp o -> "short_circuit_or_operator";
+            case BitwiseAndOp o -> "bitwise_and_operator";
+            case BitwiseOrOp o -> "bitwise_or_operator";
+            case XorOp o -> "xor_operator";
+            case LeftShiftOp o -> "left_shift_operator";
+            case RightShiftOp o -> "right_shift_operator";
+            default -> null;
+        };
+    }
+
+    /**
+     * @return имя типа унарного оператора с полем operand, либо null, если оператор не поддерживается
+     */
+    @Nullable
+    static String unaryOperatorType(UnaryExpression op) {
+        return switch (op) {
+            case NotOp o -> "unary_operator";
+            case UnaryMinusOp o -> "unary_minus_operator";
+            case UnaryPlusOp o -> "unary_plus_operator";
+            case PostfixIncrementOp o -> "unary_postfix_inc_operator";
+            case PostfixDecrementOp o -> "unary_postfix_dec_operator";
+            case PrefixIncrementOp o -> "unary_prefix_inc_operator";
+            case PrefixDecrementOp o -> "unary_prefix_dec_operator";
+            case InversionOp o -> "inversion_operator";
+            default -> null;
+        };
+    }
+}
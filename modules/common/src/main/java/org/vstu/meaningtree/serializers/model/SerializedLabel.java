@@ -29,7 +29,8 @@ public class SerializedLabel extends AbstractSerializedNode {
     }
 
     public Label toObject() {
-        Integer val = (Integer) values.getOrDefault("id", Short.MAX_VALUE);
+        // id хранится как Short при сериализации и может прийти как Integer из других источников
+        Number val = (Number) values.getOrDefault("id", Short.MAX_VALUE);
         return new Label(val.shortValue(),
                 values.getOrDefault("attr", null));
     }
@@ -0,0 +1,126 @@
+package org.vstu.meaningtree.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Приемник кода, генерируемого viewer'ом, поверх произвольного {@link Appendable} (например, {@link java.io.Writer}).
+ * Ошибки ввода-вывода оборачиваются в {@link UncheckedIOException}, чтобы методы вывода узлов не объявляли их.
+ * <p>
+ * Выведенное нельзя изменить, поэтому вместо удаления пробельных символов в конце фрагмента
+ * ({@link String#stripTrailing()}) фрагмент открывается меткой ({@link #mark()}): пока метка открыта, пробельные
+ * символы в конце вывода придерживаются и записываются только вместе с последующим непробельным текстом
+ */
+public final class CodeWriter implements Appendable {
+    private final Appendable out;
+
+    private final StringBuilder pending = new StringBuilder();
+    private int openMarks = 0;
+    /**
+     * Количество записей непробельного текста, пока открыта хотя бы одна метка
+     */
+    private long flushes = 0;
+
+    /**
+     * Начало фрагмента, пробельные символы в конце которого нужно отбросить
+     */
+    public record Mark(long flushes, int pendingLength) {}
+
+    public CodeWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Строит строку, передавая писателю приемник поверх {@link StringBuilder}
+     */
+    public static String render(Consumer<CodeWriter> writer) {
+        StringBuilder builder = new StringBuilder();
+        writer.accept(new CodeWriter(builder));
+        return builder.toString();
+    }
+
+    public Mark mark() {
+        openMarks++;
+        return new Mark(flushes, pending.length());
+    }
+
+    /**
+     * Закрывает фрагмент, отбрасывая пробельные символы в его конце
+     */
+    public void stripTrailing(Mark mark) {
+        openMarks--;
+        // Если после метки не было непробельного текста, придержанное до метки сохраняется
+        pending.setLength(flushes == mark.flushes() ? mark.pendingLength() : 0);
+        if (openMarks == 0) {
+            flushPending();
+        }
+    }
+
+    @Override
+    public CodeWriter append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public CodeWriter append(CharSequence csq, int start, int end) {
+        if (openMarks == 0) {
+            write(csq, start, end);
+            return this;
+        }
+        int last = end - 1;
+        while (last >= start && Character.isWhitespace(csq.charAt(last))) {
+            last--;
+        }
+        if (last >= start) {
+            flushPending();
+            write(csq, start, last + 1);
+            flushes++;
+        }
+        pending.append(csq, last + 1, end);
+        return this;
+    }
+
+    @Override
+    public CodeWriter append(char c) {
+        if (openMarks > 0 && Character.isWhitespace(c)) {
+            pending.append(c);
+            return this;
+        }
+        if (openMarks > 0) {
+            flushPending();
+            flushes++;
+        }
+        try {
+            out.append(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Выводит строку несколько раз подряд, например отступ текущего уровня вложенности
+     */
+    public CodeWriter repeat(CharSequence csq, int count) {
+        for (int i = 0; i < count; i++) {
+            append(csq);
+        }
+        return this;
+    }
+
+    private void flushPending() {
+        if (!pending.isEmpty()) {
+            write(pending, 0, pending.length());
+            pending.setLength(0);
+        }
+    }
+
+    private void write(CharSequence csq, int start, int end) {
+        try {
+            out.append(csq, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.vstu.meaningtree.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выдает уникальные возрастающие id. Каждый поток забирает у общего счетчика целый блок id и раздает его сам,
+ * поэтому при создании объектов в нескольких потоках id не повторяются, а общий счетчик затрагивается
+ * раз в {@link #BLOCK_SIZE} вызовов. Внутри одного потока id возрастают в порядке вызовов.
+ * <p>
+ * Счетчик 64-битный: каждый новый поток резервирует целый блок, и 32-битный счетчик переполнился бы
+ * примерно после двух миллионов потоков
+ */
+public final class IdAllocator {
+    /**
+     * Количество id, которое поток забирает у общего счетчика за одно обращение
+     */
+    private static final int BLOCK_SIZE = 1024;
+
+    private volatile AtomicLong counter = new AtomicLong();
+    private final ThreadLocal<Block> block = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Диапазон id, выделенный одному потоку. Счетчик запоминается, чтобы после {@link #reset()}
+     * поток не продолжал выдавать id из блока прежнего счетчика
+     */
+    private static final class Block {
+        AtomicLong source;
+        long next;
+        long end;
+    }
+
+    public long next() {
+        Block current = block.get();
+        AtomicLong source = counter;
+        if (current.source != source || current.next == current.end) {
+            current.source = source;
+            current.next = source.getAndAdd(BLOCK_SIZE) + 1;
+            current.end = current.next + BLOCK_SIZE;
+        }
+        return current.next++;
+    }
+
+    /**
+     * Начинает нумерацию заново. Блоки, уже выделенные потокам, отбрасываются при их следующем обращении
+     */
+    public void reset() {
+        counter = new AtomicLong();
+    }
+}
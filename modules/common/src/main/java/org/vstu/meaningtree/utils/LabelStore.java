@@ -0,0 +1,155 @@
+package org.vstu.meaningtree.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Компактное хранилище меток для {@link LabelAttachable}.
+ * <p>
+ * Метки лежат в небольшом массиве, по одной на id (установка метки с тем же id заменяет прежнюю).
+ * Наличие меток с id от 0 до 63 дополнительно отмечается битовой маской, поэтому {@link #has(short)} для них
+ * не просматривает массив. Владельцы создают хранилище лениво, при установке первой метки, так как у большинства
+ * узлов меток нет
+ */
+public final class LabelStore implements Serializable {
+    private static final int MASK_BITS = Long.SIZE;
+
+    private Label[] labels = new Label[2];
+    private int size = 0;
+    private long mask = 0;
+
+    public LabelStore() {}
+
+    private LabelStore(LabelStore other) {
+        labels = Arrays.copyOf(other.labels, Math.max(other.size, 1));
+        size = other.size;
+        mask = other.mask;
+    }
+
+    public LabelStore copy() {
+        return new LabelStore(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return метка в порядке установки, от 0 до {@link #size()} - 1
+     */
+    public Label at(int index) {
+        return labels[index];
+    }
+
+    public void set(Label label) {
+        int index = indexOf(label.getId());
+        if (index >= 0) {
+            labels[index] = label;
+            return;
+        }
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+        }
+        labels[size++] = label;
+        if (fitsMask(label.getId())) {
+            mask |= 1L << label.getId();
+        }
+    }
+
+    public Label get(short id) {
+        int index = indexOf(id);
+        return index >= 0 ? labels[index] : null;
+    }
+
+    public boolean has(short id) {
+        if (fitsMask(id)) {
+            return (mask & (1L << id)) != 0;
+        }
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Удаляет метку с тем же id, что и у переданной
+     * @return была ли метка удалена
+     */
+    public boolean remove(Label label) {
+        if (label == null) {
+            return false;
+        }
+        int index = indexOf(label.getId());
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+        labels[--size] = null;
+        if (fitsMask(label.getId())) {
+            mask &= ~(1L << label.getId());
+        }
+        return true;
+    }
+
+    public Set<Label> toSet() {
+        return Set.of(Arrays.copyOf(labels, size));
+    }
+
+    private int indexOf(short id) {
+        if (fitsMask(id) && (mask & (1L << id)) == 0) {
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (labels[i].getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean fitsMask(short id) {
+        return id >= 0 && id < MASK_BITS;
+    }
+
+    /**
+     * Хэш-код набора меток без учета порядка установки, согласованный с {@link #contentEquals(LabelStore, LabelStore)}:
+     * сумма хэш-кодов меток, как у {@link Set#hashCode()}. Отсутствующее хранилище имеет хэш-код пустого
+     */
+    public static int contentHashCode(LabelStore store) {
+        int result = 0;
+        if (store != null) {
+            for (int i = 0; i < store.size; i++) {
+                result += store.labels[i].hashCode();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Сравнивает наборы меток без учета порядка установки. Отсутствующее хранилище равно пустому
+     */
+    public static boolean contentEquals(LabelStore a, LabelStore b) {
+        int sizeA = a == null ? 0 : a.size;
+        int sizeB = b == null ? 0 : b.size;
+        if (sizeA != sizeB) {
+            return false;
+        }
+        if (sizeA == 0) {
+            return true;
+        }
+        if (a.mask != b.mask) {
+            return false;
+        }
+        for (int i = 0; i < a.size; i++) {
+            Label label = a.labels[i];
+            Label other = b.get(label.getId());
+            if (other == null || !Objects.equals(label.getAttribute(), other.getAttribute())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package org.vstu.meaningtree.utils;
+
+import org.treesitter.TSNode;
+import org.treesitter.TSPoint;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Исходный код, закодированный в UTF-8 один раз на весь разбор.
+ * Tree sitter оперирует смещениями в байтах, поэтому буфер хранит отображение
+ * байтовых смещений в индексы символов строки и позволяет получать фрагменты кода без повторного кодирования
+ */
+public class SourceBuffer {
+    private final String source;
+    private final byte[] bytes;
+
+    /**
+     * Индекс символа для каждого байтового смещения (длина на единицу больше количества байт).
+     * Равен null, если код состоит только из ASCII символов и смещения совпадают
+     */
+    private final int[] byteToChar;
+
+    public SourceBuffer(String source) {
+        this.source = source;
+        this.bytes = source.getBytes(StandardCharsets.UTF_8);
+        this.byteToChar = bytes.length == source.length() ? null : buildOffsetMap(source, bytes.length);
+    }
+
+    private static int[] buildOffsetMap(String source, int byteLength) {
+        int[] map = new int[byteLength + 1];
+        int byteOffset = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            int width;
+            if (c < 0x80) {
+                width = 1;
+            } else if (c < 0x800) {
+                width = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < source.length()
+                    && Character.isLowSurrogate(source.charAt(i + 1))) {
+                // Суррогатная пара кодируется четырьмя байтами, все они указывают на первый символ пары
+                for (int k = 0; k < 4; k++) {
+                    map[byteOffset++] = i;
+                }
+                i++;
+                continue;
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат String.getBytes заменяет одним байтом '?'
+                width = 1;
+            } else {
+                width = 3;
+            }
+            for (int k = 0; k < width; k++) {
+                map[byteOffset++] = i;
+            }
+        }
+        map[byteOffset] = source.length();
+        return map;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return длина кода в байтах UTF-8
+     */
+    public int byteLength() {
+        return bytes.length;
+    }
+
+    /**
+     * Возвращает байт кода по смещению. Массив байт наружу не отдается, чтобы буфер оставался неизменяемым
+     */
+    public byte byteAt(int byteOffset) {
+        return bytes[byteOffset];
+    }
+
+    /**
+     * Переводит смещение в байтах в индекс символа исходной строки
+     */
+    public int toCharOffset(int byteOffset) {
+        if (byteToChar == null) {
+            return byteOffset;
+        }
+        return byteToChar[byteOffset];
+    }
+
+    /**
+     * Фрагмент кода по байтовому диапазону без копирования символов
+     */
+    public CharSequence slice(int startByte, int endByte) {
+        return CharBuffer.wrap(source, toCharOffset(startByte), toCharOffset(endByte));
+    }
+
+    public CharSequence slice(TSNode node) {
+        return slice(node.getStartByte(), node.getEndByte());
+    }
+
+    /**
+     * Фрагмент кода по байтовому диапазону в виде строки
+     */
+    public String substring(int startByte, int endByte) {
+        return source.substring(toCharOffset(startByte), toCharOffset(endByte));
+    }
+
+    public String getCodePiece(TSNode node) {
+        return substring(node.getStartByte(), node.getEndByte());
+    }
+
+    /**
+     * Точка tree sitter для байтового смещения: строка с нуля и столбец в байтах от начала строки
+     */
+    public TSPoint getPoint(int byteOffset) {
+        int row = 0;
+        int lineStart = 0;
+        for (int i = 0; i < byteOffset; i++) {
+            if (bytes[i] == '\n') {
+                row++;
+                lineStart = i + 1;
+            }
+        }
+        return new TSPoint(row, byteOffset - lineStart);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,334 @@
+package org.vstu.meaningtree.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Диапазоны исходного кода, из которых построены узлы дерева, и индекс для поиска узла по позиции в коде.
+ * <p>
+ * Диапазоны хранятся в примитивных массивах, отсортированных по глобальному id узла ({@link org.vstu.meaningtree.nodes.Node#getId()}),
+ * поэтому переживают копирование дерева. Для поиска самого вложенного узла в позиции код заранее разбивается
+ * на элементарные отрезки между границами диапазонов, и каждому отрезку сопоставляется самый вложенный
+ * покрывающий его узел; запрос - двоичный поиск по границам за O(log n).
+ * <p>
+ * Смещения - в байтах UTF-8, диапазоны полуоткрытые [start, end). Строки и столбцы считаются с нуля,
+ * столбец - в байтах от начала строки, как в точках tree sitter. Объект неизменяем
+ */
+public final class SourceSpans implements Serializable {
+    private static final long NO_NODE = -1;
+
+    private final long[] nodeIds;
+    private final int[] starts;
+    private final int[] ends;
+    /**
+     * Номера диапазонов в порядке их записи при разборе
+     */
+    private final int[] recordOrder;
+
+    private final int[] segmentStarts;
+    private final long[] segmentNodes;
+
+    private final int[] lineStarts;
+    private final int sourceLength;
+
+    private SourceSpans(long[] nodeIds, int[] starts, int[] ends, int[] recorded, int[] lineStarts, int sourceLength) {
+        this.nodeIds = nodeIds;
+        this.starts = starts;
+        this.ends = ends;
+        this.recordOrder = sortedIndexes(recorded.length, (a, b) -> Integer.compare(recorded[a], recorded[b]));
+        this.sourceLength = sourceLength;
+        this.lineStarts = lineStarts;
+
+        // Внешние диапазоны раньше вложенных: по началу, затем по убыванию конца, затем по убыванию порядка записи
+        int[] order = sortedIndexes(nodeIds.length, (a, b) -> {
+            int cmp = Integer.compare(starts[a], starts[b]);
+            if (cmp != 0) return cmp;
+            cmp = Integer.compare(ends[b], ends[a]);
+            if (cmp != 0) return cmp;
+            return Integer.compare(recorded[b], recorded[a]);
+        });
+
+        // Отрезки строятся обходом диапазонов в этом порядке: стек хранит открытые диапазоны
+        int[] boundaries = new int[ends.length * 2];
+        for (int i = 0; i < ends.length; i++) {
+            boundaries[2 * i] = starts[i];
+            boundaries[2 * i + 1] = ends[i];
+        }
+        Arrays.sort(boundaries);
+        int unique = 0;
+        for (int i = 0; i < boundaries.length; i++) {
+            if (unique == 0 || boundaries[unique - 1] != boundaries[i]) {
+                boundaries[unique++] = boundaries[i];
+            }
+        }
+        segmentStarts = Arrays.copyOf(boundaries, unique);
+        segmentNodes = new long[unique];
+        Arrays.fill(segmentNodes, NO_NODE);
+
+        int[] stack = new int[Math.max(order.length, 1)];
+        int top = 0;
+        int position = 0;
+        for (int span : order) {
+            while (top > 0 && ends[stack[top - 1]] <= starts[span]) {
+                int closed = stack[--top];
+                position = fill(position, ends[closed], nodeIds[closed]);
+            }
+            position = fill(position, starts[span], top > 0 ? nodeIds[stack[top - 1]] : NO_NODE);
+            stack[top++] = span;
+        }
+        while (top > 0) {
+            int closed = stack[--top];
+            position = fill(position, ends[closed], nodeIds[closed]);
+        }
+    }
+
+    /**
+     * Сопоставляет узел отрезкам от позиции position до end
+     * @return новая позиция
+     */
+    private int fill(int position, int end, long nodeId) {
+        if (end <= position) {
+            return position;
+        }
+        int segment = Arrays.binarySearch(segmentStarts, position);
+        for (; segment >= 0 && segment < segmentStarts.length && segmentStarts[segment] < end; segment++) {
+            segmentNodes[segment] = nodeId;
+        }
+        return end;
+    }
+
+    private static int[] computeLineStarts(SourceBuffer source) {
+        int count = 1;
+        for (int i = 0; i < source.byteLength(); i++) {
+            if (source.byteAt(i) == '\n') count++;
+        }
+        int[] result = new int[count];
+        int line = 1;
+        for (int i = 0; i < source.byteLength(); i++) {
+            if (source.byteAt(i) == '\n') result[line++] = i + 1;
+        }
+        return result;
+    }
+
+    public int size() {
+        return nodeIds.length;
+    }
+
+    public boolean hasSpan(long nodeId) {
+        return Arrays.binarySearch(nodeIds, nodeId) >= 0;
+    }
+
+    /**
+     * @return байтовое смещение начала узла или -1, если диапазон узла неизвестен
+     */
+    public int getStartByte(long nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index < 0 ? -1 : starts[index];
+    }
+
+    /**
+     * @return байтовое смещение конца узла (не включительно) или -1, если диапазон узла неизвестен
+     */
+    public int getEndByte(long nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index < 0 ? -1 : ends[index];
+    }
+
+    /**
+     * Id самого вложенного узла, диапазон которого содержит смещение
+     * @return id узла или -1, если смещение не покрыто ни одним узлом
+     */
+    public long findInnermost(int byteOffset) {
+        int segment = upperBound(segmentStarts, byteOffset) - 1;
+        return segment < 0 ? NO_NODE : segmentNodes[segment];
+    }
+
+    /**
+     * Переводит строку и столбец в байтовое смещение
+     * @return смещение или -1, если такой позиции в коде нет
+     */
+    public int toByteOffset(int line, int column) {
+        if (line < 0 || line >= lineStarts.length || column < 0) {
+            return -1;
+        }
+        int lineEnd = line + 1 < lineStarts.length ? lineStarts[line + 1] : sourceLength;
+        int offset = lineStarts[line] + column;
+        return offset <= lineEnd ? offset : -1;
+    }
+
+    public int getLine(int byteOffset) {
+        return upperBound(lineStarts, byteOffset) - 1;
+    }
+
+    public int getColumn(int byteOffset) {
+        return byteOffset - lineStarts[getLine(byteOffset)];
+    }
+
+    /**
+     * @return байтовые смещения начала каждой строки кода
+     */
+    public int[] getLineStarts() {
+        return lineStarts.clone();
+    }
+
+    /**
+     * @return длина кода в байтах
+     */
+    public int getSourceLength() {
+        return sourceLength;
+    }
+
+    /**
+     * Диапазоны в порядке их записи при разборе. Вместе с {@link #getLineStarts()} и {@link #getSourceLength()}
+     * позволяет сохранить диапазоны без исходного кода и восстановить их через {@link Builder#build(int[], int)}
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        for (int span : recordOrder) {
+            builder.add(nodeIds[span], starts[span], ends[span]);
+        }
+        return builder;
+    }
+
+    /**
+     * Переносит диапазоны в другой код, содержащий исходный начиная с заданного смещения.
+     * Используется, когда разбирался код, обернутый транслятором (например, в режиме выражений)
+     * @param byteOffset - смещение исходного кода внутри разобранного
+     * @param source - исходный код
+     * @return диапазоны относительно исходного кода; диапазоны вне него отбрасываются
+     */
+    public SourceSpans rebase(int byteOffset, SourceBuffer source) {
+        Builder builder = new Builder();
+        int length = source.byteLength();
+        // Порядок записи диапазонов определяет вложенность при совпадающих границах, поэтому переносится как есть
+        for (int span : recordOrder) {
+            int start = starts[span] - byteOffset;
+            int end = Math.min(ends[span] - byteOffset, length);
+            if (start >= 0 && start <= end) {
+                builder.add(nodeIds[span], start, end);
+            }
+        }
+        return builder.build(source);
+    }
+
+    private static int upperBound(int[] array, int value) {
+        int low = 0, high = array.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Накапливает диапазоны во время разбора. Узлы создаются раньше своих родителей, поэтому при совпадающих
+     * диапазонах более ранняя запись считается вложенной. Для узла, записанного несколько раз, сохраняется первая запись
+     */
+    public static final class Builder {
+        private long[] nodeIds = new long[64];
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int size = 0;
+
+        public void add(long nodeId, int startByte, int endByte) {
+            if (size == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            nodeIds[size] = nodeId;
+            starts[size] = startByte;
+            ends[size] = endByte;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index - номер записи в порядке добавления
+         */
+        public long getNodeId(int index) {
+            return nodeIds[index];
+        }
+
+        public int getStartByte(int index) {
+            return starts[index];
+        }
+
+        public int getEndByte(int index) {
+            return ends[index];
+        }
+
+        public SourceSpans build(SourceBuffer source) {
+            return build(computeLineStarts(source), source.byteLength());
+        }
+
+        /**
+         * Строит диапазоны по заранее известной разбивке кода на строки, когда самого кода нет
+         * @param lineStarts - байтовые смещения начала каждой строки, первое равно нулю
+         * @param sourceLength - длина кода в байтах
+         */
+        public SourceSpans build(int[] lineStarts, int sourceLength) {
+            if (lineStarts.length == 0 || lineStarts[0] != 0) {
+                throw new IllegalArgumentException("First line must start at offset 0");
+            }
+            // Сортировка по id с сохранением первой записи каждого узла
+            int[] byId = sortedIndexes(size, (a, b) -> {
+                int cmp = Long.compare(nodeIds[a], nodeIds[b]);
+                return cmp != 0 ? cmp : Integer.compare(a, b);
+            });
+            int unique = 0;
+            long[] ids = new long[size];
+            int[] spanStarts = new int[size];
+            int[] spanEnds = new int[size];
+            int[] recorded = new int[size];
+            for (int record : byId) {
+                if (unique > 0 && ids[unique - 1] == nodeIds[record]) {
+                    continue;
+                }
+                ids[unique] = nodeIds[record];
+                spanStarts[unique] = starts[record];
+                spanEnds[unique] = ends[record];
+                recorded[unique] = record;
+                unique++;
+            }
+            return new SourceSpans(Arrays.copyOf(ids, unique), Arrays.copyOf(spanStarts, unique),
+                    Arrays.copyOf(spanEnds, unique), Arrays.copyOf(recorded, unique), lineStarts.clone(), sourceLength);
+        }
+    }
+
+    private interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Устойчивая сортировка слиянием номеров 0..size-1 без упаковки в объекты
+     */
+    private static int[] sortedIndexes(int size, IndexComparator comparator) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int left = 0; left < size - width; left += width * 2) {
+                int mid = left + width;
+                int right = Math.min(left + width * 2, size);
+                int i = left, j = mid, k = left;
+                while (i < mid && j < right) {
+                    buffer[k++] = comparator.compare(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                }
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < right) buffer[k++] = order[j++];
+                System.arraycopy(buffer, left, order, left, right - left);
+            }
+        }
+        return order;
+    }
+}
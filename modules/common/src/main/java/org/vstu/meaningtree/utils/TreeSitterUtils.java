@@ -2,13 +2,16 @@ package org.vstu.meaningtree.utils;
 
 import org.treesitter.TSNode;
 
-import java.nio.charset.StandardCharsets;
-
 public class TreeSitterUtils {
+    /**
+     * Кодирует весь исходный код заново при каждом вызове.
+     * При многократных вызовах для одного кода используйте {@link SourceBuffer}
+     */
     public static String getCodePiece(String sourceCode, TSNode node) {
-        byte[] code = sourceCode.getBytes(StandardCharsets.UTF_8);
-        int start = node.getStartByte();
-        int end = node.getEndByte();
-        return new String(code, start, end - start);
+        return new SourceBuffer(sourceCode).getCodePiece(node);
+    }
+
+    public static String getCodePiece(SourceBuffer source, TSNode node) {
+        return source.getCodePiece(node);
     }
 }
@@ -1,6 +1,7 @@
 package org.vstu.meaningtree.utils.tokens;
 
 import org.jetbrains.annotations.Nullable;
+import org.vstu.meaningtree.utils.IdAllocator;
 
 import java.util.Objects;
 
@@ -10,10 +11,14 @@ public class Token {
 
     public Token belongsTo = null;
 
-    protected static int idCounter = 0;
+    private static final IdAllocator idAllocator = new IdAllocator();
 
     protected Object assignedValue = null;
-    private int id = ++idCounter;
+
+    /**
+     * Уникален и при токенизации в нескольких потоках, см. {@link IdAllocator}
+     */
+    private final long id = idAllocator.next();
 
     public Token(String value, TokenType type) {
         this.value = value;
@@ -73,7 +78,7 @@ public class Token {
         return this.belongsTo;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
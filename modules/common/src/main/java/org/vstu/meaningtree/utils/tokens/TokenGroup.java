@@ -72,6 +72,7 @@ public class TokenGroup implements Iterable<Token> {
                 op.setMetadata(token, pos);
             }
         }
+        source.invalidateTable();
     }
 
     public void assignValue(Object tag) {
@@ -4,7 +4,6 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,6 +11,9 @@ import java.util.Map;
  * Нужен для представления последовательного представления списка токенов, а не выборки токенов
  */
 public class TokenList extends ArrayList<Token> {
+    private transient TokenTable table;
+    private transient int tableModCount;
+
     public TokenList() {
         super();
     }
@@ -20,6 +22,30 @@ public class TokenList extends ArrayList<Token> {
         super(tokens);
     }
 
+    /**
+     * Поколоночное представление списка с таблицами операндов, скобок и составных операторов.
+     * Строится при первом вызове и перестраивается после изменения списка. Метаданные токенов, измененные
+     * в обход методов списка (например, {@link OperandToken#setMetadata(OperatorToken, OperandPosition)}),
+     * требуют вызова {@link #invalidateTable()}
+     */
+    public TokenTable table() {
+        if (table == null || tableModCount != modCount) {
+            table = new TokenTable(this);
+            tableModCount = modCount;
+        }
+        return table;
+    }
+
+    public void invalidateTable() {
+        table = null;
+    }
+
+    @Override
+    public Token set(int index, Token element) {
+        table = null;
+        return super.set(index, element);
+    }
+
     public TokenList subtract(TokenGroup group) {
         TokenList copy = clone();
         copy.subList(group.start, group.stop).clear();
@@ -52,39 +78,15 @@ public class TokenList extends ArrayList<Token> {
     }
 
     public ComplexOperatorToken isInComplex(int tokenIndex) {
-        for (int i = tokenIndex; i >= 0; i--) {
-            if (get(i) instanceof ComplexOperatorToken complex && complex.isOpening()) {
-                if (tokenIndex > i && tokenIndex < findClosingComplex(i)) {
-                    return complex;
-                }
-            }
-        }
-        return null;
+        int opening = table().enclosingComplex(tokenIndex);
+        return opening == -1 ? null : (ComplexOperatorToken) get(opening);
     }
 
     public Pair<Integer, Integer> getEnclosingParentheses(int operatorToken) {
         if (!(get(operatorToken) instanceof OperatorToken)) {
             return ImmutablePair.of(-1, -1);
         }
-        for (int i = operatorToken; i >= 0; i--) {
-            if (get(i).type == TokenType.OPENING_BRACE) {
-                int brace = 1;
-                int closing = -1;
-                int j = i + 1;
-                for (;j < size() && brace != 0; j++) {
-                    if (get(j).type == TokenType.OPENING_BRACE) {
-                        brace++;
-                    } else if (get(j).type == TokenType.CLOSING_BRACE) {
-                        closing = j;
-                        brace--;
-                    }
-                }
-                if (brace == 0 && operatorToken > i && operatorToken < j) {
-                    return ImmutablePair.of(i, closing);
-                }
-            }
-        }
-        return ImmutablePair.of(-1, -1);
+        return table().enclosingBraces(operatorToken);
     }
 
     public void setMetadata(OperatorToken token, OperandPosition pos) {
@@ -98,6 +100,7 @@ public class TokenList extends ArrayList<Token> {
                 op.setMetadata(token, pos);
             }
         }
+        table = null;
     }
 
     public void assignValue(Object tag) {
@@ -137,75 +140,38 @@ public class TokenList extends ArrayList<Token> {
     public int findClosingComplex(int tokenIndex) {
         assert get(tokenIndex) instanceof ComplexOperatorToken;
         ComplexOperatorToken complex = (ComplexOperatorToken) get(tokenIndex);
-        return findComplex(tokenIndex, complex.getClosingPosition());
+        if (complex.isClosing()) {
+            return findComplex(tokenIndex, complex.getClosingPosition());
+        }
+        return table().closingComplex(tokenIndex);
     }
 
     public int findOpeningComplex(int tokenIndex) {
-        return findComplex(tokenIndex, 0);
+        assert get(tokenIndex) instanceof ComplexOperatorToken;
+        if (((ComplexOperatorToken) get(tokenIndex)).isOpening()) {
+            return findComplex(tokenIndex, 0);
+        }
+        return table().openingComplex(tokenIndex);
     }
 
 
     public TokenList clone() {
-        return (TokenList) super.clone();
+        TokenList copy = (TokenList) super.clone();
+        copy.table = null;
+        return copy;
     }
 
     public OperandPosition isOperandInOperatorOperandsHierarchy(int operandPos, int operatorPos) {
         assert get(operandPos) instanceof OperandToken;
         assert get(operatorPos) instanceof OperatorToken;
-        OperandToken operand = (OperandToken) get(operandPos);
-        OperandPosition pos = null;
-        boolean flag = false;
-        while (operand.operandOf() != null) {
-            if (operand.operandOf().equals(get(operatorPos))) {
-                flag = true;
-                pos = operand.operandPosition();
-                break;
-            }
-            operand = operand.operandOf();
-        }
-        return flag ? pos : null;
+        return table().operandPosition(operandPos, operatorPos);
     }
 
     public Map<OperandPosition, TokenList> findOperandsAsList(int opIndexToken) {
-        OperandToken op = (OperandToken) get(opIndexToken);
-        Map<OperandPosition, TokenList> result = new HashMap<>();
-        for (int i = 0; i < size(); i++) {
-            if (get(i) instanceof OperandToken operand && operand.operandOf() != null && operand.operandOf().equals(op)) {
-                if (!result.containsKey(operand.operandPosition())) {
-                    result.put(operand.operandPosition(), new TokenList());
-                }
-                result.get(operand.operandPosition()).add(operand);
-            }
-        }
-        return result;
+        return table().operandsAsList(opIndexToken);
     }
 
     public Map<OperandPosition, TokenGroup> findOperands(int opIndexToken) {
-        OperandToken op = (OperandToken) get(opIndexToken);
-        Map<OperandPosition, TokenGroup> result = new HashMap<>();
-        int i = 0;
-        int start = -1;
-        int stop = -1;
-        OperandPosition oldPos = null;
-        while (i < size()) {
-            OperandPosition pos;
-            if (get(i) instanceof OperandToken operand && (pos = isOperandInOperatorOperandsHierarchy(i, opIndexToken)) != null) {
-                if (oldPos != null && !oldPos.equals(pos)) {
-                    start = i;
-                }
-                if (start == -1) {
-                    start = i;
-                }
-                stop = i + 1;
-                while (stop < size() && get(stop) instanceof OperandToken && isOperandInOperatorOperandsHierarchy(stop, opIndexToken) == pos) {
-                    stop = i + 1;
-                    i++;
-                }
-                result.put(pos, new TokenGroup(start, stop, this));
-                oldPos = pos;
-            }
-            i++;
-        }
-        return result;
+        return table().operands(opIndexToken);
     }
 }
@@ -0,0 +1,341 @@
+package org.vstu.meaningtree.utils.tokens;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.*;
+
+/**
+ * Поколоночное представление списка токенов: значения, типы, ссылки на операторы и позиции операндов хранятся
+ * в параллельных массивах. При построении один раз вычисляются таблицы парных скобок, парных частей составных
+ * операторов и операндов каждого оператора, поэтому запросы к ним не сканируют список.
+ * <p>
+ * Таблица - снимок списка на момент построения. {@link TokenList} строит ее при первом запросе и перестраивает
+ * после изменения списка (см. {@link TokenList#table()})
+ */
+public final class TokenTable {
+    private final TokenList source;
+
+    private final Token[] tokens;
+    private final String[] values;
+    private final TokenType[] types;
+    /**
+     * Номер оператора, операндом которого непосредственно является токен, или -1
+     */
+    private final int[] operators;
+    private final OperandPosition[] positions;
+
+    /**
+     * Номер парной скобки или -1 для непарных скобок и прочих токенов
+     */
+    private final int[] braces;
+    /**
+     * Номер открывающей скобки ближайшей пары, охватывающей токен, или -1
+     */
+    private final int[] enclosingBraces;
+
+    /**
+     * Номер закрывающей части составного оператора (для частей, кроме закрывающей) или -1
+     */
+    private final int[] closingComplex;
+    /**
+     * Номер открывающей части составного оператора (для частей, кроме открывающей) или -1
+     */
+    private final int[] openingComplex;
+    /**
+     * Номер открывающей части ближайшего составного оператора, охватывающего токен, или -1
+     */
+    private final int[] enclosingComplex;
+
+    /**
+     * Токены, в иерархии операторов которых есть оператор, по возрастанию номера, и позиции в этом операторе
+     */
+    private final IdentityHashMap<Token, Operands> operands = new IdentityHashMap<>();
+
+    private static final class Operands {
+        int[] indexes = new int[4];
+        OperandPosition[] positions = new OperandPosition[4];
+        int size = 0;
+
+        void add(int index, OperandPosition position) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            indexes[size] = index;
+            positions[size] = position;
+            size++;
+        }
+    }
+
+    /**
+     * Признаки, по которым {@link ComplexOperatorToken#isEqualComplex(ComplexOperatorToken)} считает части одним оператором
+     */
+    private record ComplexKind(List<String> values, int precedence, boolean isStrictOrder,
+                               OperatorAssociativity assoc, OperatorArity arity, OperatorTokenPosition tokenPos) {
+        static ComplexKind of(ComplexOperatorToken token) {
+            return new ComplexKind(token.complexTokenValues, token.precedence, token.isStrictOrder,
+                    token.assoc, token.arity, token.tokenPos);
+        }
+    }
+
+    TokenTable(TokenList source) {
+        this.source = source;
+        int n = source.size();
+        tokens = source.toArray(new Token[0]);
+        values = new String[n];
+        types = new TokenType[n];
+        operators = new int[n];
+        positions = new OperandPosition[n];
+        braces = new int[n];
+        enclosingBraces = new int[n];
+        closingComplex = new int[n];
+        openingComplex = new int[n];
+        enclosingComplex = new int[n];
+
+        IdentityHashMap<Token, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) {
+            values[i] = tokens[i].value;
+            types[i] = tokens[i].type;
+            indexes.putIfAbsent(tokens[i], i);
+        }
+        buildOperands(indexes);
+        buildBraces();
+        buildComplex();
+    }
+
+    private void buildOperands(IdentityHashMap<Token, Integer> indexes) {
+        Arrays.fill(operators, -1);
+        for (int i = 0; i < tokens.length; i++) {
+            if (!(tokens[i] instanceof OperandToken operand)) {
+                continue;
+            }
+            positions[i] = operand.operandPosition();
+            if (operand.operandOf() != null) {
+                operators[i] = indexes.getOrDefault(operand.operandOf(), -1);
+            }
+            while (operand.operandOf() != null) {
+                OperatorToken operator = operand.operandOf();
+                if (operand.operandPosition() != null && indexes.containsKey(operator)) {
+                    operands.computeIfAbsent(operator, k -> new Operands()).add(i, operand.operandPosition());
+                }
+                operand = operator;
+            }
+        }
+    }
+
+    private void buildBraces() {
+        Arrays.fill(braces, -1);
+        Arrays.fill(enclosingBraces, -1);
+        int[] stack = new int[tokens.length];
+        int top = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (types[i] == TokenType.OPENING_BRACE) {
+                stack[top++] = i;
+            } else if (types[i] == TokenType.CLOSING_BRACE && top > 0) {
+                int opening = stack[--top];
+                braces[opening] = i;
+                braces[i] = opening;
+            }
+        }
+        // Парные скобки вложены друг в друга, поэтому охватывающие пары образуют стек
+        top = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            while (top > 0 && braces[stack[top - 1]] < i) {
+                top--;
+            }
+            if (top > 0) {
+                enclosingBraces[i] = stack[top - 1];
+            }
+            if (types[i] == TokenType.OPENING_BRACE && braces[i] != -1) {
+                stack[top++] = i;
+            }
+        }
+    }
+
+    private void buildComplex() {
+        Arrays.fill(closingComplex, -1);
+        Arrays.fill(openingComplex, -1);
+        Arrays.fill(enclosingComplex, -1);
+        Map<ComplexKind, ArrayDeque<Integer>> stacks = new HashMap<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i] instanceof ComplexOperatorToken complex) {
+                ArrayDeque<Integer> stack = stacks.computeIfAbsent(ComplexKind.of(complex), k -> new ArrayDeque<>());
+                if (complex.positionOfToken != complex.getClosingPosition()) {
+                    stack.push(i);
+                } else if (!stack.isEmpty()) {
+                    closingComplex[stack.pop()] = i;
+                }
+            }
+        }
+        stacks.clear();
+        for (int i = tokens.length - 1; i >= 0; i--) {
+            if (tokens[i] instanceof ComplexOperatorToken complex) {
+                ArrayDeque<Integer> stack = stacks.computeIfAbsent(ComplexKind.of(complex), k -> new ArrayDeque<>());
+                if (complex.positionOfToken != 0) {
+                    stack.push(i);
+                } else if (!stack.isEmpty()) {
+                    openingComplex[stack.pop()] = i;
+                }
+            }
+        }
+        // Составные операторы разных видов могут пересекаться, поэтому ближайший охватывающий ищется среди всех открытых
+        int[] closes = new int[tokens.length];
+        Arrays.fill(closes, -1);
+        TreeSet<Integer> open = new TreeSet<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (closes[i] != -1) {
+                open.remove(closes[i]);
+            }
+            enclosingComplex[i] = open.isEmpty() ? -1 : open.last();
+            if (tokens[i] instanceof ComplexOperatorToken complex && complex.isOpening() && closingComplex[i] != -1) {
+                open.add(i);
+                closes[closingComplex[i]] = i;
+            }
+        }
+    }
+
+    public TokenList getSource() {
+        return source;
+    }
+
+    public int size() {
+        return tokens.length;
+    }
+
+    public Token get(int index) {
+        return tokens[index];
+    }
+
+    public String value(int index) {
+        return values[index];
+    }
+
+    public TokenType type(int index) {
+        return types[index];
+    }
+
+    /**
+     * @return номер оператора, непосредственным операндом которого является токен, или -1
+     */
+    public int operatorOf(int index) {
+        return operators[index];
+    }
+
+    /**
+     * @return позиция токена в его непосредственном операторе или null
+     */
+    public OperandPosition operandPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * @return номер парной скобки или -1
+     */
+    public int matchingBrace(int index) {
+        return braces[index];
+    }
+
+    /**
+     * Ближайшая пара скобок, охватывающая токен (закрывающая скобка пары может совпадать с самим токеном)
+     * @return номера открывающей и закрывающей скобок или (-1, -1)
+     */
+    public Pair<Integer, Integer> enclosingBraces(int index) {
+        int opening = enclosingBraces[index];
+        return opening == -1 ? ImmutablePair.of(-1, -1) : ImmutablePair.of(opening, braces[opening]);
+    }
+
+    /**
+     * @return номер закрывающей части составного оператора для любой его части, кроме закрывающей, или -1
+     */
+    public int closingComplex(int index) {
+        return closingComplex[index];
+    }
+
+    /**
+     * @return номер открывающей части составного оператора для любой его части, кроме открывающей, или -1
+     */
+    public int openingComplex(int index) {
+        return openingComplex[index];
+    }
+
+    /**
+     * @return номер открывающей части ближайшего составного оператора, строго внутри которого находится токен, или -1
+     */
+    public int enclosingComplex(int index) {
+        return enclosingComplex[index];
+    }
+
+    /**
+     * Позиция, в которой токен входит в операнды оператора (с учетом вложенных операторов)
+     * @return позиция или null, если токен не относится к оператору
+     */
+    public OperandPosition operandPosition(int operand, int operator) {
+        Operands found = operands.get(tokens[operator]);
+        if (found == null) {
+            return null;
+        }
+        int i = Arrays.binarySearch(found.indexes, 0, found.size, operand);
+        return i < 0 ? null : found.positions[i];
+    }
+
+    /**
+     * Непосредственные операнды оператора, сгруппированные по позиции
+     */
+    public Map<OperandPosition, TokenList> operandsAsList(int operator) {
+        Map<OperandPosition, TokenList> result = new HashMap<>();
+        Operands found = operands.get(tokens[operator]);
+        if (found == null) {
+            return result;
+        }
+        for (int k = 0; k < found.size; k++) {
+            int i = found.indexes[k];
+            if (((OperandToken) tokens[i]).operandOf() == tokens[operator]) {
+                result.computeIfAbsent(positions[i], p -> new TokenList()).add(tokens[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Диапазоны операндов оператора (с учетом вложенных операторов) для каждой позиции.
+     * Проходит только по токенам, относящимся к оператору
+     */
+    public Map<OperandPosition, TokenGroup> operands(int operator) {
+        Map<OperandPosition, TokenGroup> result = new HashMap<>();
+        Operands found = operands.get(tokens[operator]);
+        if (found == null) {
+            return result;
+        }
+        int start = -1;
+        int next = 0;
+        OperandPosition oldPos = null;
+        for (int k = 0; k < found.size; ) {
+            int i = found.indexes[k];
+            if (i < next) {
+                k++;
+                continue;
+            }
+            OperandPosition pos = found.positions[k];
+            if (oldPos != null && !oldPos.equals(pos)) {
+                start = i;
+            }
+            if (start == -1) {
+                start = i;
+            }
+            // Продолжаем, пока следующие токены подряд относятся к той же позиции
+            int last = k;
+            while (last + 1 < found.size && found.indexes[last + 1] == found.indexes[last] + 1
+                    && found.positions[last + 1] == pos) {
+                last++;
+            }
+            int stop = found.indexes[last] + 1;
+            result.put(pos, new TokenGroup(start, stop, source));
+            oldPos = pos;
+            // Токен, прервавший продолженный диапазон, пропускается так же, как при последовательном поиске
+            next = last > k ? stop + 1 : stop;
+            k = last + 1;
+        }
+        return result;
+    }
+}
@@ -19,9 +19,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Генерирует задачи на рефакторинг. Общего изменяемого состояния нет: узлы задачи собираются в собственный
+ * {@link AugletsMeta} каждого вызова, поэтому генератор можно вызывать из нескольких потоков одновременно
+ */
 public class AugletsRefactorProblemsGenerator {
-    private static AugletsMeta _meta = new AugletsMeta();
-
     public static AugletProblem generate(
             MeaningTree mt,
             AugletsRefactorProblemsType problemType,
@@ -39,8 +41,9 @@ public class AugletsRefactorProblemsGenerator {
                 ((ProgramEntryPoint) rootNode).getBody()
         );
         var newBody = new ArrayList<Node>();
+        var meta = new AugletsMeta();
 
-        CompoundStatement compoundBody = (CompoundStatement) generate(currentBody, problemType, opts);
+        CompoundStatement compoundBody = (CompoundStatement) generate(currentBody, problemType, opts, meta);
 
         if (compoundBody != null) {
             MeaningTree newMt = new MeaningTree(new ProgramEntryPoint(
@@ -55,7 +58,7 @@ public class AugletsRefactorProblemsGenerator {
                newBody.add(node);
            }
            else {
-               var modifiedNode = generate(node, problemType, opts);
+               var modifiedNode = generate(node, problemType, opts, meta);
                if (modifiedNode != null) {
                    newBody.add(modifiedNode);
                    hasModified = true;
@@ -67,14 +70,15 @@ public class AugletsRefactorProblemsGenerator {
         }
 
         MeaningTree newMt = new MeaningTree(new ProgramEntryPoint(new SymbolEnvironment(null), newBody));
-        return new AugletProblem(newMt, mt, _meta, problemType);
+        return new AugletProblem(newMt, mt, meta, problemType);
     }
 
-    private static Node generate(Node node, AugletsRefactorProblemsType problemType, Map<String, String> opts) {
+    private static Node generate(Node node, AugletsRefactorProblemsType problemType, Map<String, String> opts,
+                                 AugletsMeta meta) {
         try {
             return switch (problemType) {
                 case ADD_DANGLING_ELSE ->
-                        addDanglingEmptyElse((IfStatement) node);
+                        addDanglingEmptyElse((IfStatement) node, meta);
                 case ADD_USELESS_CONDITION_CHECKING_IN_ELSE ->
                         addUselessConditionCheckingInElse((IfStatement) node);
                 case WRAP_WHILE_LOOP_AND_REPLACE_IT_WITH_DO_WHILE ->
@@ -179,15 +183,22 @@ public class AugletsRefactorProblemsGenerator {
      * не является подходящим
      */
     public static IfStatement addDanglingEmptyElse(IfStatement ifStatement) {
+        return addDanglingEmptyElse(ifStatement, new AugletsMeta());
+    }
+
+    /**
+     * Как {@link #addDanglingEmptyElse(IfStatement)}, но добавленная ветка else запоминается в meta как уникальный узел задачи
+     */
+    public static IfStatement addDanglingEmptyElse(IfStatement ifStatement, AugletsMeta meta) {
         if (!ifStatement.hasElseBranch()) {
             var emptyElse = new CompoundStatement(new SymbolEnvironment(null));
-            _meta.uniqueProblemNodes().add(emptyElse);
+            meta.uniqueProblemNodes().add(emptyElse);
             return new IfStatement(ifStatement.getBranches(), emptyElse);
         }
         else {
             Node elseBranch = ifStatement.getElseBranch();
             if (elseBranch instanceof IfStatement innerIfStatement) {
-                return addDanglingEmptyElse(innerIfStatement);
+                return addDanglingEmptyElse(innerIfStatement, meta);
             }
         }
 
@@ -0,0 +1,74 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.nodes.Expression;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.BoolLiteral;
+import org.vstu.meaningtree.nodes.expressions.literals.FloatLiteral;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор простых выражений C++ из токенов. Узлы строятся так же, как в {@link CppLanguage}.
+ * Сдвиги не разбираются: через них записываются ввод и вывод в потоки, которые распознает только {@link CppLanguage}
+ */
+final class CppExpressionParser extends ExpressionTokenParser {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern INTEGER = Pattern.compile("[0-9]+");
+    private static final Pattern FLOAT = Pattern.compile("[0-9]+\\.[0-9]+");
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "alignas", "alignof", "and", "and_eq", "asm", "auto", "bitand", "bitor", "bool", "break", "case",
+            "catch", "char", "char8_t", "char16_t", "char32_t", "class", "compl", "concept", "const", "consteval",
+            "constexpr", "constinit", "const_cast", "continue", "co_await", "co_return", "co_yield", "decltype",
+            "default", "delete", "do", "double", "dynamic_cast", "else", "enum", "explicit", "export", "extern",
+            "false", "float", "for", "friend", "goto", "if", "inline", "int", "long", "mutable", "namespace", "new",
+            "noexcept", "not", "not_eq", "nullptr", "operator", "or", "or_eq", "private", "protected", "public",
+            "register", "reinterpret_cast", "requires", "return", "short", "signed", "sizeof", "static",
+            "static_assert", "static_cast", "struct", "switch", "template", "this", "thread_local", "throw", "true",
+            "try", "typedef", "typeid", "typename", "union", "unsigned", "using", "virtual", "void", "volatile",
+            "wchar_t", "while", "xor", "xor_eq", "NULL"
+    );
+
+    CppExpressionParser(LanguageTokenizer tokenizer) {
+        super(tokenizer);
+    }
+
+    @Override
+    protected Expression operand(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return new BoolLiteral(value.equals("true"));
+        }
+        if (INTEGER.matcher(value).matches()) {
+            return new IntegerLiteral(value);
+        }
+        if (FLOAT.matcher(value).matches()) {
+            return new FloatLiteral(value);
+        }
+        if (IDENTIFIER.matcher(value).matches() && !KEYWORDS.contains(value)) {
+            return new SimpleIdentifier(value);
+        }
+        return null;
+    }
+
+    @Override
+    protected String prefixOperatorName(String value) {
+        return switch (value) {
+            case "+" -> "UPLUS";
+            case "-" -> "UMINUS";
+            case "!", "~" -> value;
+            default -> null;
+        };
+    }
+
+    @Override
+    protected Expression prefix(String operator, Expression argument) {
+        return CppLanguage.createUnaryExpression(operator, argument);
+    }
+
+    @Override
+    protected Expression binary(String operator, Expression left, Expression right) {
+        return CppLanguage.createBinaryExpression(operator, left, right);
+    }
+}
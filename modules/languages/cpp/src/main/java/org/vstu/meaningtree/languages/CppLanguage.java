@@ -83,6 +83,16 @@ public class CppLanguage extends LanguageParser {
 
     private int binaryRecursiveFlag = -1;
 
+    /**
+     * Узлы, построение которых зависит только от их текста, и поэтому при инкрементальном разборе
+     * их можно взять из предыдущего разбора. Бинарные выражения сюда не входят: их построение зависит
+     * от того, вложены ли они в другое бинарное выражение (см. {@link #binaryRecursiveFlag})
+     */
+    private static final Set<String> REUSABLE_NODE_TYPES = Set.of(
+            "identifier", "field_identifier", "number_literal", "char_literal", "string_literal",
+            "true", "false", "null"
+    );
+
     public CppLanguage() {
         _userTypes = new HashMap<>();
     }
@@ -95,6 +105,17 @@ public class CppLanguage extends LanguageParser {
         }
     }
 
+    @Override
+    public TSTree getTSTree(TSTree editedTree) {
+        _initBackend();
+        return _parser.parseString(editedTree, _code);
+    }
+
+    @Override
+    protected boolean canReuse(TSNode node) {
+        return REUSABLE_NODE_TYPES.contains(node.getType());
+    }
+
     @Override
     public TSTree getTSTree() {
         _initBackend();
@@ -109,8 +130,8 @@ public class CppLanguage extends LanguageParser {
     }
 
     @NotNull
-    public synchronized MeaningTree getMeaningTree(String code) {
-        _code = code;
+    public synchronized MeaningTree getMeaningTree(ParseSession session) {
+        useSession(session);
         TSNode rootNode = getRootNode();
         List<String> errors = lookupErrors(rootNode);
         if (!errors.isEmpty()) {
@@ -135,7 +156,7 @@ public class CppLanguage extends LanguageParser {
 
     @Override
     public MeaningTree getMeaningTree(TSNode node, String code) {
-        _code = code;
+        setCode(code);
         return new MeaningTree(fromTSNode(node));
     }
 
@@ -179,6 +200,10 @@ public class CppLanguage extends LanguageParser {
             throw new UnsupportedParsingException("NULL Tree sitter node");
         }
 
+        Node reused = reuseConverted(node);
+        if (reused != null) {
+            return reused;
+        }
         Node createdNode = switch (node.getType()) {
             case "ERROR", "parameter_pack_expansion" -> fromTSNode(node.getNamedChild(0));
             case "translation_unit" -> fromTranslationUnit(node);
@@ -1001,12 +1026,24 @@ public class CppLanguage extends LanguageParser {
     @NotNull
     private UnaryExpression fromUnaryExpression(@NotNull TSNode node) {
         Expression argument = (Expression) fromTSNode(node.getChildByFieldName("argument"));
-        return switch (getCodePiece(node.getChild(0))) {
+        UnaryExpression result = createUnaryExpression(getCodePiece(node.getChild(0)), argument);
+        if (result == null) {
+            throw new UnsupportedOperationException();
+        }
+        return result;
+    }
+
+    /**
+     * Узел префиксной унарной операции. Используется и при разборе выражений из токенов ({@link CppExpressionParser})
+     * @return узел или null, если оператор не поддерживается
+     */
+    static UnaryExpression createUnaryExpression(String operator, Expression argument) {
+        return switch (operator) {
             case "!", "not" -> new NotOp(argument);
             case "~" -> new InversionOp(argument);
             case "-" -> new UnaryMinusOp(argument);
             case "+" -> new UnaryPlusOp(argument);
-            default -> throw new UnsupportedOperationException();
+            default -> null;
         };
     }
 
@@ -1043,13 +1080,6 @@ public class CppLanguage extends LanguageParser {
         }
 
         return switch (getCodePiece(operator)) {
-            case "+" -> new AddOp(left, right);
-            case "-" -> new SubOp(left, right);
-            case "*" -> new MulOp(left, right);
-            case "/" -> new DivOp(left, right);
-            case "%" -> new ModOp(left, right);
-            case "<" -> new LtOp(left, right);
-            case ">" -> new GtOp(left, right);
             case "==" -> {
                 EqOp eq = new EqOp(left, right);
                 if (eq.getLeft() instanceof FunctionCall call
@@ -1085,13 +1115,6 @@ public class CppLanguage extends LanguageParser {
                 }
                 yield neq;
             }
-            case ">=" -> new GeOp(left, right);
-            case "<=" -> new LeOp(left, right);
-            case "&&", "and" -> new ShortCircuitAndOp(left, right);
-            case "||", "or" -> new ShortCircuitOrOp(left, right);
-            case "&" -> new BitwiseAndOp(left, right);
-            case "|" -> new BitwiseOrOp(left, right);
-            case "^" -> new XorOp(left, right);
             case "<<" -> {
                 LeftShiftOp lshift = new LeftShiftOp(left, right);
                 if (binaryRecursiveFlag == -1) {
@@ -1120,8 +1143,41 @@ public class CppLanguage extends LanguageParser {
                 }
                 yield rshift;
             }
+            default -> {
+                BinaryExpression result = createBinaryExpression(getCodePiece(operator), left, right);
+                if (result == null) {
+                    throw new UnsupportedOperationException(String.format("Can't parse operator %s", getCodePiece(operator)));
+                }
+                yield result;
+            }
+        };
+    }
+
+    /**
+     * Узел бинарной операции без особых случаев (сравнения с dynamic_cast, ввода-вывода через потоки).
+     * Используется и при разборе выражений из токенов ({@link CppExpressionParser})
+     * @return узел или null, если оператор не поддерживается
+     */
+    static BinaryExpression createBinaryExpression(String operator, Expression left, Expression right) {
+        return switch (operator) {
+            case "+" -> new AddOp(left, right);
+            case "-" -> new SubOp(left, right);
+            case "*" -> new MulOp(left, right);
+            case "/" -> new DivOp(left, right);
+            case "%" -> new ModOp(left, right);
+            case "<" -> new LtOp(left, right);
+            case ">" -> new GtOp(left, right);
+            case "==" -> new EqOp(left, right);
+            case "!=" -> new NotEqOp(left, right);
+            case ">=" -> new GeOp(left, right);
+            case "<=" -> new LeOp(left, right);
+            case "&&", "and" -> new ShortCircuitAndOp(left, right);
+            case "||", "or" -> new ShortCircuitOrOp(left, right);
+            case "&" -> new BitwiseAndOp(left, right);
+            case "|" -> new BitwiseOrOp(left, right);
+            case "^" -> new XorOp(left, right);
             case "<=>" -> new ThreeWayComparisonOp(left, right);
-            default -> throw new UnsupportedOperationException(String.format("Can't parse operator %s", getCodePiece(operator)));
+            default -> null;
         };
     }
 
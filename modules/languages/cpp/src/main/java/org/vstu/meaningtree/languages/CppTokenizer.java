@@ -42,7 +42,6 @@ import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
 import org.vstu.meaningtree.nodes.types.builtin.IntType;
 import org.vstu.meaningtree.nodes.types.builtin.PointerType;
 import org.vstu.meaningtree.utils.Label;
-import org.vstu.meaningtree.utils.TreeSitterUtils;
 import org.vstu.meaningtree.utils.tokens.*;
 
 import java.util.*;
@@ -239,12 +238,12 @@ public class CppTokenizer extends LanguageTokenizer {
         }
 
         if (!node.getParent().isNull() && node.getParent().getType().equals("update_expression") &&
-                TreeSitterUtils.getCodePiece(code, node.getParent()).startsWith("++") && tokenValue.equals("++")) {
+                source.getCodePiece(node.getParent()).startsWith("++") && tokenValue.equals("++")) {
             return operators.get("++U").clone();
         }
 
         if (!node.getParent().isNull() && node.getParent().getType().equals("update_expression") &&
-                TreeSitterUtils.getCodePiece(code, node.getParent()).startsWith("--") && tokenValue.equals("--")) {
+                source.getCodePiece(node.getParent()).startsWith("--") && tokenValue.equals("--")) {
             return operators.get("--U").clone();
         }
 
@@ -313,7 +312,7 @@ public class CppTokenizer extends LanguageTokenizer {
         } else {
             tokenType = TokenType.UNKNOWN;
         }
-        return new Token(TreeSitterUtils.getCodePiece(code, node), tokenType);
+        return new Token(source.getCodePiece(node), tokenType);
     }
 
 
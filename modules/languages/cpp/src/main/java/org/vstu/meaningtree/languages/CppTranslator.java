@@ -1,15 +1,20 @@
 package org.vstu.meaningtree.languages;
 
+import org.vstu.meaningtree.languages.configs.Config;
 import org.vstu.meaningtree.languages.configs.params.ExpressionMode;
-import org.vstu.meaningtree.utils.tokens.Token;
 import org.vstu.meaningtree.utils.tokens.TokenList;
-import org.vstu.meaningtree.utils.tokens.TokenType;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class CppTranslator extends LanguageTranslator {
     public static final int ID = 0;
+    private ExpressionTokenParser _expressionParser;
+    // В режиме выражений в код подставляется заглушка в виде точки входа. Она одна для всех трансляторов языка,
+    // поэтому токенизируется однажды за время работы программы
+    private static final ExpressionWrapper _expressionWrapper = new ExpressionWrapper(
+            "int main() {", "}", () -> new CppTranslator().getTokenizer()
+    );
 
     public CppTranslator(Map<String, String> rawConfig) {
         super(new CppLanguage(), null, rawConfig);
@@ -21,6 +26,11 @@ public class CppTranslator extends LanguageTranslator {
         this.setViewer(new CppViewer(this));
     }
 
+    public CppTranslator(Config config) {
+        super(new CppLanguage(), null, config);
+        this.setViewer(new CppViewer(this));
+    }
+
     @Override
     public int getLanguageId() {
         return ID;
@@ -31,15 +41,20 @@ public class CppTranslator extends LanguageTranslator {
         return new CppTokenizer(this);
     }
 
+    @Override
+    protected ExpressionTokenParser getExpressionParser() {
+        if (_expressionParser == null) {
+            _expressionParser = new CppExpressionParser(getTokenizer());
+        }
+        return _expressionParser;
+    }
+
     @Override
     public String prepareCode(String code) {
         boolean expressionMode = getConfigParameter(ExpressionMode.class).orElse(false);
 
         if (expressionMode) {
-            if (!code.endsWith(";")) {
-                code += ";";
-            }
-            code = String.format("int main() {%s}", code);
+            return _expressionWrapper.wrap(code);
         }
 
         return code;
@@ -50,20 +65,14 @@ public class CppTranslator extends LanguageTranslator {
         boolean expressionMode = getConfigParameter(ExpressionMode.class).orElse(false);
 
         if (expressionMode) {
-            if (!list.getLast().type.equals(TokenType.SEPARATOR)) {
-                list.add(new Token(";", TokenType.SEPARATOR));
-            }
-            TokenList final_ = getTokenizer().tokenize("int main() {}", false);
-            final_.addAll(
-                    final_.indexOf(
-                            final_.stream().filter((Token t) -> t.value.equals("{")).findFirst().orElse(null)
-                    ),
-                    list
-            );
-            return final_;
+            return _expressionWrapper.wrap(list);
         }
 
         return list;
     }
 
+    @Override
+    protected int getPreparedCodeOffset() {
+        return getConfigParameter(ExpressionMode.class).orElse(false) ? _expressionWrapper.getPrefixByteLength() : 0;
+    }
 }
@@ -64,6 +64,7 @@ import org.vstu.meaningtree.nodes.types.builtin.*;
 import org.vstu.meaningtree.nodes.types.containers.*;
 import org.vstu.meaningtree.nodes.types.containers.components.Shape;
 import org.vstu.meaningtree.nodes.types.containers.*;
+import org.vstu.meaningtree.utils.CodeWriter;
 import org.vstu.meaningtree.utils.Label;
 import org.vstu.meaningtree.utils.tokens.OperatorToken;
 
@@ -129,6 +130,36 @@ public class CppViewer extends LanguageViewer {
         return _indentation.repeat(Math.max(0, _indentLevel)) + s;
     }
 
+    private CodeWriter indent(CodeWriter out) {
+        return out.repeat(_indentation, _indentLevel);
+    }
+
+    /**
+     * Выводит блок после заголовка оператора: на той же строке или на следующей, в зависимости от настроек
+     */
+    private void writeBlock(CompoundStatement block, CodeWriter out) {
+        if (_openBracketOnSameLine) {
+            write(block, out.append(" "));
+        }
+        else {
+            write(block, indent(out.append("\n")));
+        }
+    }
+
+    /**
+     * Выводит тело оператора после его заголовка. Тело, не являющееся блоком, выводится на следующей строке с отступом
+     */
+    private void writeBody(Statement body, CodeWriter out) {
+        if (body instanceof CompoundStatement compoundStatement) {
+            writeBlock(compoundStatement, out);
+        }
+        else {
+            increaseIndentLevel();
+            write(body, indent(out.append("\n")));
+            decreaseIndentLevel();
+        }
+    }
+
     /*******************************************************************/
     /* Перевод мининг три и узлов в строки */
     @NotNull
@@ -146,7 +177,7 @@ public class CppViewer extends LanguageViewer {
         }
 
         return switch (node) {
-            case ProgramEntryPoint entryPoint -> toStringEntryPoint(entryPoint);
+            case ProgramEntryPoint entryPoint -> CodeWriter.render(out -> write(entryPoint, out));
             case ExpressionStatement expressionStatement -> toStringExpressionStatement(expressionStatement);
             case VariableDeclaration variableDeclaration -> toStringVariableDeclaration(variableDeclaration);
             case IndexExpression indexExpression -> toStringIndexExpression(indexExpression);
@@ -197,6 +228,36 @@ public class CppViewer extends LanguageViewer {
         };
     }
 
+    @Override
+    public void write(@NotNull Node node, @NotNull CodeWriter out) {
+        // Для dummy узлов ничего не выводим
+        if (node.hasLabel(Label.DUMMY)) {
+            return;
+        }
+
+        switch (node) {
+            case ProgramEntryPoint entryPoint -> write(entryPoint, out);
+            case IfStatement ifStatement -> write(ifStatement, out);
+            case CompoundStatement compoundStatement -> write(compoundStatement, out);
+            case RangeForLoop rangeForLoop -> write(rangeForLoop, out);
+            case GeneralForLoop generalForLoop -> write(generalForLoop, out);
+            case WhileLoop whileLoop -> write(whileLoop, out);
+            case InfiniteLoop infiniteLoop -> write(infiniteLoop, out);
+            case SwitchStatement switchStatement -> write(switchStatement, out);
+            case FunctionDefinition functionDefinition -> write(functionDefinition, out);
+            default -> out.append(toString(node));
+        }
+    }
+
+    /**
+     * Узлы, код которых выводится прямо в приемник (см. {@link #write(Node, CodeWriter)}), а не собирается в строку
+     */
+    private static boolean isWrittenDirectly(Node node) {
+        return node instanceof ProgramEntryPoint || node instanceof IfStatement || node instanceof CompoundStatement
+                || node instanceof RangeForLoop || node instanceof GeneralForLoop || node instanceof WhileLoop
+                || node instanceof InfiniteLoop || node instanceof SwitchStatement || node instanceof FunctionDefinition;
+    }
+
     /*******************************************************************/
     /* Перевод return */
     private String toString(ReturnStatement returnStatement) {
@@ -243,21 +304,16 @@ public class CppViewer extends LanguageViewer {
     /*******************************************************************/
     /* Перевод определения функции */
     private String toString(FunctionDefinition functionDefinition) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(functionDefinition, out));
+    }
 
+    private void write(FunctionDefinition functionDefinition, CodeWriter out) {
         // Преобразование типа нужно, чтобы избежать вызова toString(Node node)
         String functionDeclaration = toString(
                 (FunctionDeclaration) functionDefinition.getDeclaration()
         );
-        builder.append(functionDeclaration);
-
-        String body = toString(functionDefinition.getBody());
-        if (_openBracketOnSameLine)
-        { builder.append(" ").append(body); }
-        else
-        { builder.append("\n").append(indent(body)); }
-
-        return builder.toString();
+        out.append(functionDeclaration);
+        writeBlock(functionDefinition.getBody(), out);
     }
 
     private String toString(FunctionDeclaration functionDeclaration) {
@@ -303,18 +359,16 @@ public class CppViewer extends LanguageViewer {
 
     /*******************************************************************/
     /* Перевод свитча */
-    private String toStringCaseBlock(CaseBlock caseBlock) {
-        StringBuilder builder = new StringBuilder();
-
+    private void writeCaseBlock(CaseBlock caseBlock, CodeWriter out) {
         Statement caseBlockBody;
         if (caseBlock instanceof MatchValueCaseBlock mvcb) {
-            builder.append("case ");
-            builder.append(toString(mvcb.getMatchValue()));
-            builder.append(":");
+            out.append("case ");
+            out.append(toString(mvcb.getMatchValue()));
+            out.append(":");
             caseBlockBody = mvcb.getBody();
         }
         else if (caseBlock instanceof DefaultCaseBlock dcb) {
-            builder.append("default:");
+            out.append("default:");
             caseBlockBody = dcb.getBody();
         }
         else {
@@ -342,95 +396,72 @@ public class CppViewer extends LanguageViewer {
         if (!nodesList.isEmpty()) {
             if (_bracketsAroundCaseBranches || hasDeclarationInside) {
                 if (_openBracketOnSameLine) {
-                    builder.append(" {\n");
+                    out.append(" {\n");
                 }
                 else {
-                    builder.append("\n").append(indent("{\n"));
+                    indent(out.append("\n")).append("{\n");
                 }
             }
             else {
-                builder.append("\n");
+                out.append("\n");
             }
 
             increaseIndentLevel();
 
-            for (Node node : nodesList) {
-                builder
-                        .append(indent(toString(node)))
-                        .append("\n");
+            for (int i = 0; i < nodesList.size(); i++) {
+                if (i > 0) {
+                    out.append("\n");
+                }
+                write(nodesList.get(i), indent(out));
             }
 
             if (caseBlock instanceof BasicCaseBlock || caseBlock instanceof DefaultCaseBlock) {
-                builder.append(indent("break;"));
-            }
-            else {
-                builder.deleteCharAt(builder.length() - 1);
+                indent(out.append("\n")).append("break;");
             }
 
             decreaseIndentLevel();
 
             if (_bracketsAroundCaseBranches || hasDeclarationInside) {
-                builder
-                        .append("\n")
-                        .append(indent("}"));
+                indent(out.append("\n")).append("}");
             }
         }
-
-        return builder.toString();
     }
 
     private String toString(SwitchStatement switchStatement) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(switchStatement, out));
+    }
 
-        builder.append("switch (");
-        builder.append(toString(switchStatement.getTargetExpression()));
-        builder.append(") ");
+    private void write(SwitchStatement switchStatement, CodeWriter out) {
+        out.append("switch (");
+        out.append(toString(switchStatement.getTargetExpression()));
+        out.append(") ");
 
         if (_openBracketOnSameLine) {
-            builder.append("{\n");
+            out.append("{\n");
         }
         else {
-            builder.append("\n").append(indent("{\n"));
+            indent(out.append("\n")).append("{\n");
         }
 
         increaseIndentLevel();
         for (CaseBlock caseBlock : switchStatement.getCases()) {
-            builder
-                    .append(indent(toStringCaseBlock(caseBlock)))
-                    .append("\n");
+            writeCaseBlock(caseBlock, indent(out));
+            out.append("\n");
         }
         decreaseIndentLevel();
 
-        builder.append(indent("}"));
-        return builder.toString();
+        indent(out).append("}");
     }
 
     /*******************************************************************/
     /* Перевод бесконечного цикла */
     private String toString(InfiniteLoop infiniteLoop) {
-        StringBuilder builder = new StringBuilder();
-
-        builder.append(indent("while (true)"));
-        Statement body = infiniteLoop.getBody();
-        if (body instanceof CompoundStatement compoundStatement) {
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            }
-            else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        }
-        else {
-            builder.append("\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
+        return CodeWriter.render(out -> write(infiniteLoop, out));
+    }
 
-        return builder.toString();
+    private void write(InfiniteLoop infiniteLoop, CodeWriter out) {
+        indent(out).append("while (true)");
+        writeBody(infiniteLoop.getBody(), out);
     }
 
     /*******************************************************************/
@@ -446,17 +477,20 @@ public class CppViewer extends LanguageViewer {
     /*******************************************************************/
     /* Перевод цикла while */
     public String toString(WhileLoop whileLoop) {
-        String header = "while (" + toString(whileLoop.getCondition()) + ")";
+        return CodeWriter.render(out -> write(whileLoop, out));
+    }
+
+    private void write(WhileLoop whileLoop, CodeWriter out) {
+        out.append("while (").append(toString(whileLoop.getCondition())).append(")");
 
         Statement body = whileLoop.getBody();
         if (body instanceof CompoundStatement compStmt) {
-            return header + (_openBracketOnSameLine ? " " : "\n") + toString(compStmt);
+            write(compStmt, out.append(_openBracketOnSameLine ? " " : "\n"));
         }
         else {
             increaseIndentLevel();
-            String result = header + "\n" + indent(toString(body));
+            write(body, indent(out.append("\n")));
             decreaseIndentLevel();
-            return result;
         }
     }
 
@@ -596,9 +630,11 @@ public class CppViewer extends LanguageViewer {
     /*******************************************************************/
     /* Перевод узла цикла фор общего и по диапазону */
     public String toString(GeneralForLoop generalForLoop) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(generalForLoop, out));
+    }
 
-        builder.append("for (");
+    private void write(GeneralForLoop generalForLoop, CodeWriter out) {
+        out.append("for (");
 
         boolean addSemi = true;
         if (generalForLoop.hasInitializer()) {
@@ -606,48 +642,28 @@ public class CppViewer extends LanguageViewer {
             if (init.stripTrailing().endsWith(";")) {
                 addSemi = false;
             }
-            builder.append(init);
+            out.append(init);
         }
         if (addSemi) {
-            builder.append("; ");
+            out.append("; ");
         }
         else {
-            builder.append(" ");
+            out.append(" ");
         }
 
         if (generalForLoop.hasCondition()) {
             String condition = toString(generalForLoop.getCondition());
-            builder.append(condition);
+            out.append(condition);
         }
-        builder.append("; ");
+        out.append("; ");
 
         if (generalForLoop.hasUpdate()) {
             String update = toString(generalForLoop.getUpdate());
-            builder.append(update);
-        }
-
-        Statement body = generalForLoop.getBody();
-        if (body instanceof CompoundStatement compoundStatement) {
-            builder.append(")");
-
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            }
-            else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        }
-        else {
-            builder.append(")\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
+            out.append(update);
         }
 
-        return builder.toString();
+        out.append(")");
+        writeBody(generalForLoop.getBody(), out);
     }
 
     private String toString(HasInitialization init) {
@@ -748,149 +764,92 @@ public class CppViewer extends LanguageViewer {
     }
 
     public String toString(RangeForLoop forRangeLoop) {
-        StringBuilder builder = new StringBuilder();
-
-        String header = "for (" + getForRangeHeader(forRangeLoop) + ")";
-        builder.append(header);
-
-        Statement body = forRangeLoop.getBody();
-        if (body instanceof CompoundStatement compoundStatement) {
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            } else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        } else {
-            builder.append("\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
+        return CodeWriter.render(out -> write(forRangeLoop, out));
+    }
 
-        return builder.toString();
+    private void write(RangeForLoop forRangeLoop, CodeWriter out) {
+        out.append("for (").append(getForRangeHeader(forRangeLoop)).append(")");
+        writeBody(forRangeLoop.getBody(), out);
     }
 
     /*******************************************************************/
     /* Перевод узла блочного оператора  */
     public String toString(CompoundStatement stmt) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("{\n");
+        return CodeWriter.render(out -> write(stmt, out));
+    }
+
+    private void write(CompoundStatement stmt, CodeWriter out) {
+        out.append("{\n");
         increaseIndentLevel();
         for (NodeInfo nodeInfo : stmt) {
             var node = nodeInfo.node();
 
+            if (isWrittenDirectly(node)) {
+                if (!node.hasLabel(Label.DUMMY)) {
+                    write(node, indent(out));
+                    out.append("\n");
+                }
+                continue;
+            }
+
             String s = toString(node);
             if (s.isEmpty()) {
                 continue;
             }
 
-            s = indent(String.format("%s\n", s));
-            builder.append(s);
+            indent(out).append(s).append("\n");
         }
         decreaseIndentLevel();
-        builder.append(indent("}"));
-        return builder.toString();
+        indent(out).append("}");
     }
 
     /*******************************************************************/
     /* Перевод узла ветвления  */
     public String toString(IfStatement stmt) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(stmt, out));
+    }
 
-        builder.append("if ");
+    private void write(IfStatement stmt, CodeWriter out) {
+        out.append("if ");
         List<ConditionBranch> branches = stmt.getBranches();
-        builder
-                .append(toString(branches.getFirst()))
-                .append("\n");
+        write(branches.getFirst(), out);
 
         for (ConditionBranch branch : branches.subList(1, branches.size())) {
-            builder
-                    .append(indent("else if "))
-                    .append(toString(branch))
-                    .append("\n");
+            indent(out.append("\n")).append("else if ");
+            write(branch, out);
         }
 
         if (stmt.hasElseBranch()) {
-            builder.append(indent("else"));
+            indent(out.append("\n")).append("else");
 
             Statement elseBranch = stmt.getElseBranch();
             if (elseBranch instanceof IfStatement innerIfStmt) {
-                builder
-                        .append(" ")
-                        .append(toString(innerIfStmt));
-            }
-            else if (elseBranch instanceof CompoundStatement innerCompStmt) {
-                if (_openBracketOnSameLine) {
-                    builder
-                            .append(" ")
-                            .append(toString(innerCompStmt));
-                }
-                else {
-                    builder
-                            .append("\n")
-                            .append(indent(toString(innerCompStmt)));
-                }
+                write(innerIfStmt, out.append(" "));
             }
             else {
-                increaseIndentLevel();
-                builder
-                        .append("\n")
-                        .append(indent(toString(elseBranch)));
-                decreaseIndentLevel();
+                writeBody(elseBranch, out);
             }
         }
-        else {
-            // Удаляем лишний перевод строки, если ветки else нет
-            builder.deleteCharAt(builder.length() - 1);
-        }
-
-        return builder.toString();
     }
 
     /* Перевод одной ветки условия  */
-    private String toString(ConditionBranch branch) {
-        StringBuilder builder = new StringBuilder();
-
+    private void write(ConditionBranch branch, CodeWriter out) {
         String cond = toString(branch.getCondition());
-        builder
+        out
                 .append("(")
                 .append(cond)
                 .append(")");
 
-        Statement body = branch.getBody();
-        if (body instanceof CompoundStatement compStmt) {
-            // Если телом ветки является блок кода, то необходимо определить
-            // куда нужно добавить фигурные скобки и добавить само тело
-            // Пример (для случая, когда скобка на той же строке):
-            // if (a > b) {
-            //     max = a;
-            // }
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compStmt));
-            }
-            else {
-                builder
-                        .append("\n")
-                        .append(indent(toString(compStmt)));
-            }
-        }
-        else {
-            // В случае если тело ветки не блок кода, то добавляем отступ
-            // и вставляем тело
-            // Пример:
-            // if (a > b)
-            //     max = a;
-            increaseIndentLevel();
-            builder.append("\n").append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
-
-        return builder.toString();
+        // Если телом ветки является блок кода, то фигурная скобка добавляется в зависимости от настроек
+        // Пример (для случая, когда скобка на той же строке):
+        // if (a > b) {
+        //     max = a;
+        // }
+        // В случае если тело ветки не блок кода, то оно выводится на следующей строке с отступом
+        // Пример:
+        // if (a > b)
+        //     max = a;
+        writeBody(branch.getBody(), out);
     }
 
     private String toStringMemoryFree(MemoryFreeCall mFree) {
@@ -1053,14 +1012,12 @@ public class CppViewer extends LanguageViewer {
         return String.format("(long) (%s / %s)", toString(op.getLeft()), toString(op.getRight()));
     }
 
-    private String toStringEntryPoint(ProgramEntryPoint entryPoint) {
+    private void write(ProgramEntryPoint entryPoint, CodeWriter out) {
         // TODO: required main function creation or expression mode
-        StringBuilder builder = new StringBuilder();
         for (Node node : entryPoint.getBody()) {
-            builder.append(toString(node));
-            builder.append("\n");
+            write(node, out);
+            out.append("\n");
         }
-        return builder.toString();
     }
 
     @NotNull
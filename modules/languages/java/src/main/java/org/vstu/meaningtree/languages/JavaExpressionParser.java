@@ -0,0 +1,68 @@
+package org.vstu.meaningtree.languages;
+
+import org.vstu.meaningtree.nodes.Expression;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.BoolLiteral;
+import org.vstu.meaningtree.nodes.expressions.literals.FloatLiteral;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор простых выражений Java из токенов. Узлы строятся так же, как в {@link JavaLanguage}
+ */
+final class JavaExpressionParser extends ExpressionTokenParser {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+    private static final Pattern INTEGER = Pattern.compile("[0-9]+");
+    private static final Pattern FLOAT = Pattern.compile("[0-9]+\\.[0-9]+");
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+            "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+            "null", "true", "false", "var", "yield", "record", "sealed", "permits", "non-sealed"
+    );
+
+    JavaExpressionParser(LanguageTokenizer tokenizer) {
+        super(tokenizer);
+    }
+
+    @Override
+    protected Expression operand(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return new BoolLiteral(value.equals("true"));
+        }
+        if (INTEGER.matcher(value).matches()) {
+            return new IntegerLiteral(value, false, false);
+        }
+        if (FLOAT.matcher(value).matches()) {
+            return new FloatLiteral(value);
+        }
+        if (IDENTIFIER.matcher(value).matches() && !KEYWORDS.contains(value)) {
+            return new SimpleIdentifier(value);
+        }
+        return null;
+    }
+
+    @Override
+    protected String prefixOperatorName(String value) {
+        return switch (value) {
+            case "+", "-" -> value + "U";
+            case "!", "~" -> value;
+            default -> null;
+        };
+    }
+
+    @Override
+    protected Expression prefix(String operator, Expression argument) {
+        return JavaLanguage.createUnaryExpression(operator, argument);
+    }
+
+    @Override
+    protected Expression binary(String operator, Expression left, Expression right) {
+        return JavaLanguage.createBinaryExpression(operator, left, right);
+    }
+}
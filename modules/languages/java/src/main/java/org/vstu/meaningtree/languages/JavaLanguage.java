@@ -82,6 +82,17 @@ public class JavaLanguage extends LanguageParser {
     private final Map<String, UserType> _userTypes;
     private SymbolEnvironment currentContext;
 
+    /**
+     * Узлы, построение которых зависит только от их текста, и поэтому при инкрементальном разборе
+     * их можно взять из предыдущего разбора. Объявления, блоки и типы зависят от окружения и сюда не входят
+     */
+    private static final Set<String> REUSABLE_NODE_TYPES = Set.of(
+            "identifier", "decimal_integer_literal", "binary_integer_literal", "hex_integer_literal",
+            "decimal_floating_point_literal", "string_literal", "character_literal", "null_literal", "true", "false",
+            "binary_expression", "unary_expression", "parenthesized_expression", "ternary_expression",
+            "field_access", "array_access"
+    );
+
     public JavaLanguage() {
         _userTypes = new HashMap<>();
         currentContext = new SymbolEnvironment(null);
@@ -95,6 +106,17 @@ public class JavaLanguage extends LanguageParser {
         }
     }
 
+    @Override
+    public TSTree getTSTree(TSTree editedTree) {
+        _initBackend();
+        return _parser.parseString(editedTree, _code);
+    }
+
+    @Override
+    protected boolean canReuse(TSNode node) {
+        return REUSABLE_NODE_TYPES.contains(node.getType());
+    }
+
     @Override
     public TSTree getTSTree() {
         _initBackend();
@@ -108,8 +130,8 @@ public class JavaLanguage extends LanguageParser {
         return tree;
     }
 
-    public synchronized MeaningTree getMeaningTree(String code) {
-        _code = code;
+    public synchronized MeaningTree getMeaningTree(ParseSession session) {
+        useSession(session);
         TSNode rootNode = getRootNode();
         List<String> errors = lookupErrors(rootNode);
         if (!errors.isEmpty() && !getConfigParameter(SkipErrors.class).orElse(false)) {
@@ -177,13 +199,17 @@ public class JavaLanguage extends LanguageParser {
 
     @Override
     public MeaningTree getMeaningTree(TSNode node, String code) {
-        _code = code;
+        setCode(code);
         return new MeaningTree(fromTSNode(node));
     }
 
     private Node fromTSNode(TSNode node) {
         Objects.requireNonNull(node);
 
+        Node reused = reuseConverted(node);
+        if (reused != null) {
+            return reused;
+        }
         String nodeType = node.getType();
         Node createdNode = switch (nodeType) {
             case "ERROR" -> fromTSNode(node.getChild(0));
@@ -1359,12 +1385,24 @@ public class JavaLanguage extends LanguageParser {
     private UnaryExpression fromUnaryExpressionTSNode(TSNode node) {
         Expression argument = (Expression) fromTSNode(node.getChildByFieldName("operand"));
         TSNode operation = node.getChildByFieldName("operator");
-        return switch (getCodePiece(operation)) {
+        UnaryExpression result = createUnaryExpression(getCodePiece(operation), argument);
+        if (result == null) {
+            throw new UnsupportedOperationException();
+        }
+        return result;
+    }
+
+    /**
+     * Узел префиксной унарной операции. Используется и при разборе выражений из токенов ({@link JavaExpressionParser})
+     * @return узел или null, если оператор не поддерживается
+     */
+    static UnaryExpression createUnaryExpression(String operator, Expression argument) {
+        return switch (operator) {
             case "!" -> new NotOp(argument);
             case "~" -> new InversionOp(argument);
             case "-" -> new UnaryMinusOp(argument);
             case "+" -> new UnaryPlusOp(argument);
-            default -> throw new UnsupportedOperationException();
+            default -> null;
         };
     }
 
@@ -1373,7 +1411,19 @@ public class JavaLanguage extends LanguageParser {
         Expression right = (Expression) fromTSNode(node.getChildByFieldName("right"));
         TSNode operator = node.getChildByFieldName("operator");
 
-        return switch (getCodePiece(operator)) {
+        BinaryExpression result = createBinaryExpression(getCodePiece(operator), left, right);
+        if (result == null) {
+            throw new UnsupportedOperationException(String.format("Can't parse operator %s", getCodePiece(operator)));
+        }
+        return result;
+    }
+
+    /**
+     * Узел бинарной операции. Используется и при разборе выражений из токенов ({@link JavaExpressionParser})
+     * @return узел или null, если оператор не поддерживается
+     */
+    static BinaryExpression createBinaryExpression(String operator, Expression left, Expression right) {
+        return switch (operator) {
             case "+" -> new AddOp(left, right);
             case "-" -> new SubOp(left, right);
             case "*" -> new MulOp(left, right);
@@ -1392,7 +1442,7 @@ public class JavaLanguage extends LanguageParser {
             case "^" -> new XorOp(left, right);
             case "<<", "<<<" -> new LeftShiftOp(left, right);
             case ">>", ">>>" -> new RightShiftOp(left, right);
-            default -> throw new UnsupportedOperationException(String.format("Can't parse operator %s", getCodePiece(operator)));
+            default -> null;
         };
     }
 
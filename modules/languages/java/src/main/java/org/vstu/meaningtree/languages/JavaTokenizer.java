@@ -33,7 +33,6 @@ import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
 import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
 import org.vstu.meaningtree.nodes.types.builtin.IntType;
 import org.vstu.meaningtree.utils.Label;
-import org.vstu.meaningtree.utils.TreeSitterUtils;
 import org.vstu.meaningtree.utils.tokens.*;
 
 import java.util.*;
@@ -175,12 +174,12 @@ public class JavaTokenizer extends LanguageTokenizer {
         }
 
         if (!node.getParent().isNull() && node.getParent().getType().equals("update_expression") &&
-                TreeSitterUtils.getCodePiece(code, node.getParent()).startsWith("++") && tokenValue.equals("++")) {
+                source.getCodePiece(node.getParent()).startsWith("++") && tokenValue.equals("++")) {
             return operators.get("++U").clone();
         }
 
         if (!node.getParent().isNull() && node.getParent().getType().equals("update_expression") &&
-                TreeSitterUtils.getCodePiece(code, node.getParent()).startsWith("--")  && tokenValue.equals("--")) {
+                source.getCodePiece(node.getParent()).startsWith("--")  && tokenValue.equals("--")) {
             return operators.get("--U").clone();
         }
 
@@ -235,7 +234,7 @@ public class JavaTokenizer extends LanguageTokenizer {
             tokenType = TokenType.UNKNOWN;
         }
 
-        return new Token(TreeSitterUtils.getCodePiece(code, node), tokenType);
+        return new Token(source.getCodePiece(node), tokenType);
     }
 
     @Override
@@ -1,15 +1,20 @@
 package org.vstu.meaningtree.languages;
 
+import org.vstu.meaningtree.languages.configs.Config;
 import org.vstu.meaningtree.languages.configs.params.ExpressionMode;
-import org.vstu.meaningtree.utils.tokens.Token;
 import org.vstu.meaningtree.utils.tokens.TokenList;
-import org.vstu.meaningtree.utils.tokens.TokenType;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class JavaTranslator extends LanguageTranslator {
     public static final int ID = 2;
+    private ExpressionTokenParser _expressionParser;
+    // В режиме выражений в код подставляется заглушка в виде точки входа. Она одна для всех трансляторов языка,
+    // поэтому токенизируется однажды за время работы программы
+    private static final ExpressionWrapper _expressionWrapper = new ExpressionWrapper(
+            "class Main { public static void main(String[] args) {", "} }", () -> new JavaTranslator().getTokenizer()
+    );
 
     public JavaTranslator(Map<String, String> rawConfig) {
         super(new JavaLanguage(), null, rawConfig);
@@ -21,6 +26,11 @@ public class JavaTranslator extends LanguageTranslator {
         this.setViewer(new JavaViewer(this));
     }
 
+    public JavaTranslator(Config config) {
+        super(new JavaLanguage(), null, config);
+        this.setViewer(new JavaViewer(this));
+    }
+
     @Override
     public int getLanguageId() {
         return ID;
@@ -31,15 +41,20 @@ public class JavaTranslator extends LanguageTranslator {
         return new JavaTokenizer(this);
     }
 
+    @Override
+    protected ExpressionTokenParser getExpressionParser() {
+        if (_expressionParser == null) {
+            _expressionParser = new JavaExpressionParser(getTokenizer());
+        }
+        return _expressionParser;
+    }
+
     @Override
     public String prepareCode(String code) {
         boolean expressionMode = getConfigParameter(ExpressionMode.class).orElse(false);
 
         if (expressionMode) {
-            if (!code.endsWith(";")) {
-                code += ";";
-            }
-            code = String.format("class Main { public static void main(String[] args) {%s} }", code);
+            return _expressionWrapper.wrap(code);
         }
 
         return code;
@@ -50,22 +65,14 @@ public class JavaTranslator extends LanguageTranslator {
         boolean expressionMode = getConfigParameter(ExpressionMode.class).orElse(false);
 
         if (expressionMode) {
-            if (!list.getLast().type.equals(TokenType.SEPARATOR)) {
-                list.add(new Token(";", TokenType.SEPARATOR));
-            }
-
-            TokenList final_ = getTokenizer().tokenize("class Main { public static void main(String[] args) {;%s} }", true);
-            int marker = final_.indexOf(
-                    final_.stream().filter((Token t) -> t.value.equals(";")).findFirst().orElse(null)
-            );
-            final_.remove(marker);
-            final_.addAll(
-                    marker,
-                    list
-            );
-            return final_;
+            return _expressionWrapper.wrap(list);
         }
 
         return list;
     }
+
+    @Override
+    protected int getPreparedCodeOffset() {
+        return getConfigParameter(ExpressionMode.class).orElse(false) ? _expressionWrapper.getPrefixByteLength() : 0;
+    }
 }
@@ -51,6 +51,7 @@ import org.vstu.meaningtree.nodes.memory.MemoryFreeCall;
 import org.vstu.meaningtree.nodes.modules.*;
 import org.vstu.meaningtree.nodes.statements.CompoundStatement;
 import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
+import org.vstu.meaningtree.nodes.statements.Loop;
 import org.vstu.meaningtree.nodes.statements.ReturnStatement;
 import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
 import org.vstu.meaningtree.nodes.statements.assignments.MultipleAssignmentStatement;
@@ -67,6 +68,7 @@ import org.vstu.meaningtree.nodes.types.UserType;
 import org.vstu.meaningtree.nodes.types.builtin.*;
 import org.vstu.meaningtree.nodes.types.containers.*;
 import org.vstu.meaningtree.nodes.types.containers.components.Shape;
+import org.vstu.meaningtree.utils.CodeWriter;
 import org.vstu.meaningtree.utils.Label;
 import org.vstu.meaningtree.utils.tokens.OperatorToken;
 
@@ -266,20 +268,51 @@ public class JavaViewer extends LanguageViewer {
         };
     }
 
-    private String toString(FunctionDefinition functionDefinition) {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    public void write(Node node, CodeWriter out) {
+        Objects.requireNonNull(node);
 
-        // Преобразование типа нужно, чтобы избежать вызова toString(Node node)
-        String methodDeclaration = toString((FunctionDeclaration) functionDefinition.getDeclaration());
-        builder.append(methodDeclaration);
+        // Для dummy узлов ничего не выводим
+        if (node.hasLabel(Label.DUMMY)) {
+            return;
+        }
 
-        String body = toString(functionDefinition.getBody());
-        if (_openBracketOnSameLine)
-        { builder.append(" ").append(body); }
-        else
-        { builder.append("\n").append(indent(body)); }
+        switch (node) {
+            case CompoundStatement stmt -> write(stmt, out);
+            case IfStatement stmt -> write(stmt, out);
+            case GeneralForLoop stmt -> write(stmt, out);
+            case RangeForLoop rangeLoop -> write(rangeLoop, out);
+            case ProgramEntryPoint entryPoint -> write(entryPoint, out);
+            case WhileLoop whileLoop -> write(whileLoop, out);
+            case ClassDefinition def -> write(def, out);
+            case ObjectConstructorDefinition objectConstructor -> write(objectConstructor, out);
+            case MethodDefinition methodDefinition -> write(methodDefinition, out);
+            case SwitchStatement switchStatement -> write(switchStatement, out);
+            case InfiniteLoop infiniteLoop -> write(infiniteLoop, out);
+            case DoWhileLoop doWhileLoop -> write(doWhileLoop, out);
+            case ForEachLoop forEachLoop -> write(forEachLoop, out);
+            case FunctionDefinition functionDefinition -> write(functionDefinition, out);
+            default -> out.append(toString(node));
+        }
+    }
 
-        return builder.toString();
+    /**
+     * Узлы, код которых выводится прямо в приемник (см. {@link #write(Node, CodeWriter)}), а не собирается в строку
+     */
+    private static boolean isWrittenDirectly(Node node) {
+        return node instanceof CompoundStatement || node instanceof IfStatement || node instanceof Loop
+                || node instanceof SwitchStatement || node instanceof FunctionDefinition
+                || node instanceof ClassDefinition || node instanceof ProgramEntryPoint;
+    }
+
+    private String toString(FunctionDefinition functionDefinition) {
+        return CodeWriter.render(out -> write(functionDefinition, out));
+    }
+
+    private void write(FunctionDefinition functionDefinition, CodeWriter out) {
+        // Преобразование типа нужно, чтобы избежать вызова toString(Node node)
+        out.append(toString((FunctionDeclaration) functionDefinition.getDeclaration()));
+        writeBlock(functionDefinition.getBody(), out);
     }
 
     private String toString(FunctionDeclaration functionDeclaration) {
@@ -543,15 +576,17 @@ public class JavaViewer extends LanguageViewer {
     }
 
     private String toString(DoWhileLoop doWhileLoop) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(doWhileLoop, out));
+    }
 
-        builder.append("do");
+    private void write(DoWhileLoop doWhileLoop, CodeWriter out) {
+        out.append("do");
 
         if (_openBracketOnSameLine) {
-            builder.append(" {\n");
+            out.append(" {\n");
         }
         else {
-            builder.append("\n").append(indent("{\n"));
+            indent(out.append("\n")).append("{\n");
         }
 
         List<Node> nodes = new ArrayList<>();
@@ -565,53 +600,39 @@ public class JavaViewer extends LanguageViewer {
 
         increaseIndentLevel();
         for (Node node : nodes) {
-            builder
-                    .append(indent(toString(node)))
-                    .append("\n");
+            write(node, indent(out));
+            out.append("\n");
         }
         decreaseIndentLevel();
 
         if (_openBracketOnSameLine) {
-            builder
-                    .append(indent("} "))
-                    .append(
-                            "while (%s);".formatted(
-                                    toString(doWhileLoop.getCondition())
-                            )
-                    );
+            indent(out).append("} ");
         }
         else {
-            builder
-                    .append(indent("}\n"))
-                    .append(
-                            indent("while (%s);".formatted(
-                                        toString(doWhileLoop.getCondition())
-                                    )
-                            )
-                    );;
+            indent(out).append("}\n");
+            indent(out);
         }
-
-        return builder.toString();
+        out.append("while (%s);".formatted(toString(doWhileLoop.getCondition())));
     }
 
     private String toString(ForEachLoop forEachLoop) {
+        return CodeWriter.render(out -> write(forEachLoop, out));
+    }
+
+    private void write(ForEachLoop forEachLoop, CodeWriter out) {
         var type = toString(forEachLoop.getItem().getType());
         var iterVarId = toString(forEachLoop.getItem().getDeclarators()[0].getIdentifier());
         var iterable = toString(forEachLoop.getExpression());
-        var body = toString(forEachLoop.getBody());
 
-        StringBuilder builder = new StringBuilder();
-
-        return builder
+        out
                 .append("for (")
                 .append(type)
                 .append(" ")
                 .append(iterVarId)
                 .append(" : ")
                 .append(iterable)
-                .append(")\n")
-                .append(indent(body))
-                .toString();
+                .append(")\n");
+        write(forEachLoop.getBody(), indent(out));
     }
 
     private String toString(CharacterLiteral characterLiteral) {
@@ -636,8 +657,10 @@ public class JavaViewer extends LanguageViewer {
     }
 
     private String toString(InfiniteLoop infiniteLoop) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(infiniteLoop, out));
+    }
 
+    private void write(InfiniteLoop infiniteLoop, CodeWriter out) {
         boolean trailingWhile = false;
         var loopHeader = switch (infiniteLoop.getLoopType()) {
             case FOR -> "for (;;)";
@@ -648,32 +671,12 @@ public class JavaViewer extends LanguageViewer {
             }
         };
 
-        builder.append(indent(loopHeader));
-        Statement body = infiniteLoop.getBody();
-
-        if (body instanceof CompoundStatement compoundStatement) {
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            }
-            else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        }
-        else {
-            builder.append("\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
+        indent(out).append(loopHeader);
+        writeBody(infiniteLoop.getBody(), out);
 
         if (trailingWhile) {
-            builder.append("while (true);\n");
+            out.append("while (true);\n");
         }
-
-        return builder.toString();
     }
 
     private String toString(SelfReference selfReference) {
@@ -681,31 +684,27 @@ public class JavaViewer extends LanguageViewer {
     }
 
     private String toString(ObjectConstructorDefinition objectConstructor) {
+        return CodeWriter.render(out -> write(objectConstructor, out));
+    }
+
+    private void write(ObjectConstructorDefinition objectConstructor, CodeWriter out) {
         MethodDeclaration constructorDeclaration =
                 (MethodDeclaration) objectConstructor.getDeclaration();
 
-        StringBuilder builder = new StringBuilder();
-
         String modifiers = toString(constructorDeclaration.getModifiers());
         if (!modifiers.isEmpty()) {
-            builder.append(modifiers).append(" ");
+            out.append(modifiers).append(" ");
         }
 
         String name = toString(objectConstructor.getName());
-        builder.append(name);
+        out.append(name);
 
         String parameters = toStringParameters(constructorDeclaration.getArguments());
         if (!parameters.isEmpty()) {
-            builder.append(parameters);
+            out.append(parameters);
         }
 
-        String body = toString(objectConstructor.getBody());
-        if (_openBracketOnSameLine)
-            { builder.append(" ").append(body); }
-        else
-            { builder.append("\n").append(indent(body)); }
-
-        return builder.toString();
+        writeBlock(objectConstructor.getBody(), out);
     }
 
     private String toString(MultipleAssignmentStatement multipleAssignmentStatement) {
@@ -924,18 +923,16 @@ public class JavaViewer extends LanguageViewer {
         return "null";
     }
 
-    private String toStringCaseBlock(CaseBlock caseBlock) {
-        StringBuilder builder = new StringBuilder();
-
+    private void writeCaseBlock(CaseBlock caseBlock, CodeWriter out) {
         Statement caseBlockBody;
         if (caseBlock instanceof MatchValueCaseBlock mvcb) {
-            builder.append("case ");
-            builder.append(toString(mvcb.getMatchValue()));
-            builder.append(":");
+            out.append("case ");
+            out.append(toString(mvcb.getMatchValue()));
+            out.append(":");
             caseBlockBody = mvcb.getBody();
         }
         else if (caseBlock instanceof DefaultCaseBlock dcb) {
-            builder.append("default:");
+            out.append("default:");
             caseBlockBody = dcb.getBody();
         }
         else {
@@ -963,67 +960,62 @@ public class JavaViewer extends LanguageViewer {
         if (!nodesList.isEmpty()) {
             if (_bracketsAroundCaseBranches || hasDeclarationInside) {
                 if (_openBracketOnSameLine) {
-                    builder.append(" {\n");
+                    out.append(" {\n");
                 }
                 else {
-                    builder.append("\n").append(indent("{\n"));
+                    indent(out.append("\n")).append("{\n");
                 }
             }
             else {
-                builder.append("\n");
+                out.append("\n");
             }
 
             increaseIndentLevel();
 
-            for (Node node : nodesList) {
-                builder
-                        .append(indent(toString(node)))
-                        .append("\n");
+            // Операторы разделяются переводом строки, после последнего он ставится только перед break
+            for (int i = 0; i < nodesList.size(); i++) {
+                if (i > 0) {
+                    out.append("\n");
+                }
+                write(nodesList.get(i), indent(out));
             }
 
             if (caseBlock instanceof BasicCaseBlock || caseBlock instanceof DefaultCaseBlock) {
-                builder.append(indent("break;"));
-            }
-            else {
-                builder.deleteCharAt(builder.length() - 1);
+                indent(out.append("\n")).append("break;");
             }
 
             decreaseIndentLevel();
 
             if (_bracketsAroundCaseBranches || hasDeclarationInside) {
-                builder
-                        .append("\n")
-                        .append(indent("}"));
+                indent(out.append("\n")).append("}");
             }
         }
-
-        return builder.toString();
     }
 
     private String toString(SwitchStatement switchStatement) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(switchStatement, out));
+    }
 
-        builder.append("switch (");
-        builder.append(toString(switchStatement.getTargetExpression()));
-        builder.append(") ");
+    private void write(SwitchStatement switchStatement, CodeWriter out) {
+        out.append("switch (");
+        out.append(toString(switchStatement.getTargetExpression()));
+        out.append(") ");
 
         if (_openBracketOnSameLine) {
-            builder.append("{\n");
+            out.append("{\n");
         }
         else {
-            builder.append("\n").append(indent("{\n"));
+            indent(out.append("\n")).append("{\n");
         }
 
         increaseIndentLevel();
         for (CaseBlock caseBlock : switchStatement.getCases()) {
-            builder
-                    .append(indent(toStringCaseBlock(caseBlock)))
-                    .append("\n");
+            writeCaseBlock(caseBlock, indent(out));
+            out.append("\n");
         }
         decreaseIndentLevel();
 
-        builder.append(indent("}"));
-        return builder.toString();
+        indent(out).append("}");
     }
 
     private String toString(DeclarationArgument parameter) {
@@ -1082,24 +1074,18 @@ public class JavaViewer extends LanguageViewer {
     }
 
     private String toString(MethodDefinition methodDefinition) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(methodDefinition, out));
+    }
 
+    private void write(MethodDefinition methodDefinition, CodeWriter out) {
         // Нужен для отслеживания необходимости в return
         _methodReturnType = ((MethodDeclaration) methodDefinition.getDeclaration()).getReturnType();
 
         // Преобразование типа нужно, чтобы избежать вызова toString(Node node)
-        String methodDeclaration = toString((MethodDeclaration) methodDefinition.getDeclaration());
-        builder.append(methodDeclaration);
-
-        String body = toString(methodDefinition.getBody());
-        if (_openBracketOnSameLine)
-            { builder.append(" ").append(body); }
-        else
-            { builder.append("\n").append(indent(body)); }
+        out.append(toString((MethodDeclaration) methodDefinition.getDeclaration()));
+        writeBlock(methodDefinition.getBody(), out);
 
         _methodReturnType = null;
-
-        return builder.toString();
     }
 
     private String toString(ContinueStatement stmt) {
@@ -1169,18 +1155,12 @@ public class JavaViewer extends LanguageViewer {
     }
 
     private String toString(ClassDefinition def) {
-        StringBuilder builder = new StringBuilder();
-
-        String declaration = toString(def.getDeclaration());
-        builder.append(declaration);
-
-        String body = toString(def.getBody());
-        if (_openBracketOnSameLine)
-        { builder.append(" ").append(body); }
-        else
-        { builder.append("\n").append(indent(body)); }
+        return CodeWriter.render(out -> write(def, out));
+    }
 
-        return builder.toString();
+    private void write(ClassDefinition def, CodeWriter out) {
+        out.append(toString(def.getDeclaration()));
+        writeBlock(def.getBody(), out);
     }
 
     public String toString(FloatLiteral literal) {
@@ -1626,22 +1606,68 @@ public class JavaViewer extends LanguageViewer {
         return _indentation.repeat(Math.max(0, _indentLevel)) + s;
     }
 
+    /**
+     * Выводит отступ текущего уровня вложенности
+     */
+    private CodeWriter indent(CodeWriter out) {
+        return out.repeat(_indentation, _indentLevel);
+    }
+
+    /**
+     * Выводит блок после заголовка определения: на той же строке или на следующей, в зависимости от настроек
+     */
+    private void writeBlock(Node block, CodeWriter out) {
+        if (_openBracketOnSameLine) {
+            out.append(" ");
+        }
+        else {
+            indent(out.append("\n"));
+        }
+        write(block, out);
+    }
+
+    /**
+     * Выводит тело оператора после заголовка. Одиночный оператор (не блок) переносится на следующую строку
+     * с увеличенным отступом, например:
+     * <pre>
+     * if (a > b)
+     *     max = a;
+     * </pre>
+     */
+    private void writeBody(Statement body, CodeWriter out) {
+        if (body instanceof CompoundStatement) {
+            writeBlock(body, out);
+        }
+        else {
+            increaseIndentLevel();
+            write(body, indent(out.append("\n")));
+            decreaseIndentLevel();
+        }
+    }
+
     public String toString(CompoundStatement stmt) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("{\n");
+        return CodeWriter.render(out -> write(stmt, out));
+    }
+
+    private void write(CompoundStatement stmt, CodeWriter out) {
+        out.append("{\n");
         increaseIndentLevel();
         for (Node node : stmt.getNodes()) {
-            String s = toString(node);
-            if (s.isEmpty()) {
+            if (isWrittenDirectly(node)) {
+                if (!node.hasLabel(Label.DUMMY)) {
+                    write(node, indent(out));
+                    out.append("\n");
+                }
                 continue;
             }
 
-            s = indent(String.format("%s\n", s));
-            builder.append(s);
+            String s = toString(node);
+            if (!s.isEmpty()) {
+                indent(out).append(s).append("\n");
+            }
         }
         decreaseIndentLevel();
-        builder.append(indent("}"));
-        return builder.toString();
+        indent(out).append("}");
     }
 
     public String toString(ExpressionStatement stmt) {
@@ -1655,46 +1681,17 @@ public class JavaViewer extends LanguageViewer {
         return identifier.getName();
     }
 
-    private String toString(ConditionBranch branch) {
-        StringBuilder builder = new StringBuilder();
-
-        String cond = toString(branch.getCondition());
-        builder
+    private void write(ConditionBranch branch, CodeWriter out) {
+        out
                 .append("(")
-                .append(cond)
+                .append(toString(branch.getCondition()))
                 .append(")");
 
-        Statement body = branch.getBody();
-        if (body instanceof CompoundStatement compStmt) {
-            // Если телом ветки является блок кода, то необходимо определить
-            // куда нужно добавить фигурные скобки и добавить само тело
-            // Пример (для случая, когда скобка на той же строке):
-            // if (a > b) {
-            //     max = a;
-            // }
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compStmt));
-            }
-            else {
-                builder
-                        .append("\n")
-                        .append(indent(toString(compStmt)));
-            }
-        }
-        else {
-            // В случае если тело ветки не блок кода, то добавляем отступ
-            // и вставляем тело
-            // Пример:
-            // if (a > b)
-            //     max = a;
-            increaseIndentLevel();
-            builder.append("\n").append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
-
-        return builder.toString();
+        // Пример (для случая, когда скобка на той же строке):
+        // if (a > b) {
+        //     max = a;
+        // }
+        writeBody(branch.getBody(), out);
     }
 
     private String toString(BinaryComparison binComp) {
@@ -1739,56 +1736,31 @@ public class JavaViewer extends LanguageViewer {
     }
 
     public String toString(IfStatement stmt) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(stmt, out));
+    }
 
-        builder.append("if ");
+    private void write(IfStatement stmt, CodeWriter out) {
+        out.append("if ");
         List<ConditionBranch> branches = stmt.getBranches();
-        builder
-                .append(toString(branches.getFirst()))
-                .append("\n");
+        write(branches.getFirst(), out);
 
         for (ConditionBranch branch : branches.subList(1, branches.size())) {
-            builder
-                    .append(indent("else if "))
-                    .append(toString(branch))
-                    .append("\n");
+            indent(out.append("\n")).append("else if ");
+            write(branch, out);
         }
 
         if (stmt.hasElseBranch()) {
-            builder.append(indent("else"));
+            indent(out.append("\n")).append("else");
 
             Statement elseBranch = stmt.getElseBranch();
             if (elseBranch instanceof IfStatement innerIfStmt) {
-                builder
-                        .append(" ")
-                        .append(toString(innerIfStmt));
-            }
-            else if (elseBranch instanceof CompoundStatement innerCompStmt) {
-                if (_openBracketOnSameLine) {
-                    builder
-                            .append(" ")
-                            .append(toString(innerCompStmt));
-                }
-                else {
-                    builder
-                            .append("\n")
-                            .append(indent(toString(innerCompStmt)));
-                }
+                out.append(" ");
+                write(innerIfStmt, out);
             }
             else {
-                increaseIndentLevel();
-                builder
-                        .append("\n")
-                        .append(indent(toString(elseBranch)));
-                decreaseIndentLevel();
+                writeBody(elseBranch, out);
             }
         }
-        else {
-            // Удаляем лишний перевод строки, если ветки else нет
-            builder.deleteCharAt(builder.length() - 1);
-        }
-
-        return builder.toString();
     }
 
     private String toString(HasInitialization init) {
@@ -1825,9 +1797,11 @@ public class JavaViewer extends LanguageViewer {
     }
 
     public String toString(GeneralForLoop generalForLoop) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(generalForLoop, out));
+    }
 
-        builder.append("for (");
+    private void write(GeneralForLoop generalForLoop, CodeWriter out) {
+        out.append("for (");
 
         boolean addSemi = true;
         if (generalForLoop.hasInitializer()) {
@@ -1835,48 +1809,26 @@ public class JavaViewer extends LanguageViewer {
             if (init.stripTrailing().endsWith(";")) {
                 addSemi = false;
             }
-            builder.append(init);
+            out.append(init);
         }
         if (addSemi) {
-            builder.append("; ");
+            out.append("; ");
         }
         else {
-            builder.append(" ");
+            out.append(" ");
         }
 
         if (generalForLoop.hasCondition()) {
-            String condition = toString(generalForLoop.getCondition());
-            builder.append(condition);
+            out.append(toString(generalForLoop.getCondition()));
         }
-        builder.append("; ");
+        out.append("; ");
 
         if (generalForLoop.hasUpdate()) {
-            String update = toString(generalForLoop.getUpdate());
-            builder.append(update);
+            out.append(toString(generalForLoop.getUpdate()));
         }
 
-        Statement body = generalForLoop.getBody();
-        if (body instanceof CompoundStatement compoundStatement) {
-            builder.append(")");
-
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            }
-            else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        }
-        else {
-            builder.append(")\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
-
-        return builder.toString();
+        out.append(")");
+        writeBody(generalForLoop.getBody(), out);
     }
 
     private String getForRangeUpdate(RangeForLoop forRangeLoop) {
@@ -1944,39 +1896,18 @@ public class JavaViewer extends LanguageViewer {
     }
 
     public String toString(RangeForLoop forRangeLoop) {
-        StringBuilder builder = new StringBuilder();
-
-        String header = "for (" + getForRangeHeader(forRangeLoop) + ")";
-        builder.append(header);
-
-        Statement body = forRangeLoop.getBody();
-        if (body instanceof CompoundStatement compoundStatement) {
-            if (_openBracketOnSameLine) {
-                builder
-                        .append(" ")
-                        .append(toString(compoundStatement));
-            }
-            else {
-                builder.append("\n");
-                builder.append(indent(toString(body)));
-            }
-        }
-        else {
-            builder.append("\n");
-            increaseIndentLevel();
-            builder.append(indent(toString(body)));
-            decreaseIndentLevel();
-        }
-
-        return builder.toString();
+        return CodeWriter.render(out -> write(forRangeLoop, out));
     }
 
-    private String makeSimpleJavaProgram(List<Node> nodes) {
-        StringBuilder builder = new StringBuilder();
+    private void write(RangeForLoop forRangeLoop, CodeWriter out) {
+        out.append("for (").append(getForRangeHeader(forRangeLoop)).append(")");
+        writeBody(forRangeLoop.getBody(), out);
+    }
 
-        builder.append("package main;\n\n");
+    private void writeSimpleJavaProgram(List<Node> nodes, CodeWriter out) {
+        out.append("package main;\n\n");
 
-        builder.append("public class Main {\n\n");
+        out.append("public class Main {\n\n");
         increaseIndentLevel();
 
         var mainMethod = getMainMethod(nodes);
@@ -1992,41 +1923,41 @@ public class JavaViewer extends LanguageViewer {
 
             // Вставляем mainMethod (с уже добавленными не-методами)
             // Вставляем фиксированный main
-            builder.append(indent("public static void main(String[] args) {\n"));
+            indent(out).append("public static void main(String[] args) {\n");
             _methodReturnType = new NoReturn();
             increaseIndentLevel();
 
             for (var node : mainBody.getNodes()) {
-                builder.append(indent(toString(node))).append("\n");
+                write(node, indent(out));
+                out.append("\n");
             }
 
             _methodReturnType = null;
 
             decreaseIndentLevel();
-            builder.append(indent("}\n"));
+            indent(out).append("}\n");
         }
         else {
-            builder.append(indent("public static void main(String[] args) {\n"));
+            indent(out).append("public static void main(String[] args) {\n");
             increaseIndentLevel();
 
             for (var node : notMethods) {
-                builder.append(indent(toString(node))).append("\n");
+                write(node, indent(out));
+                out.append("\n");
             }
 
             decreaseIndentLevel();
-            builder.append(indent("}\n"));
+            indent(out).append("}\n");
         }
 
         // Вставляем все другие методы
         for (MethodDefinition method : otherMethods) {
-            builder.append(indent(toString(method)));
-            builder.append("\n");
+            write(method, indent(out));
+            out.append("\n");
         }
 
         decreaseIndentLevel();
-        builder.append("}\n");
-
-        return builder.toString();
+        out.append("}\n");
     }
 
     @Nullable
@@ -2075,18 +2006,21 @@ public class JavaViewer extends LanguageViewer {
     }
 
     public String toString(ProgramEntryPoint entryPoint) {
+        return CodeWriter.render(out -> write(entryPoint, out));
+    }
+
+    private void write(ProgramEntryPoint entryPoint, CodeWriter out) {
         List<Node> nodes = entryPoint.getBody();
 
         if (!entryPoint.hasMainClass()) {
-            return makeSimpleJavaProgram(nodes);
+            writeSimpleJavaProgram(nodes, out);
+            return;
         }
 
-        StringBuilder builder = new StringBuilder();
         for (Node node : nodes) {
-            builder.append("%s\n".formatted(toString(node)));
+            write(node, out);
+            out.append("\n");
         }
-
-        return builder.toString();
     }
 
     public String toString(ScopedIdentifier scopedIdent) {
@@ -2128,17 +2062,19 @@ public class JavaViewer extends LanguageViewer {
     }
 
     public String toString(WhileLoop whileLoop) {
-        String header = "while (" + toString(whileLoop.getCondition()) + ")";
+        return CodeWriter.render(out -> write(whileLoop, out));
+    }
+
+    private void write(WhileLoop whileLoop, CodeWriter out) {
+        out.append("while (").append(toString(whileLoop.getCondition())).append(")");
 
         Statement body = whileLoop.getBody();
         if (body instanceof CompoundStatement compStmt) {
-            return header + (_openBracketOnSameLine ? " " : "\n") + toString(compStmt);
+            out.append(_openBracketOnSameLine ? " " : "\n");
+            write(compStmt, out);
         }
         else {
-            increaseIndentLevel();
-            String result = header + "\n" + indent(toString(body));
-            decreaseIndentLevel();
-            return result;
+            writeBody(body, out);
         }
     }
 
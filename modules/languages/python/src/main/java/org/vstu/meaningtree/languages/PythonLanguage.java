@@ -70,6 +70,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public class PythonLanguage extends LanguageParser {
@@ -80,6 +81,27 @@ public class PythonLanguage extends LanguageParser {
     private String _currentFunctionName = null;
     private TypeScope _currentTypeScope = new TypeScope();
 
+    /**
+     * Узлы, построение которых зависит только от их текста, и поэтому при инкрементальном разборе
+     * их можно взять из предыдущего разбора. Строки сюда не входят: в роли выражения-инструкции они становятся комментариями
+     */
+    private static final Set<String> REUSABLE_NODE_TYPES = Set.of(
+            "identifier", "integer", "float", "true", "false", "none",
+            "binary_operator", "unary_operator", "not_operator", "boolean_operator",
+            "parenthesized_expression", "attribute", "subscript", "conditional_expression"
+    );
+
+    @Override
+    public TSTree getTSTree(TSTree editedTree) {
+        _initBackend();
+        return _parser.parseString(editedTree, _code);
+    }
+
+    @Override
+    protected boolean canReuse(TSNode node) {
+        return REUSABLE_NODE_TYPES.contains(node.getType());
+    }
+
     @Override
     public TSTree getTSTree() {
         _initBackend();
@@ -103,9 +125,9 @@ public class PythonLanguage extends LanguageParser {
     }
 
     @Override
-    public synchronized MeaningTree getMeaningTree(String code) {
+    public synchronized MeaningTree getMeaningTree(ParseSession session) {
         currentContext = new SymbolEnvironment(null);
-        _code = code;
+        useSession(session);
         TSNode rootNode = getRootNode();
         List<String> errors = lookupErrors(rootNode);
         if (!errors.isEmpty() && !getConfigParameter(SkipErrors.class).orElse(false)) {
@@ -118,6 +140,10 @@ public class PythonLanguage extends LanguageParser {
         if (node.isNull()) {
             return null;
         }
+        Node reused = reuseConverted(node);
+        if (reused != null) {
+            return reused;
+        }
         String nodeType = node.getType();
         Node createdNode = switch (nodeType) {
             case "ERROR" -> fromTSNode(node.getChild(0));
@@ -177,7 +203,7 @@ public class PythonLanguage extends LanguageParser {
 
     @Override
     public MeaningTree getMeaningTree(TSNode node, String code) {
-        _code = code;
+        setCode(code);
         return new MeaningTree(fromTSNode(node));
     }
 
@@ -30,7 +30,6 @@ import org.vstu.meaningtree.nodes.expressions.unary.*;
 import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
 import org.vstu.meaningtree.nodes.statements.assignments.AssignmentStatement;
 import org.vstu.meaningtree.utils.Label;
-import org.vstu.meaningtree.utils.TreeSitterUtils;
 import org.vstu.meaningtree.utils.tokens.*;
 
 import java.util.*;
@@ -215,7 +214,7 @@ public class PythonTokenizer extends LanguageTokenizer {
         } else {
             tokenType = TokenType.UNKNOWN;
         }
-        return new Token(TreeSitterUtils.getCodePiece(code, node), tokenType);
+        return new Token(source.getCodePiece(node), tokenType);
     }
 
     @Override
@@ -22,6 +22,11 @@ public class PythonTranslator extends LanguageTranslator {
         this.setViewer(new PythonViewer(this));
     }
 
+    public PythonTranslator(Config config) {
+        super(new PythonLanguage(), null, config);
+        this.setViewer(new PythonViewer(this));
+    }
+
     @Override
     public int getLanguageId() {
         return ID;
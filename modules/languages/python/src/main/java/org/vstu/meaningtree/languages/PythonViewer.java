@@ -62,6 +62,7 @@ import org.vstu.meaningtree.nodes.types.UserType;
 import org.vstu.meaningtree.nodes.types.builtin.*;
 import org.vstu.meaningtree.nodes.types.containers.*;
 import org.vstu.meaningtree.nodes.types.containers.components.Shape;
+import org.vstu.meaningtree.utils.CodeWriter;
 import org.vstu.meaningtree.utils.Label;
 import org.vstu.meaningtree.utils.env.SymbolEnvironment;
 import org.vstu.meaningtree.utils.tokens.OperatorToken;
@@ -90,28 +91,60 @@ public class PythonViewer extends LanguageViewer {
     }
 
     public String toString(Tab tab, Node ... nodes) {
-        StringBuilder builder = new StringBuilder();
+        return CodeWriter.render(out -> write(tab, out, nodes));
+    }
+
+    private void write(Tab tab, CodeWriter out, Node ... nodes) {
         for (int i = 0; i < nodes.length; i++) {
-            builder.append(toString(nodes[i], tab));
+            write(nodes[i], tab, out);
             if (i != nodes.length - 1) {
-                builder.append("\n");
-                builder.append(tab);
+                out.append("\n");
+                out.append(tab.toString());
             }
         }
-        return builder.toString();
+    }
+
+    @Override
+    public void write(Node node, CodeWriter out) {
+        // Для dummy узлов ничего не выводим
+        if (node.hasLabel(Label.DUMMY)) {
+            return;
+        }
+
+        write(node, new Tab(), out);
+    }
+
+    /**
+     * Выводит узел в приемник. Операторы, содержащие другие операторы, пишут их код прямо в приемник,
+     * остальные узлы выводятся через {@link #toString(Node, Tab)}
+     */
+    private void write(Node node, Tab tab, CodeWriter out) {
+        switch (node) {
+            case ProgramEntryPoint programEntryPoint -> writeEntryPoint(programEntryPoint, tab, out);
+            case IfStatement ifStatement -> writeCondition(ifStatement, tab, out);
+            case CompoundStatement exprNode -> writeBlock(exprNode, tab, out);
+            case ForLoop forLoop -> writeLoop(forLoop, tab, out);
+            case InfiniteLoop infLoop -> writeLoop(infLoop, tab, out);
+            case WhileLoop whileLoop -> writeLoop(whileLoop, tab, out);
+            case DoWhileLoop doWhileLoop -> writeLoop(doWhileLoop, tab, out);
+            case SwitchStatement switchStmt -> writeLoop(switchStmt, tab, out);
+            case FunctionDefinition funcDef -> writeFunction(funcDef, tab, out);
+            case ClassDefinition classDef -> writeClass(classDef, tab, out);
+            case null, default -> out.append(toString(node, tab));
+        }
     }
 
     public String toString(Node node, Tab tab) {
         return switch (node) {
-            case ProgramEntryPoint programEntryPoint -> entryPointToString(programEntryPoint, tab);
+            case ProgramEntryPoint programEntryPoint -> CodeWriter.render(out -> writeEntryPoint(programEntryPoint, tab, out));
             case AssignmentExpression assignmentExpr -> assignmentExpressionToString(assignmentExpr);
             case BinaryComparison cmpNode -> comparisonToString(cmpNode);
             case BinaryExpression binaryExpression -> binaryOpToString(binaryExpression);
-            case IfStatement ifStatement -> conditionToString(ifStatement, tab);
+            case IfStatement ifStatement -> CodeWriter.render(out -> writeCondition(ifStatement, tab, out));
             case PointerPackOp ptr -> toString(ptr);
             case PointerUnpackOp ptr -> toString(ptr);
             case UnaryExpression exprNode -> unaryToString(exprNode);
-            case CompoundStatement exprNode -> blockToString(exprNode, tab);
+            case CompoundStatement exprNode -> CodeWriter.render(out -> writeBlock(exprNode, tab, out));
             case CompoundComparison compound -> compoundComparisonToString(compound);
             case Type type -> typeToString(type);
             case FormatPrint fmt -> throw new UnsupportedViewingException("Format print is not supported in Python");
@@ -146,15 +179,15 @@ public class PythonViewer extends LanguageViewer {
             case SizeofExpression ignored -> throw new UnsupportedViewingException("Sizeof is disabled in this language");
             case AssignmentStatement assignmentStatement -> assignmentToString(assignmentStatement);
             case VariableDeclaration varDecl -> variableDeclarationToString(varDecl);
-            case ForLoop forLoop -> loopToString(forLoop, tab);
-            case InfiniteLoop infLoop -> loopToString(infLoop, tab);
-            case WhileLoop whileLoop -> loopToString(whileLoop, tab);
-            case DoWhileLoop doWhileLoop -> loopToString(doWhileLoop, tab);
-            case SwitchStatement switchStmt -> loopToString(switchStmt, tab);
-            case MethodDefinition methodDef -> functionToString(methodDef, tab);
-            case FunctionDefinition funcDef -> functionToString(funcDef, tab);
+            case ForLoop forLoop -> CodeWriter.render(out -> writeLoop(forLoop, tab, out));
+            case InfiniteLoop infLoop -> CodeWriter.render(out -> writeLoop(infLoop, tab, out));
+            case WhileLoop whileLoop -> CodeWriter.render(out -> writeLoop(whileLoop, tab, out));
+            case DoWhileLoop doWhileLoop -> CodeWriter.render(out -> writeLoop(doWhileLoop, tab, out));
+            case SwitchStatement switchStmt -> CodeWriter.render(out -> writeLoop(switchStmt, tab, out));
+            case MethodDefinition methodDef -> CodeWriter.render(out -> writeFunction(methodDef, tab, out));
+            case FunctionDefinition funcDef -> CodeWriter.render(out -> writeFunction(funcDef, tab, out));
             case ClassDeclaration classDecl -> classDeclToString(classDecl, tab);
-            case ClassDefinition classDef -> classToString(classDef, tab);
+            case ClassDefinition classDef -> CodeWriter.render(out -> writeClass(classDef, tab, out));
             case FunctionDeclaration funcDecl -> functionDeclarationToString(funcDecl, tab);
             case Import importStmt -> importToString(importStmt);
             case ExpressionStatement exprStmt -> toString(exprStmt);
@@ -286,28 +319,26 @@ public class PythonViewer extends LanguageViewer {
 
     private String functionDeclarationToString(FunctionDeclaration decl, Tab tab) {
         if (decl instanceof MethodDeclaration method) {
-            return functionToString(new MethodDefinition(method, new CompoundStatement(new SymbolEnvironment(null))), tab);
+            return toString(new MethodDefinition(method, new CompoundStatement(new SymbolEnvironment(null))), tab);
         }
-        return functionToString(new FunctionDefinition(decl, new CompoundStatement(new SymbolEnvironment(null))), tab);
+        return toString(new FunctionDefinition(decl, new CompoundStatement(new SymbolEnvironment(null))), tab);
     }
 
-    private String classToString(ClassDefinition def, Tab tab) {
-        StringBuilder builder = new StringBuilder();
+    private void writeClass(ClassDefinition def, Tab tab, CodeWriter out) {
         ClassDeclaration decl = (ClassDeclaration) def.getDeclaration();
         if (decl.getParents().isEmpty()) {
-            builder.append(String.format("class %s:\n", toString(decl.getName())));
+            out.append(String.format("class %s:\n", toString(decl.getName())));
         } else {
-            builder.append(String.format("class %s(%s):\n", toString(decl.getName()), String.join(", ", decl.getParents().stream().map(this::typeToString).toList().toArray(new String[0]))));
+            out.append(String.format("class %s(%s):\n", toString(decl.getName()), String.join(", ", decl.getParents().stream().map(this::typeToString).toList().toArray(new String[0]))));
         }
-        builder.append(toString(def.getBody(), tab));
-        return builder.toString();
+        write(def.getBody(), tab, out);
     }
 
     private String classDeclToString(ClassDeclaration decl, Tab tab) {
         return toString(new ClassDefinition(decl, new CompoundStatement(new SymbolEnvironment(null))), tab);
     }
 
-    private String functionToString(Definition func, Tab tab) {
+    private void writeFunction(Definition func, Tab tab, CodeWriter out) {
         StringBuilder function = new StringBuilder();
         FunctionDeclaration decl = (FunctionDeclaration) func.getDeclaration();
         for (Annotation anno : decl.getAnnotations()) {
@@ -353,12 +384,12 @@ public class PythonViewer extends LanguageViewer {
             function.append(typeToString(decl.getReturnType()));
         }
         function.append(":\n");
+        out.append(function);
         if (func instanceof MethodDefinition methodDef) {
-            function.append(toString(methodDef.getBody(), tab));
+            write(methodDef.getBody(), tab, out);
         } else if (func instanceof FunctionDefinition funcDef) {
-            function.append(toString(funcDef.getBody(), tab));
+            write(funcDef.getBody(), tab, out);
         }
-        return function.toString();
     }
 
     private String assignmentToString(MultipleAssignmentStatement stmtSequence) {
@@ -394,7 +425,7 @@ public class PythonViewer extends LanguageViewer {
         return builder.toString();
     }
 
-    private String entryPointToString(ProgramEntryPoint programEntryPoint, Tab tab) {
+    private void writeEntryPoint(ProgramEntryPoint programEntryPoint, Tab tab, CodeWriter out) {
         IfStatement entryPointIf = null;
         if (programEntryPoint.hasEntryPoint()) {
             Node entryPointNode = programEntryPoint.getEntryPoint();
@@ -423,72 +454,61 @@ public class PythonViewer extends LanguageViewer {
         if (entryPointIf != null) {
             nodes.add(entryPointIf);
         }
-        return nodeListToString(nodes, tab);
+        writeNodeList(nodes, tab, out);
     }
 
-    private String loopToString(Statement stmt, Tab tab) {
-        StringBuilder builder = new StringBuilder();
+    private void writeLoop(Statement stmt, Tab tab, CodeWriter out) {
         if (stmt instanceof RangeForLoop rangeFor) {
-            builder.append(
+            out.append(
                     String.format(
                             "for %s in %s:\n",
                             toString(rangeFor.getIdentifier()),
                             rangeFunctionToString(rangeFor.getRange())
                     )
             );
-            builder.append(toString(rangeFor.getBody(), tab));
+            write(rangeFor.getBody(), tab, out);
         } else if (stmt instanceof GeneralForLoop generalFor) {
-            return toString(tab, PythonSpecialNodeTransformations.representGeneralFor(generalFor));
+            write(tab, out, PythonSpecialNodeTransformations.representGeneralFor(generalFor));
         } else if (stmt instanceof DoWhileLoop doWhile) {
-            return toString(PythonSpecialNodeTransformations.representDoWhile(doWhile));
+            write(PythonSpecialNodeTransformations.representDoWhile(doWhile), out);
         } else if (stmt instanceof WhileLoop whileLoop) {
-            builder.append(String.format("while %s:\n", toString(whileLoop.getCondition())));
-            builder.append(toString(whileLoop.getBody(), tab));
+            out.append(String.format("while %s:\n", toString(whileLoop.getCondition())));
+            write(whileLoop.getBody(), tab, out);
         } else if (stmt instanceof ForEachLoop forEachLoop) {
             List<Expression> identifiers = new ArrayList<>();
             for (VariableDeclarator decl : forEachLoop.getItem().getDeclarators()) {
                 identifiers.add(decl.getIdentifier());
             }
-            builder.append(String.format("for %s in %s:\n", argumentsToString(identifiers), toString(forEachLoop.getExpression())));
-            builder.append(toString(forEachLoop.getBody(), tab));
+            out.append(String.format("for %s in %s:\n", argumentsToString(identifiers), toString(forEachLoop.getExpression())));
+            write(forEachLoop.getBody(), tab, out);
         } else if (stmt instanceof SwitchStatement switchStmt) {
             tab = tab.up();
-            builder.append(String.format("match %s:\n", toString(switchStmt.getTargetExpression())));
+            out.append(String.format("match %s:\n", toString(switchStmt.getTargetExpression())));
             for (CaseBlock caseBranch : switchStmt.getCases()) {
                 if (caseBranch == null) {
                     continue;
                 }
                 switch (caseBranch) {
                     case BasicCaseBlock basicCaseBlock -> {
-                        builder.append(
-                                String.format(
-                                        "%scase %s:\n%s\n",
-                                        tab,
-                                        toString(basicCaseBlock.getMatchValue()),
-                                        toString(basicCaseBlock.getBody(), tab)
-                                )
-                        );
+                        out.append(String.format("%scase %s:\n", tab, toString(basicCaseBlock.getMatchValue())));
+                        write(basicCaseBlock.getBody(), tab, out);
+                        out.append("\n");
                     }
                     case FallthroughCaseBlock fallthroughCaseBlock -> {
                         throw new UnsupportedOperationException("Cannot translate fallthrough case branches");
                     }
                     case DefaultCaseBlock defaultCaseBlock -> {
-                        builder.append(
-                                String.format(
-                                        "%scase _:\n%s\n",
-                                        tab,
-                                        toString(defaultCaseBlock.getBody(), tab)
-                                )
-                        );
+                        out.append(String.format("%scase _:\n", tab));
+                        write(defaultCaseBlock.getBody(), tab, out);
+                        out.append("\n");
                     }
                     default -> throw new IllegalStateException("Unexpected case block: " + caseBranch.getClass());
                 }
             }
         } else if (stmt instanceof InfiniteLoop infLoop) {
-            builder.append("while True:\n");
-            builder.append(toString(infLoop.getBody(), tab));
+            out.append("while True:\n");
+            write(infLoop.getBody(), tab, out);
         }
-        return builder.toString();
     }
 
     private String variableDeclarationToString(VariableDeclaration varDecl) {
@@ -852,29 +872,24 @@ public class PythonViewer extends LanguageViewer {
         return String.join(", ", exprStrings);
     }
 
-    private String conditionToString(IfStatement node, Tab tab) {
-        StringBuilder sb = new StringBuilder();
+    private void writeCondition(IfStatement node, Tab tab, CodeWriter out) {
+        CodeWriter.Mark mark = out.mark();
         for (int i = 0; i < node.getBranches().size(); i++) {
             ConditionBranch branch = node.getBranches().get(i);
             if (i == 0) {
-                if (!(branch.getBody() instanceof CompoundStatement))
-                    sb.append(String.format("if %s:\n%s\n", toString(branch.getCondition()), toString(branch.getBody(), tab.up())));
-                else
-                    sb.append(String.format("if %s:\n%s\n", toString(branch.getCondition()), toString(branch.getBody(), tab)));
+                out.append(String.format("if %s:\n", toString(branch.getCondition())));
             } else {
-                if (!(branch.getBody() instanceof CompoundStatement))
-                    sb.append(String.format("%selif %s:\n%s\n", tab, toString(branch.getCondition()), toString(branch.getBody(), tab.up())));
-                else
-                    sb.append(String.format("%selif %s:\n%s\n", tab, toString(branch.getCondition()), toString(branch.getBody(), tab)));
+                out.append(String.format("%selif %s:\n", tab, toString(branch.getCondition())));
             }
+            write(branch.getBody(), branch.getBody() instanceof CompoundStatement ? tab : tab.up(), out);
+            out.append("\n");
         }
         if (node.hasElseBranch()) {
-            if (!(node.getElseBranch() instanceof CompoundStatement))
-                sb.append(String.format("%selse:\n%s\n", tab, toString(node.getElseBranch(), tab.up())));
-            else
-                sb.append(String.format("%selse:\n%s\n", tab, toString(node.getElseBranch(), tab)));
+            out.append(String.format("%selse:\n", tab));
+            write(node.getElseBranch(), node.getElseBranch() instanceof CompoundStatement ? tab : tab.up(), out);
+            out.append("\n");
         }
-        return sb.toString().stripTrailing();
+        out.stripTrailing(mark);
     }
 
     private String unaryToString(UnaryExpression node) {
@@ -917,41 +932,40 @@ public class PythonViewer extends LanguageViewer {
         return String.format(pattern, toString(expr));
     }
 
-    private String blockToString(CompoundStatement node, Tab tab) {
-        StringBuilder builder = new StringBuilder();
+    private void writeBlock(CompoundStatement node, Tab tab, CodeWriter out) {
         tab = tab.up();
         if (node.getNodes().length == 0) {
-            return tab.toString().concat("pass");
-        }
-        for (Node child : node.getNodes()) {
-            builder.append(tab);
-            if (child instanceof CompoundStatement) {
-                // Схлопываем лишний таб, так как блоки как самостоятельная сущность в Python не поддерживаются
-                builder.append(toString(child, tab.down().down()));
-            } else {
-                builder.append(toString(child, tab));
-            }
-            builder.append('\n');
+            out.append(tab.toString()).append("pass");
+            return;
         }
-        return builder.toString().stripTrailing();
+        writeChildren(Arrays.asList(node.getNodes()), tab, out);
     }
 
-    private String nodeListToString(List<Node> nodes, Tab tab) {
-        StringBuilder builder = new StringBuilder();
+    private void writeNodeList(List<Node> nodes, Tab tab, CodeWriter out) {
         if (nodes.isEmpty()) {
-            return "pass";
+            out.append("pass");
+            return;
         }
+        writeChildren(nodes, tab, out);
+    }
+
+    /**
+     * Выводит операторы построчно с отступом, без пробельных символов в конце
+     */
+    private void writeChildren(List<Node> nodes, Tab tab, CodeWriter out) {
+        CodeWriter.Mark mark = out.mark();
+        String indent = tab.toString();
         for (Node child : nodes) {
-            builder.append(tab);
+            out.append(indent);
             if (child instanceof CompoundStatement) {
                 // Схлопываем лишний таб, так как блоки как самостоятельная сущность в Python не поддерживаются
-                builder.append(toString(child, tab.down().down()));
+                write(child, tab.down().down(), out);
             } else {
-                builder.append(toString(child, tab));
+                write(child, tab, out);
             }
-            builder.append('\n');
+            out.append('\n');
         }
-        return builder.toString().stripTrailing();
+        out.stripTrailing(mark);
     }
 
     private String comparisonToString(BinaryComparison node) {
@@ -11,6 +11,8 @@ public class ExpressionDAG {
     public ExpressionDAG(Expression ... vertices) {
         edges = new LinkedHashMap<>();
         for (Expression vertex : vertices) {
+            // Отпечатки позволяют сравнениям вершин при поиске в графе сразу отвергать неравные поддеревья
+            vertex.computeStructuralHashes();
             edges.put(vertex, new ArrayList<>());
         }
         specialTaggedEdges = new LinkedHashMap<>();
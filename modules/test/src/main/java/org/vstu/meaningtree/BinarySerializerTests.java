@@ -0,0 +1,150 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.declarations.VariableDeclaration;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.serializers.binary.BinaryDeserializer;
+import org.vstu.meaningtree.serializers.binary.BinarySerializer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySerializerTests {
+    private static final File _resourcesDirectory = new File("src/main/resources");
+    private static final Map<String, String> _config = Map.of("translationUnitMode", "false", "skipErrors", "true");
+
+    @Test
+    void javaCorpusRoundTrip() throws IOException {
+        assertCorpusRoundTrip("java", new JavaTranslator(_config), false);
+    }
+
+    @Test
+    void pythonCorpusRoundTrip() throws IOException {
+        assertCorpusRoundTrip("python", new PythonTranslator(), true);
+    }
+
+    @Test
+    void cppCorpusRoundTrip() throws IOException {
+        assertCorpusRoundTrip("c++", new CppTranslator(_config), false);
+    }
+
+    @Test
+    void variableDeclarationsRoundTrip() {
+        assertDeclarationRoundTrip(new PythonTranslator(), "x = 1\n");
+        assertDeclarationRoundTrip(new CppTranslator(_config), "int main() {\n    int x = 1;\n}");
+    }
+
+    @Test
+    void rejectsDamagedData() {
+        byte[] bytes = new BinarySerializer().serialize(new PythonTranslator().getMeaningTree("x = 1\n"));
+        assertThrows(MeaningTreeException.class,
+                () -> new BinaryDeserializer().deserializeTree(Arrays.copyOf(bytes, bytes.length - 1)));
+        byte[] newer = bytes.clone();
+        newer[4] = 100;
+        assertThrows(MeaningTreeException.class, () -> new BinaryDeserializer().deserializeTree(newer));
+    }
+
+    @Test
+    void rejectsUnknownNodeTag() {
+        byte[] bytes = new BinarySerializer().serialize(new SimpleIdentifier("x"));
+        // Магия, версии формата и модели, таблица из одной строки "x", тип записи; затем тег узла
+        int tagPosition = 4 + 1 + 1 + 1 + 2 + 1;
+        byte[] unknown = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, unknown, 0, tagPosition);
+        unknown[tagPosition] = (byte) 0xFF;
+        unknown[tagPosition + 1] = 0x7F;
+        System.arraycopy(bytes, tagPosition + 1, unknown, tagPosition + 2, bytes.length - tagPosition - 1);
+        assertThrows(MeaningTreeException.class, () -> new BinaryDeserializer().deserialize(unknown));
+    }
+
+    @Test
+    void readsNodesThroughConstructors() {
+        Node node = new BinaryDeserializer().deserialize(new BinarySerializer().serialize(new SimpleIdentifier("x")));
+        assertEquals(new SimpleIdentifier("x"), node);
+    }
+
+    private static void assertDeclarationRoundTrip(LanguageTranslator translator, String code) {
+        MeaningTree tree = translator.getMeaningTree(code);
+        MeaningTree restored = roundTrip(tree);
+        assertFalse(restored.nodesOfType(VariableDeclaration.class).isEmpty());
+        assertEquals(translator.getCode(tree), translator.getCode(restored));
+    }
+
+    /**
+     * Сохраняет и читает каждую программу корпуса тестов, которую разбирает транслятор, и сравнивает
+     * восстановленное дерево с исходным: структуру, классы узлов в порядке обхода и сгенерированный по ним код
+     */
+    private static void assertCorpusRoundTrip(String language, LanguageTranslator translator, boolean indentSensitive)
+            throws IOException {
+        File[] files = _resourcesDirectory.listFiles();
+        if (files == null) {
+            throw new FileNotFoundException("В директории тестовых ресурсов не найдены тестировочные файлы!");
+        }
+
+        int checked = 0;
+        List<String> failures = new ArrayList<>();
+        for (File file : files) {
+            if (file.isDirectory() || !LanguageTests.checkExtension(file, "test")) {
+                continue;
+            }
+            for (TestGroup group : TestsParser.parse(Files.readString(file.toPath()))) {
+                for (TestCase testCase : group.getCases()) {
+                    for (TestCodeGroup codeGroup : testCase.getCodeGroups()) {
+                        if (!codeGroup.getLanguage().equals(language)) {
+                            continue;
+                        }
+                        for (SingleTestCode code : codeGroup) {
+                            MeaningTree tree;
+                            try {
+                                tree = translator.getMeaningTree(code.getFormattedCode(new CodeFormatter(indentSensitive)));
+                            } catch (RuntimeException | StackOverflowError e) {
+                                // Программы, которые транслятор пока не разбирает, проверяются в LanguageTests
+                                continue;
+                            }
+                            MeaningTree restored = roundTrip(tree);
+                            if (!tree.equals(restored) || !nodeClasses(tree).equals(nodeClasses(restored))
+                                    || !generate(translator, tree).equals(generate(translator, restored))) {
+                                failures.add(file.getName() + ": " + testCase.getName());
+                            }
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 0, "No " + language + " programs were parsed");
+        assertEquals(List.of(), failures);
+    }
+
+    private static MeaningTree roundTrip(MeaningTree tree) {
+        return new BinaryDeserializer().deserializeTree(new BinarySerializer().serialize(tree));
+    }
+
+    private static List<String> nodeClasses(MeaningTree tree) {
+        List<String> result = new ArrayList<>();
+        tree.getRootNode().iterate(true).forEach(info -> result.add(info.node().getClass().getName()));
+        return result;
+    }
+
+    private static String generate(LanguageTranslator translator, MeaningTree tree) {
+        try {
+            return translator.getCode(tree);
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+}
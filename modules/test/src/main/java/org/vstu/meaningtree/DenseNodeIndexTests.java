@@ -0,0 +1,137 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.TreeCursor;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+import org.vstu.meaningtree.nodes.expressions.math.AddOp;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DenseNodeIndexTests {
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x = x * 2 + 1;
+                }
+                if (x >= 100) {
+                    x = x > 200 ? 0 : -x;
+                }
+            }
+            """;
+
+    @Test
+    void smallTreeNumbering() {
+        // (a * b) + c: номера 0 - сложение, 1 - умножение, 2 - a, 3 - b, 4 - c
+        SimpleIdentifier a = new SimpleIdentifier("a");
+        SimpleIdentifier b = new SimpleIdentifier("b");
+        SimpleIdentifier c = new SimpleIdentifier("c");
+        MulOp mul = new MulOp(a, b);
+        AddOp add = new AddOp(mul, c);
+        DenseNodeIndex index = new MeaningTree(add).getDenseIndex();
+
+        assertEquals(5, index.size());
+        Node[] expected = {add, mul, a, b, c};
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], index.getNode(i));
+            assertEquals(i, index.getDenseId(expected[i]));
+        }
+        assertArrayEquals(new int[] {-1, 0, 1, 1, 0}, new int[] {
+                index.getParent(0), index.getParent(1), index.getParent(2), index.getParent(3), index.getParent(4)});
+        assertArrayEquals(new int[] {0, 1, 2, 2, 1}, new int[] {
+                index.getDepth(0), index.getDepth(1), index.getDepth(2), index.getDepth(3), index.getDepth(4)});
+        assertArrayEquals(new int[] {5, 4, 3, 4, 5}, new int[] {
+                index.getSubtreeEnd(0), index.getSubtreeEnd(1), index.getSubtreeEnd(2),
+                index.getSubtreeEnd(3), index.getSubtreeEnd(4)});
+        assertEquals(3, index.getSubtreeSize(1));
+
+        assertTrue(index.isAncestor(0, 4));
+        assertTrue(index.isAncestor(1, 3));
+        assertTrue(index.isAncestor(1, 1));
+        assertFalse(index.isAncestor(1, 4));
+        assertFalse(index.isAncestor(2, 3));
+        assertArrayEquals(new int[] {0, 1, 3}, index.getPath(3));
+        assertEquals(-1, index.getDenseId(new SimpleIdentifier("d")));
+    }
+
+    @Test
+    void numberingFollowsPreOrder() {
+        MeaningTree tree = new CppTranslator(Map.of("translationUnitMode", "false")).getMeaningTree(CPP_PROGRAM);
+        DenseNodeIndex index = tree.getDenseIndex();
+        List<NodeInfo> expected = new ArrayList<>();
+        tree.cursor().walk(cursor -> {
+            expected.add(new NodeInfo(cursor.currentNode(), cursor.parentNode(), null, cursor.getDepth()));
+            return TreeCursor.VisitResult.CONTINUE;
+        });
+
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < expected.size(); i++) {
+            NodeInfo info = expected.get(i);
+            assertSame(info.node(), index.getNode(i));
+            assertEquals(info.depth(), index.getDepth(i));
+            int parent = index.getParent(i);
+            if (info.parent() == null) {
+                assertEquals(-1, parent);
+            } else {
+                assertSame(info.parent(), index.getNode(parent));
+                assertTrue(parent < i);
+            }
+            // Поддерево - непрерывный диапазон более глубоких узлов, сразу за ним идет узел не глубже этого
+            int end = index.getSubtreeEnd(i);
+            assertTrue(end > i && end <= index.size());
+            for (int j = i + 1; j < end; j++) {
+                assertTrue(index.getDepth(j) > index.getDepth(i));
+                assertTrue(index.isAncestor(i, j));
+            }
+            assertTrue(end == index.size() || index.getDepth(end) <= index.getDepth(i));
+            assertEquals(i, index.getDenseIdByGlobalId(info.node().getId()));
+        }
+    }
+
+    @Test
+    void clonesShareGlobalIds() {
+        SimpleIdentifier x = new SimpleIdentifier("x");
+        SimpleIdentifier copy = (SimpleIdentifier) x.clone();
+        IntegerLiteral one = new IntegerLiteral(1);
+        AddOp add = new AddOp(new MulOp(x, one), copy);
+        assertEquals(x.getId(), copy.getId());
+
+        DenseNodeIndex index = new MeaningTree(add).getDenseIndex();
+        // По глобальному id находится первая по обходу копия, по самому узлу - именно он
+        assertEquals(2, index.getDenseIdByGlobalId(x.getId()));
+        assertEquals(2, index.getDenseId(x));
+        assertEquals(4, index.getDenseId(copy));
+        assertEquals(3, index.getDenseIdByGlobalId(one.getId()));
+        assertEquals(-1, index.getDenseIdByGlobalId(new SimpleIdentifier("y").getId()));
+        assertArrayEquals(new int[] {2, 4}, index.getByType(SimpleIdentifier.class));
+
+        // Копия, стоящая раньше оригинала, находится первой
+        DenseNodeIndex swapped = new MeaningTree(new AddOp(copy, new MulOp(x, one))).getDenseIndex();
+        assertEquals(1, swapped.getDenseIdByGlobalId(x.getId()));
+        assertSame(copy, swapped.getNode(swapped.getDenseIdByGlobalId(x.getId())));
+    }
+
+    @Test
+    void snapshotDoesNotOverwriteTreeNumbering() {
+        SimpleIdentifier a = new SimpleIdentifier("a");
+        MulOp mul = new MulOp(a, new SimpleIdentifier("b"));
+        MeaningTree tree = new MeaningTree(new AddOp(new SimpleIdentifier("c"), mul));
+        DenseNodeIndex index = tree.getDenseIndex();
+        assertEquals(3, index.getDenseId(a));
+
+        DenseNodeIndex snapshot = DenseNodeIndex.snapshot(mul);
+        assertEquals(3, snapshot.size());
+        assertSame(a, snapshot.getNode(1));
+        assertEquals(3, index.getDenseId(a));
+        assertEquals(1, snapshot.getDenseIdByGlobalId(a.getId()));
+    }
+}
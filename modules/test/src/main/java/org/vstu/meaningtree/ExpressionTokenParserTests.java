@@ -0,0 +1,149 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.ExpressionTokenParser;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение разбора выражений из токенов ({@link ExpressionTokenParser}) с разбором через tree sitter
+ */
+class ExpressionTokenParserTests {
+    /**
+     * Выражения, которые разборщик токенов обязан разобрать сам: приоритеты, ассоциативность, скобки, унарные операторы
+     */
+    private static final List<String> COMMON_EXPRESSIONS = List.of(
+            "a", "42", "3.5", "true", "false", "x1",
+            "a + b", "a - b - c", "a - (b - c)", "a - b + c", "a + b + c + d",
+            "a + b * c", "(a + b) * c", "a * (b + c) / d", "a / b % c", "a % b * c - d", "a / (b * c)",
+            "1 + 2 * 3 - 4 / 5", "100 * a + 0", "(a + b) * (c - d) / (e % f)", "((a))", "(a) + (b)",
+            "-a", "-a * b", "a + -b", "a * -b + c", "-a - -b", "-(-a)", "-(a + b) * c",
+            "!a", "!a && b", "!(a || b)", "a && !b || !c", "~a", "~a & b", "~(a | b)",
+            "a < b", "a <= b && b < c", "a > b || c >= d", "a == b", "a != b",
+            "a && b || c && d", "a || b && c", "a || b || c", "a & b | c ^ d", "a | b & c", "a ^ b ^ c",
+            "a + b < c * d", "a * b == c + d && e"
+    );
+
+    private static final List<String> JAVA_ONLY_EXPRESSIONS = List.of(
+            "a << 2 + b", "a >> b", "a >>> b >> c", "a < b == c > d"
+    );
+
+    /**
+     * Конструкции, которые разборщик токенов не поддерживает: они должны разбираться через tree sitter
+     * с тем же результатом
+     */
+    private static final List<String> JAVA_FALLBACK_EXPRESSIONS = List.of(
+            "f(a)", "g()", "f(a, b + c)", "f(g(a), b) * c", "a.b", "a.b.c + d", "a.f(b) - 1",
+            "a[i]", "a[i + 1] * b", "a ? b : c", "a > b ? a : b", "a ? b : c ? d : e", "(a ? b : c) + d",
+            "(int) a", "(double) a / b", "a++", "a--", "a++ + b", "-a++", "++a", "--a * b",
+            "a = b + c", "a += 1", "a instanceof B"
+    );
+
+    private static final List<String> CPP_FALLBACK_EXPRESSIONS = List.of(
+            "f(a)", "g()", "f(a, b + c)", "f(g(a), b) * c", "a.b", "a->b", "p->x * 2",
+            "a[i]", "a[i + 1] * b", "a ? b : c", "a > b ? a : b", "a ? b : c ? d : e",
+            "(int) a", "(double) a / b", "a++", "a--", "a++ + b", "++a",
+            "*p + 1", "&a", "a << 2", "a >> b", "sizeof(a)", "static_cast<int>(a)", "f(a)[0]", "!f(a)", "-a[i]",
+            "(a + f(b)) * c",
+            // В C++ это объявление переменной шаблонного типа a<b == c>
+            "a < b == c > d"
+    );
+
+    private static final Map<String, String> EXPRESSION_MODE = Map.of("expressionMode", "true");
+
+    /*
+     * Трансляторы без разборщика токенов разбирают все выражения через код и tree sitter.
+     * Счетчик показывает, сколько выражений дошло до разбора кода
+     */
+    private static final class CountingJavaTranslator extends JavaTranslator {
+        private final boolean tokenParser;
+        private int stringParses = 0;
+
+        CountingJavaTranslator(boolean tokenParser) {
+            super(EXPRESSION_MODE);
+            this.tokenParser = tokenParser;
+        }
+
+        @Override
+        protected ExpressionTokenParser getExpressionParser() {
+            return tokenParser ? super.getExpressionParser() : null;
+        }
+
+        @Override
+        public MeaningTree getMeaningTree(String code) {
+            stringParses++;
+            return super.getMeaningTree(code);
+        }
+    }
+
+    private static final class CountingCppTranslator extends CppTranslator {
+        private final boolean tokenParser;
+        private int stringParses = 0;
+
+        CountingCppTranslator(boolean tokenParser) {
+            super(EXPRESSION_MODE);
+            this.tokenParser = tokenParser;
+        }
+
+        @Override
+        protected ExpressionTokenParser getExpressionParser() {
+            return tokenParser ? super.getExpressionParser() : null;
+        }
+
+        @Override
+        public MeaningTree getMeaningTree(String code) {
+            stringParses++;
+            return super.getMeaningTree(code);
+        }
+    }
+
+    private static void assertSameTree(LanguageTranslator tokens, LanguageTranslator treeSitter, String expression) {
+        TokenList tokenList = treeSitter.getTokenizer().tokenize(expression);
+        MeaningTree expected = treeSitter.getMeaningTree(tokenList);
+        MeaningTree actual = tokens.getMeaningTree(tokens.getTokenizer().tokenize(expression));
+        assertEquals(expected.getRootNode(), actual.getRootNode(), expression);
+        assertEquals(treeSitter.getCode(expected), tokens.getCode(actual), expression);
+    }
+
+    @Test
+    void javaCorpus() {
+        CountingJavaTranslator tokens = new CountingJavaTranslator(true);
+        CountingJavaTranslator treeSitter = new CountingJavaTranslator(false);
+        List<String> parsed = new ArrayList<>(COMMON_EXPRESSIONS);
+        parsed.addAll(JAVA_ONLY_EXPRESSIONS);
+        for (String expression : parsed) {
+            assertSameTree(tokens, treeSitter, expression);
+            assertEquals(0, tokens.stringParses, expression + " was not parsed from tokens");
+        }
+        for (String expression : JAVA_FALLBACK_EXPRESSIONS) {
+            int before = tokens.stringParses;
+            assertSameTree(tokens, treeSitter, expression);
+            assertEquals(before + 1, tokens.stringParses, expression + " must be parsed by tree sitter");
+        }
+        assertTrue(parsed.size() + JAVA_FALLBACK_EXPRESSIONS.size() >= 60);
+    }
+
+    @Test
+    void cppCorpus() {
+        CountingCppTranslator tokens = new CountingCppTranslator(true);
+        CountingCppTranslator treeSitter = new CountingCppTranslator(false);
+        for (String expression : COMMON_EXPRESSIONS) {
+            assertSameTree(tokens, treeSitter, expression);
+            assertEquals(0, tokens.stringParses, expression + " was not parsed from tokens");
+        }
+        for (String expression : CPP_FALLBACK_EXPRESSIONS) {
+            int before = tokens.stringParses;
+            assertSameTree(tokens, treeSitter, expression);
+            assertEquals(before + 1, tokens.stringParses, expression + " must be parsed by tree sitter");
+        }
+        assertTrue(COMMON_EXPRESSIONS.size() + CPP_FALLBACK_EXPRESSIONS.size() >= 60);
+    }
+}
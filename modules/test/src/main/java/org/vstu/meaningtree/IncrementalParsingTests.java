@@ -0,0 +1,156 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.languages.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParsingTests {
+    private static final String JAVA_PROGRAM = """
+            public class Main {
+                public static void main(String[] args) {
+                    int x = 1;
+                    int y = x * 2 + 3;
+                    if (y > 4) {
+                        x = y - 1;
+                    }
+                }
+            }
+            """;
+
+    private static final String PYTHON_PROGRAM = """
+            x = 1
+            y = x * 2 + 3
+            if y > 4:
+                x = y - 1
+            print(x, y)
+            """;
+
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                int y = x * 2 + 3;
+                if (y > 4) {
+                    x = y - 1;
+                }
+                return x;
+            }
+            """;
+
+    private static TextEdit replace(String code, String oldText, String newText) {
+        int start = code.indexOf(oldText);
+        assertTrue(start >= 0, oldText);
+        return new TextEdit(start, start + oldText.length(), newText);
+    }
+
+    private static String apply(String code, TextEdit edit) {
+        return code.substring(0, edit.startByte()) + edit.newText() + code.substring(edit.oldEndByte());
+    }
+
+    private static Set<Long> ids(MeaningTree tree) {
+        Set<Long> ids = new HashSet<>();
+        for (NodeInfo info : tree) {
+            ids.add(info.node().getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Последовательно применяет правки, после каждой сравнивая инкрементальный разбор с полным.
+     * Полный разбор выполняет второй транслятор с той же историей разборов: транслятор Python
+     * запоминает выведенные типы переменных между разборами
+     */
+    private static void assertReparseMatchesFullParse(Supplier<LanguageTranslator> translators, String code, String... replacements) {
+        LanguageTranslator translator = translators.get();
+        LanguageTranslator reference = translators.get();
+        ParseSession session = translator.openIncrementalSession(code);
+        MeaningTree previous = translator.getMeaningTree(session);
+        reference.getMeaningTree(code);
+        for (int i = 0; i < replacements.length; i += 2) {
+            TextEdit edit = replace(code, replacements[i], replacements[i + 1]);
+            code = apply(code, edit);
+
+            ParseSession next = translator.reparse(session, List.of(edit));
+            session.close();
+            session = next;
+            MeaningTree incremental = translator.getMeaningTree(session);
+            MeaningTree full = reference.getMeaningTree(code);
+
+            assertEquals(full.getRootNode(), incremental.getRootNode());
+            assertEquals(reference.getCode(full), translator.getCode(incremental));
+
+            Set<Long> reused = ids(incremental);
+            reused.retainAll(ids(previous));
+            assertFalse(reused.isEmpty(), "no nodes reused after edit " + edit);
+            previous = incremental;
+        }
+        session.close();
+    }
+
+    @Test
+    void javaReparse() {
+        assertReparseMatchesFullParse(JavaTranslator::new, JAVA_PROGRAM,
+                "x * 2 + 3", "x * 5 + 3",
+                "y > 4", "y >= 40",
+                "x = y - 1;", "x = y - 1;\n            y = x;");
+    }
+
+    @Test
+    void pythonReparse() {
+        assertReparseMatchesFullParse(PythonTranslator::new, PYTHON_PROGRAM,
+                "x * 2 + 3", "x * 5 + 3",
+                "y > 4", "y >= 40",
+                "print(x, y)", "print(x, y, x + y)");
+    }
+
+    @Test
+    void cppReparse() {
+        assertReparseMatchesFullParse(CppTranslator::new, CPP_PROGRAM,
+                "x * 2 + 3", "x * 5 + 3",
+                "y > 4", "y >= 40",
+                "return x;", "x += y;\n    return x;");
+    }
+
+    @Test
+    void deletionAndInsertion() {
+        PythonTranslator translator = new PythonTranslator();
+        PythonTranslator reference = new PythonTranslator();
+        String code = PYTHON_PROGRAM;
+        ParseSession session = translator.openIncrementalSession(code);
+        translator.getMeaningTree(session);
+        reference.getMeaningTree(code);
+
+        int start = code.indexOf(" + 3");
+        List<TextEdit> edits = List.of(
+                TextEdit.delete(start, start + " + 3".length()),
+                TextEdit.insert(0, "z = 0\n")
+        );
+        String edited = "z = 0\n" + code.substring(0, start) + code.substring(start + " + 3".length());
+
+        try (ParseSession next = translator.reparse(session, edits)) {
+            assertEquals(reference.getMeaningTree(edited).getRootNode(), translator.getMeaningTree(next).getRootNode());
+        }
+        session.close();
+    }
+
+    @Test
+    void fullParseKeepsIncrementalSessionOpen() {
+        CppTranslator translator = new CppTranslator();
+        ParseSession session = translator.openIncrementalSession(CPP_PROGRAM);
+        translator.getMeaningTree(session);
+
+        translator.getMeaningTree("int main() { return 0; }");
+
+        assertFalse(session.isClosed());
+        try (ParseSession next = translator.reparse(session, List.of(replace(CPP_PROGRAM, "return x;", "return y;")))) {
+            assertTrue(translator.getCode(translator.getMeaningTree(next)).contains("return y;"));
+        }
+        session.close();
+    }
+}
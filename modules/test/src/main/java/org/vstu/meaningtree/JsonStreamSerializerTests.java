@@ -0,0 +1,181 @@
+package org.vstu.meaningtree;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.io.PrintValues;
+import org.vstu.meaningtree.nodes.statements.conditions.SwitchStatement;
+import org.vstu.meaningtree.nodes.statements.conditions.components.MatchValueCaseBlock;
+import org.vstu.meaningtree.serializers.json.JsonSerializer;
+import org.vstu.meaningtree.serializers.json.JsonStreamDeserializer;
+import org.vstu.meaningtree.serializers.json.JsonStreamSerializer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonStreamSerializerTests {
+    private static final String PYTHON_PROGRAM = """
+            x = 1
+            y = x * 2 + 3
+            print(x)
+            print(x, y)
+            while x < 10:
+                x += 1
+                if x % 2 == 0:
+                    continue
+                elif x > 7:
+                    break
+                else:
+                    print("odd", x)
+            """;
+
+    private static final String JAVA_PROGRAM = """
+            class Main {
+                public static void main(String[] args) {
+                    int x = 1;
+                    for (int i = 0; i < 10; i++) {
+                        x = x * 2 + i;
+                    }
+                    do {
+                        x--;
+                    } while (x > 0 && !(x == 5));
+                }
+            }
+            """;
+
+    private static final String SWITCH_PROGRAM = """
+            int main() {
+                int x = 1;
+                switch (x) {
+                    case 1:
+                        x = 2;
+                        break;
+                    case 2:
+                        x = 3;
+                    default:
+                        x = 0;
+                }
+            }
+            """;
+
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x <<= 1;
+                }
+                if (x >= 100) {
+                    x = x > 200 ? 0 : -x;
+                }
+            }
+            """;
+
+    @Test
+    void pythonProgramRoundTrip() throws IOException {
+        assertRoundTrip(new PythonTranslator().getMeaningTree(PYTHON_PROGRAM).getRootNode());
+    }
+
+    @Test
+    void javaProgramRoundTrip() throws IOException {
+        assertRoundTrip(new JavaTranslator(Map.of("translationUnitMode", "false"))
+                .getMeaningTree(JAVA_PROGRAM).getRootNode());
+    }
+
+    @Test
+    void switchStatementRoundTrip() throws IOException {
+        Node original = new CppTranslator(Map.of("translationUnitMode", "false"))
+                .getMeaningTree(SWITCH_PROGRAM).getRootNode();
+        Node restored = assertRoundTrip(original);
+        SwitchStatement expected = new MeaningTree(original).nodesOfType(SwitchStatement.class).getFirst();
+        SwitchStatement actual = new MeaningTree(restored).nodesOfType(SwitchStatement.class).getFirst();
+        assertEquals(2, actual.getCases().size());
+        assertTrue(actual.hasDefaultCase());
+        for (int i = 0; i < expected.getCases().size(); i++) {
+            MatchValueCaseBlock expectedCase = (MatchValueCaseBlock) expected.getCases().get(i);
+            MatchValueCaseBlock actualCase = assertInstanceOf(expectedCase.getClass(), actual.getCases().get(i));
+            assertEquals(expectedCase.getMatchValue(), actualCase.getMatchValue());
+        }
+    }
+
+    @Test
+    void cppProgramRoundTrip() throws IOException {
+        assertRoundTrip(new CppTranslator(Map.of("translationUnitMode", "false"))
+                .getMeaningTree(CPP_PROGRAM).getRootNode());
+    }
+
+    @Test
+    void printValuesKeepsSeparatorAndEnd() throws IOException {
+        PrintValues original = new PrintValues.PrintValuesBuilder()
+                .setValues(List.of(new SimpleIdentifier("a"), new SimpleIdentifier("b")))
+                .separateBy("-")
+                .endWith("")
+                .build();
+        PrintValues print = assertInstanceOf(PrintValues.class, assertRoundTrip(original));
+        assertEquals(2, print.valuesCount());
+        assertNotNull(print.separator);
+        assertEquals("-", print.separator.getUnescapedValue());
+        assertNotNull(print.end);
+        assertEquals("", print.end.getUnescapedValue());
+    }
+
+    @Test
+    void readsDomSerializerOutput() throws IOException {
+        Node root = new PythonTranslator().getMeaningTree("x = 1\nprint(x + 2)\n").getRootNode();
+        String json = new JsonSerializer().serialize(root).toString();
+        Node restored = new JsonStreamDeserializer().deserialize(new StringReader(json));
+        JsonStreamSerializer serializer = new JsonStreamSerializer();
+        assertEquals(withoutIds(write(serializer, root)), withoutIds(write(serializer, restored)));
+    }
+
+    @Test
+    void domSerializerMatchesStream() throws IOException {
+        Node root = new PythonTranslator().getMeaningTree(PYTHON_PROGRAM).getRootNode();
+        assertEquals(JsonParser.parseString(write(new JsonStreamSerializer(), root)),
+                new JsonSerializer().serialize(root));
+    }
+
+    /**
+     * Записывает узел, читает его обратно и проверяет, что повторная запись дает тот же документ
+     * с точностью до id узлов, которые при чтении назначаются заново
+     * @return прочитанный узел
+     */
+    private static Node assertRoundTrip(Node node) throws IOException {
+        JsonStreamSerializer serializer = new JsonStreamSerializer();
+        String json = write(serializer, node);
+        assertEquals(node.getId(), JsonParser.parseString(json).getAsJsonObject().get("id").getAsLong());
+        Node restored = new JsonStreamDeserializer().deserialize(new StringReader(json));
+        assertEquals(withoutIds(json), withoutIds(write(serializer, restored)));
+        return restored;
+    }
+
+    private static JsonElement withoutIds(String json) {
+        JsonElement element = JsonParser.parseString(json);
+        removeIds(element);
+        return element;
+    }
+
+    private static void removeIds(JsonElement element) {
+        if (element.isJsonObject()) {
+            element.getAsJsonObject().remove("id");
+            element.getAsJsonObject().entrySet().forEach(entry -> removeIds(entry.getValue()));
+        } else if (element.isJsonArray()) {
+            element.getAsJsonArray().forEach(JsonStreamSerializerTests::removeIds);
+        }
+    }
+
+    private static String write(JsonStreamSerializer serializer, Node node) throws IOException {
+        StringWriter out = new StringWriter();
+        serializer.serialize(node, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.statements.loops.control.BreakStatement;
+import org.vstu.meaningtree.utils.Label;
+import org.vstu.meaningtree.utils.LabelStore;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelStoreTests {
+    // Метки вне битовой маски: id от 64 и отрицательные
+    private static final short BEYOND_MASK = 64;
+    private static final short FAR = 1000;
+    private static final short NEGATIVE = -5;
+
+    @Test
+    void setReplaceAndRemove() {
+        LabelStore store = new LabelStore();
+        assertTrue(store.isEmpty());
+        assertNull(store.get(Label.VALUE));
+
+        store.set(new Label(Label.VALUE, "a"));
+        store.set(new Label(Label.DUMMY));
+        store.set(new Label(Label.ORIGIN, 1));
+        assertEquals(3, store.size());
+        assertEquals(Label.DUMMY, store.at(1).getId());
+
+        // Метка с тем же id заменяет прежнюю на ее месте
+        store.set(new Label(Label.VALUE, "b"));
+        assertEquals(3, store.size());
+        assertEquals("b", store.at(0).getAttribute());
+        assertEquals("b", store.get(Label.VALUE).getAttribute());
+
+        // Удаляется метка с тем же id, атрибут не важен
+        assertTrue(store.remove(new Label(Label.DUMMY, "other")));
+        assertFalse(store.has(Label.DUMMY));
+        assertNull(store.get(Label.DUMMY));
+        assertEquals(2, store.size());
+        assertEquals(Label.ORIGIN, store.at(1).getId());
+        assertFalse(store.remove(new Label(Label.DUMMY)));
+        assertFalse(store.remove(null));
+
+        assertEquals(Set.of(new Label(Label.VALUE), new Label(Label.ORIGIN)), store.toSet());
+
+        // Хранилище растет сверх начальной емкости
+        for (short id = 10; id < 20; id++) {
+            store.set(new Label(id));
+        }
+        assertEquals(12, store.size());
+        for (short id = 10; id < 20; id++) {
+            assertTrue(store.has(id));
+        }
+    }
+
+    @Test
+    void idsOutsideMask() {
+        LabelStore store = new LabelStore();
+        store.set(new Label((short) 63));
+        store.set(new Label(BEYOND_MASK, "x"));
+        store.set(new Label(FAR));
+        store.set(new Label(NEGATIVE));
+        store.set(new Label(Short.MIN_VALUE));
+
+        assertTrue(store.has((short) 63));
+        assertTrue(store.has(BEYOND_MASK));
+        assertTrue(store.has(FAR));
+        assertTrue(store.has(NEGATIVE));
+        assertTrue(store.has(Short.MIN_VALUE));
+        // id, совпадающие с ними по модулю 64, не отмечены
+        assertFalse(store.has((short) 0));
+        assertFalse(store.has((short) (FAR % 64)));
+        assertFalse(store.has((short) 65));
+        assertEquals("x", store.get(BEYOND_MASK).getAttribute());
+
+        store.set(new Label(BEYOND_MASK, "y"));
+        assertEquals(5, store.size());
+        assertEquals("y", store.get(BEYOND_MASK).getAttribute());
+
+        assertTrue(store.remove(new Label(BEYOND_MASK)));
+        assertFalse(store.has(BEYOND_MASK));
+        assertTrue(store.has(FAR));
+        assertTrue(store.remove(new Label(NEGATIVE)));
+        assertFalse(store.has(NEGATIVE));
+        assertTrue(store.has((short) 63));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        LabelStore store = new LabelStore();
+        store.set(new Label(Label.VALUE, 1));
+        store.set(new Label(FAR));
+        LabelStore copy = store.copy();
+        copy.set(new Label(Label.DUMMY));
+        copy.remove(new Label(FAR));
+
+        assertEquals(2, store.size());
+        assertTrue(store.has(FAR));
+        assertFalse(store.has(Label.DUMMY));
+        assertTrue(copy.has(Label.DUMMY));
+        assertFalse(copy.has(FAR));
+        assertTrue(LabelStore.contentEquals(new LabelStore(), new LabelStore().copy()));
+    }
+
+    @Test
+    void contentEqualityIgnoresOrder() {
+        LabelStore first = new LabelStore();
+        first.set(new Label(Label.VALUE, "a"));
+        first.set(new Label(FAR, 2));
+        first.set(new Label(Label.DUMMY));
+        LabelStore second = new LabelStore();
+        second.set(new Label(Label.DUMMY));
+        second.set(new Label(Label.VALUE, "a"));
+        second.set(new Label(FAR, 2));
+
+        assertTrue(LabelStore.contentEquals(first, second));
+        assertEquals(LabelStore.contentHashCode(first), LabelStore.contentHashCode(second));
+
+        // Атрибуты сравниваются
+        second.set(new Label(FAR, 3));
+        assertFalse(LabelStore.contentEquals(first, second));
+        second.set(new Label(FAR, 2));
+        second.set(new Label(BEYOND_MASK));
+        assertFalse(LabelStore.contentEquals(first, second));
+        second.remove(new Label(BEYOND_MASK));
+        assertTrue(LabelStore.contentEquals(first, second));
+
+        // Отсутствующее хранилище равно пустому, в том числе после удаления всех меток
+        LabelStore emptied = new LabelStore();
+        emptied.set(new Label(FAR));
+        emptied.remove(new Label(FAR));
+        assertTrue(LabelStore.contentEquals(null, emptied));
+        assertTrue(LabelStore.contentEquals(emptied, null));
+        assertEquals(LabelStore.contentHashCode(null), LabelStore.contentHashCode(emptied));
+        assertFalse(LabelStore.contentEquals(null, first));
+    }
+
+    @Test
+    void nodeEqualityIgnoresLabelOrder() {
+        // Оператор break сравнивается только по классу и меткам
+        BreakStatement first = new BreakStatement();
+        first.setLabel(new Label(Label.VALUE, "a"));
+        first.setLabel(new Label(FAR));
+        BreakStatement second = new BreakStatement();
+        second.setLabel(new Label(FAR));
+        second.setLabel(new Label(Label.VALUE, "a"));
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.removeLabel(FAR);
+        assertNotEquals(first, second);
+        first.removeLabel(FAR);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        // Узел, у которого удалили все метки, равен узлу без меток
+        first.removeLabel(Label.VALUE);
+        assertEquals(new BreakStatement(), first);
+        assertEquals(new BreakStatement().hashCode(), first.hashCode());
+
+        MeaningTree a = new MeaningTree(new SimpleIdentifier("y"));
+        a.setLabel(new Label(Label.ORIGIN, 1));
+        a.setLabel(new Label(BEYOND_MASK));
+        MeaningTree b = new MeaningTree(new SimpleIdentifier("y"));
+        b.setLabel(new Label(BEYOND_MASK));
+        b.setLabel(new Label(Label.ORIGIN, 1));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+}
@@ -0,0 +1,102 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.MeaningTreeCache;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.utils.SourceSpans;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeaningTreeCacheTests {
+    private static final String PYTHON_PROGRAM = """
+            x = 1
+            y = [i * 2 for i in range(x)]
+            while x < 10:
+                x += 1
+                if x % 2 == 0:
+                    print(x, y)
+            """;
+
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x <<= 1;
+                }
+                return x;
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pythonProgramIsReadBackFromDisk() throws IOException {
+        assertReadBackFromDisk(PythonTranslator::new, PYTHON_PROGRAM);
+    }
+
+    @Test
+    void cppProgramIsReadBackFromDisk() throws IOException {
+        assertReadBackFromDisk(() -> new CppTranslator(Map.of("translationUnitMode", "false")), CPP_PROGRAM);
+    }
+
+    @Test
+    void sourceSpansAreReadBackFromDisk() throws IOException {
+        Supplier<LanguageTranslator> factory = () -> new PythonTranslator(Map.of("retainSourceSpans", "true"));
+        MeaningTree original = parseWithCache(factory, PYTHON_PROGRAM, new MeaningTreeCache(10_000, directory));
+        MeaningTreeCache cache = new MeaningTreeCache(10_000, directory);
+        MeaningTree restored = parseWithCache(factory, PYTHON_PROGRAM, cache);
+
+        assertEquals(1, cache.getStats().diskHits());
+        assertNotNull(restored.getSourceSpans());
+        int offset = PYTHON_PROGRAM.indexOf("x % 2");
+        Node expected = original.getNodeAt(offset);
+        Node actual = restored.getNodeAt(offset);
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertEquals(expected, actual);
+        SourceSpans expectedSpans = original.getSourceSpans();
+        SourceSpans actualSpans = restored.getSourceSpans();
+        assertEquals(expectedSpans.getStartByte(expected.getId()), actualSpans.getStartByte(actual.getId()));
+        assertEquals(expectedSpans.getEndByte(expected.getId()), actualSpans.getEndByte(actual.getId()));
+    }
+
+    /**
+     * Разбирает программу с кэшем на диске, затем читает ее новым кэшем с пустой памятью
+     * и проверяет, что дерево взято с диска без повторного разбора и совпадает с исходным
+     */
+    private void assertReadBackFromDisk(Supplier<LanguageTranslator> factory, String code) throws IOException {
+        MeaningTree original = parseWithCache(factory, code, new MeaningTreeCache(10_000, directory));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".mtb")).count());
+        }
+
+        MeaningTreeCache cache = new MeaningTreeCache(10_000, directory);
+        MeaningTree restored = parseWithCache(factory, code, cache);
+        MeaningTreeCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.diskHits());
+        assertEquals(0, stats.misses());
+        assertEquals(0, stats.diskErrors());
+
+        assertEquals(original, restored);
+        LanguageTranslator translator = factory.get();
+        assertEquals(translator.getCode(original), translator.getCode(restored));
+    }
+
+    private static MeaningTree parseWithCache(Supplier<LanguageTranslator> factory, String code, MeaningTreeCache cache) {
+        LanguageTranslator translator = factory.get();
+        translator.setCache(cache);
+        return translator.getMeaningTree(code);
+    }
+}
@@ -0,0 +1,196 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.DFSNodeIterator;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.nodes.Expression;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+import org.vstu.meaningtree.nodes.expressions.math.AddOp;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+import org.vstu.meaningtree.nodes.statements.Loop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeaningTreeIndexTests {
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x = x * 2 + 1;
+                }
+                if (x >= 100) {
+                    x = x > 200 ? 0 : -x;
+                }
+            }
+            """;
+
+    private static MeaningTree parse() {
+        return new CppTranslator(Map.of("translationUnitMode", "false")).getMeaningTree(CPP_PROGRAM);
+    }
+
+    private static List<Node> order(MeaningTree tree) {
+        List<Node> nodes = new ArrayList<>();
+        for (NodeInfo info : tree) {
+            nodes.add(info.node());
+        }
+        return nodes;
+    }
+
+    /**
+     * Проверяет, что индекс совпадает с построенным заново по текущему дереву
+     */
+    private static void assertIndexIsFresh(MeaningTree tree) {
+        MeaningTreeIndex actual = tree.getIndex();
+        List<NodeInfo> expected = new ArrayList<>();
+        new DFSNodeIterator(tree.getRootNode(), true).forEachRemaining(expected::add);
+        assertEquals(expected.size(), actual.size());
+        for (NodeInfo info : expected) {
+            NodeInfo indexed = actual.get(info.id());
+            assertNotNull(indexed, info.node().toString());
+            assertSame(info.node(), indexed.node());
+            assertSame(info.parent(), indexed.parent());
+            assertEquals(info.depth(), indexed.depth());
+            assertSame(info.parent(), tree.findParentOfNode(info.node()));
+        }
+    }
+
+    /**
+     * Проверяет, что нумерация и таблица типов совпадают с построенными заново по текущему дереву
+     */
+    private static void assertDenseIndexIsFresh(MeaningTree tree, List<Class<?>> types) {
+        DenseNodeIndex actual = tree.getDenseIndex();
+        DenseNodeIndex expected = DenseNodeIndex.snapshot(tree.getRootNode());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.getNode(i), actual.getNode(i));
+            assertEquals(i, actual.getDenseId(actual.getNode(i)));
+            assertEquals(expected.getParent(i), actual.getParent(i));
+            assertEquals(expected.getDepth(i), actual.getDepth(i));
+            assertEquals(expected.getSubtreeEnd(i), actual.getSubtreeEnd(i));
+            long globalId = expected.getNode(i).getId();
+            assertEquals(expected.getDenseIdByGlobalId(globalId), actual.getDenseIdByGlobalId(globalId));
+        }
+        for (Class<?> type : types) {
+            assertArrayEquals(expected.getByType(type), actual.getByType(type), type.getSimpleName());
+        }
+    }
+
+    @Test
+    void parentLookupKeepsIterationOrder() {
+        MeaningTree tree = parse();
+        List<Node> before = order(tree);
+
+        for (Node node : before) {
+            tree.findParentOfNode(node);
+        }
+
+        assertEquals(before, order(tree));
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), order(tree).get(i));
+        }
+    }
+
+    @Test
+    void parentLookupWithAndWithoutIndex() {
+        MeaningTree tree = parse();
+        List<NodeInfo> infos = new ArrayList<>();
+        new DFSNodeIterator(tree.getRootNode(), true).forEachRemaining(infos::add);
+        for (NodeInfo info : infos) {
+            // Без индекса возвращается родитель первого при обходе узла, равного искомому
+            NodeInfo first = infos.stream().filter(other -> other.node().equals(info.node())).findFirst().orElseThrow();
+            assertSame(first.parent(), tree.findParentOfNode(info.node()));
+        }
+        assertNull(tree.findParentOfNode(tree.getRootNode()));
+
+        tree.makeIndex();
+        for (NodeInfo info : infos) {
+            assertSame(info.parent(), tree.findParentOfNode(info.node()));
+        }
+    }
+
+    @Test
+    void substituteUpdatesIndex() {
+        MeaningTree tree = parse();
+        tree.makeIndex();
+        MulOp mul = tree.nodesOfType(MulOp.class).getFirst();
+        Node parent = tree.findParentOfNode(mul);
+        int depth = tree.getIndex().getDepth(mul.getId());
+        List<Long> removed = new ArrayList<>();
+        mul.iterate(true).forEach(info -> removed.add(info.id()));
+
+        AddOp replacement = new AddOp(new SimpleIdentifier("y"), new IntegerLiteral(3));
+        assertTrue(tree.substitute(mul.getId(), replacement));
+
+        for (long id : removed) {
+            assertFalse(tree.getIndex().contains(id));
+        }
+        assertSame(parent, tree.findParentOfNode(replacement));
+        assertSame(replacement, tree.findParentOfNode(replacement.getLeft()));
+        assertEquals(depth, tree.getIndex().getDepth(replacement.getId()));
+        assertEquals(depth + 1, tree.getIndex().getDepth(replacement.getRight().getId()));
+        List<NodeInfo> path = tree.getIndex().getPath(replacement.getLeft().getId());
+        assertSame(tree.getRootNode(), path.getFirst().node());
+        assertSame(replacement.getLeft(), path.getLast().node());
+        assertIndexIsFresh(tree);
+    }
+
+    @Test
+    void changeRootRebuildsIndex() {
+        MeaningTree tree = parse();
+        tree.makeIndex();
+        AddOp add = tree.nodesOfType(AddOp.class).getFirst();
+
+        tree.changeRoot(add);
+
+        assertEquals(0, tree.getIndex().getDepth(add.getId()));
+        assertNull(tree.findParentOfNode(add));
+        assertIndexIsFresh(tree);
+    }
+
+    @Test
+    void nodesOfTypeAfterSubstitute() {
+        List<Class<?>> types = List.of(AddOp.class, MulOp.class, SimpleIdentifier.class, IntegerLiteral.class,
+                Expression.class, Loop.class);
+        MeaningTree tree = parse();
+        int identifiers = tree.nodesOfType(SimpleIdentifier.class).size();
+        MulOp mul = tree.nodesOfType(MulOp.class).getFirst();
+        Node firstIdentifier = tree.nodesOfType(SimpleIdentifier.class).getFirst();
+
+        // Поддерево меньше замененного: номера следующих узлов сдвигаются назад
+        SimpleIdentifier y = new SimpleIdentifier("y");
+        assertTrue(tree.substitute(mul.getId(), y));
+        assertTrue(tree.nodesOfType(MulOp.class).isEmpty());
+        assertTrue(tree.nodesOfType(SimpleIdentifier.class).contains(y));
+        assertEquals(identifiers, tree.nodesOfType(SimpleIdentifier.class).size());
+        assertEquals(1, tree.nodesOfType(Loop.class).size());
+        assertDenseIndexIsFresh(tree, types);
+
+        // Копия поддерева имеет те же глобальные id, но учитывается отдельно от оригинала.
+        // Идентификатор y - операнд сложения, поэтому копия сложения оказывается внутри оригинала
+        AddOp add = tree.nodesOfType(AddOp.class).getFirst();
+        AddOp copy = (AddOp) add.clone();
+        assertTrue(tree.substitute(y.getId(), new MulOp(copy, new IntegerLiteral(4))));
+        List<AddOp> adds = tree.nodesOfType(AddOp.class);
+        assertEquals(2, adds.size());
+        assertSame(add, adds.get(0));
+        assertSame(copy, adds.get(1));
+        assertEquals(copy.getId(), add.getId());
+        assertEquals(1, tree.nodesOfType(MulOp.class).size());
+        assertDenseIndexIsFresh(tree, types);
+
+        // Замена корня перенумеровывает все дерево
+        tree.changeRoot(add);
+        assertEquals(2, tree.nodesOfType(AddOp.class).size());
+        assertSame(copy, tree.nodesOfType(AddOp.class).get(1));
+        assertTrue(tree.nodesOfType(Loop.class).isEmpty());
+        assertEquals(-1, tree.getDenseIndex().getDenseId(firstIdentifier));
+        assertDenseIndexIsFresh(tree, types);
+    }
+}
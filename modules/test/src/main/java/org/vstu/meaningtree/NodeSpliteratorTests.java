@@ -0,0 +1,167 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.NodeSpliterator;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.nodes.Expression;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+import org.vstu.meaningtree.nodes.expressions.math.AddOp;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeSpliteratorTests {
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x = x * 2 + 1;
+                }
+                if (x >= 100) {
+                    x = x > 200 ? 0 : -x;
+                }
+                return x;
+            }
+            """;
+
+    /**
+     * Случайное выражение примерно из size узлов; с вероятностью 1/4 ветвь вырождается в цепочку
+     */
+    private static Expression randomExpression(Random random, int size) {
+        if (size <= 1) {
+            return random.nextBoolean() ? new SimpleIdentifier("x") : new IntegerLiteral(random.nextInt(10));
+        }
+        int left = random.nextInt(4) == 0 ? size - 2 : random.nextInt(size - 1);
+        Expression l = randomExpression(random, left);
+        Expression r = randomExpression(random, size - 1 - left);
+        return random.nextBoolean() ? new AddOp(l, r) : new MulOp(l, r);
+    }
+
+    private static List<MeaningTree> trees() {
+        List<MeaningTree> trees = new ArrayList<>();
+        trees.add(new CppTranslator(Map.of("translationUnitMode", "false")).getMeaningTree(CPP_PROGRAM));
+        trees.add(new MeaningTree(new SimpleIdentifier("x")));
+        Random random = new Random(19);
+        for (int size : new int[] {2, 3, 10, 100, 1000, 5000}) {
+            trees.add(new MeaningTree(randomExpression(random, size)));
+        }
+        // Левая цепочка: середина диапазона всегда глубоко в поддереве первого ребенка
+        Expression chain = new SimpleIdentifier("x");
+        for (int i = 0; i < 300; i++) {
+            chain = new AddOp(chain, new IntegerLiteral(i));
+        }
+        trees.add(new MeaningTree(chain));
+        return trees;
+    }
+
+    /**
+     * Делит перебор до конца и записывает номера узлов частей в порядке частей
+     * @param from - номер первого узла перебора
+     */
+    private static void splitFully(DenseNodeIndex index, NodeSpliterator nodes, int from, List<Integer> visited) {
+        long size = nodes.estimateSize();
+        NodeSpliterator prefix = nodes.trySplit();
+        if (prefix == null) {
+            assertTrue(size < 2);
+            nodes.forEachRemaining(node -> visited.add(index.getDenseId(node)));
+            return;
+        }
+        int split = from + (int) prefix.estimateSize();
+        assertTrue(split > from && split < from + size);
+        assertEquals(size, prefix.estimateSize() + nodes.estimateSize());
+        // Граница частей - начало поддерева, родитель которого стоит первым в диапазоне или раньше него
+        assertTrue(index.getParent(split) <= from);
+        splitFully(index, prefix, from, visited);
+        splitFully(index, nodes, split, visited);
+    }
+
+    private static List<Node> sequential(MeaningTree tree) {
+        List<Node> nodes = new ArrayList<>();
+        tree.nodeSpliterator().forEachRemaining(nodes::add);
+        return nodes;
+    }
+
+    @Test
+    void splitsCoverRangeExactlyOnce() {
+        for (MeaningTree tree : trees()) {
+            DenseNodeIndex index = tree.getDenseIndex();
+            List<Integer> visited = new ArrayList<>();
+            splitFully(index, tree.nodeSpliterator(), 0, visited);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < index.size(); i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, visited);
+        }
+    }
+
+    @Test
+    void sequentialOrderIsPreOrder() {
+        for (MeaningTree tree : trees()) {
+            List<Node> expected = new ArrayList<>();
+            tree.cursor().forEachPreOrder(expected::add);
+            List<Node> actual = sequential(tree);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), actual.get(i));
+            }
+
+            // Перебор узла не включает его самого
+            Node root = tree.getRootNode();
+            List<Node> descendants = new ArrayList<>();
+            root.nodeSpliterator().forEachRemaining(descendants::add);
+            assertEquals(expected.size() - 1, descendants.size());
+            for (int i = 0; i < descendants.size(); i++) {
+                assertSame(expected.get(i + 1), descendants.get(i));
+            }
+        }
+    }
+
+    @Test
+    void parallelStreamKeepsOrder() {
+        for (MeaningTree tree : trees()) {
+            List<Node> expected = sequential(tree);
+            List<Node> actual = tree.stream().parallel().toList();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    void parallelVisitMatchesSequentialVisit() {
+        for (MeaningTree tree : trees()) {
+            List<Node> expected = sequential(tree);
+            for (int granularity : new int[] {1, 7, NodeSpliterator.DEFAULT_GRANULARITY}) {
+                ConcurrentLinkedQueue<Node> visited = new ConcurrentLinkedQueue<>();
+                tree.parallelVisit(visited::add, granularity);
+                assertVisitedOnce(expected, visited);
+            }
+
+            ConcurrentLinkedQueue<Node> descendants = new ConcurrentLinkedQueue<>();
+            tree.getRootNode().parallelVisit(descendants::add, 3);
+            assertVisitedOnce(expected.subList(1, expected.size()), descendants);
+        }
+        assertThrows(IllegalArgumentException.class, () -> trees().getFirst().parallelVisit(node -> {}, 0));
+    }
+
+    /**
+     * Каждый узел посещен ровно один раз, порядок не важен. Узлы сравниваются по ссылке
+     */
+    private static void assertVisitedOnce(List<Node> expected, Collection<Node> visited) {
+        assertEquals(expected.size(), visited.size());
+        Map<Node, Integer> counts = new IdentityHashMap<>();
+        for (Node node : visited) {
+            counts.merge(node, 1, Integer::sum);
+        }
+        for (Node node : expected) {
+            assertEquals(1, counts.getOrDefault(node, 0));
+        }
+    }
+}
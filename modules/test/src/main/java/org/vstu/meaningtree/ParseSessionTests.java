@@ -0,0 +1,87 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.treesitter.TSTree;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.languages.*;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseSessionTests {
+    private static final List<Supplier<LanguageTranslator>> TRANSLATORS = List.of(
+            JavaTranslator::new, CppTranslator::new, PythonTranslator::new
+    );
+
+    private static final List<String> PROGRAMS = List.of(
+            "public class Main { public static void main(String[] args) { int x = 1; } }",
+            "int main() { int x = 1; return x; }",
+            "x = 1\nprint(x)"
+    );
+
+    /**
+     * Ждет, пока сборщик мусора не освободит объект
+     */
+    private static boolean collected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return reference.get() == null;
+    }
+
+    @Test
+    void closeIsIdempotent() {
+        for (int i = 0; i < TRANSLATORS.size(); i++) {
+            LanguageTranslator translator = TRANSLATORS.get(i).get();
+            ParseSession session = translator.openIncrementalSession(PROGRAMS.get(i));
+            translator.getMeaningTree(session);
+
+            session.close();
+            assertTrue(session.isClosed());
+            session.close();
+            assertTrue(session.isClosed());
+            assertThrows(MeaningTreeException.class, session::getTree);
+            assertThrows(MeaningTreeException.class, session::getRootNode);
+            assertNotNull(session.getSource());
+        }
+    }
+
+    @Test
+    void closedSessionReleasesParseTree() throws InterruptedException {
+        for (int i = 0; i < TRANSLATORS.size(); i++) {
+            LanguageTranslator translator = TRANSLATORS.get(i).get();
+            ParseSession session = translator.openIncrementalSession(PROGRAMS.get(i));
+            MeaningTree tree = translator.getMeaningTree(session);
+            WeakReference<TSTree> parseTree = new WeakReference<>(session.getTree());
+
+            session.close();
+
+            // Нативное дерево удаляется Cleaner'ом привязки, когда на TSTree не остается ссылок.
+            // Ни транслятор, ни построенное дерево не должны удерживать его после закрытия сессии
+            assertTrue(collected(parseTree), translator.getClass().getSimpleName());
+            assertNotNull(tree.getRootNode());
+        }
+    }
+
+    @Test
+    void reparseDoesNotKeepPreviousParseTree() throws InterruptedException {
+        CppTranslator translator = new CppTranslator();
+        String code = PROGRAMS.get(1);
+        ParseSession session = translator.openIncrementalSession(code);
+        translator.getMeaningTree(session);
+        WeakReference<TSTree> previous = new WeakReference<>(session.getTree());
+
+        int start = code.indexOf("1");
+        try (ParseSession next = translator.reparse(session, List.of(new TextEdit(start, start + 1, "2")))) {
+            session.close();
+            session.close();
+            assertTrue(collected(previous));
+            assertFalse(next.isClosed());
+            assertNotNull(translator.getMeaningTree(next).getRootNode());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.ParenthesizedExpression;
+import org.vstu.meaningtree.nodes.expressions.calls.FunctionCall;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+import org.vstu.meaningtree.utils.SourceBuffer;
+import org.vstu.meaningtree.utils.SourceSpans;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceSpansTests {
+    // Код не заканчивается переводом строки, поэтому последний узел доходит до конца файла
+    private static final String PYTHON_PROGRAM = "x = 1\nwhile x < 100:\n    x = x * (2 + x)\nprint(x)";
+
+    /**
+     * Диапазон [start, end), записанный под номером record
+     */
+    private record Span(long id, int start, int end, int record) {
+        boolean contains(int offset) {
+            return start <= offset && offset < end;
+        }
+
+        int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Самый вложенный диапазон перебором: самый короткий из содержащих смещение, при равных - записанный раньше
+     */
+    private static long bruteForceInnermost(List<Span> spans, int offset) {
+        Span best = null;
+        for (Span span : spans) {
+            if (span.contains(offset) && (best == null || span.length() < best.length()
+                    || span.length() == best.length() && span.record() < best.record())) {
+                best = span;
+            }
+        }
+        return best == null ? -1 : best.id();
+    }
+
+    private static SourceSpans build(List<Span> spans, int sourceLength) {
+        SourceSpans.Builder builder = new SourceSpans.Builder();
+        for (Span span : spans) {
+            builder.add(span.id(), span.start(), span.end());
+        }
+        return builder.build(new int[] {0}, sourceLength);
+    }
+
+    private static void assertPointQueries(List<Span> spans, int sourceLength) {
+        SourceSpans index = build(spans, sourceLength);
+        assertEquals(spans.size(), index.size());
+        for (Span span : spans) {
+            assertEquals(span.start(), index.getStartByte(span.id()));
+            assertEquals(span.end(), index.getEndByte(span.id()));
+        }
+        for (int offset = -1; offset <= sourceLength + 1; offset++) {
+            assertEquals(bruteForceInnermost(spans, offset), index.findInnermost(offset), "offset " + offset);
+        }
+    }
+
+    /**
+     * Вложенные диапазоны, как при разборе: дети записываются раньше родителя
+     */
+    private static void nested(Random random, List<Span> spans, int start, int end, int depth) {
+        int position = start;
+        while (depth < 5 && position < end && random.nextInt(4) != 0) {
+            int childStart = position + random.nextInt(Math.min(3, end - position));
+            int childEnd = childStart + random.nextInt(end - childStart + 1);
+            nested(random, spans, childStart, childEnd, depth + 1);
+            position = Math.max(childEnd, childStart + 1);
+        }
+        spans.add(new Span(spans.size() + 1000L, start, end, spans.size()));
+    }
+
+    @Test
+    void nestedEmptyAndEndOfFileSpans() {
+        int length = 20;
+        List<Span> spans = List.of(
+                new Span(5, 4, 6, 0),
+                // Пустой диапазон не содержит ни одного смещения
+                new Span(6, 8, 8, 1),
+                new Span(3, 2, 10, 2),
+                // Диапазон у конца файла
+                new Span(7, 15, 20, 3),
+                new Span(4, 12, 20, 4),
+                // Два узла с одинаковым диапазоном: вложенным считается записанный раньше
+                new Span(9, 0, 20, 5),
+                new Span(2, 0, 20, 6)
+        );
+        assertPointQueries(spans, length);
+
+        SourceSpans index = build(spans, length);
+        assertEquals(5, index.findInnermost(4));
+        assertEquals(3, index.findInnermost(6));
+        assertEquals(3, index.findInnermost(8));
+        assertEquals(9, index.findInnermost(11));
+        assertEquals(7, index.findInnermost(19));
+        assertEquals(-1, index.findInnermost(20));
+        assertEquals(8, index.getStartByte(6));
+        assertEquals(8, index.getEndByte(6));
+        assertEquals(-1, index.getStartByte(100));
+    }
+
+    @Test
+    void onlyEmptySpans() {
+        assertPointQueries(List.of(new Span(1, 0, 0, 0), new Span(2, 3, 3, 1)), 3);
+        assertPointQueries(List.of(), 0);
+    }
+
+    @Test
+    void randomNestedSpansMatchBruteForce() {
+        Random random = new Random(15);
+        for (int i = 0; i < 500; i++) {
+            int length = random.nextInt(40);
+            List<Span> spans = new ArrayList<>();
+            nested(random, spans, 0, length, 0);
+            assertPointQueries(spans, length);
+        }
+    }
+
+    @Test
+    void lineAndColumnAtEndOfFile() {
+        SourceSpans.Builder builder = new SourceSpans.Builder();
+        builder.add(1, 0, 9);
+        SourceSpans spans = builder.build(new SourceBuffer("ab\ncd\n\nef"));
+        assertEquals(9, spans.getSourceLength());
+        assertArrayEquals(new int[] {0, 3, 6, 7}, spans.getLineStarts());
+        assertEquals(6, spans.toByteOffset(2, 0));
+        assertEquals(-1, spans.toByteOffset(2, 2));
+        assertEquals(9, spans.toByteOffset(3, 2));
+        assertEquals(-1, spans.toByteOffset(3, 3));
+        assertEquals(-1, spans.toByteOffset(4, 0));
+        assertEquals(3, spans.getLine(9));
+        assertEquals(2, spans.getColumn(9));
+        assertEquals(-1, spans.findInnermost(spans.toByteOffset(3, 2)));
+    }
+
+    @Test
+    void parsedTreePointQueries() {
+        MeaningTree tree = new PythonTranslator(Map.of("retainSourceSpans", "true")).getMeaningTree(PYTHON_PROGRAM);
+        SourceSpans spans = tree.getSourceSpans();
+        assertNotNull(spans);
+        int length = PYTHON_PROGRAM.length();
+        assertEquals(length, spans.getSourceLength());
+
+        List<Span> recorded = new ArrayList<>();
+        for (NodeInfo info : tree) {
+            long id = info.node().getId();
+            if (spans.hasSpan(id)) {
+                recorded.add(new Span(id, spans.getStartByte(id), spans.getEndByte(id), recorded.size()));
+                // Диапазон узла лежит внутри диапазона ближайшего предка, у которого он есть
+                List<NodeInfo> path = tree.getIndex().getPath(id);
+                for (int i = path.size() - 2; i >= 0; i--) {
+                    long parent = path.get(i).id();
+                    if (spans.hasSpan(parent)) {
+                        assertTrue(spans.getStartByte(parent) <= spans.getStartByte(id));
+                        assertTrue(spans.getEndByte(id) <= spans.getEndByte(parent));
+                        break;
+                    }
+                }
+            }
+        }
+        assertFalse(recorded.isEmpty());
+
+        for (int offset = 0; offset < length; offset++) {
+            Node node = tree.getNodeAt(offset);
+            if (node == null) {
+                continue;
+            }
+            long id = node.getId();
+            assertTrue(spans.getStartByte(id) <= offset && offset < spans.getEndByte(id), "offset " + offset);
+            // Ни один узел с более коротким диапазоном не содержит это смещение
+            for (Span span : recorded) {
+                if (span.contains(offset)) {
+                    assertTrue(span.length() >= spans.getEndByte(id) - spans.getStartByte(id), "offset " + offset);
+                }
+            }
+        }
+
+        Node call = tree.getNodeAt(3, "print(x".length());
+        assertInstanceOf(FunctionCall.class, call);
+        assertEquals(length, spans.getEndByte(call.getId()));
+        assertEquals("x", ((SimpleIdentifier) tree.getNodeAt(3, "print(".length())).getName());
+        assertNull(tree.getNodeAt(length));
+        assertNull(tree.getNodeAt(3, "print(x)".length()));
+        assertNull(tree.getNodeAt(3, 100));
+        assertNull(tree.getNodeAt(4, 0));
+    }
+
+    @Test
+    void expressionModeSpansPointToUserCode() {
+        String expression = "a * (b + c)";
+        MeaningTree tree = new JavaTranslator(Map.of("expressionMode", "true", "retainSourceSpans", "true"))
+                .getMeaningTree(expression);
+        SourceSpans spans = tree.getSourceSpans();
+        assertNotNull(spans);
+        assertEquals(expression.length(), spans.getSourceLength());
+
+        assertEquals("a", ((SimpleIdentifier) tree.getNodeAt(0)).getName());
+        assertInstanceOf(MulOp.class, tree.getNodeAt(expression.indexOf('*')));
+        assertInstanceOf(ParenthesizedExpression.class, tree.getNodeAt(expression.indexOf('(')));
+        assertEquals("b", ((SimpleIdentifier) tree.getNodeAt(expression.indexOf('b'))).getName());
+        assertEquals("c", ((SimpleIdentifier) tree.getNodeAt(0, expression.indexOf('c'))).getName());
+        assertInstanceOf(ParenthesizedExpression.class, tree.getNodeAt(expression.length() - 1));
+        assertNull(tree.getNodeAt(expression.length()));
+
+        Node root = tree.getRootNode();
+        assertEquals(0, spans.getStartByte(root.getId()));
+        assertEquals(expression.length(), spans.getEndByte(root.getId()));
+    }
+}
@@ -0,0 +1,146 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.calls.FunctionCall;
+import org.vstu.meaningtree.nodes.expressions.comparison.LtOp;
+import org.vstu.meaningtree.nodes.expressions.identifiers.QualifiedIdentifier;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.literals.IntegerLiteral;
+import org.vstu.meaningtree.nodes.expressions.math.AddOp;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+import org.vstu.meaningtree.nodes.statements.CompoundStatement;
+import org.vstu.meaningtree.nodes.statements.ExpressionStatement;
+import org.vstu.meaningtree.nodes.statements.loops.WhileLoop;
+import org.vstu.meaningtree.nodes.types.user.Class;
+import org.vstu.meaningtree.nodes.types.user.GenericClass;
+import org.vstu.meaningtree.utils.env.SymbolEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuralHashTests {
+    private static final String CPP_PROGRAM = """
+            int main() {
+                int x = 1;
+                while (x < 100) {
+                    x = x * 2 + 1;
+                }
+                if (x >= 100) {
+                    x = x > 200 ? 0 : -x;
+                }
+            }
+            """;
+
+    private static final String PYTHON_PROGRAM = """
+            x = 1
+            for i in range(10):
+                x += i
+            print(x)
+            """;
+
+    private static ExpressionStatement sampleStatement() {
+        return new ExpressionStatement(new AddOp(
+                new SimpleIdentifier("x"),
+                new FunctionCall(new SimpleIdentifier("f"),
+                        new ArrayList<>(List.of(new SimpleIdentifier("y"), new MulOp(new SimpleIdentifier("z"), new IntegerLiteral(2)))))
+        ));
+    }
+
+    @Test
+    void equalTreesHaveEqualHashes() {
+        List<MeaningTree> trees = List.of(
+                new CppTranslator(Map.of("translationUnitMode", "false")).getMeaningTree(CPP_PROGRAM),
+                new PythonTranslator().getMeaningTree(PYTHON_PROGRAM)
+        );
+        for (MeaningTree tree : trees) {
+            Node root = tree.getRootNode();
+            Node copy = root.clone();
+            root.computeStructuralHashes();
+            assertEquals(root, copy);
+            assertEquals(root.structuralHash(), copy.structuralHash());
+        }
+    }
+
+    @Test
+    void userTypeHashIgnoresScopeLikeEquals() {
+        Class qualified = new Class(new QualifiedIdentifier(new SimpleIdentifier("a"), new SimpleIdentifier("T")));
+        Class simple = new Class(new SimpleIdentifier("T"));
+        assertEquals(qualified, simple);
+        assertEquals(qualified.structuralHash(), simple.structuralHash());
+        assertEquals(qualified.hashCode(), simple.hashCode());
+        // Кэшированный отпечаток не должен ломать сравнение
+        assertEquals(qualified, simple);
+
+        GenericClass first = new GenericClass(new SimpleIdentifier("List"), new Class(new SimpleIdentifier("T")));
+        GenericClass second = new GenericClass(new SimpleIdentifier("List"), new Class(new SimpleIdentifier("U")));
+        assertNotEquals(first, second);
+        assertNotEquals(first.structuralHash(), second.structuralHash());
+    }
+
+    @Test
+    void nodesComparedByTypeHashByType() {
+        // Циклы и составные операторы сравниваются только по типу, отпечаток должен вести себя так же
+        WhileLoop first = new WhileLoop(new LtOp(new SimpleIdentifier("x"), new IntegerLiteral(10)),
+                new CompoundStatement(new SymbolEnvironment(null)));
+        WhileLoop second = new WhileLoop(new SimpleIdentifier("y"), new ExpressionStatement(new SimpleIdentifier("z")));
+        assertEquals(first, second);
+        assertEquals(first.structuralHash(), second.structuralHash());
+
+        first.makeCompoundBody(new SymbolEnvironment(null));
+        ((CompoundStatement) first.getBody()).insert(0, new ExpressionStatement(new SimpleIdentifier("y")));
+        assertEquals(first, second);
+        assertEquals(first.structuralHash(), second.structuralHash());
+    }
+
+    @Test
+    void fieldSubstitutionInvalidatesAncestors() {
+        ExpressionStatement statement = sampleStatement();
+        statement.computeStructuralHashes();
+        long before = statement.structuralHash();
+
+        MulOp mul = (MulOp) ((FunctionCall) ((AddOp) statement.getExpression()).getRight()).getArguments().get(1);
+        assertTrue(mul.substituteField("right", new IntegerLiteral(3)));
+
+        assertNotEquals(before, statement.structuralHash());
+        assertNotEquals(sampleStatement(), statement);
+        ExpressionStatement expected = sampleStatement();
+        MulOp expectedMul = (MulOp) ((FunctionCall) ((AddOp) expected.getExpression()).getRight()).getArguments().get(1);
+        expectedMul.substituteField("right", new IntegerLiteral(3));
+        assertEquals(expected, statement);
+        assertEquals(expected.structuralHash(), statement.structuralHash());
+    }
+
+    @Test
+    void collectionSubstitutionInvalidatesAncestors() {
+        ExpressionStatement statement = sampleStatement();
+        statement.computeStructuralHashes();
+        long before = statement.structuralHash();
+
+        FunctionCall call = (FunctionCall) ((AddOp) statement.getExpression()).getRight();
+        assertTrue(call.substituteCollectionField("arguments", new SimpleIdentifier("w"), 0));
+
+        assertNotEquals(before, statement.structuralHash());
+        assertNotEquals(sampleStatement(), statement);
+    }
+
+    @Test
+    void clonedTreeKeepsOwnHash() {
+        ExpressionStatement statement = sampleStatement();
+        Node copy = statement.clone();
+        statement.computeStructuralHashes();
+        copy.computeStructuralHashes();
+        assertEquals(statement.structuralHash(), copy.structuralHash());
+
+        ((AddOp) statement.getExpression()).substituteField("left", new SimpleIdentifier("q"));
+
+        assertNotEquals(statement.structuralHash(), copy.structuralHash());
+        assertEquals(sampleStatement().structuralHash(), copy.structuralHash());
+        assertEquals(sampleStatement(), copy);
+    }
+}
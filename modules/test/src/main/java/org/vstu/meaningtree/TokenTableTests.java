@@ -0,0 +1,240 @@
+package org.vstu.meaningtree;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.utils.tokens.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение запросов {@link TokenList}, работающих через {@link TokenTable}, с прежними реализациями,
+ * которые просматривали список токенов при каждом вызове
+ */
+class TokenTableTests {
+    private static final List<String> C_LIKE_EXPRESSIONS = List.of(
+            "a + b * c",
+            "(a + b) * (c - d) / e",
+            "((a - b) * c) % d",
+            "-a + !b && ~c",
+            "a < b && b <= c || c > d",
+            "a ? b : c",
+            "a > b ? (c ? d : e) : f + g",
+            "f(a, b + c) * g(h(d))",
+            "a[i + 1] * b[j]",
+            "a.b.c + d.e",
+            "y + f(z) * (w - 1) == x",
+            "a++ + --b",
+            "(a) / ((b + c) - (d))"
+    );
+
+    private static final List<String> PYTHON_EXPRESSIONS = List.of(
+            "a + b * c",
+            "(a + b) * (c - d) // e",
+            "not a and b or c",
+            "a if b else c",
+            "a < b <= c",
+            "f(a, b + c) * g(h(d))",
+            "a[i + 1] * b[j]",
+            "a.b.c + d.e",
+            "-a ** b"
+    );
+
+    @Test
+    void javaTokensMatchPreviousImplementation() {
+        assertAllQueries(new JavaTranslator(Map.of("expressionMode", "true")), C_LIKE_EXPRESSIONS);
+    }
+
+    @Test
+    void cppTokensMatchPreviousImplementation() {
+        assertAllQueries(new CppTranslator(Map.of("expressionMode", "true")), C_LIKE_EXPRESSIONS);
+    }
+
+    @Test
+    void pythonTokensMatchPreviousImplementation() {
+        assertAllQueries(new PythonTranslator(Map.of("expressionMode", "true")), PYTHON_EXPRESSIONS);
+    }
+
+    @Test
+    void tableIsRebuiltAfterModification() {
+        TokenList tokens = new JavaTranslator(Map.of("expressionMode", "true")).getTokenizer().tokenize("(a + b) * c");
+        TokenTable before = tokens.table();
+        assertSame(before, tokens.table());
+
+        tokens.set(0, new Token("x", TokenType.IDENTIFIER));
+        assertNotSame(before, tokens.table());
+        assertEquals("x", tokens.table().value(0));
+        assertQueries(tokens, "(a + b) * c with replaced brace");
+
+        TokenTable afterSet = tokens.table();
+        tokens.add(new Token(")", TokenType.CLOSING_BRACE));
+        assertNotSame(afterSet, tokens.table());
+        assertQueries(tokens, "(a + b) * c with appended brace");
+    }
+
+    private static void assertAllQueries(LanguageTranslator translator, List<String> expressions) {
+        boolean operands = false;
+        boolean complex = false;
+        for (String expression : expressions) {
+            for (TokenList tokens : List.of(translator.getTokenizer().tokenize(expression),
+                    translator.getTokenizer().tokenizeExtended(expression))) {
+                assertQueries(tokens, expression);
+                for (int i = 0; i < tokens.size(); i++) {
+                    operands |= tokens.get(i) instanceof OperatorToken && !tokens.findOperands(i).isEmpty();
+                    complex |= tokens.isInComplex(i) != null;
+                }
+            }
+        }
+        // Сравнение имеет смысл, только если токенайзер разметил операнды и составные операторы
+        assertTrue(operands);
+        assertTrue(complex);
+    }
+
+    private static void assertQueries(TokenList tokens, String expression) {
+        TokenTable table = tokens.table();
+        assertEquals(tokens.size(), table.size(), expression);
+        for (int i = 0; i < tokens.size(); i++) {
+            String at = expression + " @" + i;
+            assertSame(tokens.get(i), table.get(i), at);
+            assertEquals(tokens.get(i).value, table.value(i), at);
+            assertEquals(tokens.get(i).type, table.type(i), at);
+
+            assertSame(previousIsInComplex(tokens, i), tokens.isInComplex(i), at);
+            assertEquals(previousEnclosingParentheses(tokens, i), tokens.getEnclosingParentheses(i), at);
+
+            if (tokens.get(i) instanceof ComplexOperatorToken complex) {
+                assertEquals(tokens.findComplex(i, complex.getClosingPosition()), tokens.findClosingComplex(i), at);
+                assertEquals(tokens.findComplex(i, 0), tokens.findOpeningComplex(i), at);
+            }
+            if (tokens.get(i) instanceof OperatorToken) {
+                assertGroupsEqual(previousFindOperands(tokens, i), tokens.findOperands(i), at);
+                assertListsEqual(previousFindOperandsAsList(tokens, i), tokens.findOperandsAsList(i), at);
+                for (int j = 0; j < tokens.size(); j++) {
+                    if (tokens.get(j) instanceof OperandToken) {
+                        assertEquals(previousOperandPosition(tokens, j, i),
+                                tokens.isOperandInOperatorOperandsHierarchy(j, i), at + " operand @" + j);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertGroupsEqual(Map<OperandPosition, TokenGroup> expected,
+                                          Map<OperandPosition, TokenGroup> actual, String message) {
+        assertEquals(expected.keySet(), actual.keySet(), message);
+        for (OperandPosition pos : expected.keySet()) {
+            assertEquals(expected.get(pos).start, actual.get(pos).start, message + " " + pos);
+            assertEquals(expected.get(pos).stop, actual.get(pos).stop, message + " " + pos);
+        }
+    }
+
+    private static void assertListsEqual(Map<OperandPosition, TokenList> expected,
+                                         Map<OperandPosition, TokenList> actual, String message) {
+        assertEquals(expected.keySet(), actual.keySet(), message);
+        for (OperandPosition pos : expected.keySet()) {
+            assertEquals(expected.get(pos).size(), actual.get(pos).size(), message + " " + pos);
+            for (int k = 0; k < expected.get(pos).size(); k++) {
+                assertSame(expected.get(pos).get(k), actual.get(pos).get(k), message + " " + pos);
+            }
+        }
+    }
+
+    /*
+     * Прежние реализации запросов TokenList, просматривающие список при каждом вызове
+     */
+
+    private static ComplexOperatorToken previousIsInComplex(TokenList tokens, int tokenIndex) {
+        for (int i = tokenIndex; i >= 0; i--) {
+            if (tokens.get(i) instanceof ComplexOperatorToken complex && complex.isOpening()) {
+                if (tokenIndex > i && tokenIndex < tokens.findComplex(i, complex.getClosingPosition())) {
+                    return complex;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Pair<Integer, Integer> previousEnclosingParentheses(TokenList tokens, int operatorToken) {
+        if (!(tokens.get(operatorToken) instanceof OperatorToken)) {
+            return ImmutablePair.of(-1, -1);
+        }
+        for (int i = operatorToken; i >= 0; i--) {
+            if (tokens.get(i).type == TokenType.OPENING_BRACE) {
+                int brace = 1;
+                int closing = -1;
+                int j = i + 1;
+                for (; j < tokens.size() && brace != 0; j++) {
+                    if (tokens.get(j).type == TokenType.OPENING_BRACE) {
+                        brace++;
+                    } else if (tokens.get(j).type == TokenType.CLOSING_BRACE) {
+                        closing = j;
+                        brace--;
+                    }
+                }
+                if (brace == 0 && operatorToken > i && operatorToken < j) {
+                    return ImmutablePair.of(i, closing);
+                }
+            }
+        }
+        return ImmutablePair.of(-1, -1);
+    }
+
+    private static OperandPosition previousOperandPosition(TokenList tokens, int operandPos, int operatorPos) {
+        OperandToken operand = (OperandToken) tokens.get(operandPos);
+        while (operand.operandOf() != null) {
+            if (operand.operandOf().equals(tokens.get(operatorPos))) {
+                return operand.operandPosition();
+            }
+            operand = operand.operandOf();
+        }
+        return null;
+    }
+
+    private static Map<OperandPosition, TokenList> previousFindOperandsAsList(TokenList tokens, int opIndexToken) {
+        OperandToken op = (OperandToken) tokens.get(opIndexToken);
+        Map<OperandPosition, TokenList> result = new HashMap<>();
+        for (Token token : tokens) {
+            if (token instanceof OperandToken operand && operand.operandOf() != null && operand.operandOf().equals(op)) {
+                result.computeIfAbsent(operand.operandPosition(), pos -> new TokenList()).add(operand);
+            }
+        }
+        return result;
+    }
+
+    private static Map<OperandPosition, TokenGroup> previousFindOperands(TokenList tokens, int opIndexToken) {
+        Map<OperandPosition, TokenGroup> result = new HashMap<>();
+        int i = 0;
+        int start = -1;
+        int stop;
+        OperandPosition oldPos = null;
+        while (i < tokens.size()) {
+            OperandPosition pos;
+            if (tokens.get(i) instanceof OperandToken && (pos = previousOperandPosition(tokens, i, opIndexToken)) != null) {
+                if (oldPos != null && !oldPos.equals(pos)) {
+                    start = i;
+                }
+                if (start == -1) {
+                    start = i;
+                }
+                stop = i + 1;
+                while (stop < tokens.size() && tokens.get(stop) instanceof OperandToken
+                        && previousOperandPosition(tokens, stop, opIndexToken) == pos) {
+                    stop = i + 1;
+                    i++;
+                }
+                result.put(pos, new TokenGroup(start, stop, tokens));
+                oldPos = pos;
+            }
+            i++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.languages.JavaTranslator;
+import org.vstu.meaningtree.languages.LanguageTranslator;
+import org.vstu.meaningtree.languages.PythonTranslator;
+import org.vstu.meaningtree.utils.tokens.OperatorToken;
+import org.vstu.meaningtree.utils.tokens.Token;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+import org.vstu.meaningtree.utils.tokens.TokenType;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TokenizerConcurrencyTests {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 100;
+    private static final int TOKENS_PER_THREAD = 200_000;
+
+    private static final String[] EXPRESSIONS = {
+            "a + b * (c - d)",
+            "f(a, g(b, c[d + 1])) * 2",
+            "(a < b) && !(c || d)",
+            "x[i] + y[j] * z.w(k, m - 1)"
+    };
+
+    @Test
+    void tokenIdsAreUniqueAcrossThreads() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long[] created = new long[TOKENS_PER_THREAD];
+                    for (int i = 0; i < created.length; i++) {
+                        created[i] = new Token("x", TokenType.IDENTIFIER).getId();
+                    }
+                    for (long id : created) {
+                        ids.add(id);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+            assertEquals(THREADS * TOKENS_PER_THREAD, ids.size(), "Token ids must be unique across threads");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void javaTokenizeExtendedInParallel() throws Exception {
+        stress(() -> new JavaTranslator(Map.of("expressionMode", "true")), EXPRESSIONS);
+    }
+
+    @Test
+    void cppTokenizeExtendedInParallel() throws Exception {
+        stress(() -> new CppTranslator(Map.of("expressionMode", "true")), EXPRESSIONS);
+    }
+
+    @Test
+    void pythonTokenizeExtendedInParallel() throws Exception {
+        stress(PythonTranslator::new, new String[] {
+                "r = a + b * (c - d)",
+                "r = f(a, g(b, c[d + 1])) * 2",
+                "r = (a < b) and not (c or d)",
+                "r = x[i] + y[j] * z.w(k, m - 1)"
+        });
+    }
+
+    /**
+     * Токенизирует выражения во многих потоках (у каждого потока свой транслятор) и проверяет,
+     * что id токенов не повторяются, а результат и операнды операторов совпадают с однопоточными
+     */
+    private static void stress(Supplier<LanguageTranslator> translators, String[] expressions) throws Exception {
+        LanguageTranslator reference = translators.get();
+        List<String> expected = new ArrayList<>();
+        for (String expression : expressions) {
+            TokenList tokens = reference.getCodeAsTokens(reference.getMeaningTree(expression));
+            assertFalse(tokens.isEmpty(), expression);
+            expected.add(describe(tokens));
+        }
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    LanguageTranslator translator = translators.get();
+                    List<MeaningTree> trees = new ArrayList<>();
+                    for (String expression : expressions) {
+                        trees.add(translator.getMeaningTree(expression));
+                    }
+                    start.await();
+                    int tokens = 0;
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < trees.size(); i++) {
+                            TokenList list = translator.getTokenizer().tokenizeExtended(trees.get(i));
+                            assertEquals(expected.get(i), describe(list));
+                            for (Token token : list) {
+                                ids.add(token.getId());
+                            }
+                            tokens += list.size();
+                        }
+                    }
+                    return tokens;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(2, TimeUnit.MINUTES);
+            }
+            assertEquals(total, ids.size(), "Token ids must be unique across threads");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Значения токенов и операнды каждого оператора в виде строки, не зависящей от id
+     */
+    private static String describe(TokenList list) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < list.size(); i++) {
+            builder.append(list.get(i).value).append(' ');
+            if (list.get(i) instanceof OperatorToken) {
+                builder.append(new TreeMap<>(list.findOperands(i)).entrySet().stream()
+                        .map(e -> e.getKey() + "=" + e.getValue().start + ".." + e.getValue().stop).toList());
+            }
+        }
+        return builder.toString();
+    }
+}
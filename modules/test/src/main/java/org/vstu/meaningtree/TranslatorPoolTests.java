@@ -0,0 +1,209 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.exceptions.IllegalUsageException;
+import org.vstu.meaningtree.languages.*;
+import org.vstu.meaningtree.languages.configs.Config;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslatorPoolTests {
+    private static final int THREADS = 16;
+    private static final int POOL_SIZE = 4;
+    private static final int ROUNDS = 20;
+
+    private static final String[] JAVA_PROGRAMS = {
+            "class A { void f() { int x = 1; while (x < 100) { x = x * 2 + 1; } } }",
+            "class B { int g(int a, int b) { if (a > b) { return a - b; } return b - a; } }",
+            "class C { void h() { int s = 0; for (int i = 0; i < 10; i++) { s += i; } } }"
+    };
+
+    /**
+     * Пул Java-трансляторов, считающий созданные экземпляры
+     */
+    private static TranslatorPool<JavaTranslator> pool(AtomicInteger created, int size) {
+        return new TranslatorPool<>(config -> {
+            created.incrementAndGet();
+            return new JavaTranslator(config);
+        }, new Config(), size);
+    }
+
+    /**
+     * Ждет завершения задачи, которая должна быть заблокирована до освобождения транслятора
+     */
+    private static <T> T assertBlockedUntil(Future<T> future, Runnable release) throws Exception {
+        assertThrows(TimeoutException.class, () -> future.get(200, TimeUnit.MILLISECONDS));
+        release.run();
+        return future.get(1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    void leaseAndRelease() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        TranslatorPool<JavaTranslator> pool = pool(created, 2);
+        assertEquals(0, pool.getIdleCount());
+
+        TranslatorPool<JavaTranslator>.Lease first = pool.lease();
+        JavaTranslator translator = first.get();
+        assertNotNull(translator);
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+        assertThrows(IllegalUsageException.class, first::get);
+        // Повторное закрытие не возвращает транслятор и разрешение второй раз
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+
+        // Освобожденный транслятор выдается снова
+        try (TranslatorPool<JavaTranslator>.Lease second = pool.lease();
+             TranslatorPool<JavaTranslator>.Lease third = pool.lease()) {
+            assertSame(translator, second.get());
+            assertNotSame(translator, third.get());
+            assertEquals(0, pool.getIdleCount());
+            assertEquals(2, created.get());
+
+            // Все трансляторы заняты: следующая аренда ждет освобождения
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<JavaTranslator> waiting = executor.submit(() -> {
+                    try (TranslatorPool<JavaTranslator>.Lease lease = pool.lease()) {
+                        return lease.get();
+                    }
+                });
+                assertSame(translator, assertBlockedUntil(waiting, second::close));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void failedActionDropsTranslator() {
+        AtomicInteger created = new AtomicInteger();
+        TranslatorPool<JavaTranslator> pool = pool(created, 1);
+        JavaTranslator first = pool.execute(translator -> translator);
+        assertEquals(1, pool.getIdleCount());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> pool.execute(translator -> {
+            throw new IllegalStateException("broken");
+        }));
+        assertEquals("broken", error.getMessage());
+        assertEquals(0, pool.getIdleCount());
+
+        // Разрешение вернулось, а вместо отброшенного транслятора создается новый
+        JavaTranslator second = pool.execute(translator -> translator);
+        assertNotSame(first, second);
+        assertEquals(2, created.get());
+        assertEquals(1, pool.getIdleCount());
+
+        // Транслятор, помеченный как непригодный, тоже не возвращается в пул
+        try (TranslatorPool<JavaTranslator>.Lease lease = pool.lease()) {
+            lease.discard();
+        }
+        assertEquals(0, pool.getIdleCount());
+        assertNotSame(second, pool.execute(translator -> translator));
+    }
+
+    @Test
+    void failedFactoryReleasesPermit() {
+        TranslatorPool<JavaTranslator> pool = new TranslatorPool<>(config -> {
+            throw new IllegalStateException("no translator");
+        }, new Config(), 1);
+        // Если бы разрешение не возвращалось, вторая аренда ждала бы бесконечно
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> {
+            for (int i = 0; i < 3; i++) {
+                assertThrows(IllegalStateException.class, pool::lease);
+            }
+        });
+    }
+
+    @Test
+    void concurrentLeasesNeverShareTranslator() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        TranslatorPool<JavaTranslator> pool = pool(created, POOL_SIZE);
+        Set<JavaTranslator> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        pool.execute(translator -> {
+                            assertTrue(inUse.add(translator), "Translator is leased twice");
+                            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                            try {
+                                return translator.getMeaningTree(JAVA_PROGRAMS[0]);
+                            } finally {
+                                active.decrementAndGet();
+                                inUse.remove(translator);
+                            }
+                        });
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(maxActive.get() <= POOL_SIZE);
+        assertTrue(created.get() <= POOL_SIZE);
+        assertEquals(created.get(), pool.getIdleCount());
+    }
+
+    @Test
+    void serviceTranslatesInParallel() throws Exception {
+        JavaTranslator java = new JavaTranslator();
+        PythonTranslator python = new PythonTranslator();
+        TranslationService service = new TranslationService()
+                .register(java.getLanguageId(), new TranslatorPool<>(JavaTranslator::new, new Config(), POOL_SIZE))
+                .register(python.getLanguageId(), new TranslatorPool<>(PythonTranslator::new, new Config(), POOL_SIZE));
+        assertEquals(Set.of(java.getLanguageId(), python.getLanguageId()), service.getLanguageIds());
+        assertThrows(IllegalUsageException.class, () -> service.getPool(-1));
+
+        List<String> expected = new ArrayList<>();
+        for (String program : JAVA_PROGRAMS) {
+            expected.add(new PythonTranslator().getCode(new JavaTranslator().getMeaningTree(program)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        int i = (offset + round) % JAVA_PROGRAMS.length;
+                        assertEquals(expected.get(i),
+                                service.translate(java.getLanguageId(), python.getLanguageId(), JAVA_PROGRAMS[i]));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(service.getPool(java.getLanguageId()).getIdleCount() <= POOL_SIZE);
+        assertTrue(service.getPool(python.getLanguageId()).getIdleCount() <= POOL_SIZE);
+    }
+}
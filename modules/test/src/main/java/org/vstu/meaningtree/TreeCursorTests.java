@@ -0,0 +1,217 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.TreeCursor;
+import org.vstu.meaningtree.iterators.TreeCursor.VisitResult;
+import org.vstu.meaningtree.iterators.utils.TreeNode;
+import org.vstu.meaningtree.languages.CppTranslator;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.expressions.math.AddOp;
+import org.vstu.meaningtree.nodes.expressions.math.MulOp;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeCursorTests {
+    /**
+     * Узел с детьми в множестве: у множества нет произвольного доступа, поэтому курсор перебирает его итератором
+     */
+    private static class Group extends Node {
+        @TreeNode private Set<Node> members = new LinkedHashSet<>();
+
+        Group(Node... members) {
+            this.members.addAll(Arrays.asList(members));
+        }
+    }
+
+    private final SimpleIdentifier a = new SimpleIdentifier("a");
+    private final SimpleIdentifier b = new SimpleIdentifier("b");
+    private final SimpleIdentifier c = new SimpleIdentifier("c");
+    private final MulOp mul = new MulOp(a, b);
+    // (a * b) + c
+    private final AddOp add = new AddOp(mul, c);
+
+    /**
+     * Обходит дерево, записывая входы ("+a") и выходы ("-a") по именам идентификаторов и простым именам классов
+     */
+    private static List<String> events(TreeCursor cursor, Map<Node, VisitResult> onEnter, Map<Node, VisitResult> onLeave,
+                                       boolean[] completed) {
+        List<String> events = new ArrayList<>();
+        completed[0] = cursor.walk(new TreeCursor.Visitor() {
+            @Override
+            public VisitResult enter(TreeCursor cursor) {
+                events.add("+" + name(cursor.currentNode()));
+                return onEnter.getOrDefault(cursor.currentNode(), VisitResult.CONTINUE);
+            }
+
+            @Override
+            public VisitResult leave(TreeCursor cursor) {
+                events.add("-" + name(cursor.currentNode()));
+                return onLeave.getOrDefault(cursor.currentNode(), VisitResult.CONTINUE);
+            }
+        });
+        return events;
+    }
+
+    private static String name(Node node) {
+        return node instanceof SimpleIdentifier identifier ? identifier.getName() : node.getClass().getSimpleName();
+    }
+
+    @Test
+    void preAndPostOrder() {
+        TreeCursor cursor = new TreeCursor(add);
+        List<Node> pre = new ArrayList<>();
+        cursor.forEachPreOrder(pre::add);
+        assertEquals(List.of(add, mul, a, b, c), pre);
+        List<Node> post = new ArrayList<>();
+        cursor.forEachPostOrder(post::add);
+        assertEquals(List.of(a, b, mul, c, add), post);
+
+        boolean[] completed = new boolean[1];
+        assertEquals(List.of("+AddOp", "+MulOp", "+a", "-a", "+b", "-b", "-MulOp", "+c", "-c", "-AddOp"),
+                events(cursor, Map.of(), Map.of(), completed));
+        assertTrue(completed[0]);
+        assertSame(add, cursor.currentNode());
+        assertEquals(0, cursor.getDepth());
+        assertEquals(5, cursor.countNodes());
+    }
+
+    @Test
+    void preOrderMatchesDenseNumbering() {
+        MeaningTree tree = new CppTranslator(Map.of("translationUnitMode", "false")).getMeaningTree("""
+                int main() {
+                    int x = 1;
+                    while (x < 100) {
+                        x = x * 2 + 1;
+                    }
+                    return x;
+                }
+                """);
+        DenseNodeIndex index = tree.getDenseIndex();
+        List<Node> pre = new ArrayList<>();
+        tree.cursor().forEachPreOrder(pre::add);
+        assertEquals(index.size(), pre.size());
+        assertEquals(index.size(), tree.cursor().countNodes());
+        for (int i = 0; i < pre.size(); i++) {
+            assertSame(index.getNode(i), pre.get(i));
+        }
+    }
+
+    @Test
+    void navigation() {
+        TreeCursor cursor = new TreeCursor(add);
+        assertNull(cursor.parentNode());
+        assertNull(cursor.currentFieldName());
+        assertFalse(cursor.gotoNextSibling());
+        assertFalse(cursor.gotoParent());
+
+        assertTrue(cursor.gotoFirstChild());
+        assertSame(mul, cursor.currentNode());
+        assertSame(add, cursor.parentNode());
+        assertEquals("left", cursor.currentFieldName());
+        assertEquals(-1, cursor.currentIndex());
+        assertTrue(cursor.gotoFirstChild());
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(b, cursor.currentNode());
+        assertEquals(2, cursor.getDepth());
+        assertFalse(cursor.gotoNextSibling());
+        assertFalse(cursor.gotoFirstChild());
+        assertTrue(cursor.gotoParent());
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(c, cursor.currentNode());
+        assertEquals("right", cursor.currentFieldName());
+
+        cursor.reset(mul);
+        assertSame(mul, cursor.currentNode());
+        assertEquals(0, cursor.getDepth());
+        assertNull(cursor.parentNode());
+    }
+
+    @Test
+    void skipChildren() {
+        boolean[] completed = new boolean[1];
+        TreeCursor cursor = new TreeCursor(add);
+        // Из пропущенного узла все равно выходят
+        assertEquals(List.of("+AddOp", "+MulOp", "-MulOp", "+c", "-c", "-AddOp"),
+                events(cursor, Map.of(mul, VisitResult.SKIP_CHILDREN), Map.of(), completed));
+        assertTrue(completed[0]);
+        // При выходе SKIP_CHILDREN равносильно CONTINUE
+        assertEquals(List.of("+AddOp", "+MulOp", "+a", "-a", "+b", "-b", "-MulOp", "+c", "-c", "-AddOp"),
+                events(cursor, Map.of(), Map.of(mul, VisitResult.SKIP_CHILDREN, a, VisitResult.SKIP_CHILDREN), completed));
+        assertTrue(completed[0]);
+    }
+
+    @Test
+    void stopRewindsToStartNode() {
+        boolean[] completed = new boolean[1];
+        TreeCursor cursor = new TreeCursor(add);
+        assertEquals(List.of("+AddOp", "+MulOp", "+a", "-a", "+b"),
+                events(cursor, Map.of(b, VisitResult.STOP), Map.of(), completed));
+        assertFalse(completed[0]);
+        assertSame(add, cursor.currentNode());
+        assertEquals(0, cursor.getDepth());
+
+        // Остановка при выходе
+        assertEquals(List.of("+AddOp", "+MulOp", "+a", "-a", "+b", "-b", "-MulOp"),
+                events(cursor, Map.of(), Map.of(mul, VisitResult.STOP), completed));
+        assertFalse(completed[0]);
+        assertSame(add, cursor.currentNode());
+
+        // Обход поддерева возвращает курсор на узел, с которого начат обход, а не на корень
+        assertTrue(cursor.gotoFirstChild());
+        assertEquals(List.of("+MulOp", "+a"), events(cursor, Map.of(a, VisitResult.STOP), Map.of(), completed));
+        assertFalse(completed[0]);
+        assertSame(mul, cursor.currentNode());
+        assertEquals(1, cursor.getDepth());
+        assertEquals(List.of("+MulOp", "+a", "-a", "+b", "-b", "-MulOp"), events(cursor, Map.of(), Map.of(), completed));
+        assertTrue(completed[0]);
+        assertSame(mul, cursor.currentNode());
+        // Брат узла вне обхода не посещается, но остается доступен после него
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(c, cursor.currentNode());
+    }
+
+    @Test
+    void setValuedField() {
+        SimpleIdentifier x = new SimpleIdentifier("x");
+        SimpleIdentifier y = new SimpleIdentifier("y");
+        Group inner = new Group(mul, y);
+        Group group = new Group(x, inner, c);
+        TreeCursor cursor = new TreeCursor(group);
+
+        List<Node> pre = new ArrayList<>();
+        cursor.forEachPreOrder(pre::add);
+        assertEquals(List.of(group, x, inner, mul, a, b, y, c), pre);
+        List<Node> post = new ArrayList<>();
+        cursor.forEachPostOrder(post::add);
+        assertEquals(List.of(x, a, b, mul, y, inner, c, group), post);
+        assertEquals(8, cursor.countNodes());
+
+        // Итератор множества каждого уровня продолжает перебор после возврата из вложенного множества
+        assertTrue(cursor.gotoFirstChild());
+        assertEquals("members", cursor.currentFieldName());
+        assertEquals(0, cursor.currentIndex());
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(inner, cursor.currentNode());
+        assertEquals(1, cursor.currentIndex());
+        assertTrue(cursor.gotoFirstChild());
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(y, cursor.currentNode());
+        assertFalse(cursor.gotoNextSibling());
+        assertTrue(cursor.gotoParent());
+        assertTrue(cursor.gotoNextSibling());
+        assertSame(c, cursor.currentNode());
+        assertEquals(2, cursor.currentIndex());
+        assertFalse(cursor.gotoNextSibling());
+
+        // Остановка внутри множества тоже возвращает курсор к началу обхода
+        cursor.reset(group);
+        boolean[] completed = new boolean[1];
+        assertEquals(List.of("+Group", "+x", "-x", "+Group", "+MulOp", "-MulOp", "+y"),
+                events(cursor, Map.of(mul, VisitResult.SKIP_CHILDREN, y, VisitResult.STOP), Map.of(), completed));
+        assertFalse(completed[0]);
+        assertSame(group, cursor.currentNode());
+    }
+}
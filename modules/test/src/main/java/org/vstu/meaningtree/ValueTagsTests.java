@@ -0,0 +1,167 @@
+package org.vstu.meaningtree;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.iterators.utils.NodeInfo;
+import org.vstu.meaningtree.languages.*;
+import org.vstu.meaningtree.nodes.Node;
+import org.vstu.meaningtree.nodes.expressions.ParenthesizedExpression;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.utils.tokens.TokenGroup;
+import org.vstu.meaningtree.utils.tokens.TokenList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Привязка тегов значений групп токенов к узлам при построении дерева по токенам.
+ * Тег должен достаться самому вложенному узлу, содержащему группу, и при разборе из токенов,
+ * и при разборе через tree sitter кода, обернутого заглушкой режима выражений
+ */
+class ValueTagsTests {
+    private static final Map<String, String> EXPRESSION_MODE = Map.of("expressionMode", "true");
+
+    private static final String NESTED_PARENTHESES = "(a + (b * c)) - d";
+    private static final Map<String, String> NESTED_PARENTHESES_TAGS = Map.of(
+            "4..7", "MulOp",
+            "1..2", "SimpleIdentifier a",
+            "1..8", "AddOp",
+            "10..11", "SimpleIdentifier d",
+            "0..11", "SubOp"
+    );
+
+    private static final String NESTED_CALLS = "f(a + (b * c), d) - e";
+    private static final Map<String, String> NESTED_CALLS_TAGS = Map.of(
+            "2..3", "SimpleIdentifier a",
+            "5..8", "MulOp",
+            "2..9", "AddOp",
+            "10..11", "SimpleIdentifier d",
+            "0..12", "FunctionCall",
+            "13..14", "SimpleIdentifier e",
+            "0..14", "SubOp"
+    );
+
+    private static final List<Supplier<LanguageTranslator>> TRANSLATORS = List.of(
+            () -> new JavaTranslator(EXPRESSION_MODE),
+            () -> new CppTranslator(EXPRESSION_MODE),
+            () -> new PythonTranslator(EXPRESSION_MODE)
+    );
+
+    /*
+     * Трансляторы без разборщика токенов: выражение разбирается через tree sitter с заглушкой
+     */
+    private static final List<Supplier<LanguageTranslator>> TREE_SITTER_TRANSLATORS = List.of(
+            () -> new JavaTranslator(EXPRESSION_MODE) {
+                @Override
+                protected ExpressionTokenParser getExpressionParser() {
+                    return null;
+                }
+            },
+            () -> new CppTranslator(EXPRESSION_MODE) {
+                @Override
+                protected ExpressionTokenParser getExpressionParser() {
+                    return null;
+                }
+            }
+    );
+
+    /**
+     * Теги в виде "start..stop" для групп токенов [start, stop)
+     */
+    private static Map<TokenGroup, Object> tags(TokenList tokens, Iterable<String> ranges) {
+        Map<TokenGroup, Object> result = new HashMap<>();
+        for (String range : ranges) {
+            String[] bounds = range.split("\\.\\.");
+            result.put(new TokenGroup(Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]), tokens), range);
+        }
+        return result;
+    }
+
+    /**
+     * Тег и описание узла, которому он достался. Скобки не учитываются: они возвращают тег вложенного выражения
+     */
+    private static Map<String, String> taggedNodes(MeaningTree tree) {
+        Map<String, String> result = new HashMap<>();
+        for (NodeInfo info : tree) {
+            Node node = info.node();
+            if (node.getAssignedValueTag() != null && !(node instanceof ParenthesizedExpression)) {
+                String description = node.getClass().getSimpleName();
+                if (node instanceof SimpleIdentifier identifier) {
+                    description += " " + identifier.getName();
+                }
+                assertNull(result.put((String) node.getAssignedValueTag(), description), "tag assigned twice");
+            }
+        }
+        return result;
+    }
+
+    private static void assertTagged(LanguageTranslator translator, String expression, Map<String, String> expected) {
+        TokenList tokens = translator.getTokenizer().tokenize(expression);
+        MeaningTree tree = translator.getMeaningTree(tokens, tags(tokens, expected.keySet()));
+        assertEquals(expected, taggedNodes(tree), expression);
+    }
+
+    @Test
+    void nestedParentheses() {
+        for (Supplier<LanguageTranslator> translator : TRANSLATORS) {
+            assertTagged(translator.get(), NESTED_PARENTHESES, NESTED_PARENTHESES_TAGS);
+        }
+        for (Supplier<LanguageTranslator> translator : TREE_SITTER_TRANSLATORS) {
+            assertTagged(translator.get(), NESTED_PARENTHESES, NESTED_PARENTHESES_TAGS);
+        }
+    }
+
+    @Test
+    void nestedCalls() {
+        for (Supplier<LanguageTranslator> translator : TRANSLATORS) {
+            assertTagged(translator.get(), NESTED_CALLS, NESTED_CALLS_TAGS);
+        }
+    }
+
+    @Test
+    void deeplyNestedWrappedExpression() {
+        String expression = "g(f(a[i + 1]), (b - (c)))";
+        Map<String, String> expected = Map.of(
+                "6..9", "AddOp",
+                "4..10", "IndexExpression",
+                "2..11", "FunctionCall",
+                "13..18", "SubOp",
+                "16..17", "SimpleIdentifier c",
+                "0..20", "FunctionCall"
+        );
+        for (Supplier<LanguageTranslator> translator : TRANSLATORS) {
+            assertTagged(translator.get(), expression, expected);
+        }
+    }
+
+    @Test
+    void nonAsciiCodeBeforeTaggedGroup() {
+        // Диапазоны тегов считаются в байтах, а строка занимает больше байт, чем символов
+        String expression = "\"строка\" + (a * b)";
+        Map<String, String> expected = Map.of(
+                "3..6", "MulOp",
+                "5..6", "SimpleIdentifier b",
+                "0..7", "AddOp"
+        );
+        for (Supplier<LanguageTranslator> translator : TRANSLATORS) {
+            assertTagged(translator.get(), expression, expected);
+        }
+        for (Supplier<LanguageTranslator> translator : TREE_SITTER_TRANSLATORS) {
+            assertTagged(translator.get(), expression, expected);
+        }
+    }
+
+    @Test
+    void tagsDoNotLeakIntoNextParse() {
+        for (Supplier<LanguageTranslator> supplier : TREE_SITTER_TRANSLATORS) {
+            LanguageTranslator translator = supplier.get();
+            assertTagged(translator, NESTED_CALLS, NESTED_CALLS_TAGS);
+            TokenList tokens = translator.getTokenizer().tokenize(NESTED_CALLS);
+            assertTrue(taggedNodes(translator.getMeaningTree(tokens)).isEmpty());
+            assertTrue(taggedNodes(translator.getMeaningTree(NESTED_CALLS)).isEmpty());
+        }
+    }
+}
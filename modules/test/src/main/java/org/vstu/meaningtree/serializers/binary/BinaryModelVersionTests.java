@@ -0,0 +1,63 @@
+package org.vstu.meaningtree.serializers.binary;
+
+import org.junit.jupiter.api.Test;
+import org.vstu.meaningtree.exceptions.MeaningTreeException;
+import org.vstu.meaningtree.nodes.expressions.identifiers.SimpleIdentifier;
+import org.vstu.meaningtree.nodes.statements.ReturnStatement;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.vstu.meaningtree.serializers.binary.BinaryFormat.MODEL_VERSION;
+
+/**
+ * Чтение данных старых версий модели узлов. Реестр версии 1 здесь - начало текущего реестра до идентификатора
+ * включительно, а версия 2 - весь текущий реестр
+ */
+class BinaryModelVersionTests {
+    // Магия и версия формата; затем версия модели
+    private static final int MODEL_VERSION_POSITION = 4 + 1;
+
+    private static final int IDENTIFIER_TAG = NodeCodecs.of(new SimpleIdentifier("x")).tag();
+    private static final int[] HISTORY = {IDENTIFIER_TAG + 1, NodeCodecs.modelCodecCounts()[MODEL_VERSION - 1]};
+
+    private static byte[] withModelVersion(byte[] bytes, int version) {
+        byte[] result = bytes.clone();
+        result[MODEL_VERSION_POSITION] = (byte) version;
+        return result;
+    }
+
+    @Test
+    void currentRegistryEndsWithCurrentModelVersion() {
+        int[] counts = NodeCodecs.modelCodecCounts();
+        assertEquals(MODEL_VERSION, counts.length);
+        assertNotNull(NodeCodecs.byTag(counts[counts.length - 1] - 1));
+        assertNull(NodeCodecs.byTag(counts[counts.length - 1]));
+    }
+
+    @Test
+    void readsOlderModelVersion() throws IOException {
+        byte[] bytes = new BinarySerializer().serialize(new SimpleIdentifier("x"));
+        assertEquals(new SimpleIdentifier("x"), BinaryDeserializer.read(withModelVersion(bytes, 1), HISTORY));
+        assertEquals(new SimpleIdentifier("x"), BinaryDeserializer.read(withModelVersion(bytes, 2), HISTORY));
+    }
+
+    @Test
+    void rejectsTagsAddedAfterModelVersion() throws IOException {
+        ReturnStatement statement = new ReturnStatement(new SimpleIdentifier("x"));
+        assertTrue(NodeCodecs.of(statement).tag() > IDENTIFIER_TAG);
+        byte[] bytes = new BinarySerializer().serialize(statement);
+
+        assertInstanceOf(ReturnStatement.class, BinaryDeserializer.read(withModelVersion(bytes, 2), HISTORY));
+        assertThrows(IOException.class, () -> BinaryDeserializer.read(withModelVersion(bytes, 1), HISTORY));
+    }
+
+    @Test
+    void rejectsNewerAndUnknownModelVersions() {
+        byte[] bytes = new BinarySerializer().serialize(new SimpleIdentifier("x"));
+        assertThrows(MeaningTreeException.class, () -> BinaryDeserializer.read(withModelVersion(bytes, 3), HISTORY));
+        assertThrows(MeaningTreeException.class, () -> BinaryDeserializer.read(withModelVersion(bytes, 0), HISTORY));
+        assertThrows(MeaningTreeException.class,
+                () -> new BinaryDeserializer().deserialize(withModelVersion(bytes, MODEL_VERSION + 1)));
+    }
+}